@@ -0,0 +1,133 @@
+package org.entur.jwt.benchmark.client;
+
+import io.grpc.CallCredentials;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import org.entur.jwt.client.AccessToken;
+import org.entur.jwt.client.AccessTokenProvider;
+import org.entur.jwt.client.DefaultCachedAccessTokenProvider;
+import org.entur.jwt.client.grpc.AccessTokenCallCredentials;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call overhead of applying the Authorization header to gRPC calls, with a cached access-token:
+ * <ul>
+ *     <li>executor: always switch to the executor and create new metadata (the previous behaviour)</li>
+ *     <li>inline: apply cached metadata in the calling thread</li>
+ * </ul>
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessTokenCallCredentialsBenchmark {
+
+    /**
+     * Call credentials which get the access-token using the executor, and create new metadata per call.
+     */
+
+    public static class ExecutorAccessTokenCallCredentials extends CallCredentials {
+
+        private final AccessTokenProvider accessTokenProvider;
+
+        public ExecutorAccessTokenCallCredentials(AccessTokenProvider accessTokenProvider) {
+            this.accessTokenProvider = accessTokenProvider;
+        }
+
+        @Override
+        public void applyRequestMetadata(RequestInfo requestInfo, Executor executor, MetadataApplier metadataApplier) {
+            executor.execute(() -> {
+                try {
+                    Metadata headers = new Metadata();
+                    AccessToken accessToken = accessTokenProvider.getAccessToken(false);
+                    headers.put(AccessTokenCallCredentials.KEY_AUTHORIZATION, AccessTokenCallCredentials.BEARER_PREFIX + accessToken.getValue());
+                    metadataApplier.apply(headers);
+                } catch (Throwable e) {
+                    metadataApplier.fail(Status.UNAVAILABLE.withCause(e));
+                }
+            });
+        }
+    }
+
+    private static class FutureMetadataApplier extends CallCredentials.MetadataApplier {
+
+        private final CompletableFuture<Metadata> future = new CompletableFuture<>();
+
+        @Override
+        public void apply(Metadata headers) {
+            future.complete(headers);
+        }
+
+        @Override
+        public void fail(Status status) {
+            future.completeExceptionally(status.asRuntimeException());
+        }
+    }
+
+    @Param({"executor", "inline"})
+    private String credentials;
+
+    private AccessTokenProvider provider;
+
+    private CallCredentials callCredentials;
+
+    private ExecutorService executorService;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        provider = new DefaultCachedAccessTokenProvider(new StubAccessTokenProvider(0, 0, TimeUnit.HOURS.toMillis(1)), 0, TimeUnit.SECONDS.toMillis(15));
+        provider.getAccessToken(false);
+
+        // the default gRPC executor is a cached thread pool
+        executorService = Executors.newCachedThreadPool();
+
+        switch (credentials) {
+            case "executor": {
+                callCredentials = new ExecutorAccessTokenCallCredentials(provider);
+                break;
+            }
+            case "inline": {
+                callCredentials = new AccessTokenCallCredentials(provider);
+                break;
+            }
+            default: {
+                throw new IllegalArgumentException("Unexpected credentials '" + credentials + "'");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executorService.shutdownNow();
+        provider.close();
+    }
+
+    @Benchmark
+    public Metadata applyRequestMetadata() {
+        FutureMetadataApplier applier = new FutureMetadataApplier();
+        callCredentials.applyRequestMetadata(null, executorService, applier);
+        return applier.future.join();
+    }
+}
@@ -0,0 +1,145 @@
+package org.entur.jwt.benchmark.client;
+
+import org.entur.jwt.client.AccessToken;
+import org.entur.jwt.client.AccessTokenException;
+import org.entur.jwt.client.AccessTokenProvider;
+import org.entur.jwt.client.DefaultCachedAccessTokenProvider;
+import org.entur.jwt.client.PreemptiveCachedAccessTokenProvider;
+import org.entur.jwt.client.SingleFlightCachedAccessTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency distribution of cached access-token providers under contention. Scenarios:
+ * <ul>
+ *     <li>steady: the cached token never expires</li>
+ *     <li>expiry: the cached token expires frequently, so that threads must wait for the cache to be refreshed</li>
+ *     <li>preemptive: most requests are within the preemptive refresh window</li>
+ * </ul>
+ * The {@linkplain #main(String[])} method runs the benchmark for 1 to 256 threads.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CachedAccessTokenProviderBenchmark {
+
+    public static final String STEADY = "steady";
+    public static final String EXPIRY = "expiry";
+    public static final String PREEMPTIVE = "preemptive";
+
+    private static final int[] THREADS = {1, 4, 16, 64, 256};
+
+    @Param({"default", "singleFlight", "preemptive"})
+    private String cache;
+
+    @Param({STEADY, EXPIRY, PREEMPTIVE})
+    private String scenario;
+
+    /** authorization server latency in milliseconds */
+    @Param({"5"})
+    private long latency;
+
+    /** authorization server failure rate */
+    @Param({"0.0"})
+    private double failureRate;
+
+    private StubAccessTokenProvider stub;
+
+    private AccessTokenProvider provider;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        long timeToLive;
+        long preemptiveRefresh;
+        switch (scenario) {
+            case STEADY: {
+                timeToLive = TimeUnit.HOURS.toMillis(1);
+                preemptiveRefresh = TimeUnit.MINUTES.toMillis(1);
+                break;
+            }
+            case EXPIRY: {
+                timeToLive = 100;
+                preemptiveRefresh = 0;
+                break;
+            }
+            case PREEMPTIVE: {
+                timeToLive = 1000;
+                preemptiveRefresh = 900;
+                break;
+            }
+            default: {
+                throw new IllegalArgumentException("Unexpected scenario '" + scenario + "'");
+            }
+        }
+
+        stub = new StubAccessTokenProvider(latency, failureRate, timeToLive);
+        provider = createProvider(cache, stub, preemptiveRefresh);
+    }
+
+    protected static AccessTokenProvider createProvider(String cache, AccessTokenProvider provider, long preemptiveRefresh) {
+        long refreshTimeout = TimeUnit.SECONDS.toMillis(15);
+
+        switch (cache) {
+            case "default": {
+                return new DefaultCachedAccessTokenProvider(provider, 0, refreshTimeout);
+            }
+            case "singleFlight": {
+                return new SingleFlightCachedAccessTokenProvider(provider, 0, refreshTimeout);
+            }
+            case "preemptive": {
+                return new PreemptiveCachedAccessTokenProvider(provider, 0, refreshTimeout, preemptiveRefresh, 10, false);
+            }
+            default: {
+                throw new IllegalArgumentException("Unexpected cache '" + cache + "'");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        provider.close();
+    }
+
+    @Benchmark
+    public AccessToken getAccessToken() {
+        try {
+            return provider.getAccessToken(false);
+        } catch (AccessTokenException e) {
+            // simulated failure
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREADS) {
+            Options options = new OptionsBuilder()
+                    .include(CachedAccessTokenProviderBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.entur.jwt.benchmark.client;
+
+import org.entur.jwt.client.AccessToken;
+import org.entur.jwt.client.AccessTokenException;
+import org.entur.jwt.client.AccessTokenHealth;
+import org.entur.jwt.client.AccessTokenHealthNotSupportedException;
+import org.entur.jwt.client.AccessTokenProvider;
+import org.entur.jwt.client.AccessTokenUnavailableException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stub {@linkplain AccessTokenProvider} which simulates an authorization server with
+ * a configurable response latency, failure rate and token time to live.
+ */
+
+public class StubAccessTokenProvider implements AccessTokenProvider {
+
+    private final long latencyNanos;
+    private final double failureRate;
+    private final long timeToLive;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Constructor
+     *
+     * @param latency response latency in milliseconds
+     * @param failureRate probability of a request failing, between 0 and 1
+     * @param timeToLive time to live of the issued tokens in milliseconds
+     */
+
+    public StubAccessTokenProvider(long latency, double failureRate, long timeToLive) {
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latency);
+        this.failureRate = failureRate;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public AccessToken getAccessToken(boolean forceRefresh) throws AccessTokenException {
+        requests.increment();
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            failures.increment();
+            throw new AccessTokenUnavailableException("Simulated failure");
+        }
+        long requestCount = requests.sum();
+        return new AccessToken("token-" + requestCount, "Bearer", System.currentTimeMillis() + timeToLive);
+    }
+
+    @Override
+    public AccessTokenHealth getHealth(boolean refresh) {
+        throw new AccessTokenHealthNotSupportedException();
+    }
+
+    @Override
+    public boolean supportsHealth() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        // do nothing
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+}
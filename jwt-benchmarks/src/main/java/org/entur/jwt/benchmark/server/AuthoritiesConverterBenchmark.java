@@ -0,0 +1,66 @@
+package org.entur.jwt.benchmark.server;
+
+import org.entur.jwt.spring.Auth0JwtAuthorityEnricher;
+import org.entur.jwt.spring.EnrichedJwtGrantedAuthoritiesConverter;
+import org.entur.jwt.spring.KeycloakJwtAuthorityEnricher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authority mapping using the Auth0 and Keycloak enrichers, separately and combined.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthoritiesConverterBenchmark {
+
+    private Jwt jwt;
+
+    private EnrichedJwtGrantedAuthoritiesConverter auth0;
+    private EnrichedJwtGrantedAuthoritiesConverter keycloak;
+    private EnrichedJwtGrantedAuthoritiesConverter combined;
+
+    @Setup
+    public void setup() {
+        Tenant tenant = Tenant.create(1).get(0);
+
+        jwt = JwtDecoderBenchmark.createDecoder(tenant).decode(tenant.createToken(Claims.create()));
+
+        auth0 = new EnrichedJwtGrantedAuthoritiesConverter(List.of(new Auth0JwtAuthorityEnricher()));
+        keycloak = new EnrichedJwtGrantedAuthoritiesConverter(List.of(new KeycloakJwtAuthorityEnricher()));
+        combined = new EnrichedJwtGrantedAuthoritiesConverter(List.of(new Auth0JwtAuthorityEnricher(), new KeycloakJwtAuthorityEnricher()));
+    }
+
+    @Benchmark
+    public Collection<GrantedAuthority> auth0() {
+        return auth0.convert(jwt);
+    }
+
+    @Benchmark
+    public Collection<GrantedAuthority> keycloak() {
+        return keycloak.convert(jwt);
+    }
+
+    @Benchmark
+    public Collection<GrantedAuthority> combined() {
+        return combined.convert(jwt);
+    }
+}
@@ -0,0 +1,66 @@
+package org.entur.jwt.benchmark.server;
+
+import org.entur.jwt.spring.properties.jwk.JwtClaimConstraintProperties;
+import org.entur.jwt.spring.properties.jwk.JwtClaimsProperties;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Claims of a typical token, covering the Auth0 and Keycloak authority enrichers,
+ * claim constraints and MDC mapping.
+ */
+
+public class Claims {
+
+    public static final String AUDIENCE = "https://api.entur.io";
+
+    public static Map<String, Object> create() {
+        Map<String, Object> claims = new HashMap<>();
+
+        claims.put("azp", "benchmark-client");
+        claims.put("https://entur.io/organisationID", 1L);
+        claims.put("https://entur.io/organisationName", "Entur");
+        claims.put("https://entur.io/enabled", true);
+
+        // auth0
+        claims.put("permissions", List.of("read:orders", "write:orders", "read:customers", "write:customers", "read:stops"));
+
+        // keycloak
+        Map<String, Object> resourceAccess = new HashMap<>();
+        resourceAccess.put("partner", Map.of("roles", List.of("admin", "operator", "viewer")));
+        resourceAccess.put("internal", Map.of("roles", List.of("ROLE_support")));
+        resourceAccess.put("account", Map.of("roles", List.of("manage-account", "view-profile")));
+        claims.put("resource_access", resourceAccess);
+
+        return claims;
+    }
+
+    /**
+     * Claim constraints matching the claims of {@linkplain #create()}.
+     *
+     * @return audience and required claim (value and data type) properties
+     */
+
+    public static JwtClaimsProperties createProperties() {
+        JwtClaimsProperties properties = new JwtClaimsProperties();
+        properties.setAudiences(List.of(AUDIENCE));
+
+        List<JwtClaimConstraintProperties> require = properties.getRequire();
+        require.add(createConstraint("azp", "string", "benchmark-client"));
+        require.add(createConstraint("https://entur.io/organisationID", "integer", null));
+        require.add(createConstraint("https://entur.io/organisationName", "string", null));
+        require.add(createConstraint("https://entur.io/enabled", "boolean", "true"));
+
+        return properties;
+    }
+
+    private static JwtClaimConstraintProperties createConstraint(String name, String type, String value) {
+        JwtClaimConstraintProperties constraint = new JwtClaimConstraintProperties();
+        constraint.setName(name);
+        constraint.setType(type);
+        constraint.setValue(value);
+        return constraint;
+    }
+}
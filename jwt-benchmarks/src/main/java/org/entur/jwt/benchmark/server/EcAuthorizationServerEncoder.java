@@ -0,0 +1,63 @@
+package org.entur.jwt.benchmark.server;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.entur.jwt.junit5.AuthorizationServerEncoder;
+
+import java.lang.annotation.Annotation;
+import java.text.ParseException;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * {@linkplain AuthorizationServerEncoder} which signs tokens using ES256 (P-256 curve).
+ */
+
+public class EcAuthorizationServerEncoder implements AuthorizationServerEncoder {
+
+    private final ECKey key;
+    private final ECDSASigner signer;
+
+    public EcAuthorizationServerEncoder() {
+        try {
+            this.key = new ECKeyGenerator(Curve.P_256)
+                    .keyID(UUID.randomUUID().toString())
+                    .algorithm(JWSAlgorithm.ES256)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .generate();
+            this.signer = new ECDSASigner(key);
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String getJsonWebKeys(Annotation authorizationServer) {
+        return new JWKSet(key.toPublicJWK()).toString();
+    }
+
+    @Override
+    public String getToken(Annotation authorizationServer, Map<String, Object> claims, Map<String, Object> headers) {
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.ES256)
+                .type(JOSEObjectType.JWT)
+                .keyID(key.getKeyID())
+                .build();
+        try {
+            SignedJWT jwt = new SignedJWT(header, JWTClaimsSet.parse(claims));
+            jwt.sign(signer);
+            return jwt.serialize();
+        } catch (JOSEException | ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
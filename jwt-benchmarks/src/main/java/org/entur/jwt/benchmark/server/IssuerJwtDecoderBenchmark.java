@@ -0,0 +1,105 @@
+package org.entur.jwt.benchmark.server;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.entur.jwt.spring.ParsedJwtDecoder;
+import org.entur.jwt.spring.grpc.netty.IssuerJwtDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-issuer decoding: parse once and verify the parsed token ({@linkplain ParsedJwtDecoder}),
+ * versus parse for routing and then parse again in {@linkplain NimbusJwtDecoder}.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IssuerJwtDecoderBenchmark {
+
+    @Param({"2", "5", "20"})
+    private int tenants;
+
+    @Param({Tenant.RS256, Tenant.ES256})
+    private String algorithm;
+
+    private String[] tokens;
+
+    private JwtDecoder reparsing;
+    private JwtDecoder singleParse;
+
+    private int index;
+
+    @Setup
+    public void setup() {
+        List<Tenant> list = Tenant.create(tenants, algorithm);
+
+        Map<String, JwtDecoder> nimbusDecoders = new HashMap<>();
+        Map<String, JwtDecoder> parsedDecoders = new HashMap<>();
+
+        tokens = new String[list.size()];
+        for (int i = 0; i < list.size(); i++) {
+            Tenant tenant = list.get(i);
+
+            NimbusJwtDecoder nimbusJwtDecoder = new NimbusJwtDecoder(createProcessor(tenant));
+            nimbusJwtDecoder.setJwtValidator(new JwtIssuerValidator(tenant.getIssuer()));
+            nimbusDecoders.put(tenant.getIssuer(), nimbusJwtDecoder);
+
+            parsedDecoders.put(tenant.getIssuer(), new ParsedJwtDecoder(createProcessor(tenant), new JwtIssuerValidator(tenant.getIssuer())));
+
+            tokens[i] = tenant.createToken();
+        }
+
+        reparsing = new IssuerJwtDecoder(nimbusDecoders);
+        singleParse = new IssuerJwtDecoder(parsedDecoders);
+    }
+
+    private static DefaultJWTProcessor<SecurityContext> createProcessor(Tenant tenant) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.Family.SIGNATURE, tenant.getJwkSource()));
+        return jwtProcessor;
+    }
+
+    private String nextToken() {
+        // not thread safe, but sufficient for spreading the load over the issuers
+        int i = index + 1;
+        if (i == tokens.length) {
+            i = 0;
+        }
+        index = i;
+        return tokens[i];
+    }
+
+    @Benchmark
+    public Jwt reparsing() {
+        return reparsing.decode(nextToken());
+    }
+
+    @Benchmark
+    public Jwt singleParse() {
+        return singleParse.decode(nextToken());
+    }
+}
@@ -0,0 +1,103 @@
+package org.entur.jwt.benchmark.server;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.entur.jwt.spring.Auth0JwtAuthorityEnricher;
+import org.entur.jwt.spring.EnrichedJwtGrantedAuthoritiesConverter;
+import org.entur.jwt.spring.KeycloakJwtAuthorityEnricher;
+import org.entur.jwt.spring.OAuth2TokenValidatorFactory;
+import org.entur.jwt.spring.ParsedJwtDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single issuer decoding, using a {@linkplain ParsedJwtDecoder} configured like the
+ * (servlet) resource server customizer does, i.e. including issuer, audience, timestamp and claim constraint validation.
+ * A plain {@linkplain NimbusJwtDecoder} with the same validators is included for comparison.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtDecoderBenchmark {
+
+    @Param({Tenant.RS256, Tenant.ES256})
+    private String algorithm;
+
+    @Param({"parsed", "nimbus"})
+    private String decoderType;
+
+    private String token;
+
+    private JwtDecoder decoder;
+
+    private EnrichedJwtGrantedAuthoritiesConverter converter;
+
+    @Setup
+    public void setup() {
+        Tenant tenant = Tenant.create(1, algorithm).get(0);
+
+        decoder = decoderType.equals("parsed") ? createDecoder(tenant) : createNimbusDecoder(tenant);
+        converter = new EnrichedJwtGrantedAuthoritiesConverter(List.of(new Auth0JwtAuthorityEnricher(), new KeycloakJwtAuthorityEnricher()));
+
+        token = tenant.createToken(Claims.create());
+    }
+
+    public static ParsedJwtDecoder createDecoder(Tenant tenant) {
+        List<OAuth2TokenValidator<Jwt>> validators = new OAuth2TokenValidatorFactory().create(Claims.createProperties());
+
+        return new ParsedJwtDecoder(createProcessor(tenant), OAuth2TokenValidatorFactory.forIssuer(tenant.getIssuer(), validators));
+    }
+
+    public static NimbusJwtDecoder createNimbusDecoder(Tenant tenant) {
+        List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
+        validators.add(new JwtIssuerValidator(tenant.getIssuer()));
+        validators.addAll(new OAuth2TokenValidatorFactory().create(Claims.createProperties()));
+
+        NimbusJwtDecoder nimbusJwtDecoder = new NimbusJwtDecoder(createProcessor(tenant));
+        nimbusJwtDecoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(validators));
+        return nimbusJwtDecoder;
+    }
+
+    private static DefaultJWTProcessor<SecurityContext> createProcessor(Tenant tenant) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.Family.SIGNATURE, tenant.getJwkSource()));
+        return jwtProcessor;
+    }
+
+    @Benchmark
+    public Jwt decode() {
+        return decoder.decode(token);
+    }
+
+    @Benchmark
+    public Collection<GrantedAuthority> decodeAndConvert() {
+        return converter.convert(decoder.decode(token));
+    }
+}
@@ -0,0 +1,55 @@
+package org.entur.jwt.benchmark.server;
+
+import org.entur.jwt.spring.filter.log.DefaultJwtMappedDiagnosticContextMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of token claims to the MDC, as done per request when context logging is enabled.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappedDiagnosticContextBenchmark {
+
+    private Jwt jwt;
+
+    private DefaultJwtMappedDiagnosticContextMapper mapper;
+
+    @Setup
+    public void setup() {
+        Tenant tenant = Tenant.create(1).get(0);
+
+        jwt = JwtDecoderBenchmark.createDecoder(tenant).decode(tenant.createToken(Claims.create()));
+
+        mapper = new DefaultJwtMappedDiagnosticContextMapper(List.of("sub", "azp", "https://entur.io/organisationName"), List.of("subject", "client", "organisation"));
+    }
+
+    @Benchmark
+    public Map<String, String> getContext() {
+        return mapper.getContext(jwt);
+    }
+
+    @Benchmark
+    public void addAndRemoveContext() {
+        mapper.addContext(jwt);
+        mapper.removeContext(jwt);
+    }
+}
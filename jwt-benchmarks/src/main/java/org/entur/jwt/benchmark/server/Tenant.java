@@ -0,0 +1,92 @@
+package org.entur.jwt.benchmark.server;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.entur.jwt.junit5.AuthorizationServerEncoder;
+import org.entur.jwt.junit5.impl.DefaultAuthorizationServerEncoder;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark tenant: an authorization server with its own signing key, and tokens issued by it.
+ * Keys are served from memory, equivalent to a warm JWK cache.
+ */
+
+public class Tenant {
+
+    public static final String RS256 = "RS256";
+    public static final String ES256 = "ES256";
+
+    public static List<Tenant> create(int count) {
+        return create(count, RS256);
+    }
+
+    public static List<Tenant> create(int count, String algorithm) {
+        List<Tenant> tenants = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tenants.add(new Tenant("https://tenant" + i + ".entur.org", createEncoder(algorithm)));
+        }
+        return tenants;
+    }
+
+    public static AuthorizationServerEncoder createEncoder(String algorithm) {
+        switch (algorithm) {
+            case RS256: {
+                return new DefaultAuthorizationServerEncoder();
+            }
+            case ES256: {
+                return new EcAuthorizationServerEncoder();
+            }
+            default: {
+                throw new IllegalArgumentException("Unexpected algorithm '" + algorithm + "'");
+            }
+        }
+    }
+
+    private final String issuer;
+    private final AuthorizationServerEncoder encoder;
+    private final JWKSource<SecurityContext> jwkSource;
+
+    public Tenant(String issuer, AuthorizationServerEncoder encoder) {
+        this.issuer = issuer;
+        this.encoder = encoder;
+        try {
+            this.jwkSource = new ImmutableJWKSet<>(JWKSet.parse(encoder.getJsonWebKeys(null)));
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public JWKSource<SecurityContext> getJwkSource() {
+        return jwkSource;
+    }
+
+    public String createToken() {
+        return createToken(new HashMap<>());
+    }
+
+    public String createToken(Map<String, Object> claims) {
+        long now = System.currentTimeMillis() / 1000;
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("iss", issuer);
+        map.put("sub", "benchmark");
+        map.put("aud", Claims.AUDIENCE);
+        map.put("iat", now);
+        map.put("exp", now + TimeUnit.DAYS.toSeconds(1));
+        map.putAll(claims);
+
+        return encoder.getToken(null, map, new HashMap<>());
+    }
+}
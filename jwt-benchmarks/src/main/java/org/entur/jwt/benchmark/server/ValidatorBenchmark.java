@@ -0,0 +1,92 @@
+package org.entur.jwt.benchmark.server;
+
+import org.entur.jwt.spring.AudienceOauth2TokenValidator;
+import org.entur.jwt.spring.DataTypePredicate;
+import org.entur.jwt.spring.DataValuePredicate;
+import org.entur.jwt.spring.OAuth2TokenValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claim validation: the audience validator, a single value and data type constraint,
+ * the complete (legacy) validator chain and the equivalent compiled validator.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    private Jwt jwt;
+
+    private OAuth2TokenValidator<Jwt> audience;
+    private OAuth2TokenValidator<Jwt> dataValue;
+    private OAuth2TokenValidator<Jwt> dataType;
+    private OAuth2TokenValidator<Jwt> chain;
+    private OAuth2TokenValidator<Jwt> compiled;
+
+    @Setup
+    public void setup() {
+        Tenant tenant = Tenant.create(1).get(0);
+
+        jwt = JwtDecoderBenchmark.createDecoder(tenant).decode(tenant.createToken(Claims.create()));
+
+        audience = new AudienceOauth2TokenValidator(List.of("https://other.entur.io", Claims.AUDIENCE));
+        dataValue = new JwtClaimValidator<>("azp", new DataValuePredicate<>("benchmark-client"));
+        dataType = new JwtClaimValidator<>("https://entur.io/organisationID", new DataTypePredicate<>(Long.class));
+        OAuth2TokenValidatorFactory factory = new OAuth2TokenValidatorFactory();
+
+        List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
+        validators.add(new JwtIssuerValidator(tenant.getIssuer()));
+        validators.addAll(factory.createValidators(Claims.createProperties()));
+        chain = new DelegatingOAuth2TokenValidator<>(validators);
+
+        compiled = OAuth2TokenValidatorFactory.forIssuer(tenant.getIssuer(), factory.create(Claims.createProperties()));
+    }
+
+    @Benchmark
+    public OAuth2TokenValidatorResult audience() {
+        return audience.validate(jwt);
+    }
+
+    @Benchmark
+    public OAuth2TokenValidatorResult dataValue() {
+        return dataValue.validate(jwt);
+    }
+
+    @Benchmark
+    public OAuth2TokenValidatorResult dataType() {
+        return dataType.validate(jwt);
+    }
+
+    @Benchmark
+    public OAuth2TokenValidatorResult chain() {
+        return chain.validate(jwt);
+    }
+
+    @Benchmark
+    public OAuth2TokenValidatorResult compiled() {
+        return compiled.validate(jwt);
+    }
+}
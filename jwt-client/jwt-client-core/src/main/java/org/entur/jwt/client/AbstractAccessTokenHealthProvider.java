@@ -1,5 +1,7 @@
 package org.entur.jwt.client;
 
+import java.util.concurrent.CompletionStage;
+
 public abstract class AbstractAccessTokenHealthProvider extends BaseAccessTokenProvider {
 
     /** The state of the below provider */
@@ -33,6 +35,15 @@ public abstract class AbstractAccessTokenHealthProvider extends BaseAccessTokenP
         return accessToken;
     }
 
+    @Override
+    public CompletionStage<AccessToken> getAccessTokenAsync(boolean forceRefresh) {
+        long time = System.currentTimeMillis();
+
+        return provider.getAccessTokenAsync(forceRefresh).whenComplete((accessToken, e) -> {
+            this.providerStatus = new AccessTokenHealth(time, accessToken != null);
+        });
+    }
+
     @Override
     public AccessTokenHealth getHealth(boolean refresh) {
         if(!refresh) {
@@ -1,5 +1,7 @@
 package org.entur.jwt.client;
 
+import org.entur.jwt.client.store.AccessTokenStore;
+
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -28,6 +30,20 @@ public abstract class AbstractAccessTokenProvidersBuilder<B extends AbstractAcce
     protected long preemptiveRefreshTimeUnits = 30;
     protected boolean preemptiveRefreshEager = false;
     protected int preemptiveRefreshConstraint = 25;
+    protected AccessTokenRefreshScheduler refreshScheduler;
+
+    protected boolean singleFlight = false;
+
+    protected AccessTokenFile persistentFile;
+
+    protected AccessTokenStore store;
+
+    protected boolean outageTolerant = false;
+    protected long outageTolerantMinimumTimeToLive = 5000;
+    protected long outageTolerantInitialBackoff = 1000;
+    protected long outageTolerantMaxBackoff = 30000;
+
+    protected AccessTokenMetrics metrics;
 
     // health indicator support
     protected boolean health = true;
@@ -35,6 +51,18 @@ public abstract class AbstractAccessTokenProvidersBuilder<B extends AbstractAcce
     // retrying
     protected boolean retrying = true;
 
+    // backoff, rate limiting and circuit breaker
+    protected boolean backoff = false;
+    protected int backoffMaxAttempts = 2;
+    protected long backoffInitial = 100;
+    protected long backoffMax = 2000;
+
+    protected int rateLimitCapacity = -1;
+    protected long rateLimitRefillPeriod = -1L;
+
+    protected int circuitBreakerFailureThreshold = -1;
+    protected long circuitBreakerOpenDuration = -1L;
+
     /**
      * Wrap a specific {@linkplain AccessTokenProvider}. Access to this instance
      * will be cached according to the configuration of this builder.
@@ -134,6 +162,161 @@ public abstract class AbstractAccessTokenProvidersBuilder<B extends AbstractAcce
         return (B) this;
     }
 
+    /**
+     * Run preemptive cache refreshes on a shared refresh scheduler, rather than
+     * on dedicated threads. The scheduler is not closed together with the built provider.
+     *
+     * @param refreshScheduler shared refresh scheduler, or null for dedicated threads
+     * @return the builder
+     */
+    @SuppressWarnings("unchecked")
+    public B refreshScheduler(AccessTokenRefreshScheduler refreshScheduler) {
+        this.refreshScheduler = refreshScheduler;
+        return (B) this;
+    }
+
+    /**
+     * Persist access-tokens to a local file, so that they survive restarts. This requires caching.
+     *
+     * @param file access-token file, or null to disable
+     * @return the builder
+     */
+    @SuppressWarnings("unchecked")
+    public B persistent(AccessTokenFile file) {
+        this.persistentFile = file;
+        return (B) this;
+    }
+
+    /**
+     * Share access-tokens with other replicas via a store, so that only one replica at a time
+     * requests a new access-token. This requires caching.
+     *
+     * @param store access-token store, or null to disable. The store is not closed together with the built provider.
+     * @return the builder
+     */
+    @SuppressWarnings("unchecked")
+    public B store(AccessTokenStore store) {
+        this.store = store;
+        return (B) this;
+    }
+
+    /**
+     * Keep serving the last known access-token during authorization server outages, for as long as it has
+     * at least the given time to live left (the hard floor), while refreshing in the background. This requires caching.
+     *
+     * @param minimumTimeToLive hard floor, typically lower than the cache minimum time to live
+     * @param initialBackoff    delay before the first background refresh
+     * @param maxBackoff        maximum delay between background refreshes
+     * @param unit              time unit
+     * @return the builder
+     */
+    @SuppressWarnings("unchecked")
+    public B outageTolerant(long minimumTimeToLive, long initialBackoff, long maxBackoff, TimeUnit unit) {
+        this.outageTolerant = true;
+        this.outageTolerantMinimumTimeToLive = unit.toMillis(minimumTimeToLive);
+        this.outageTolerantInitialBackoff = unit.toMillis(initialBackoff);
+        this.outageTolerantMaxBackoff = unit.toMillis(maxBackoff);
+        return (B) this;
+    }
+
+    /**
+     * Toggle outage tolerance.
+     *
+     * @param outageTolerant if true, serve the last known access-token during outages
+     * @return the builder
+     */
+    @SuppressWarnings("unchecked")
+    public B outageTolerant(boolean outageTolerant) {
+        this.outageTolerant = outageTolerant;
+        return (B) this;
+    }
+
+    /**
+     * Report calls to the authorization server and cache behaviour. If the metrics also implement
+     * {@linkplain AccessTokenOutageListener}, outages are reported too.
+     *
+     * @param metrics metrics, or null to disable
+     * @return the builder
+     */
+    @SuppressWarnings("unchecked")
+    public B metrics(AccessTokenMetrics metrics) {
+        this.metrics = metrics;
+        return (B) this;
+    }
+
+    /**
+     * Toggle single-flight cache refresh. When enabled, threads waiting for the cache to be refreshed
+     * join the in-flight refresh rather than blocking on a lock. This also enables caching,
+     * and disables preemptive cache refresh, which it does not support.
+     *
+     * @param singleFlight if true, single-flight caching is active
+     * @return the builder
+     */
+    @SuppressWarnings("unchecked")
+    public B singleFlight(boolean singleFlight) {
+        if (singleFlight) {
+            this.cached = true;
+            this.preemptiveRefresh = false;
+        }
+        this.singleFlight = singleFlight;
+        return (B) this;
+    }
+
+    /**
+     * Retry with exponential backoff (and jitter) rather than retrying once right away.
+     * Honours the <code>Retry-After</code> and <code>X-RateLimit-*</code> headers of 429 and 503 responses.
+     *
+     * @param maxAttempts    maximum number of attempts (including the first)
+     * @param initialBackoff backoff before the first retry
+     * @param maxBackoff     maximum backoff
+     * @param unit           backoff unit
+     * @return the builder
+     */
+    @SuppressWarnings("unchecked")
+    public B backoff(int maxAttempts, long initialBackoff, long maxBackoff, TimeUnit unit) {
+        this.retrying = true;
+        this.backoff = true;
+        this.backoffMaxAttempts = maxAttempts;
+        this.backoffInitial = unit.toMillis(initialBackoff);
+        this.backoffMax = unit.toMillis(maxBackoff);
+        return (B) this;
+    }
+
+    /**
+     * Limit the rate of requests to the authorization server using a token bucket.
+     *
+     * @param capacity     maximum number of requests in a burst
+     * @param refillPeriod time to allow one more request
+     * @param unit         refill period unit
+     * @return the builder
+     */
+    @SuppressWarnings("unchecked")
+    public B rateLimit(int capacity, long refillPeriod, TimeUnit unit) {
+        this.rateLimitCapacity = capacity;
+        this.rateLimitRefillPeriod = unit.toMillis(refillPeriod);
+        return (B) this;
+    }
+
+    /**
+     * Stop requesting access-tokens after a number of consecutive 429 (too many requests)
+     * or 503 (service unavailable) responses.
+     *
+     * @param failureThreshold number of consecutive failures before the circuit opens
+     * @param openDuration     minimum time the circuit stays open
+     * @param unit             open duration unit
+     * @return the builder
+     */
+    @SuppressWarnings("unchecked")
+    public B circuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+        this.circuitBreakerFailureThreshold = failureThreshold;
+        this.circuitBreakerOpenDuration = unit.toMillis(openDuration);
+        return (B) this;
+    }
+
+    protected boolean isResilient() {
+        return backoff || rateLimitCapacity > 0 || circuitBreakerFailureThreshold > 0;
+    }
+
     public AccessTokenProvider build() {
         return build(this.accessTokenProvider);
     }
@@ -142,10 +325,47 @@ public abstract class AbstractAccessTokenProvidersBuilder<B extends AbstractAcce
         if (!cached && preemptiveRefresh) {
             throw new AccessTokenProviderBuilderException("Premptive cache refresh configured without caching");
         }
+        if (singleFlight && preemptiveRefresh) {
+            throw new AccessTokenProviderBuilderException("Single-flight cache refresh configured with preemptive cache refresh");
+        }
 
-        if (retrying) {
+        if (!cached && persistentFile != null) {
+            throw new AccessTokenProviderBuilderException("Persistent cache configured without caching");
+        }
+        if (!cached && store != null) {
+            throw new AccessTokenProviderBuilderException("Access-token store configured without caching");
+        }
+        if (!cached && outageTolerant) {
+            throw new AccessTokenProviderBuilderException("Outage tolerance configured without caching");
+        }
+
+        if (metrics != null) {
+            provider = new MetricsAccessTokenProvider(provider, metrics);
+        }
+        if (isResilient()) {
+            TokenBucketRateLimiter rateLimiter = null;
+            if (rateLimitCapacity > 0) {
+                rateLimiter = new TokenBucketRateLimiter(rateLimitCapacity, rateLimitRefillPeriod, System.currentTimeMillis());
+            }
+            AccessTokenCircuitBreaker circuitBreaker = null;
+            if (circuitBreakerFailureThreshold > 0) {
+                circuitBreaker = new AccessTokenCircuitBreaker(circuitBreakerFailureThreshold, circuitBreakerOpenDuration);
+            }
+            int maxAttempts = retrying ? backoffMaxAttempts : 1;
+            provider = new ResilientAccessTokenProvider(provider, maxAttempts, backoffInitial, backoffMax, rateLimiter, circuitBreaker);
+        } else if (retrying) {
             provider = new RetryingAccessTokenProvider(provider);
         }
+        if (persistentFile != null) {
+            provider = new PersistentAccessTokenProvider(provider, persistentFile, minimumTimeToLiveUnit.toMillis(minimumTimeToLiveUnits));
+        }
+        if (store != null) {
+            // when refreshing preemptively, stored tokens must outlive the preemptive refresh limit,
+            // otherwise the preemptive refresh would just get the same token back
+            long storeTimeToLive = preemptiveRefresh ? preemptiveRefreshTimeUnit.toMillis(preemptiveRefreshTimeUnits) : minimumTimeToLiveUnit.toMillis(minimumTimeToLiveUnits);
+            long refreshTimeout = refreshExpiresUnit.toMillis(refreshExpiresIn);
+            provider = new StoreAccessTokenProvider(provider, store, storeTimeToLive, refreshTimeout, refreshTimeout, 50);
+        }
         AbstractAccessTokenHealthProvider healthProvider = null;
         if (health) {
             if(preemptiveRefresh && preemptiveRefreshEager) {
@@ -155,14 +375,33 @@ public abstract class AbstractAccessTokenProvidersBuilder<B extends AbstractAcce
                 provider = healthProvider = new DefaultAccessTokenHealthProvider(provider);
             }
         }
-        if (preemptiveRefresh) {
+        if (preemptiveRefresh && refreshScheduler != null) {
+            provider = new PreemptiveCachedAccessTokenProvider(provider, minimumTimeToLiveUnit.toMillis(minimumTimeToLiveUnits), refreshExpiresUnit.toMillis(refreshExpiresIn), preemptiveRefreshTimeUnit.toMillis(preemptiveRefreshTimeUnits), preemptiveRefreshConstraint, preemptiveRefreshEager, refreshScheduler);
+        } else if (preemptiveRefresh) {
             provider = new PreemptiveCachedAccessTokenProvider(provider, minimumTimeToLiveUnits, minimumTimeToLiveUnit, refreshExpiresIn, refreshExpiresUnit, preemptiveRefreshTimeUnits, preemptiveRefreshTimeUnit, preemptiveRefreshConstraint, preemptiveRefreshEager);
+        } else if (cached && singleFlight) {
+            provider = new SingleFlightCachedAccessTokenProvider(provider, minimumTimeToLiveUnits, minimumTimeToLiveUnit, refreshExpiresIn, refreshExpiresUnit);
         } else if (cached) {
             provider = new DefaultCachedAccessTokenProvider(provider, minimumTimeToLiveUnits, minimumTimeToLiveUnit, refreshExpiresIn, refreshExpiresUnit);
         }
+        if (metrics != null && provider instanceof AbstractCachedAccessTokenProvider cachedProvider) {
+            cachedProvider.setMetrics(metrics);
+        }
         if (healthProvider != null) {
             healthProvider.setRefreshProvider(provider);
         }
+        if (outageTolerant) {
+            OutageTolerantAccessTokenProvider outageTolerantProvider;
+            if (refreshScheduler != null) {
+                outageTolerantProvider = new OutageTolerantAccessTokenProvider(provider, outageTolerantMinimumTimeToLive, outageTolerantInitialBackoff, outageTolerantMaxBackoff, refreshScheduler, false);
+            } else {
+                outageTolerantProvider = new OutageTolerantAccessTokenProvider(provider, outageTolerantMinimumTimeToLive, outageTolerantInitialBackoff, outageTolerantMaxBackoff, new AccessTokenRefreshScheduler(1, 0), true);
+            }
+            if (metrics instanceof AccessTokenOutageListener listener) {
+                outageTolerantProvider.addListener(listener);
+            }
+            provider = outageTolerantProvider;
+        }
         return provider;
     }
 
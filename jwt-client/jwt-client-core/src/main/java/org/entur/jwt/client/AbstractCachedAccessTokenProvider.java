@@ -1,8 +1,18 @@
 package org.entur.jwt.client;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Access-token provider that caches previously obtained access-tokens in
- * memory.
+ * memory.<br>
+ * <br>
+ * Refreshes are single-flight: synchronous and asynchronous callers share one in-flight refresh.
+ * Asynchronous callers do not block.
  */
 
 public abstract class AbstractCachedAccessTokenProvider extends BaseAccessTokenProvider {
@@ -44,6 +54,11 @@ public abstract class AbstractCachedAccessTokenProvider extends BaseAccessTokenP
 
     protected volatile AccessTokenCacheItem cache;
 
+    protected volatile AccessTokenMetrics metrics = AccessTokenMetrics.NOOP;
+
+    /** in-flight refresh, if any */
+    protected final AtomicReference<CompletableFuture<AccessTokenCacheItem>> inFlight = new AtomicReference<>();
+
     public AbstractCachedAccessTokenProvider(AccessTokenProvider provider) {
         super(provider);
     }
@@ -55,6 +70,177 @@ public abstract class AbstractCachedAccessTokenProvider extends BaseAccessTokenP
 
     abstract AccessToken getAccessToken(long time, boolean forceUpdate) throws AccessTokenException;
 
+    @Override
+    public CompletionStage<AccessToken> getAccessTokenAsync(boolean forceRefresh) {
+        return getAccessTokenAsync(System.currentTimeMillis(), forceRefresh);
+    }
+
+    protected CompletionStage<AccessToken> getAccessTokenAsync(long time, boolean forceUpdate) {
+        AccessTokenCacheItem cache = this.cache;
+        if (forceUpdate || cache == null || !cache.isValid(time)) {
+            metrics.onCacheMiss();
+            return getAccessTokenCacheItemAsync(time, cache).thenCompose(item -> {
+                if (item != null && item.isValid(time)) {
+                    return CompletableFuture.completedFuture(item.getValue());
+                }
+                return CompletableFuture.failedFuture(new AccessTokenUnavailableException("Unable to refresh cache"));
+            });
+        }
+
+        metrics.onCacheHit();
+        return CompletableFuture.completedFuture(cache.getValue());
+    }
+
+    protected CompletableFuture<AccessTokenCacheItem> getAccessTokenCacheItemAsync(long time, AccessTokenCacheItem cache) {
+        while (true) {
+            CompletableFuture<AccessTokenCacheItem> future = inFlight.get();
+            if (future != null) {
+                // join the in-flight refresh
+                return withRefreshTimeout(future);
+            }
+
+            // see if anyone already refreshed the cache
+            AccessTokenCacheItem current = this.cache;
+            if (current != cache) {
+                return CompletableFuture.completedFuture(current);
+            }
+
+            CompletableFuture<AccessTokenCacheItem> refresh = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, refresh)) {
+                CompletionStage<AccessTokenCacheItem> load;
+                try {
+                    load = loadAccessTokenFromProviderAsync(time);
+                } catch (Throwable e) {
+                    // thrown rather than returned as a failed future
+                    load = CompletableFuture.failedFuture(e);
+                }
+                load.whenComplete((item, e) -> {
+                    inFlight.compareAndSet(refresh, null);
+                    if (e != null) {
+                        refresh.completeExceptionally(AccessTokenFutureUtil.toAccessTokenException(e));
+                    } else {
+                        refresh.complete(item);
+                    }
+                });
+                return withRefreshTimeout(refresh);
+            }
+        }
+    }
+
+    protected CompletableFuture<AccessTokenCacheItem> withRefreshTimeout(CompletableFuture<AccessTokenCacheItem> refresh) {
+        // copy, so that timing out does not fail the refresh for other callers
+        return refresh.copy()
+                .orTimeout(getRefreshTimeout(), TimeUnit.MILLISECONDS)
+                .exceptionallyCompose(e -> {
+                    if (AccessTokenFutureUtil.unwrap(e) instanceof TimeoutException) {
+                        metrics.onCacheTimeout();
+                    }
+                    return CompletableFuture.failedFuture(AccessTokenFutureUtil.toAccessTokenException(e));
+                });
+    }
+
+    /**
+     * Refresh the cache, or wait for the refresh already in flight (synchronous or asynchronous).
+     *
+     * @param time     current time
+     * @param cache    the cache item which is to be replaced
+     * @param deadline deadline for waiting, in {@linkplain System#nanoTime()} units
+     * @return valid cache item
+     * @throws AccessTokenException if unable to refresh the cache
+     */
+
+    protected AccessTokenCacheItem getAccessTokenSingleFlight(long time, AccessTokenCacheItem cache, long deadline) throws AccessTokenException {
+        long refreshTimeout = getRefreshTimeout();
+        while (true) {
+            CompletableFuture<AccessTokenCacheItem> future = inFlight.get();
+            if (future == null) {
+                // see if anyone already refreshed the cache
+                AccessTokenCacheItem current = this.cache;
+                if (current != cache) {
+                    return validate(time, current);
+                }
+
+                CompletableFuture<AccessTokenCacheItem> refresh = new CompletableFuture<>();
+                if (inFlight.compareAndSet(null, refresh)) {
+                    // this thread exclusively gets to call the underlying provider
+                    return validate(time, loadAccessTokenFromProvider(time, refresh));
+                }
+                // another thread started a refresh, wait for it
+                continue;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                metrics.onCacheTimeout();
+                throw new AccessTokenUnavailableException("Timeout while waiting for refreshed cache (limit of " + refreshTimeout + "ms exceed).");
+            }
+
+            try {
+                return validate(time, future.get(remaining, TimeUnit.NANOSECONDS));
+            } catch (ExecutionException e) {
+                // the in-flight refresh failed, so attempt to refresh the cache
+                // (or wait for another thread which does so)
+                cache = this.cache;
+            } catch (TimeoutException e) {
+                metrics.onCacheTimeout();
+                throw new AccessTokenUnavailableException("Timeout while waiting for refreshed cache (limit of " + refreshTimeout + "ms exceed).");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Restore interrupted state to make sonar happy
+
+                throw new AccessTokenUnavailableException("Interrupted while waiting for refreshed cache", e);
+            }
+        }
+    }
+
+    protected AccessTokenCacheItem validate(long time, AccessTokenCacheItem cache) throws AccessTokenException {
+        if (cache != null && cache.isValid(time)) {
+            return cache;
+        }
+
+        throw new AccessTokenUnavailableException("Unable to refresh cache");
+    }
+
+    protected AccessTokenCacheItem loadAccessTokenFromProvider(long time, CompletableFuture<AccessTokenCacheItem> refresh) throws AccessTokenException {
+        AccessTokenCacheItem item;
+        try {
+            item = loadAccessTokenFromProvider(time);
+        } catch (Throwable e) {
+            // also on errors, so that later callers do not wait for a refresh which never completes
+            inFlight.compareAndSet(refresh, null);
+            refresh.completeExceptionally(e);
+
+            throw e;
+        }
+        inFlight.compareAndSet(refresh, null);
+        refresh.complete(item);
+
+        return item;
+    }
+
+    protected abstract AccessTokenCacheItem loadAccessTokenFromProvider(long time) throws AccessTokenException;
+
+    protected CompletionStage<AccessTokenCacheItem> loadAccessTokenFromProviderAsync(long time) {
+        return provider.getAccessTokenAsync(false).thenApply(accessToken -> {
+            // reduce cache expiry according to the minimum time to live
+            return this.cache = createCacheItem(time, accessToken);
+        });
+    }
+
+    protected abstract AccessTokenCacheItem createCacheItem(long time, AccessToken accessToken);
+
+    public abstract long getRefreshTimeout();
+
+    /**
+     * Get cached token, without side effects.
+     *
+     * @return token, null if cache is not populated or expired
+     */
+
+    @Override
+    public AccessToken getCachedAccessToken() {
+        return getCachedAccessToken(System.currentTimeMillis());
+    }
+
     protected AccessToken getCachedAccessToken(long time) {
         AccessTokenCacheItem threadSafeCache = this.cache; // defensive copy
         if (threadSafeCache != null && threadSafeCache.isValid(time)) {
@@ -63,8 +249,20 @@ public abstract class AbstractCachedAccessTokenProvider extends BaseAccessTokenP
         return null;
     }
 
+    public void setMetrics(AccessTokenMetrics metrics) {
+        this.metrics = metrics != null ? metrics : AccessTokenMetrics.NOOP;
+    }
+
+    public AccessTokenMetrics getMetrics() {
+        return metrics;
+    }
+
     protected AccessTokenCacheItem getCache() {
         return cache;
     }
 
+    AtomicReference<CompletableFuture<AccessTokenCacheItem>> getInFlight() {
+        return inFlight;
+    }
+
 }
@@ -3,6 +3,8 @@ package org.entur.jwt.client;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * {@linkplain AccessTokenProvider} which handles refresh tokens.
@@ -57,6 +59,21 @@ public abstract class AbstractStatefulUrlAccessTokenProvider extends AbstractUrl
 
     protected abstract ClientCredentialsResponse getToken(RefreshToken response) throws AccessTokenException;
 
+    /**
+     * Get token asynchronously using a refresh token. The default implementation invokes {@linkplain #getToken(RefreshToken)} in the calling thread.
+     *
+     * @param response refresh token
+     * @return token response completion stage
+     */
+
+    protected CompletionStage<ClientCredentialsResponse> getTokenAsync(RefreshToken response) {
+        try {
+            return CompletableFuture.completedFuture(getToken(response));
+        } catch (AccessTokenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     @Override
     public AccessToken getAccessToken(boolean forceRefresh) throws AccessTokenException {
         return getAccessToken(System.currentTimeMillis());
@@ -79,6 +96,36 @@ public abstract class AbstractStatefulUrlAccessTokenProvider extends AbstractUrl
             token = getToken();
         }
 
+        return toAccessToken(time, token);
+    }
+
+    @Override
+    public CompletionStage<AccessToken> getAccessTokenAsync(boolean forceRefresh) {
+        return getAccessTokenAsync(System.currentTimeMillis());
+    }
+
+    public CompletionStage<AccessToken> getAccessTokenAsync(long time) {
+        // note: force refresh is not relevant for whether to use refresh-token or not
+        CompletionStage<ClientCredentialsResponse> token;
+
+        RefreshToken threadSafeRefreshToken = this.refreshToken; // defensive copy
+        if (threadSafeRefreshToken != null && threadSafeRefreshToken.isValid(time)) {
+            token = getTokenAsync(threadSafeRefreshToken).exceptionallyCompose(e -> {
+                if (AccessTokenFutureUtil.unwrap(e) instanceof RefreshTokenException) {
+                    // assume current session has been revoked or expired
+                    // open a new session and forget about the old one
+                    return getTokenAsync();
+                }
+                return CompletableFuture.failedFuture(AccessTokenFutureUtil.unwrap(e));
+            });
+        } else {
+            token = getTokenAsync();
+        }
+
+        return token.thenApply(t -> toAccessToken(time, t));
+    }
+
+    protected AccessToken toAccessToken(long time, ClientCredentialsResponse token) {
         if (token.getRefreshToken() != null) {
             long expires;
 
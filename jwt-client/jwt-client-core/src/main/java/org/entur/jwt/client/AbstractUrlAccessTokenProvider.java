@@ -10,6 +10,8 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Abstract provider using URL. This simple abstraction exists so that the
@@ -71,6 +73,20 @@ public abstract class AbstractUrlAccessTokenProvider implements AccessTokenProvi
 
     protected abstract ClientCredentialsResponse getToken() throws AccessTokenException;
 
+    /**
+     * Get token asynchronously. The default implementation invokes {@linkplain #getToken()} in the calling thread.
+     *
+     * @return token response completion stage
+     */
+
+    protected CompletionStage<ClientCredentialsResponse> getTokenAsync() {
+        try {
+            return CompletableFuture.completedFuture(getToken());
+        } catch (AccessTokenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     @Override
     public AccessToken getAccessToken(boolean forceRefresh) throws AccessTokenException {
         long time = System.currentTimeMillis();
@@ -80,6 +96,13 @@ public abstract class AbstractUrlAccessTokenProvider implements AccessTokenProvi
         return new AccessToken(token.getAccessToken(), token.getTokenType(), time + token.getExpiresIn() * 1000);
     }
 
+    @Override
+    public CompletionStage<AccessToken> getAccessTokenAsync(boolean forceRefresh) {
+        long time = System.currentTimeMillis();
+
+        return getTokenAsync().thenApply(token -> new AccessToken(token.getAccessToken(), token.getTokenType(), time + token.getExpiresIn() * 1000));
+    }
+
     @Override
     public void close() throws IOException {
         // NOOP, access-tokens are stateless
@@ -1,6 +1,7 @@
 package org.entur.jwt.client;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 
 public class AccessToken implements Serializable {
 
@@ -14,6 +15,10 @@ public class AccessToken implements Serializable {
     protected final String type;
     protected final long expires;
 
+    // lazily rendered Authorization header, computed once per token
+    private transient String authorizationHeader;
+    private transient byte[] authorizationHeaderBytes;
+
     public AccessToken(String value, String type, long expiresAt) {
         super();
         this.value = value;
@@ -25,6 +30,37 @@ public class AccessToken implements Serializable {
         return value;
     }
 
+    /**
+     * Get the Authorization header value, i.e. on the form 'Bearer x.y.z'.
+     *
+     * @return header value
+     */
+
+    public String getAuthorizationHeader() {
+        String header = this.authorizationHeader;
+        if (header == null) {
+            // benign race: concurrent callers render an identical value
+            header = AuthorizationHeaderUtil.createBearerHeader(value);
+            this.authorizationHeader = header;
+        }
+        return header;
+    }
+
+    /**
+     * Get the Authorization header value as US-ASCII bytes. The returned array is shared and must not be modified.
+     *
+     * @return header value bytes
+     */
+
+    public byte[] getAuthorizationHeaderBytes() {
+        byte[] bytes = this.authorizationHeaderBytes;
+        if (bytes == null) {
+            bytes = getAuthorizationHeader().getBytes(StandardCharsets.US_ASCII);
+            this.authorizationHeaderBytes = bytes;
+        }
+        return bytes;
+    }
+
     public String getType() {
         return type;
     }
@@ -0,0 +1,292 @@
+package org.entur.jwt.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Access-token broker for multiple audiences and/or scopes, using the same client credentials.<br>
+ * <br>
+ * Holds a bounded number of (cached) {@linkplain AccessTokenProvider}s, one per {@linkplain TokenRequest}.
+ * The least recently used providers are evicted when the limit is exceeded, and providers which are not used
+ * within the idle timeout are evicted on subsequent calls. Evicted providers are closed once no call is using them.
+ *
+ * @see AccessTokenBrokerBuilder
+ */
+
+public class AccessTokenBroker implements Closeable {
+
+    protected static final Logger LOGGER = LoggerFactory.getLogger(AccessTokenBroker.class);
+
+    protected static class BrokerEntry {
+
+        private static final int CLOSED = -1;
+
+        protected final AccessTokenProvider provider;
+        protected volatile long lastAccess;
+
+        // number of calls using the provider, or CLOSED
+        protected final AtomicInteger users = new AtomicInteger();
+        protected volatile boolean evicted;
+
+        public BrokerEntry(AccessTokenProvider provider, long time) {
+            this.provider = provider;
+            this.lastAccess = time;
+        }
+
+        public AccessTokenProvider getProvider() {
+            return provider;
+        }
+
+        public long getLastAccess() {
+            return lastAccess;
+        }
+
+        /**
+         * Start using the provider.
+         *
+         * @return true if the provider can be used, false if it is closed (or about to be)
+         */
+
+        public boolean acquire() {
+            while (true) {
+                int count = users.get();
+                if (count == CLOSED) {
+                    return false;
+                }
+                if (users.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Stop using the provider.
+         *
+         * @return true if the provider was evicted and should now be closed
+         */
+
+        public boolean release() {
+            return users.decrementAndGet() == 0 && evicted && users.compareAndSet(0, CLOSED);
+        }
+
+        /**
+         * Mark the provider as evicted.
+         *
+         * @return true if the provider is not in use and should now be closed
+         */
+
+        public boolean evict() {
+            evicted = true;
+            return users.compareAndSet(0, CLOSED);
+        }
+    }
+
+    protected final Map<TokenRequest, BrokerEntry> entries = new ConcurrentHashMap<>();
+
+    protected final Function<TokenRequest, AccessTokenProvider> factory;
+    protected final int maximumSize;
+    protected final long idleTimeout; // milliseconds
+
+    protected final AtomicLong nextIdleEviction;
+
+    protected final Closeable closeable;
+
+    /**
+     * Construct new instance.
+     *
+     * @param factory     factory for (cached) access-token providers
+     * @param maximumSize maximum number of access-token providers
+     * @param idleTimeout evict access-token providers not used for this long (in milliseconds)
+     * @param closeable   additional resource to close together with this broker, or null
+     */
+
+    public AccessTokenBroker(Function<TokenRequest, AccessTokenProvider> factory, int maximumSize, long idleTimeout, Closeable closeable) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Expected positive maximum size");
+        }
+        if (idleTimeout <= 0) {
+            throw new IllegalArgumentException("Expected positive idle timeout");
+        }
+        this.factory = factory;
+        this.maximumSize = maximumSize;
+        this.idleTimeout = idleTimeout;
+        this.closeable = closeable;
+        this.nextIdleEviction = new AtomicLong(System.currentTimeMillis() + idleTimeout);
+    }
+
+    /**
+     * Get an access-token.
+     *
+     * @param request token request
+     * @return access-token
+     * @throws AccessTokenException if unable to get an access-token
+     */
+
+    public AccessToken getAccessToken(TokenRequest request) throws AccessTokenException {
+        return getAccessToken(request, false);
+    }
+
+    /**
+     * Get an access-token.
+     *
+     * @param request      token request
+     * @param forceRefresh if true, get a new access-token even if a cached one is available
+     * @return access-token
+     * @throws AccessTokenException if unable to get an access-token
+     */
+
+    public AccessToken getAccessToken(TokenRequest request, boolean forceRefresh) throws AccessTokenException {
+        BrokerEntry entry = acquire(System.currentTimeMillis(), request);
+        try {
+            return entry.getProvider().getAccessToken(forceRefresh);
+        } finally {
+            release(entry);
+        }
+    }
+
+    /**
+     * Get an access-token asynchronously.
+     *
+     * @param request      token request
+     * @param forceRefresh if true, get a new access-token even if a cached one is available
+     * @return future access-token
+     */
+
+    public CompletionStage<AccessToken> getAccessTokenAsync(TokenRequest request, boolean forceRefresh) {
+        BrokerEntry entry = acquire(System.currentTimeMillis(), request);
+        CompletionStage<AccessToken> future;
+        try {
+            future = entry.getProvider().getAccessTokenAsync(forceRefresh);
+        } catch (RuntimeException e) {
+            release(entry);
+            throw e;
+        }
+        return future.whenComplete((accessToken, e) -> release(entry));
+    }
+
+    protected AccessTokenProvider getProvider(long time, TokenRequest request) {
+        return getEntry(time, request).getProvider();
+    }
+
+    protected BrokerEntry acquire(long time, TokenRequest request) {
+        while (true) {
+            BrokerEntry entry = getEntry(time, request);
+            if (entry.acquire()) {
+                return entry;
+            }
+            // evicted and closed by another thread after lookup, try again with a new provider
+            entries.remove(request, entry);
+        }
+    }
+
+    protected void release(BrokerEntry entry) {
+        if (entry.release()) {
+            close(entry);
+        }
+    }
+
+    protected BrokerEntry getEntry(long time, TokenRequest request) {
+        BrokerEntry entry = entries.get(request);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(request, (r) -> new BrokerEntry(factory.apply(r), time));
+
+            if (entries.size() > maximumSize) {
+                evictLeastRecentlyUsed(entry);
+            }
+        } else {
+            entry.lastAccess = time;
+        }
+
+        long next = nextIdleEviction.get();
+        if (time >= next && nextIdleEviction.compareAndSet(next, time + idleTimeout / 2)) {
+            evictIdle(time);
+        }
+
+        return entry;
+    }
+
+    protected void evictLeastRecentlyUsed(BrokerEntry keep) {
+        // sort a snapshot of the access times, as these are updated concurrently
+        List<EvictionCandidate> candidates = new ArrayList<>(entries.size());
+        for (Entry<TokenRequest, BrokerEntry> entry : entries.entrySet()) {
+            candidates.add(new EvictionCandidate(entry.getKey(), entry.getValue(), entry.getValue().getLastAccess()));
+        }
+        candidates.sort(Comparator.comparingLong(EvictionCandidate::lastAccess));
+
+        int count = candidates.size() - maximumSize;
+        for (EvictionCandidate candidate : candidates) {
+            if (count <= 0) {
+                break;
+            }
+            if (candidate.entry() != keep && evict(candidate.request(), candidate.entry())) {
+                count--;
+            }
+        }
+    }
+
+    private record EvictionCandidate(TokenRequest request, BrokerEntry entry, long lastAccess) {
+    }
+
+    protected void evictIdle(long time) {
+        long limit = time - idleTimeout;
+        for (Entry<TokenRequest, BrokerEntry> entry : entries.entrySet()) {
+            if (entry.getValue().getLastAccess() < limit) {
+                evict(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    protected boolean evict(TokenRequest request, BrokerEntry entry) {
+        if (entries.remove(request, entry)) {
+            if(LOGGER.isDebugEnabled()) LOGGER.debug("Evict access-token provider for {}", request);
+            if (entry.evict()) {
+                close(entry);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    protected void close(BrokerEntry entry) {
+        try {
+            entry.getProvider().close();
+        } catch (Exception e) {
+            LOGGER.warn("Problem closing access-token provider", e);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Entry<TokenRequest, BrokerEntry> entry : entries.entrySet()) {
+            evict(entry.getKey(), entry.getValue());
+        }
+        if (closeable != null) {
+            closeable.close();
+        }
+    }
+}
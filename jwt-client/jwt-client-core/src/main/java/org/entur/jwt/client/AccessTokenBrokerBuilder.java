@@ -0,0 +1,139 @@
+package org.entur.jwt.client;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Builder for {@linkplain AccessTokenBroker}. Each {@linkplain TokenRequest} gets its own (lock-based) cache with
+ * preemptive refresh, but all share the same {@linkplain AccessTokenRefreshScheduler}.
+ */
+
+public class AccessTokenBrokerBuilder {
+
+    /**
+     * Create a builder using {@linkplain HttpClient}.
+     *
+     * @param credentials client credentials, i.e. built using an {@linkplain AbstractClientCredentialsBuilder}
+     * @param httpClient HTTP client, see {@linkplain HttpClientUrlAccessTokenProvider#newHttpClient(long)}
+     * @param readTimeout request timeout in milliseconds
+     * @return the builder
+     */
+
+    public static AccessTokenBrokerBuilder newBuilder(ClientCredentials credentials, HttpClient httpClient, long readTimeout) {
+        return new AccessTokenBrokerBuilder(credentials, (c) -> AccessTokenProviderBuilder.newBuilder(c, httpClient, readTimeout));
+    }
+
+    public static AccessTokenBrokerBuilder newBuilder(ClientCredentials credentials, long connectTimeout, long readTimeout) {
+        return new AccessTokenBrokerBuilder(credentials, (c) -> AccessTokenProviderBuilder.newBuilder(c, connectTimeout, readTimeout));
+    }
+
+    protected final ClientCredentials credentials;
+    protected final Function<ClientCredentials, AccessTokenProviderBuilder> factory;
+
+    protected int maximumSize = 256;
+    protected long idleTimeout = TimeUnit.MINUTES.toMillis(30);
+
+    protected long minimumTimeToLive = TimeUnit.SECONDS.toMillis(15);
+    protected long refreshTimeout = TimeUnit.SECONDS.toMillis(15);
+
+    protected boolean preemptiveRefresh = true;
+    protected long preemptiveRefreshTime = TimeUnit.SECONDS.toMillis(30);
+    protected int preemptiveRefreshConstraint = 25;
+
+    protected boolean retrying = true;
+
+    protected AccessTokenRefreshScheduler refreshScheduler;
+
+    public AccessTokenBrokerBuilder(ClientCredentials credentials, Function<ClientCredentials, AccessTokenProviderBuilder> factory) {
+        this.credentials = credentials;
+        this.factory = factory;
+    }
+
+    /**
+     * Limit the number of cached access-token providers.
+     *
+     * @param maximumSize maximum number of token requests to cache
+     * @return the builder
+     */
+
+    public AccessTokenBrokerBuilder maximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * Evict token requests which are not used for some time.
+     *
+     * @param idleTimeout idle timeout
+     * @param unit unit of idle timeout
+     * @return the builder
+     */
+
+    public AccessTokenBrokerBuilder idleTimeout(long idleTimeout, TimeUnit unit) {
+        this.idleTimeout = unit.toMillis(idleTimeout);
+        return this;
+    }
+
+    public AccessTokenBrokerBuilder cached(long minimumTimeToLiveLeft, TimeUnit minimumTimeToLiveLeftUnit, long refreshExpiresIn, TimeUnit refreshExpiresInUnit) {
+        this.minimumTimeToLive = minimumTimeToLiveLeftUnit.toMillis(minimumTimeToLiveLeft);
+        this.refreshTimeout = refreshExpiresInUnit.toMillis(refreshExpiresIn);
+        return this;
+    }
+
+    public AccessTokenBrokerBuilder preemptiveCacheRefresh(long timeout, TimeUnit unit, int constraint) {
+        this.preemptiveRefresh = true;
+        this.preemptiveRefreshTime = unit.toMillis(timeout);
+        this.preemptiveRefreshConstraint = constraint;
+        return this;
+    }
+
+    public AccessTokenBrokerBuilder preemptiveCacheRefresh(boolean preemptive) {
+        this.preemptiveRefresh = preemptive;
+        return this;
+    }
+
+    public AccessTokenBrokerBuilder retrying(boolean retrying) {
+        this.retrying = retrying;
+        return this;
+    }
+
+    /**
+     * Use a shared refresh scheduler. If none is set, the broker creates (and closes) its own.
+     *
+     * @param refreshScheduler refresh scheduler
+     * @return the builder
+     */
+
+    public AccessTokenBrokerBuilder refreshScheduler(AccessTokenRefreshScheduler refreshScheduler) {
+        this.refreshScheduler = refreshScheduler;
+        return this;
+    }
+
+    public AccessTokenBroker build() {
+        AccessTokenRefreshScheduler scheduler = this.refreshScheduler;
+        AccessTokenRefreshScheduler ownedScheduler = null;
+        if (preemptiveRefresh && scheduler == null) {
+            scheduler = ownedScheduler = new AccessTokenRefreshScheduler(4, 0);
+        }
+
+        AccessTokenRefreshScheduler providerScheduler = scheduler;
+        return new AccessTokenBroker((request) -> newAccessTokenProvider(request, providerScheduler), maximumSize, idleTimeout, ownedScheduler);
+    }
+
+    protected AccessTokenProvider newAccessTokenProvider(TokenRequest request, AccessTokenRefreshScheduler scheduler) {
+        AccessTokenProviderBuilder builder = factory.apply(request.apply(credentials));
+
+        builder.retrying(retrying);
+        builder.health(false);
+        builder.cached(minimumTimeToLive, TimeUnit.MILLISECONDS, refreshTimeout, TimeUnit.MILLISECONDS);
+        if (preemptiveRefresh) {
+            // never eager, so that idle token requests do not refresh
+            builder.preemptiveCacheRefresh(preemptiveRefreshTime, TimeUnit.MILLISECONDS, preemptiveRefreshConstraint, false);
+            builder.refreshScheduler(scheduler);
+        } else {
+            builder.preemptiveCacheRefresh(false);
+        }
+        return builder.build();
+    }
+}
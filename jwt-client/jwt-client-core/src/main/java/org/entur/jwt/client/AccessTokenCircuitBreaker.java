@@ -0,0 +1,115 @@
+package org.entur.jwt.client;
+
+/**
+ * Circuit breaker for the authorization server. Opens after a number of consecutive
+ * 429 (too many requests) or 503 (service unavailable) responses, for at least the open duration,
+ * or longer if the authorization server indicated so. When the open duration has passed, a single
+ * trial request is let through (half-open); the circuit closes again if that request succeeds.
+ */
+
+public class AccessTokenCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    protected final int failureThreshold;
+    protected final long openDuration;
+
+    protected State state = State.CLOSED;
+    protected int failures;
+    protected long openUntil = -1L;
+    protected boolean trial;
+
+    /**
+     * Construct new instance.
+     *
+     * @param failureThreshold number of consecutive failures before the circuit opens
+     * @param openDuration     minimum time (in milliseconds) the circuit stays open
+     */
+
+    public AccessTokenCircuitBreaker(int failureThreshold, long openDuration) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Expected failure threshold of at least one");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Check whether a request to the authorization server is permitted.
+     *
+     * @param time current time
+     * @return true if the request is permitted
+     */
+
+    public synchronized boolean tryAcquire(long time) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (time < openUntil) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trial = false;
+                // fall through
+            default:
+                if (trial) {
+                    return false;
+                }
+                trial = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        trial = false;
+    }
+
+    /**
+     * Register a 429 or 503 response.
+     *
+     * @param time       current time
+     * @param retryDelay delay (in milliseconds) requested by the authorization server, or -1 if unknown
+     */
+
+    public synchronized void onFailure(long time, long retryDelay) {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openUntil = time + Math.max(openDuration, retryDelay);
+            trial = false;
+        }
+    }
+
+    /**
+     * Register an outcome which says nothing about the authorization server's load, i.e. a network error.
+     */
+
+    public synchronized void onIgnored() {
+        trial = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized boolean isOpen(long time) {
+        return state == State.OPEN && time < openUntil;
+    }
+
+    public synchronized long getOpenUntil() {
+        return openUntil;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public long getOpenDuration() {
+        return openDuration;
+    }
+}
@@ -0,0 +1,312 @@
+package org.entur.jwt.client;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Local file holding a single {@linkplain AccessToken}. Writes are atomic (write to temporary file, then rename),
+ * so that readers never see a partially written token. Optionally encrypted using AES-GCM.<br>
+ * <br>
+ * The file header can carry a fingerprint of the client credentials which obtained the token; a token
+ * written with a different fingerprint (i.e. for another client or audience) is not returned.<br>
+ * <br>
+ * Note: A simple binary format is used rather than Java serialization, so that reading the file never
+ * instantiates arbitrary classes.
+ */
+
+public class AccessTokenFile {
+
+    private static final int MAGIC = 0x4A575443; // JWTC
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_FINGERPRINT = 1;
+
+    private static final byte FLAG_PLAIN = 0;
+    private static final byte FLAG_ENCRYPTED = 1;
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12; // bytes
+    private static final int TAG_LENGTH = 128; // bits
+
+    private static final int MAX_SIZE = 64 * 1024;
+
+    private static final String[] FINGERPRINT_PARAMETERS = {"audience", "scope"};
+
+    private static final String BASIC_PREFIX = "Basic ";
+
+    /**
+     * Create a fingerprint of client credentials, from the issue URL, client id, audience and scope.
+     * The client secret is not included.
+     *
+     * @param credentials client credentials
+     * @return SHA-256 fingerprint
+     */
+
+    public static byte[] fingerprint(ClientCredentials credentials) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            URL issueURL = credentials.getIssueURL();
+            update(digest, issueURL != null ? issueURL.toExternalForm() : null);
+
+            Map<String, Object> parameters = credentials.getParameters();
+            update(digest, getClientId(parameters, credentials.getHeaders()));
+            for (String name : FINGERPRINT_PARAMETERS) {
+                Object value = parameters != null ? parameters.get(name) : null;
+                update(digest, value != null ? value.toString() : null);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String getClientId(Map<String, Object> parameters, Map<String, Object> headers) {
+        Object clientId = parameters != null ? parameters.get("client_id") : null;
+        if (clientId != null) {
+            return clientId.toString();
+        }
+        // client id and secret in basic authorization header
+        Object authorization = headers != null ? headers.get("Authorization") : null;
+        if (authorization != null && authorization.toString().startsWith(BASIC_PREFIX)) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(authorization.toString().substring(BASIC_PREFIX.length())), StandardCharsets.UTF_8);
+                int index = decoded.indexOf(':');
+                if (index != -1) {
+                    return decoded.substring(0, index);
+                }
+            } catch (IllegalArgumentException e) {
+                // ignore
+            }
+        }
+        return null;
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            digest.update(bytes);
+        }
+        // separator, so that values cannot run into each other
+        digest.update((byte) 0);
+    }
+
+    protected final Path path;
+    protected final SecretKey key;
+    protected final byte[] fingerprint;
+
+    protected final SecureRandom random;
+
+    /**
+     * Construct new instance.
+     *
+     * @param path file path
+     * @param key AES key for encryption, or null for no encryption
+     */
+
+    public AccessTokenFile(Path path, SecretKey key) {
+        this(path, key, null);
+    }
+
+    /**
+     * Construct new instance.
+     *
+     * @param path file path
+     * @param key AES key for encryption, or null for no encryption
+     * @param fingerprint fingerprint of the client credentials, or null for no fingerprint check
+     */
+
+    public AccessTokenFile(Path path, SecretKey key, byte[] fingerprint) {
+        if (path == null) {
+            throw new IllegalArgumentException("Expected path");
+        }
+        if (fingerprint != null && fingerprint.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Expected fingerprint of at most " + Short.MAX_VALUE + " bytes");
+        }
+        this.path = path;
+        this.key = key;
+        this.fingerprint = fingerprint != null ? fingerprint.clone() : new byte[0];
+        this.random = key != null ? new SecureRandom() : null;
+    }
+
+    /**
+     * Read access-token.
+     *
+     * @return the access-token, or null if no file exists or the file was written for other client credentials
+     * @throws IOException if the file could not be read or decrypted
+     */
+
+    public AccessToken read() throws IOException {
+        byte[] bytes;
+        try {
+            if (Files.size(path) > MAX_SIZE) {
+                throw new IOException("Access-token file " + path + " exceeds " + MAX_SIZE + " bytes");
+            }
+            bytes = Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Unexpected access-token file format");
+            }
+            byte version = in.readByte();
+            if (version == VERSION_WITHOUT_FINGERPRINT) {
+                // written by a previous version, not tied to any credentials
+                return null;
+            }
+            if (version != VERSION) {
+                throw new IOException("Unexpected access-token file format");
+            }
+            byte[] written = new byte[in.readUnsignedShort()];
+            in.readFully(written);
+            if (!MessageDigest.isEqual(written, fingerprint)) {
+                return null;
+            }
+            byte flag = in.readByte();
+            byte[] payload = in.readAllBytes();
+            if (flag == FLAG_ENCRYPTED) {
+                if (key == null) {
+                    throw new IOException("Access-token file is encrypted, but no key is configured");
+                }
+                payload = decrypt(payload);
+            } else if (flag != FLAG_PLAIN) {
+                throw new IOException("Unexpected access-token file format");
+            } else if (key != null) {
+                throw new IOException("Access-token file is not encrypted");
+            }
+            return decode(payload);
+        }
+    }
+
+    /**
+     * Write access-token.
+     *
+     * @param accessToken access-token
+     * @throws IOException if the file could not be written
+     */
+
+    public void write(AccessToken accessToken) throws IOException {
+        byte[] payload = encode(accessToken);
+
+        ByteArrayOutputStream bout = new ByteArrayOutputStream(payload.length + 64);
+        try (DataOutputStream out = new DataOutputStream(bout)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeShort(fingerprint.length);
+            out.write(fingerprint);
+            if (key != null) {
+                out.writeByte(FLAG_ENCRYPTED);
+                out.write(encrypt(payload));
+            } else {
+                out.writeByte(FLAG_PLAIN);
+                out.write(payload);
+            }
+        }
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            restrictPermissions(temporary);
+            Files.write(temporary, bout.toByteArray());
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    public void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    protected void restrictPermissions(Path file) {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            // ignore, i.e. not a POSIX file system
+        }
+    }
+
+    protected byte[] encode(AccessToken accessToken) throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bout)) {
+            out.writeUTF(accessToken.getValue());
+            out.writeUTF(accessToken.getType());
+            out.writeLong(accessToken.getExpires());
+        }
+        return bout.toByteArray();
+    }
+
+    protected AccessToken decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            String value = in.readUTF();
+            String type = in.readUTF();
+            long expires = in.readLong();
+            return new AccessToken(value, type, expires);
+        }
+    }
+
+    protected byte[] encrypt(byte[] payload) throws IOException {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, iv));
+            byte[] encrypted = cipher.doFinal(payload);
+
+            byte[] result = new byte[IV_LENGTH + encrypted.length];
+            System.arraycopy(iv, 0, result, 0, IV_LENGTH);
+            System.arraycopy(encrypted, 0, result, IV_LENGTH, encrypted.length);
+            return result;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Unable to encrypt access-token", e);
+        }
+    }
+
+    protected byte[] decrypt(byte[] payload) throws IOException {
+        if (payload.length <= IV_LENGTH) {
+            throw new IOException("Unexpected access-token file format");
+        }
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, payload, 0, IV_LENGTH));
+            return cipher.doFinal(payload, IV_LENGTH, payload.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Unable to decrypt access-token", e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public byte[] getFingerprint() {
+        return fingerprint.length > 0 ? fingerprint.clone() : null;
+    }
+}
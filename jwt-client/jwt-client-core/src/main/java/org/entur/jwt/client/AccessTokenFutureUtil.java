@@ -0,0 +1,43 @@
+package org.entur.jwt.client;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+public class AccessTokenFutureUtil {
+
+    private AccessTokenFutureUtil() {
+    }
+
+    /**
+     * Unwrap the cause of a failed completion stage.
+     *
+     * @param e exception, possibly wrapped in a {@linkplain CompletionException} or {@linkplain ExecutionException}
+     * @return the underlying exception
+     */
+
+    public static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    /**
+     * Convert the cause of a failed completion stage to an {@linkplain AccessTokenException}.
+     *
+     * @param e exception, possibly wrapped
+     * @return the underlying {@linkplain AccessTokenException}, or an {@linkplain AccessTokenUnavailableException} wrapping other exceptions
+     */
+
+    public static AccessTokenException toAccessTokenException(Throwable e) {
+        Throwable cause = unwrap(e);
+        if (cause instanceof AccessTokenException a) {
+            return a;
+        }
+        if (cause instanceof TimeoutException) {
+            return new AccessTokenUnavailableException("Timeout while waiting for access-token", cause);
+        }
+        return new AccessTokenUnavailableException(cause);
+    }
+}
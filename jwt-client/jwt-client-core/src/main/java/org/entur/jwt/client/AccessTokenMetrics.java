@@ -0,0 +1,52 @@
+package org.entur.jwt.client;
+
+/**
+ * Metrics callback for the {@linkplain AccessTokenProvider} chain. Implementations must be thread-safe and non-blocking.
+ *
+ * @see AbstractAccessTokenProvidersBuilder#metrics(AccessTokenMetrics)
+ */
+
+public interface AccessTokenMetrics {
+
+    AccessTokenMetrics NOOP = new AccessTokenMetrics() {
+    };
+
+    enum Operation {
+        /** get a new access-token from the authorization server */
+        ISSUE,
+        /** get a new access-token using a refresh-token */
+        REFRESH,
+        /** revoke a refresh-token */
+        REVOKE
+    }
+
+    /**
+     * A call to the authorization server completed.
+     *
+     * @param operation operation
+     * @param duration  duration in nanoseconds
+     * @param success   true if the call succeeded
+     */
+
+    default void onRequest(Operation operation, long duration, boolean success) {
+    }
+
+    default void onCacheHit() {
+    }
+
+    default void onCacheMiss() {
+    }
+
+    /**
+     * Timeout while waiting for another thread to refresh the cache.
+     */
+
+    default void onCacheTimeout() {
+    }
+
+    default void onPreemptiveRefresh() {
+    }
+
+    default void onPreemptiveRefreshFailure() {
+    }
+}
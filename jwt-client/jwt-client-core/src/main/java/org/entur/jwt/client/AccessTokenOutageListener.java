@@ -0,0 +1,38 @@
+package org.entur.jwt.client;
+
+/**
+ * Listener for outages, i.e. periods where an {@linkplain OutageTolerantAccessTokenProvider}
+ * serves its last known access-token because no new access-token could be obtained.
+ */
+
+public interface AccessTokenOutageListener {
+
+    /**
+     * An outage started.
+     *
+     * @param e cause
+     * @param remainingTime time (in milliseconds) until the served access-token expires
+     */
+
+    default void onOutageStarted(AccessTokenException e, long remainingTime) {
+    }
+
+    /**
+     * A background refresh failed during an outage.
+     *
+     * @param e cause
+     * @param nextRetryDelay delay (in milliseconds) before the next attempt, or -1 if no further attempts are scheduled
+     */
+
+    default void onOutageRefreshFailed(AccessTokenException e, long nextRetryDelay) {
+    }
+
+    /**
+     * An outage ended.
+     *
+     * @param duration outage duration (in milliseconds)
+     */
+
+    default void onOutageEnded(long duration) {
+    }
+}
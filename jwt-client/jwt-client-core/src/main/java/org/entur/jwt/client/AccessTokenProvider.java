@@ -1,6 +1,8 @@
 package org.entur.jwt.client;
 
 import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Provider for {@linkplain AccessToken}. These providers should be closed, so
@@ -12,4 +14,45 @@ public interface AccessTokenProvider extends Closeable, AccessTokenHealthProvide
 
     AccessToken getAccessToken(boolean forceRefresh) throws AccessTokenException;
 
+    /**
+     * Get access-token asynchronously. Failures complete the returned stage with an {@linkplain AccessTokenException}.<br>
+     * <br>
+     * The default implementation invokes {@linkplain #getAccessToken(boolean)} in the calling thread,
+     * providers which perform I/O should override this method.
+     *
+     * @param forceRefresh force refresh of the access-token
+     * @return access-token completion stage
+     */
+
+    default CompletionStage<AccessToken> getAccessTokenAsync(boolean forceRefresh) {
+        try {
+            return CompletableFuture.completedFuture(getAccessToken(forceRefresh));
+        } catch (AccessTokenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Get access-token without blocking, if one is immediately available (i.e. cached).
+     * This method has no side effects.
+     *
+     * @return access-token, or null if getting an access-token requires a (potentially blocking) request
+     */
+
+    default AccessToken getCachedAccessToken() {
+        return null;
+    }
+
+    /**
+     * Get access-token without blocking, if one is immediately available (i.e. cached).
+     * Intended for the request path, where the access-token is about to be used.
+     *
+     * @param preemptiveRefresh whether to start a background refresh if the cached access-token is due for one
+     * @return access-token, or null if getting an access-token requires a (potentially blocking) request
+     */
+
+    default AccessToken getCachedAccessToken(boolean preemptiveRefresh) {
+        return getCachedAccessToken();
+    }
+
 }
@@ -1,6 +1,7 @@
 package org.entur.jwt.client;
 
 import java.net.URL;
+import java.net.http.HttpClient;
 
 public class AccessTokenProviderBuilder extends AbstractAccessTokenProvidersBuilder<AccessTokenProviderBuilder> {
 
@@ -10,11 +11,7 @@ public class AccessTokenProviderBuilder extends AbstractAccessTokenProvidersBuil
         URL refreshUrl = credentials.getRefreshURL();
 
         AccessTokenProvider accessTokenProvider;
-        if (revokeUrl == null && refreshUrl != null) {
-            throw new IllegalStateException("Expected revoke url when refresh url is present");
-        } else if (revokeUrl != null && refreshUrl == null) {
-            throw new IllegalStateException("Expected refresh url when revoke url is present");
-        } else if (revokeUrl != null && refreshUrl != null) {
+        if (isStateful(revokeUrl, refreshUrl)) {
             accessTokenProvider = new StatefulUrlAccessTokenProvider(credentials.getIssueURL(), credentials.getParameters(), credentials.getHeaders(), connectTimeout, readTimeout, refreshUrl, revokeUrl);
         } else {
             accessTokenProvider = new UrlAccessTokenProvider(credentials.getIssueURL(), credentials.getParameters(), credentials.getHeaders(), connectTimeout, readTimeout);
@@ -22,6 +19,39 @@ public class AccessTokenProviderBuilder extends AbstractAccessTokenProvidersBuil
         return new AccessTokenProviderBuilder(accessTokenProvider);
     }
 
+    /**
+     * Create a builder using {@linkplain HttpClient}. Reuse the same client for all
+     * providers of the same authorization server, so that connections are shared.
+     *
+     * @param credentials client credentials
+     * @param httpClient HTTP client, see {@linkplain HttpClientUrlAccessTokenProvider#newHttpClient(long)}
+     * @param readTimeout request timeout in milliseconds
+     * @return the builder
+     */
+
+    public static AccessTokenProviderBuilder newBuilder(ClientCredentials credentials, HttpClient httpClient, long readTimeout) {
+
+        URL revokeUrl = credentials.getRevokeURL();
+        URL refreshUrl = credentials.getRefreshURL();
+
+        AccessTokenProvider accessTokenProvider;
+        if (isStateful(revokeUrl, refreshUrl)) {
+            accessTokenProvider = new HttpClientStatefulUrlAccessTokenProvider(httpClient, credentials.getIssueURL(), credentials.getParameters(), credentials.getHeaders(), readTimeout, refreshUrl, revokeUrl);
+        } else {
+            accessTokenProvider = new HttpClientUrlAccessTokenProvider(httpClient, credentials.getIssueURL(), credentials.getParameters(), credentials.getHeaders(), readTimeout);
+        }
+        return new AccessTokenProviderBuilder(accessTokenProvider);
+    }
+
+    private static boolean isStateful(URL revokeUrl, URL refreshUrl) {
+        if (revokeUrl == null && refreshUrl != null) {
+            throw new IllegalStateException("Expected revoke url when refresh url is present");
+        } else if (revokeUrl != null && refreshUrl == null) {
+            throw new IllegalStateException("Expected refresh url when revoke url is present");
+        }
+        return revokeUrl != null;
+    }
+
     public AccessTokenProviderBuilder(AccessTokenProvider accessTokenProvider) {
         super(accessTokenProvider);
     }
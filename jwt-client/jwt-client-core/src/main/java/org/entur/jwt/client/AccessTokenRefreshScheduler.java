@@ -0,0 +1,132 @@
+package org.entur.jwt.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh scheduler for sharing between many {@linkplain PreemptiveCachedAccessTokenProvider} instances.<br>
+ * <br>
+ * A single (platform) thread keeps time, while the refreshes themselves run on virtual threads.
+ * The number of concurrent refreshes is bounded. Refresh times can be spread using jitter,
+ * so that tokens with the same lifetime are not refreshed at the same time.
+ */
+
+public class AccessTokenRefreshScheduler implements Closeable {
+
+    protected static final Logger LOGGER = LoggerFactory.getLogger(AccessTokenRefreshScheduler.class);
+
+    protected final ScheduledExecutorService scheduledExecutorService;
+    protected final ExecutorService executorService;
+
+    protected final Semaphore permits;
+
+    /** maximum jitter in milliseconds */
+    protected final long maxJitter;
+
+    /**
+     * Construct new instance.
+     *
+     * @param maxConcurrentRefreshes maximum number of concurrent refreshes
+     * @param maxJitter maximum jitter (in milliseconds) to subtract from refresh times
+     */
+
+    public AccessTokenRefreshScheduler(int maxConcurrentRefreshes, long maxJitter) {
+        this(Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jwt-client-refresh-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        }), Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("jwt-client-refresh-", 0).factory()), maxConcurrentRefreshes, maxJitter);
+    }
+
+    /**
+     * Construct new instance.
+     *
+     * @param scheduledExecutorService executor service for keeping time
+     * @param executorService executor service for running refreshes
+     * @param maxConcurrentRefreshes maximum number of concurrent refreshes
+     * @param maxJitter maximum jitter (in milliseconds) to subtract from refresh times
+     */
+
+    public AccessTokenRefreshScheduler(ScheduledExecutorService scheduledExecutorService, ExecutorService executorService, int maxConcurrentRefreshes, long maxJitter) {
+        if (maxConcurrentRefreshes <= 0) {
+            throw new IllegalArgumentException("Expected positive number of concurrent refreshes");
+        }
+        if (maxJitter < 0) {
+            throw new IllegalArgumentException("Expected non-negative max jitter");
+        }
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.executorService = executorService;
+        this.permits = new Semaphore(maxConcurrentRefreshes);
+        this.maxJitter = maxJitter;
+    }
+
+    /**
+     * Run a refresh as soon as possible.
+     *
+     * @param task refresh task
+     */
+
+    public void execute(Runnable task) {
+        executorService.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if(LOGGER.isDebugEnabled()) LOGGER.debug("Interrupted while waiting to refresh access-token", e);
+                return;
+            }
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * Run a refresh after a delay.
+     *
+     * @param task refresh task
+     * @param delay delay
+     * @param unit delay unit
+     * @return future for cancelling the refresh
+     */
+
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return scheduledExecutorService.schedule(() -> execute(task), delay, unit);
+    }
+
+    /**
+     * Get a random jitter.
+     *
+     * @param limit upper limit (in milliseconds)
+     * @return jitter between zero and the lowest of the limit and the maximum jitter (in milliseconds)
+     */
+
+    public long jitter(long limit) {
+        long bound = Math.min(limit, maxJitter);
+        if (bound <= 0) {
+            return 0;
+        }
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    public long getMaxJitter() {
+        return maxJitter;
+    }
+
+    @Override
+    public void close() {
+        scheduledExecutorService.shutdownNow();
+        executorService.shutdownNow();
+    }
+}
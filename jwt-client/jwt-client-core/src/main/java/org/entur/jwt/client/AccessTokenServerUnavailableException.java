@@ -0,0 +1,171 @@
+package org.entur.jwt.client;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Exception thrown when the authorization server responds with HTTP 429 (too many requests) or
+ * 503 (service unavailable). Holds the parsed values of the <code>Retry-After</code> and <code>X-RateLimit-*</code> headers,
+ * if present.
+ *
+ * @see <a href="https://auth0.com/docs/troubleshoot/customer-support/operational-policies/rate-limit-policy">Auth0 rate limit policy</a>
+ */
+
+public class AccessTokenServerUnavailableException extends AccessTokenUnavailableException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String HEADER_RETRY_AFTER = "Retry-After";
+    public static final String HEADER_RATE_LIMIT_LIMIT = "X-RateLimit-Limit";
+    public static final String HEADER_RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+    public static final String HEADER_RATE_LIMIT_RESET = "X-RateLimit-Reset";
+
+    // values above this are epoch seconds, below are delta seconds
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+    /**
+     * Create new instance.
+     *
+     * @param message exception message
+     * @param statusCode HTTP status code
+     * @param headers header lookup (returns null for missing headers)
+     * @return new instance
+     */
+
+    public static AccessTokenServerUnavailableException newInstance(String message, int statusCode, UnaryOperator<String> headers) {
+        long time = System.currentTimeMillis();
+
+        return new AccessTokenServerUnavailableException(message, statusCode,
+                parseRetryAfter(headers.apply(HEADER_RETRY_AFTER), time),
+                parseLong(headers.apply(HEADER_RATE_LIMIT_LIMIT)),
+                parseLong(headers.apply(HEADER_RATE_LIMIT_REMAINING)),
+                parseRateLimitReset(headers.apply(HEADER_RATE_LIMIT_RESET), time));
+    }
+
+    protected static long parseLong(String value) {
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                // ignore
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * Parse Retry-After header, either delta-seconds or HTTP-date.
+     *
+     * @param value header value
+     * @param time current time
+     * @return the point in time (epoch millis) after which to retry, or -1 if unknown
+     */
+
+    protected static long parseRetryAfter(String value, long time) {
+        if (value == null || value.isBlank()) {
+            return -1L;
+        }
+        long seconds = parseLong(value);
+        if (seconds >= 0) {
+            return time + seconds * 1000;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Parse X-RateLimit-Reset header, either epoch seconds (i.e. Auth0) or delta-seconds.
+     *
+     * @param value header value
+     * @param time current time
+     * @return the point in time (epoch millis) when the rate limit resets, or -1 if unknown
+     */
+
+    protected static long parseRateLimitReset(String value, long time) {
+        long seconds = parseLong(value);
+        if (seconds < 0) {
+            return -1L;
+        }
+        if (seconds > EPOCH_SECONDS_THRESHOLD) {
+            return seconds * 1000;
+        }
+        return time + seconds * 1000;
+    }
+
+    private final int statusCode;
+    private final long retryAfter;
+    private final long rateLimitLimit;
+    private final long rateLimitRemaining;
+    private final long rateLimitReset;
+
+    public AccessTokenServerUnavailableException(String message, int statusCode, long retryAfter, long rateLimitLimit, long rateLimitRemaining, long rateLimitReset) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+        this.rateLimitLimit = rateLimitLimit;
+        this.rateLimitRemaining = rateLimitRemaining;
+        this.rateLimitReset = rateLimitReset;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isTooManyRequests() {
+        return statusCode == 429;
+    }
+
+    /**
+     * @return point in time (epoch millis) after which to retry, or -1 if unknown
+     */
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return the rate limit, or -1 if unknown
+     */
+
+    public long getRateLimitLimit() {
+        return rateLimitLimit;
+    }
+
+    /**
+     * @return the remaining number of requests, or -1 if unknown
+     */
+
+    public long getRateLimitRemaining() {
+        return rateLimitRemaining;
+    }
+
+    /**
+     * @return point in time (epoch millis) when the rate limit resets, or -1 if unknown
+     */
+
+    public long getRateLimitReset() {
+        return rateLimitReset;
+    }
+
+    /**
+     * Get the minimum delay before retrying, as indicated by the authorization server.
+     *
+     * @param time current time
+     * @return delay in milliseconds, or -1 if unknown
+     */
+
+    public long getRetryDelay(long time) {
+        if (retryAfter != -1L) {
+            return Math.max(0, retryAfter - time);
+        }
+        if (rateLimitReset != -1L && rateLimitRemaining == 0) {
+            return Math.max(0, rateLimitReset - time);
+        }
+        return -1L;
+    }
+}
@@ -4,6 +4,12 @@ import java.nio.charset.StandardCharsets;
 
 public class AuthorizationHeaderUtil {
 
+    public static final String BEARER_PREFIX = "Bearer ";
+
+    public static String createBearerHeader(String token) {
+        return BEARER_PREFIX + token;
+    }
+
     public static String createHeader(String clientId, String secret) {
         StringBuilder buf = new StringBuilder(clientId);
         buf.append(':').append(secret);
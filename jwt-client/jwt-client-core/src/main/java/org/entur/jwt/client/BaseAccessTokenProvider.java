@@ -19,6 +19,16 @@ public abstract class BaseAccessTokenProvider implements AccessTokenProvider {
         return provider;
     }
 
+    @Override
+    public AccessToken getCachedAccessToken() {
+        return provider.getCachedAccessToken();
+    }
+
+    @Override
+    public AccessToken getCachedAccessToken(boolean preemptiveRefresh) {
+        return provider.getCachedAccessToken(preemptiveRefresh);
+    }
+
     @Override
     public AccessTokenHealth getHealth(boolean refresh) {
         return provider.getHealth(refresh);
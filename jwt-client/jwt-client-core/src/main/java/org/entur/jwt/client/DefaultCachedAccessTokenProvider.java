@@ -5,7 +5,10 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Caching {@linkplain AccessTokenProvider}. Blocks when the cache is updated.
+ * Caching {@linkplain AccessTokenProvider}. Blocks when the cache is updated.<br>
+ * <br>
+ * Asynchronous callers do not block, but share the same single in-flight refresh
+ * as synchronous callers.
  */
 
 public class DefaultCachedAccessTokenProvider extends AbstractCachedAccessTokenProvider {
@@ -46,22 +49,14 @@ public class DefaultCachedAccessTokenProvider extends AbstractCachedAccessTokenP
         this.refreshTimeout = refreshTimeout;
     }
 
-    /**
-     * Get cached token.
-     * 
-     * @return token, null if cache is not populated
-     */
-
-    public AccessToken getCachedAccessToken() {
-        return getCachedAccessToken(System.currentTimeMillis());
-    }
-
     protected AccessToken getAccessToken(long time, boolean forceUpdate) throws AccessTokenException {
         AccessTokenCacheItem cache = this.cache;
         if (forceUpdate || cache == null || !cache.isValid(time)) {
+            metrics.onCacheMiss();
             return getAccessTokenBlocking(time, cache).getValue();
         }
 
+        metrics.onCacheHit();
         return cache.getValue();
     }
 
@@ -77,32 +72,21 @@ public class DefaultCachedAccessTokenProvider extends AbstractCachedAccessTokenP
         // but requesting the same data downstream is not better, so
         // this is a necessary evil.
 
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(refreshTimeout);
         try {
             if (lock.tryLock(refreshTimeout, TimeUnit.MILLISECONDS)) {
                 try {
-                    // see if anyone already refreshed the cache while we were
-                    // hold getting the lock
-                    if (cache == this.cache) {
-                        // Seems cache was not updated.
-                        // We hold the lock, so safe to update it now
-                        // get and save to cache
-                        cache = loadAccessTokenFromProvider(time);
-                    } else {
-                        // load updated value
-                        cache = this.cache;
-                    }
+                    // The cache might have been refreshed while we were waiting for the lock.
+                    // Otherwise refresh it, or wait for an asynchronous refresh
+                    // already in flight.
+                    return getAccessTokenSingleFlight(time, cache, deadline);
                 } finally {
                     lock.unlock();
                 }
             } else {
+                metrics.onCacheTimeout();
                 throw new AccessTokenUnavailableException("Timeout while waiting for refreshed cache (limit of " + refreshTimeout + "ms exceed).");
             }
-
-            if (cache != null && cache.isValid(time)) {
-                return cache;
-            }
-
-            throw new AccessTokenUnavailableException("Unable to refresh cache");
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt(); // Restore interrupted state to make sonar happy
 
@@ -118,6 +102,7 @@ public class DefaultCachedAccessTokenProvider extends AbstractCachedAccessTokenP
         return this.cache = createCacheItem(time, accessToken);
     }
 
+    @Override
     protected AccessTokenCacheItem createCacheItem(long time, AccessToken accessToken) {
         return new AccessTokenCacheItem(accessToken, accessToken.getExpires() - minimumTimeToLive, Long.MAX_VALUE);
     }
@@ -143,6 +128,7 @@ public class DefaultCachedAccessTokenProvider extends AbstractCachedAccessTokenP
         return minimumTimeToLive;
     }
 
+    @Override
     public long getRefreshTimeout() {
         return refreshTimeout;
     }
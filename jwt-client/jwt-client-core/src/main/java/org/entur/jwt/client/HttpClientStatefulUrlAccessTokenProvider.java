@@ -0,0 +1,147 @@
+package org.entur.jwt.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.entur.jwt.client.HttpClientUrlAccessTokenProvider.createRequest;
+import static org.entur.jwt.client.HttpClientUrlAccessTokenProvider.printHttpResponseHeadersIfPresent;
+import static org.entur.jwt.client.HttpClientUrlAccessTokenProvider.readHttpResponse;
+
+/**
+ * {@linkplain AccessTokenProvider} which handles refresh tokens, using {@linkplain HttpClient}.
+ *
+ * @see HttpClientUrlAccessTokenProvider
+ */
+
+public class HttpClientStatefulUrlAccessTokenProvider extends AbstractStatefulUrlAccessTokenProvider {
+
+    protected static final Logger LOGGER = LoggerFactory.getLogger(HttpClientStatefulUrlAccessTokenProvider.class);
+
+    protected final HttpClient httpClient;
+    protected final long readTimeout;
+
+    protected final ObjectReader reader;
+
+    protected final HttpRequest issueRequest;
+
+    public HttpClientStatefulUrlAccessTokenProvider(HttpClient httpClient, URL issueUrl, Map<String, Object> parameters, Map<String, Object> headers, long readTimeout, URL refreshUrl, URL revokeUrl) {
+        super(issueUrl, parameters, headers, refreshUrl, revokeUrl);
+
+        checkArgument(httpClient != null, "A non-null http client is required");
+        checkArgument(readTimeout > 0, "Invalid read timeout value '" + readTimeout + "'. Must be a positive integer.");
+
+        this.httpClient = httpClient;
+        this.readTimeout = readTimeout;
+
+        JsonMapper mapper = JsonMapper.builder().build();
+        this.reader = mapper.readerFor(ClientCredentialsResponse.class);
+
+        this.issueRequest = createRequest(issueUrl, issueBody, issueHeaders, readTimeout);
+    }
+
+    @Override
+    protected ClientCredentialsResponse getToken() throws AccessTokenException {
+        return send(issueRequest, false);
+    }
+
+    @Override
+    protected CompletionStage<ClientCredentialsResponse> getTokenAsync() {
+        return sendAsync(issueRequest, false);
+    }
+
+    @Override
+    protected ClientCredentialsResponse getToken(RefreshToken response) throws AccessTokenException {
+        return send(createRefreshRequest(response), true);
+    }
+
+    @Override
+    protected CompletionStage<ClientCredentialsResponse> getTokenAsync(RefreshToken response) {
+        return sendAsync(createRefreshRequest(response), true);
+    }
+
+    protected HttpRequest createRefreshRequest(RefreshToken response) {
+        return createRequest(refreshUrl, createRefreshBody(response), Collections.emptyMap(), readTimeout);
+    }
+
+    protected ClientCredentialsResponse send(HttpRequest request, boolean refresh) throws AccessTokenException {
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+            return read(response, refresh);
+        } catch (IOException e) {
+            throw new AccessTokenUnavailableException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccessTokenUnavailableException(e);
+        }
+    }
+
+    protected CompletionStage<ClientCredentialsResponse> sendAsync(HttpRequest request, boolean refresh) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(AccessTokenFutureUtil.toAccessTokenException(e)))
+                .thenCompose(response -> {
+                    try {
+                        return CompletableFuture.completedFuture(read(response, refresh));
+                    } catch (AccessTokenException e) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                });
+    }
+
+    protected ClientCredentialsResponse read(HttpResponse<byte[]> response, boolean refresh) throws AccessTokenException {
+        int responseCode = response.statusCode();
+        if (refresh && responseCode != 200 && responseCode != 503 && responseCode != 429) {
+            if(LOGGER.isInfoEnabled()) LOGGER.info("Got unexpected response code {} when trying to refresh token at {}", responseCode, refreshUrl);
+
+            throw new RefreshTokenException("Authorization server responded with HTTP unexpected response code " + responseCode);
+        }
+        ClientCredentialsResponse clientCredentialsResponse = readHttpResponse(response, reader);
+        validate(clientCredentialsResponse);
+        return clientCredentialsResponse;
+    }
+
+    @Override
+    protected void close(long time) {
+        RefreshToken threadSafeRefreshToken = this.refreshToken; // defensive copy
+        if (threadSafeRefreshToken != null && threadSafeRefreshToken.isValid(time)) {
+            this.refreshToken = null;
+
+            HttpRequest request = createRequest(revokeUrl, createRevokeBody(threadSafeRefreshToken), Collections.emptyMap(), readTimeout);
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                int responseCode = response.statusCode();
+                if (responseCode != 200) {
+                    if (responseCode == 503) { // service unavailable
+                        if(LOGGER.isInfoEnabled()) LOGGER.info("Got unexpected response code {} when revoking refresh token at {}. {}", responseCode, revokeUrl, printHttpResponseHeadersIfPresent(response, "Retry-After"));
+                    } else if (responseCode == 429) { // too many calls
+                        // see for example https://auth0.com/docs/policies/rate-limits
+                        if(LOGGER.isInfoEnabled()) LOGGER.info("Got unexpected response code {} when revoking refresh token at {}. {}", responseCode, revokeUrl, printHttpResponseHeadersIfPresent(response, "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset"));
+                    } else {
+                        if(LOGGER.isInfoEnabled()) LOGGER.info("Got unexpected response code {} when revoking refresh token at {}.", responseCode, revokeUrl);
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Unable to revoke token", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.warn("Interrupted while revoking token", e);
+            }
+        }
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+}
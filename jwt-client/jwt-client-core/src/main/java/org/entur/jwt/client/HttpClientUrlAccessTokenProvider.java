@@ -0,0 +1,171 @@
+package org.entur.jwt.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * {@linkplain AccessTokenProvider} using {@linkplain HttpClient}. Unlike {@linkplain UrlAccessTokenProvider},
+ * connections (and TLS sessions) are reused, HTTP/2 is supported and access-tokens can be requested asynchronously.<br>
+ * <br>
+ * The {@linkplain HttpClient} should be shared by all providers for the same authorization server.
+ */
+
+public class HttpClientUrlAccessTokenProvider extends AbstractUrlAccessTokenProvider {
+
+    protected static final Logger LOGGER = LoggerFactory.getLogger(HttpClientUrlAccessTokenProvider.class);
+
+    /**
+     * Create a new {@linkplain HttpClient}, preferring HTTP/2.
+     *
+     * @param connectTimeout connect timeout in milliseconds
+     * @return new client
+     */
+
+    public static HttpClient newHttpClient(long connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    protected static HttpRequest createRequest(URL url, byte[] body, Map<String, Object> headers, long readTimeout) {
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(url.toURI())
+                    .timeout(Duration.ofMillis(readTimeout))
+                    .header("Accept", "application/json")
+                    .header("Content-Type", CONTENT_TYPE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+
+            for (Entry<String, Object> entry : headers.entrySet()) {
+                builder.setHeader(entry.getKey(), entry.getValue().toString());
+            }
+            return builder.build();
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    protected static StringBuilder printHttpResponseHeadersIfPresent(HttpResponse<?> response, String... headerNames) {
+        StringBuilder builder = new StringBuilder();
+        for (String headerName : headerNames) {
+            response.headers().firstValue(headerName).ifPresent(value -> {
+                builder.append(headerName);
+                builder.append(':');
+                builder.append(value);
+                builder.append(", ");
+            });
+        }
+        if (builder.length() > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+        return builder;
+    }
+
+    /**
+     * Read the token response.
+     *
+     * @param response HTTP response
+     * @param reader JSON reader
+     * @return token response
+     * @throws AccessTokenUnavailableException if the authorization server is (temporarily) unavailable
+     * @throws AccessTokenException if the authorization server responds with an unexpected response code
+     */
+
+    protected static ClientCredentialsResponse readHttpResponse(HttpResponse<byte[]> response, ObjectReader reader) throws AccessTokenException {
+        int responseCode = response.statusCode();
+        if (responseCode != 200) {
+            if(LOGGER.isInfoEnabled()) LOGGER.info("Got unexpected response code {} when trying to get token at {}", responseCode, response.uri());
+            if (responseCode == 503) { // service unavailable
+                throw AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 503 - service unavailable. " + printHttpResponseHeadersIfPresent(response, "Retry-After"), 503, (name) -> response.headers().firstValue(name).orElse(null));
+            } else if (responseCode == 429) { // too many calls
+                // see for example https://auth0.com/docs/policies/rate-limits
+                throw AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 429 - too many requests. " + printHttpResponseHeadersIfPresent(response, "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset"), 429, (name) -> response.headers().firstValue(name).orElse(null));
+            }
+            throw new AccessTokenException("Authorization server responded with HTTP unexpected response code " + responseCode);
+        }
+        try {
+            return reader.readValue(response.body());
+        } catch (JacksonException e) {
+            throw new AccessTokenUnavailableException(e);
+        }
+    }
+
+    protected final HttpClient httpClient;
+    protected final long readTimeout;
+
+    protected final ObjectReader reader;
+
+    protected final HttpRequest issueRequest;
+
+    public HttpClientUrlAccessTokenProvider(HttpClient httpClient, URL issueUrl, Map<String, Object> parameters, Map<String, Object> headers, long readTimeout) {
+        super(issueUrl, parameters, headers);
+
+        checkArgument(httpClient != null, "A non-null http client is required");
+        checkArgument(readTimeout > 0, "Invalid read timeout value '" + readTimeout + "'. Must be a positive integer.");
+
+        this.httpClient = httpClient;
+        this.readTimeout = readTimeout;
+
+        JsonMapper mapper = JsonMapper.builder().build();
+        this.reader = mapper.readerFor(ClientCredentialsResponse.class);
+
+        // requests are immutable and so can be reused
+        this.issueRequest = createRequest(issueUrl, issueBody, issueHeaders, readTimeout);
+    }
+
+    @Override
+    protected ClientCredentialsResponse getToken() throws AccessTokenException {
+        try {
+            HttpResponse<byte[]> response = httpClient.send(issueRequest, HttpResponse.BodyHandlers.ofByteArray());
+
+            ClientCredentialsResponse clientCredentialsResponse = readHttpResponse(response, reader);
+            validate(clientCredentialsResponse);
+            return clientCredentialsResponse;
+        } catch (IOException e) {
+            throw new AccessTokenUnavailableException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccessTokenUnavailableException(e);
+        }
+    }
+
+    @Override
+    protected CompletionStage<ClientCredentialsResponse> getTokenAsync() {
+        return httpClient.sendAsync(issueRequest, HttpResponse.BodyHandlers.ofByteArray())
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(AccessTokenFutureUtil.toAccessTokenException(e)))
+                .thenCompose(response -> {
+                    try {
+                        ClientCredentialsResponse clientCredentialsResponse = readHttpResponse(response, reader);
+                        validate(clientCredentialsResponse);
+                        return CompletableFuture.completedFuture(clientCredentialsResponse);
+                    } catch (AccessTokenException e) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                });
+    }
+
+    @Override
+    public boolean supportsHealth() {
+        return false;
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+}
@@ -0,0 +1,72 @@
+package org.entur.jwt.client;
+
+import org.entur.jwt.client.AccessTokenMetrics.Operation;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * {@linkplain AccessTokenProvider} which reports calls to the authorization server to {@linkplain AccessTokenMetrics}.
+ * Intended to wrap the root (URL) provider, so that every request is measured.
+ */
+
+public class MetricsAccessTokenProvider extends BaseAccessTokenProvider {
+
+    protected final AccessTokenMetrics metrics;
+
+    public MetricsAccessTokenProvider(AccessTokenProvider provider, AccessTokenMetrics metrics) {
+        super(provider);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public AccessToken getAccessToken(boolean forceRefresh) throws AccessTokenException {
+        Operation operation = getOperation(System.currentTimeMillis());
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            AccessToken accessToken = provider.getAccessToken(forceRefresh);
+            success = true;
+            return accessToken;
+        } finally {
+            metrics.onRequest(operation, System.nanoTime() - start, success);
+        }
+    }
+
+    @Override
+    public CompletionStage<AccessToken> getAccessTokenAsync(boolean forceRefresh) {
+        Operation operation = getOperation(System.currentTimeMillis());
+        long start = System.nanoTime();
+        return provider.getAccessTokenAsync(forceRefresh).whenComplete((accessToken, e) -> metrics.onRequest(operation, System.nanoTime() - start, e == null));
+    }
+
+    protected Operation getOperation(long time) {
+        if (provider instanceof AbstractStatefulUrlAccessTokenProvider stateful) {
+            RefreshToken refreshToken = stateful.getRefreshToken();
+            if (refreshToken != null && refreshToken.isValid(time)) {
+                return Operation.REFRESH;
+            }
+        }
+        return Operation.ISSUE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (provider instanceof AbstractStatefulUrlAccessTokenProvider stateful && stateful.getRefreshToken() != null) {
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                super.close();
+                success = true;
+            } finally {
+                metrics.onRequest(Operation.REVOKE, System.nanoTime() - start, success);
+            }
+        } else {
+            super.close();
+        }
+    }
+
+    public AccessTokenMetrics getMetrics() {
+        return metrics;
+    }
+}
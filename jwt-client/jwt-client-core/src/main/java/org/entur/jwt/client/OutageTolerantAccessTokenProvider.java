@@ -0,0 +1,328 @@
+package org.entur.jwt.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Outage-tolerant {@linkplain AccessTokenProvider}, wrapping a caching provider (stale-while-revalidate).<br>
+ * <br>
+ * If the wrapped provider is unable to return an access-token, i.e. because the authorization server is down,
+ * the last known access-token is returned for as long as it has at least the minimum time to live left (the hard floor).
+ * Meanwhile, the access-token is refreshed in the background, with exponential backoff, until the outage ends.<br>
+ * <br>
+ * Forced refreshes are never served from the last known access-token. If a forced refresh fails, the rejected
+ * access-token is no longer served during outages either.
+ */
+
+public class OutageTolerantAccessTokenProvider extends BaseAccessTokenProvider {
+
+    protected static final Logger LOGGER = LoggerFactory.getLogger(OutageTolerantAccessTokenProvider.class);
+
+    protected final long minimumTimeToLive;
+    protected final long initialBackoff;
+    protected final long maxBackoff;
+
+    protected final AccessTokenRefreshScheduler refreshScheduler;
+    protected final boolean closeRefreshScheduler;
+
+    protected final List<AccessTokenOutageListener> listeners = new CopyOnWriteArrayList<>();
+
+    protected final AtomicReference<AccessToken> lastAccessToken = new AtomicReference<>();
+
+    /** start of current outage, or -1 if none */
+    protected final AtomicLong outageStarted = new AtomicLong(-1L);
+    /** accumulated duration of ended outages */
+    protected final AtomicLong outageDuration = new AtomicLong();
+
+    protected final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * Construct new instance.
+     *
+     * @param provider              caching access-token provider
+     * @param minimumTimeToLive     hard floor: minimum time to live (in milliseconds) left on the last known access-token for it to be returned during an outage
+     * @param initialBackoff        delay (in milliseconds) before the first background refresh
+     * @param maxBackoff            maximum delay (in milliseconds) between background refreshes
+     * @param refreshScheduler      scheduler for background refreshes
+     * @param closeRefreshScheduler if true, close the scheduler when this provider is closed
+     */
+
+    public OutageTolerantAccessTokenProvider(AccessTokenProvider provider, long minimumTimeToLive, long initialBackoff, long maxBackoff, AccessTokenRefreshScheduler refreshScheduler, boolean closeRefreshScheduler) {
+        super(provider);
+        if (refreshScheduler == null) {
+            throw new IllegalArgumentException("Expected refresh scheduler");
+        }
+        this.minimumTimeToLive = minimumTimeToLive;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.refreshScheduler = refreshScheduler;
+        this.closeRefreshScheduler = closeRefreshScheduler;
+    }
+
+    @Override
+    public AccessToken getAccessToken(boolean forceRefresh) throws AccessTokenException {
+        if (!forceRefresh) {
+            // keep serving the last known access-token while the background refresh is running
+            AccessToken accessToken = getOutageAccessToken(System.currentTimeMillis());
+            if (accessToken != null) {
+                return accessToken;
+            }
+        }
+        AccessToken rejected = forceRefresh ? lastAccessToken.get() : null;
+        try {
+            return onSuccess(provider.getAccessToken(forceRefresh));
+        } catch (AccessTokenException | RuntimeException e) {
+            if (forceRefresh) {
+                onForcedRefreshFailure(rejected);
+            } else if (e instanceof AccessTokenUnavailableException unavailable) {
+                AccessToken accessToken = onFailure(unavailable, System.currentTimeMillis());
+                if (accessToken != null) {
+                    return accessToken;
+                }
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletionStage<AccessToken> getAccessTokenAsync(boolean forceRefresh) {
+        if (!forceRefresh) {
+            AccessToken accessToken = getOutageAccessToken(System.currentTimeMillis());
+            if (accessToken != null) {
+                return CompletableFuture.completedFuture(accessToken);
+            }
+        }
+        AccessToken rejected = forceRefresh ? lastAccessToken.get() : null;
+        return provider.getAccessTokenAsync(forceRefresh).handle((accessToken, e) -> {
+            if (e == null) {
+                return CompletableFuture.completedFuture(onSuccess(accessToken));
+            }
+            Throwable cause = AccessTokenFutureUtil.unwrap(e);
+            if (forceRefresh) {
+                onForcedRefreshFailure(rejected);
+            } else if (cause instanceof AccessTokenUnavailableException unavailable) {
+                AccessToken outageAccessToken = onFailure(unavailable, System.currentTimeMillis());
+                if (outageAccessToken != null) {
+                    return CompletableFuture.completedFuture(outageAccessToken);
+                }
+            }
+            return CompletableFuture.<AccessToken>failedFuture(cause);
+        }).thenCompose(f -> f);
+    }
+
+    @Override
+    public AccessToken getCachedAccessToken() {
+        return getCachedAccessToken(false);
+    }
+
+    @Override
+    public AccessToken getCachedAccessToken(boolean preemptiveRefresh) {
+        AccessToken accessToken = provider.getCachedAccessToken(preemptiveRefresh);
+        if (accessToken == null) {
+            return getOutageAccessToken(System.currentTimeMillis());
+        }
+        return accessToken;
+    }
+
+    protected AccessToken getOutageAccessToken(long time) {
+        if (outageStarted.get() != -1L) {
+            return getUsableAccessToken(time);
+        }
+        return null;
+    }
+
+    protected AccessToken getUsableAccessToken(long time) {
+        AccessToken accessToken = lastAccessToken.get();
+        if (accessToken != null && accessToken.getExpires() - minimumTimeToLive > time) {
+            return accessToken;
+        }
+        return null;
+    }
+
+    protected AccessToken onSuccess(AccessToken accessToken) {
+        lastAccessToken.set(accessToken);
+
+        long started = outageStarted.getAndSet(-1L);
+        if (started != -1L) {
+            long duration = System.currentTimeMillis() - started;
+            outageDuration.addAndGet(duration);
+
+            if(LOGGER.isInfoEnabled()) LOGGER.info("Access-token outage ended after {}ms", duration);
+            for (AccessTokenOutageListener listener : listeners) {
+                listener.onOutageEnded(duration);
+            }
+        }
+        return accessToken;
+    }
+
+    /**
+     * Handle failure to get an access-token.
+     *
+     * @param e cause
+     * @param time current time
+     * @return the last known access-token, if it is still usable, otherwise null
+     */
+
+    protected AccessToken onFailure(AccessTokenUnavailableException e, long time) {
+        AccessToken accessToken = getUsableAccessToken(time);
+        if (accessToken == null) {
+            return null;
+        }
+        if (outageStarted.compareAndSet(-1L, time)) {
+            long remainingTime = accessToken.getExpires() - time;
+            LOGGER.warn("Unable to get access-token, serving last known access-token with " + (remainingTime / 1000) + "s left", e);
+            for (AccessTokenOutageListener listener : listeners) {
+                listener.onOutageStarted(e, remainingTime);
+            }
+        }
+        if (refreshing.compareAndSet(false, true)) {
+            schedule(initialBackoff);
+        }
+        return accessToken;
+    }
+
+    /**
+     * Handle failure of a forced refresh, i.e. after the last known access-token was rejected.
+     *
+     * @param rejected the last known access-token when the forced refresh started
+     */
+
+    protected void onForcedRefreshFailure(AccessToken rejected) {
+        // unless a new access-token was obtained in the meantime
+        if (rejected != null && lastAccessToken.compareAndSet(rejected, null)) {
+            LOGGER.info("Forced access-token refresh failed, no longer serving the last known access-token during outages");
+        }
+    }
+
+    protected void schedule(long backoff) {
+        refreshScheduler.schedule(() -> refresh(backoff), jitter(backoff), TimeUnit.MILLISECONDS);
+    }
+
+    protected void refresh(long backoff) {
+        if (outageStarted.get() == -1L) {
+            // outage already ended
+            refreshing.set(false);
+            return;
+        }
+        try {
+            onSuccess(provider.getAccessToken(false));
+            refreshing.set(false);
+        } catch (Exception e) {
+            AccessTokenException cause = e instanceof AccessTokenException accessTokenException ? accessTokenException : new AccessTokenUnavailableException(e);
+
+            if (getUsableAccessToken(System.currentTimeMillis()) == null) {
+                // hard floor reached, stop refreshing in the background
+                refreshing.set(false);
+                LOGGER.warn("Background access-token refresh failed, last known access-token is no longer usable", e);
+                for (AccessTokenOutageListener listener : listeners) {
+                    listener.onOutageRefreshFailed(cause, -1L);
+                }
+                return;
+            }
+            long next = Math.min(maxBackoff, backoff * 2);
+            if(LOGGER.isInfoEnabled()) LOGGER.info("Background access-token refresh failed, retrying in about {}ms", next);
+            for (AccessTokenOutageListener listener : listeners) {
+                listener.onOutageRefreshFailed(cause, next);
+            }
+            schedule(next);
+        }
+    }
+
+    /**
+     * Get delay with 'equal jitter'.
+     *
+     * @param backoff backoff
+     * @return delay between half of and the full backoff
+     */
+
+    protected long jitter(long backoff) {
+        if (backoff <= 1) {
+            return backoff;
+        }
+        long half = backoff / 2;
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    public void addListener(AccessTokenOutageListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(AccessTokenOutageListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean isOutage() {
+        return outageStarted.get() != -1L;
+    }
+
+    /**
+     * Get the start of the current outage.
+     *
+     * @return start time (in milliseconds), or -1 if there is no current outage
+     */
+
+    public long getOutageStarted() {
+        return outageStarted.get();
+    }
+
+    /**
+     * Get the time spent in the current outage, if any.
+     *
+     * @param time current time
+     * @return duration in milliseconds, or 0 if there is no current outage
+     */
+
+    public long getCurrentOutageDuration(long time) {
+        long started = outageStarted.get();
+        if (started == -1L) {
+            return 0;
+        }
+        return Math.max(0, time - started);
+    }
+
+    /**
+     * Get the total time spent in outage (degraded) mode.
+     *
+     * @param time current time
+     * @return duration in milliseconds
+     */
+
+    public long getOutageDuration(long time) {
+        long started = outageStarted.get();
+        long duration = outageDuration.get();
+        if (started != -1L) {
+            duration += Math.max(0, time - started);
+        }
+        return duration;
+    }
+
+    public long getMinimumTimeToLive() {
+        return minimumTimeToLive;
+    }
+
+    public AccessTokenRefreshScheduler getRefreshScheduler() {
+        return refreshScheduler;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            if (closeRefreshScheduler) {
+                refreshScheduler.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.entur.jwt.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persisting {@linkplain AccessTokenProvider}, for fast (warm) restarts.<br>
+ * <br>
+ * Access-tokens from the wrapped provider are written to a local file. On startup, i.e. the first
+ * (non-forced) request for an access-token, the persisted access-token is returned if it has enough time to live left,
+ * so that no request to the authorization server is necessary. All subsequent requests go to the
+ * wrapped provider.<br>
+ * <br>
+ * Intended to be wrapped by a caching provider.
+ */
+
+public class PersistentAccessTokenProvider extends BaseAccessTokenProvider {
+
+    protected static final Logger LOGGER = LoggerFactory.getLogger(PersistentAccessTokenProvider.class);
+
+    protected final AccessTokenFile file;
+    protected final long minimumTimeToLive;
+
+    protected final AtomicBoolean loaded = new AtomicBoolean();
+
+    /**
+     * Construct new instance.
+     *
+     * @param provider          Access-token provider
+     * @param file              Access-token file
+     * @param minimumTimeToLive minimum time to live (in milliseconds) left on a persisted access-token for it to be used
+     */
+
+    public PersistentAccessTokenProvider(AccessTokenProvider provider, AccessTokenFile file, long minimumTimeToLive) {
+        super(provider);
+        this.file = file;
+        this.minimumTimeToLive = minimumTimeToLive;
+    }
+
+    @Override
+    public AccessToken getAccessToken(boolean forceRefresh) throws AccessTokenException {
+        if (loaded.compareAndSet(false, true) && !forceRefresh) {
+            AccessToken accessToken = load(System.currentTimeMillis());
+            if (accessToken != null) {
+                return accessToken;
+            }
+        }
+        return persist(provider.getAccessToken(forceRefresh));
+    }
+
+    @Override
+    public CompletionStage<AccessToken> getAccessTokenAsync(boolean forceRefresh) {
+        if (loaded.compareAndSet(false, true) && !forceRefresh) {
+            AccessToken accessToken = load(System.currentTimeMillis());
+            if (accessToken != null) {
+                return CompletableFuture.completedFuture(accessToken);
+            }
+        }
+        return provider.getAccessTokenAsync(forceRefresh).thenApply(this::persist);
+    }
+
+    protected AccessToken load(long time) {
+        try {
+            AccessToken accessToken = file.read();
+            if (accessToken != null) {
+                if (accessToken.getExpires() - minimumTimeToLive > time) {
+                    if(LOGGER.isInfoEnabled()) LOGGER.info("Loaded persisted access-token from {}", file.getPath());
+
+                    return accessToken;
+                }
+                if(LOGGER.isDebugEnabled()) LOGGER.debug("Not using persisted access-token from {}, not enough time to live left", file.getPath());
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to load persisted access-token from " + file.getPath(), e);
+        }
+        return null;
+    }
+
+    protected AccessToken persist(AccessToken accessToken) {
+        try {
+            file.write(accessToken);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to persist access-token to " + file.getPath(), e);
+        }
+        return accessToken;
+    }
+
+    public AccessTokenFile getFile() {
+        return file;
+    }
+}
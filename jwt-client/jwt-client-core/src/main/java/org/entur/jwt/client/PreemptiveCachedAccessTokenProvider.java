@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -19,6 +20,9 @@ import java.util.concurrent.locks.ReentrantLock;
  * a separate, dedicated thread. Updates are is not continuously scheduled, but
  * (lazily) triggered by incoming requests for access-tokens. <br>
  * <br>
+ * Alternatively, the preemptive updates run on an {@linkplain AccessTokenRefreshScheduler}
+ * shared between many instances.<br>
+ * <br>
  * 
  * This class is intended for uninterrupted operation in high-load scenarios, as
  * it will avoid a (potentially) large number of threads blocking when the cache
@@ -41,6 +45,9 @@ public class PreemptiveCachedAccessTokenProvider extends DefaultCachedAccessToke
     private final boolean shutdownExecutorOnClose;
     
     private final ScheduledExecutorService scheduledExecutorService;
+
+    private final AccessTokenRefreshScheduler refreshScheduler;
+    private final boolean eager;
     
     /** do not preemptively refresh before this percentage of a token's lifetime has passed */
     private final int refreshConstraintInPercent;
@@ -109,6 +116,31 @@ public class PreemptiveCachedAccessTokenProvider extends DefaultCachedAccessToke
      */
 
     public PreemptiveCachedAccessTokenProvider(AccessTokenProvider provider, long minimumTimeToLive, long refreshTimeout, long preemptiveRefresh, int refreshConstraintInPercent, boolean eager, ExecutorService executorService, boolean shutdownExecutorOnClose) {
+        this(provider, minimumTimeToLive, refreshTimeout, preemptiveRefresh, refreshConstraintInPercent, eager, executorService, shutdownExecutorOnClose, eager ? Executors.newSingleThreadScheduledExecutor() : null, null);
+    }
+
+    /**
+     * Construct new instance, use a shared refresh scheduler. The scheduler is not closed
+     * on calls to close(..).
+     * 
+     * @param provider          Access-token provider
+     * @param minimumTimeToLive minimum time to live (left when returned by
+     *                          {@linkplain #getAccessToken(boolean)}).
+     * @param refreshTimeout    cache refresh timeout unit (in milliseconds)
+     * @param preemptiveRefresh preemptive timeout (in milliseconds). This parameter
+     *                          is relative to time to live, i.e. "15000
+     *                          milliseconds before timeout, refresh time cached
+     *                          value".
+     * @param refreshConstraintInPercent constraint in percent, of a token's lifetime, before any preemptive refresh happens
+     * @param eager             preemptive refresh even if no traffic (schedule update)                         
+     * @param refreshScheduler  shared refresh scheduler
+     */
+
+    public PreemptiveCachedAccessTokenProvider(AccessTokenProvider provider, long minimumTimeToLive, long refreshTimeout, long preemptiveRefresh, int refreshConstraintInPercent, boolean eager, AccessTokenRefreshScheduler refreshScheduler) {
+        this(provider, minimumTimeToLive, refreshTimeout, preemptiveRefresh, refreshConstraintInPercent, eager, null, false, null, refreshScheduler);
+    }
+
+    private PreemptiveCachedAccessTokenProvider(AccessTokenProvider provider, long minimumTimeToLive, long refreshTimeout, long preemptiveRefresh, int refreshConstraintInPercent, boolean eager, ExecutorService executorService, boolean shutdownExecutorOnClose, ScheduledExecutorService scheduledExecutorService, AccessTokenRefreshScheduler refreshScheduler) {
         super(provider, minimumTimeToLive, refreshTimeout);
 
         if (preemptiveRefresh < minimumTimeToLive) {
@@ -119,25 +151,50 @@ public class PreemptiveCachedAccessTokenProvider extends DefaultCachedAccessToke
         this.executorService = executorService;
         this.shutdownExecutorOnClose = shutdownExecutorOnClose;
         this.refreshConstraintInPercent = refreshConstraintInPercent;
-        if(eager) {
-            scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
-        } else {
-            scheduledExecutorService = null;
-        }        
+        this.eager = eager;
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.refreshScheduler = refreshScheduler;
     }
 
     @Override
     public AccessToken getAccessToken(long time, boolean forceUpdate) throws AccessTokenException {
         AccessTokenCacheItem cache = this.cache;
         if (forceUpdate || cache == null || !cache.isValid(time)) {
+            metrics.onCacheMiss();
             return super.getAccessTokenBlocking(time, cache).getValue();
         }
 
+        metrics.onCacheHit();
         preemptiveRefresh(time, cache, false);
 
         return cache.getValue();
     }
 
+    @Override
+    protected CompletionStage<AccessToken> getAccessTokenAsync(long time, boolean forceUpdate) {
+        AccessTokenCacheItem cache = this.cache;
+        if (!forceUpdate && cache != null && cache.isValid(time)) {
+            preemptiveRefresh(time, cache, false);
+        }
+        return super.getAccessTokenAsync(time, forceUpdate);
+    }
+
+    @Override
+    public AccessToken getCachedAccessToken(boolean preemptiveRefresh) {
+        return getCachedAccessToken(System.currentTimeMillis(), preemptiveRefresh);
+    }
+
+    protected AccessToken getCachedAccessToken(long time, boolean preemptiveRefresh) {
+        AccessTokenCacheItem cache = this.cache;
+        if (cache != null && cache.isValid(time)) {
+            if (preemptiveRefresh) {
+                preemptiveRefresh(time, cache, false);
+            }
+            return cache.getValue();
+        }
+        return null;
+    }
+
     protected void schedulePreemptiveRefresh(long time, AccessTokenCacheItem cache) {
         if(eagerScheduledFuture != null) {
             eagerScheduledFuture.cancel(false);
@@ -148,14 +205,19 @@ public class PreemptiveCachedAccessTokenProvider extends DefaultCachedAccessToke
         
         long delay = cache.getRefreshable() - refreshTimeout - time;
         if(delay > 0) {
-            this.eagerScheduledFuture = scheduledExecutorService.schedule(() -> {
+            Runnable task = () -> {
                 try {
                     // so will only refresh if this specific cache entry still is the current one
                     preemptiveRefresh(System.currentTimeMillis(), cache, true);
                 } catch (Exception e) {
                     LOGGER.warn("Scheduled eager access-token refresh failed", e);
                 }
-            }, delay, TimeUnit.MILLISECONDS);
+            };
+            if(refreshScheduler != null) {
+                this.eagerScheduledFuture = refreshScheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
+            } else {
+                this.eagerScheduledFuture = scheduledExecutorService.schedule(task, delay, TimeUnit.MILLISECONDS);
+            }
             
             if(LOGGER.isDebugEnabled()) LOGGER.debug("Scheduled next eager access-token refresh in " + getTime(delay));
         } else {
@@ -166,13 +228,23 @@ public class PreemptiveCachedAccessTokenProvider extends DefaultCachedAccessToke
     @Override
     protected AccessTokenCacheItem loadAccessTokenFromProvider(long time) throws AccessTokenException {
         AccessTokenCacheItem item = super.loadAccessTokenFromProvider(time);
-        if(scheduledExecutorService != null) {
+        if(eager) {
             schedulePreemptiveRefresh(time, item);
         }
         
         return item;
     }
     
+    @Override
+    protected CompletionStage<AccessTokenCacheItem> loadAccessTokenFromProviderAsync(long time) {
+        return super.loadAccessTokenFromProviderAsync(time).thenApply(item -> {
+            if(eager) {
+                schedulePreemptiveRefresh(time, item);
+            }
+            return item;
+        });
+    }
+
     /**
      * Preemptive update.
      * 
@@ -203,19 +275,27 @@ public class PreemptiveCachedAccessTokenProvider extends DefaultCachedAccessToke
                  // still no update is in progress, so we start one.
                  cacheExpires = cache.getExpires();
 
+                 metrics.onPreemptiveRefresh();
+
                  // run update in the background
-                 executorService.execute(() -> {
+                 Runnable task = () -> {
                      try {
                          PreemptiveCachedAccessTokenProvider.super.getAccessTokenBlocking(time, cache);
                          // so next time this method is invoked, it'll be with the updated cache item expiry time
                      } catch (AccessTokenException e) {
                          // update failed, but another thread can retry
                          cacheExpires = -1L;
+                         metrics.onPreemptiveRefreshFailure();
                          // ignore, unable to update
                          // another thread will attempt the same
                          LOGGER.warn("Preemptive access-token refresh failed", e);
                      }
-                 });
+                 };
+                 if(refreshScheduler != null) {
+                     refreshScheduler.execute(task);
+                 } else {
+                     executorService.execute(task);
+                 }
             } finally {
                 lazyLock.unlock();
             }
@@ -240,19 +320,34 @@ public class PreemptiveCachedAccessTokenProvider extends DefaultCachedAccessToke
         if(refreshable > expires) { // i.e. too late
             refreshable = expires;
         }
+
+        if(refreshScheduler != null) {
+            // spread the refresh of tokens with the same lifetime
+            refreshable -= refreshScheduler.jitter(refreshable - earliestRefresh);
+        }
         return new AccessTokenCacheItem(accessToken, expires, refreshable);
     }
 
     /**
      * Return the executor service which services the background refresh.
      * 
-     * @return executor service
+     * @return executor service, or null if a shared refresh scheduler is used
      */
 
     public ExecutorService getExecutorService() {
         return executorService;
     }
 
+    /**
+     * Return the shared refresh scheduler.
+     * 
+     * @return refresh scheduler, or null if none
+     */
+
+    public AccessTokenRefreshScheduler getRefreshScheduler() {
+        return refreshScheduler;
+    }
+
     ReentrantLock getLazyLock() {
         return lazyLock;
     }
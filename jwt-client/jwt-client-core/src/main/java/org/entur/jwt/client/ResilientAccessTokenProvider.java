@@ -0,0 +1,229 @@
+package org.entur.jwt.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This provider protects the authorization server (and the client's rate limit quota) from excess requests. <br>
+ * <br>
+ * <ul>
+ * <li>retries with exponential backoff and jitter if the wrapped provider throws a {@linkplain AccessTokenUnavailableException},
+ * honouring the <code>Retry-After</code> and <code>X-RateLimit-*</code> headers, if present</li>
+ * <li>limits the rate of requests using a token bucket (optional)</li>
+ * <li>stops requesting access-tokens after repeated 429 or 503 responses using a circuit breaker (optional)</li>
+ * </ul>
+ * <br>
+ * If the authorization server asks for a longer delay than the maximum backoff, the exception is thrown right away.
+ * While the circuit is open or the rate limit is exceeded, calls fail fast, so that a wrapping (preemptive) cache
+ * keeps serving its still-valid access-token.
+ */
+
+public class ResilientAccessTokenProvider extends BaseAccessTokenProvider {
+
+    protected static final Logger LOGGER = LoggerFactory.getLogger(ResilientAccessTokenProvider.class);
+
+    protected final int maxAttempts;
+    protected final long initialBackoff;
+    protected final long maxBackoff;
+
+    protected final TokenBucketRateLimiter rateLimiter;
+    protected final AccessTokenCircuitBreaker circuitBreaker;
+
+    /**
+     * Construct new instance.
+     *
+     * @param provider       Access-token provider
+     * @param maxAttempts    maximum number of attempts (including the first)
+     * @param initialBackoff backoff (in milliseconds) before the first retry
+     * @param maxBackoff     maximum backoff (in milliseconds)
+     * @param rateLimiter    rate limiter, or null
+     * @param circuitBreaker circuit breaker, or null
+     */
+
+    public ResilientAccessTokenProvider(AccessTokenProvider provider, int maxAttempts, long initialBackoff, long maxBackoff, TokenBucketRateLimiter rateLimiter, AccessTokenCircuitBreaker circuitBreaker) {
+        super(provider);
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Expected at least one attempt");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public AccessToken getAccessToken(boolean forceRefresh) throws AccessTokenException {
+        int attempt = 1;
+        while (true) {
+            acquire(System.currentTimeMillis());
+            try {
+                AccessToken accessToken = provider.getAccessToken(forceRefresh);
+                onSuccess();
+                return accessToken;
+            } catch (AccessTokenUnavailableException e) {
+                long delay = onFailure(e, attempt, System.currentTimeMillis());
+                if (delay < 0) {
+                    throw e;
+                }
+                sleep(delay, e);
+            } catch (AccessTokenException | RuntimeException e) {
+                // i.e. 400 or 500 responses; release the half-open trial so that the circuit does not lock up
+                onIgnored();
+                throw e;
+            }
+            attempt++;
+        }
+    }
+
+    @Override
+    public CompletionStage<AccessToken> getAccessTokenAsync(boolean forceRefresh) {
+        return getAccessTokenAsync(forceRefresh, 1);
+    }
+
+    protected CompletionStage<AccessToken> getAccessTokenAsync(boolean forceRefresh, int attempt) {
+        try {
+            acquire(System.currentTimeMillis());
+        } catch (AccessTokenUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletionStage<AccessToken> stage;
+        try {
+            stage = provider.getAccessTokenAsync(forceRefresh);
+        } catch (RuntimeException e) {
+            onIgnored();
+            return CompletableFuture.failedFuture(e);
+        }
+        return stage.handle((accessToken, e) -> {
+            if (e == null) {
+                onSuccess();
+                return CompletableFuture.completedFuture(accessToken);
+            }
+            Throwable cause = AccessTokenFutureUtil.unwrap(e);
+            if (cause instanceof AccessTokenUnavailableException unavailable) {
+                long delay = onFailure(unavailable, attempt, System.currentTimeMillis());
+                if (delay >= 0) {
+                    return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                            .thenCompose(v -> getAccessTokenAsync(forceRefresh, attempt + 1));
+                }
+            } else {
+                onIgnored();
+            }
+            return CompletableFuture.<AccessToken>failedFuture(cause);
+        }).thenCompose(f -> f);
+    }
+
+    protected void acquire(long time) throws AccessTokenUnavailableException {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire(time)) {
+            throw new AccessTokenUnavailableException("Circuit breaker is open, not requesting access-token for another " + (circuitBreaker.getOpenUntil() - time) + "ms");
+        }
+        if (rateLimiter != null && !rateLimiter.tryAcquire(time)) {
+            if (circuitBreaker != null) {
+                circuitBreaker.onIgnored();
+            }
+            throw new AccessTokenUnavailableException("Rate limit exceeded, not requesting access-token");
+        }
+    }
+
+    protected void onSuccess() {
+        if (circuitBreaker != null) {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    /**
+     * Register an outcome which says nothing about the authorization server's load.
+     */
+
+    protected void onIgnored() {
+        if (circuitBreaker != null) {
+            circuitBreaker.onIgnored();
+        }
+    }
+
+    /**
+     * Register a failed attempt.
+     *
+     * @param e       the failure
+     * @param attempt the attempt number
+     * @param time    current time
+     * @return the delay (in milliseconds) before the next attempt, or -1 if no further attempts should be made
+     */
+
+    protected long onFailure(AccessTokenUnavailableException e, int attempt, long time) {
+        long retryDelay = -1L;
+        if (e instanceof AccessTokenServerUnavailableException server) {
+            retryDelay = server.getRetryDelay(time);
+            if (circuitBreaker != null) {
+                circuitBreaker.onFailure(time, retryDelay);
+                if (circuitBreaker.isOpen(time)) {
+                    if(LOGGER.isInfoEnabled()) LOGGER.info("Circuit breaker opened after HTTP code {}, not requesting access-token for {}ms", server.getStatusCode(), circuitBreaker.getOpenUntil() - time);
+                    return -1L;
+                }
+            }
+        } else if (circuitBreaker != null) {
+            circuitBreaker.onIgnored();
+        }
+        if (attempt >= maxAttempts) {
+            return -1L;
+        }
+        if (retryDelay > maxBackoff) {
+            if(LOGGER.isInfoEnabled()) LOGGER.info("Authorization server requested retry in {}ms, which exceeds maximum backoff of {}ms", retryDelay, maxBackoff);
+            return -1L;
+        }
+        return Math.max(retryDelay, getBackoff(attempt));
+    }
+
+    /**
+     * Get backoff, exponential with 'equal jitter'.
+     *
+     * @param attempt the failed attempt number
+     * @return backoff in milliseconds
+     */
+
+    protected long getBackoff(int attempt) {
+        long backoff = Math.min(maxBackoff, initialBackoff << Math.min(attempt - 1, 30));
+        if (backoff <= 1) {
+            return backoff;
+        }
+        long half = backoff / 2;
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    protected void sleep(long delay, AccessTokenUnavailableException e) throws AccessTokenUnavailableException {
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+
+                throw new AccessTokenUnavailableException("Interrupted while waiting to retry", e);
+            }
+        }
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public TokenBucketRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public AccessTokenCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+}
@@ -1,5 +1,8 @@
 package org.entur.jwt.client;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 /**
  * This provider implements a workaround for transient network problems. <br>
  * <br>
@@ -23,4 +26,16 @@ public class RetryingAccessTokenProvider extends BaseAccessTokenProvider {
         }
     }
 
+    @Override
+    public CompletionStage<AccessToken> getAccessTokenAsync(boolean forceRefresh) {
+        return provider.getAccessTokenAsync(forceRefresh).exceptionallyCompose(e -> {
+            Throwable cause = AccessTokenFutureUtil.unwrap(e);
+            if (cause instanceof AccessTokenUnavailableException) {
+                // assume transient network issue, retry once
+                return provider.getAccessTokenAsync(forceRefresh);
+            }
+            return CompletableFuture.failedFuture(cause);
+        });
+    }
+
 }
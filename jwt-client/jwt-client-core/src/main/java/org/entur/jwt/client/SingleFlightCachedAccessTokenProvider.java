@@ -0,0 +1,93 @@
+package org.entur.jwt.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caching {@linkplain AccessTokenProvider} which does not lock when the cache is updated.<br>
+ * <br>
+ * The first thread to find the cache expired publishes a (single) in-flight refresh
+ * using compare-and-set, and calls the underlying provider. Other threads wait
+ * for the in-flight refresh to complete, rather than contending for a lock. Waiting does not pin
+ * the carrier thread of virtual threads.<br>
+ * <br>
+ * If the in-flight refresh fails, waiting threads will attempt to refresh the cache themselves,
+ * within the refresh timeout.
+ */
+
+public class SingleFlightCachedAccessTokenProvider extends AbstractCachedAccessTokenProvider {
+
+    protected final long minimumTimeToLive;
+    protected final long refreshTimeout;
+
+    /**
+     * Construct new instance.
+     *
+     * @param provider               Access-token provider
+     * @param minimumTimeToLiveUnits minimum time to live (left when returned by
+     *                               {@linkplain #getAccessToken(boolean)}).
+     * @param minimumTimeToLiveUnit  minimum time to live unit
+     * @param refreshTimeoutUnits    cache refresh timeout
+     * @param refreshTimeoutUnit     cache refresh timeout unit
+     */
+
+    public SingleFlightCachedAccessTokenProvider(AccessTokenProvider provider, long minimumTimeToLiveUnits, TimeUnit minimumTimeToLiveUnit, long refreshTimeoutUnits, TimeUnit refreshTimeoutUnit) {
+        this(provider, minimumTimeToLiveUnit.toMillis(minimumTimeToLiveUnits), refreshTimeoutUnit.toMillis(refreshTimeoutUnits));
+    }
+
+    /**
+     * Construct new instance.
+     *
+     * @param provider          Access-token provider
+     * @param minimumTimeToLive minimum time to live left when returned by
+     *                          {@linkplain #getAccessToken(boolean)}.
+     * @param refreshTimeout    cache refresh timeout (in milliseconds)
+     */
+
+    public SingleFlightCachedAccessTokenProvider(AccessTokenProvider provider, long minimumTimeToLive, long refreshTimeout) {
+        super(provider);
+
+        this.minimumTimeToLive = minimumTimeToLive;
+        this.refreshTimeout = refreshTimeout;
+    }
+
+    protected AccessToken getAccessToken(long time, boolean forceUpdate) throws AccessTokenException {
+        AccessTokenCacheItem cache = this.cache;
+        if (forceUpdate || cache == null || !cache.isValid(time)) {
+            metrics.onCacheMiss();
+            return getAccessTokenSingleFlight(time, cache, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(refreshTimeout)).getValue();
+        }
+
+        metrics.onCacheHit();
+        return cache.getValue();
+    }
+
+    protected AccessTokenCacheItem loadAccessTokenFromProvider(long time) throws AccessTokenException {
+        // note: never run by two threads at the same time
+        AccessToken accessToken = provider.getAccessToken(false);
+
+        // reduce cache expiry according to the minimum time to live
+        return this.cache = createCacheItem(time, accessToken);
+    }
+
+    @Override
+    protected AccessTokenCacheItem createCacheItem(long time, AccessToken accessToken) {
+        return new AccessTokenCacheItem(accessToken, accessToken.getExpires() - minimumTimeToLive, Long.MAX_VALUE);
+    }
+
+    long getExpires(long time) {
+        AccessTokenCacheItem cache = this.cache;
+        if (cache == null) {
+            return -1L;
+        }
+        return cache.getExpires() + time;
+    }
+
+    public long getMinimumTimeToLive() {
+        return minimumTimeToLive;
+    }
+
+    @Override
+    public long getRefreshTimeout() {
+        return refreshTimeout;
+    }
+}
@@ -0,0 +1,199 @@
+package org.entur.jwt.client;
+
+import org.entur.jwt.client.store.AccessTokenStore;
+import org.entur.jwt.client.store.AccessTokenStore.Lease;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@linkplain AccessTokenProvider} which shares access-tokens between replicas using an {@linkplain AccessTokenStore}.<br>
+ * <br>
+ * If the stored access-token has enough time to live left, it is returned. Otherwise, the replica which
+ * acquires the store lease gets a new access-token from the wrapped provider and stores it, while the other
+ * replicas wait for the stored access-token to be updated. If the store does not get updated within the wait timeout,
+ * or the store is unavailable, the wrapped provider is called directly.<br>
+ * <br>
+ * Intended to be wrapped by a caching provider. The store is not closed by this provider.
+ */
+
+public class StoreAccessTokenProvider extends BaseAccessTokenProvider {
+
+    protected static final Logger LOGGER = LoggerFactory.getLogger(StoreAccessTokenProvider.class);
+
+    protected final AccessTokenStore store;
+
+    protected final long minimumTimeToLive;
+    protected final long waitTimeout;
+    protected final long leaseDuration;
+    protected final long pollInterval;
+
+    /**
+     * Construct new instance.
+     *
+     * @param provider          Access-token provider
+     * @param store             Access-token store
+     * @param minimumTimeToLive minimum time to live (in milliseconds) left on a stored access-token for it to be used
+     * @param waitTimeout       maximum time to wait (in milliseconds) for another replica to update the store
+     * @param leaseDuration     lease duration (in milliseconds)
+     * @param pollInterval      store poll interval (in milliseconds) while waiting for another replica
+     */
+
+    public StoreAccessTokenProvider(AccessTokenProvider provider, AccessTokenStore store, long minimumTimeToLive, long waitTimeout, long leaseDuration, long pollInterval) {
+        super(provider);
+        this.store = store;
+        this.minimumTimeToLive = minimumTimeToLive;
+        this.waitTimeout = waitTimeout;
+        this.leaseDuration = leaseDuration;
+        this.pollInterval = pollInterval;
+    }
+
+    @Override
+    public AccessToken getAccessToken(boolean forceRefresh) throws AccessTokenException {
+        long deadline = System.currentTimeMillis() + waitTimeout;
+
+        try {
+            // on force refresh, the currently stored access-token must be replaced
+            AccessToken replace = forceRefresh ? store.get() : null;
+
+            while (true) {
+                AccessToken stored = store.get();
+                if (isUsable(stored, System.currentTimeMillis(), replace)) {
+                    return stored;
+                }
+
+                Lease lease = store.tryAcquireLease(leaseDuration);
+                if (lease != null) {
+                    try {
+                        // check again, another replica might have updated the store before releasing the lease
+                        stored = store.get();
+                        if (isUsable(stored, System.currentTimeMillis(), replace)) {
+                            return stored;
+                        }
+                        AccessToken accessToken = provider.getAccessToken(forceRefresh);
+                        put(lease, accessToken);
+                        return accessToken;
+                    } finally {
+                        release(lease);
+                    }
+                }
+
+                if (System.currentTimeMillis() >= deadline) {
+                    if(LOGGER.isInfoEnabled()) LOGGER.info("Timeout while waiting for another replica to update the access-token store (limit of {}ms exceeded)", waitTimeout);
+                    break;
+                }
+
+                Thread.sleep(pollInterval);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to access access-token store", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new AccessTokenUnavailableException("Interrupted while waiting for access-token store", e);
+        }
+        return provider.getAccessToken(forceRefresh);
+    }
+
+    @Override
+    public CompletionStage<AccessToken> getAccessTokenAsync(boolean forceRefresh) {
+        long deadline = System.currentTimeMillis() + waitTimeout;
+
+        AccessToken replace;
+        try {
+            // on force refresh, the currently stored access-token must be replaced
+            replace = forceRefresh ? store.get() : null;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to access access-token store", e);
+
+            return provider.getAccessTokenAsync(forceRefresh);
+        }
+        return getAccessTokenAsync(forceRefresh, replace, deadline);
+    }
+
+    /**
+     * Poll the store without blocking; waiting for another replica is done using a delayed executor.
+     *
+     * @param forceRefresh force refresh of the access-token
+     * @param replace      the stored access-token to replace, or null
+     * @param deadline     time to stop waiting for another replica
+     * @return access-token completion stage
+     */
+
+    protected CompletionStage<AccessToken> getAccessTokenAsync(boolean forceRefresh, AccessToken replace, long deadline) {
+        try {
+            AccessToken stored = store.get();
+            if (isUsable(stored, System.currentTimeMillis(), replace)) {
+                return CompletableFuture.completedFuture(stored);
+            }
+
+            Lease lease = store.tryAcquireLease(leaseDuration);
+            if (lease != null) {
+                try {
+                    // check again, another replica might have updated the store before releasing the lease
+                    stored = store.get();
+                } catch (IOException | RuntimeException e) {
+                    release(lease);
+                    throw e;
+                }
+                if (isUsable(stored, System.currentTimeMillis(), replace)) {
+                    release(lease);
+                    return CompletableFuture.completedFuture(stored);
+                }
+                CompletionStage<AccessToken> stage;
+                try {
+                    stage = provider.getAccessTokenAsync(forceRefresh);
+                } catch (RuntimeException e) {
+                    release(lease);
+                    throw e;
+                }
+                return stage.whenComplete((accessToken, e) -> {
+                    try {
+                        if (e == null) {
+                            put(lease, accessToken);
+                        }
+                    } finally {
+                        release(lease);
+                    }
+                });
+            }
+
+            if (System.currentTimeMillis() < deadline) {
+                return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(pollInterval, TimeUnit.MILLISECONDS))
+                        .thenCompose(v -> getAccessTokenAsync(forceRefresh, replace, deadline));
+            }
+            if(LOGGER.isInfoEnabled()) LOGGER.info("Timeout while waiting for another replica to update the access-token store (limit of {}ms exceeded)", waitTimeout);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to access access-token store", e);
+        }
+        return provider.getAccessTokenAsync(forceRefresh);
+    }
+
+    protected boolean isUsable(AccessToken accessToken, long time, AccessToken replace) {
+        return accessToken != null && accessToken.getExpires() - minimumTimeToLive > time && (replace == null || !replace.equals(accessToken));
+    }
+
+    protected void put(Lease lease, AccessToken accessToken) {
+        try {
+            lease.put(accessToken);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Unable to update access-token store", e);
+        }
+    }
+
+    protected void release(Lease lease) {
+        try {
+            lease.close();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to release access-token store lease", e);
+        }
+    }
+
+    public AccessTokenStore getStore() {
+        return store;
+    }
+}
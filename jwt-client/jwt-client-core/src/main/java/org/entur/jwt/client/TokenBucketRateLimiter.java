@@ -0,0 +1,72 @@
+package org.entur.jwt.client;
+
+/**
+ * Simple token bucket rate limiter. The bucket holds up to <code>capacity</code> permits, and
+ * is refilled with one permit per refill period.
+ */
+
+public class TokenBucketRateLimiter {
+
+    protected final long capacity;
+    protected final long refillPeriod;
+
+    protected long permits;
+    protected long refilled;
+
+    /**
+     * Construct new instance.
+     *
+     * @param capacity     maximum number of permits (burst size)
+     * @param refillPeriod time (in milliseconds) to refill one permit
+     * @param time         current time
+     */
+
+    public TokenBucketRateLimiter(long capacity, long refillPeriod, long time) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Expected capacity of at least one");
+        }
+        if (refillPeriod < 1) {
+            throw new IllegalArgumentException("Expected positive refill period");
+        }
+        this.capacity = capacity;
+        this.refillPeriod = refillPeriod;
+        this.permits = capacity;
+        this.refilled = time;
+    }
+
+    public synchronized boolean tryAcquire(long time) {
+        refill(time);
+        if (permits > 0) {
+            permits--;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized long getAvailablePermits(long time) {
+        refill(time);
+        return permits;
+    }
+
+    protected void refill(long time) {
+        long elapsed = time - refilled;
+        if (elapsed >= refillPeriod) {
+            long count = elapsed / refillPeriod;
+            if (permits + count >= capacity) {
+                permits = capacity;
+                refilled = time;
+            } else {
+                permits += count;
+                refilled += count * refillPeriod;
+            }
+        }
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getRefillPeriod() {
+        return refillPeriod;
+    }
+}
@@ -0,0 +1,98 @@
+package org.entur.jwt.client;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Key for requesting an access-token with a specific audience and/or scope from an {@linkplain AccessTokenBroker}.
+ * Null values fall back to the audience or scope of the underlying {@linkplain ClientCredentials}.
+ */
+
+public final class TokenRequest {
+
+    private final String audience;
+    private final String scope;
+
+    private final int hashCode;
+
+    public TokenRequest(String audience, String scope) {
+        this.audience = audience;
+        this.scope = scope;
+        this.hashCode = Objects.hash(audience, scope);
+    }
+
+    public String getAudience() {
+        return audience;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    /**
+     * Apply this request to client credentials.
+     *
+     * @param credentials base credentials
+     * @return credentials with the audience and/or scope of this request
+     */
+
+    public ClientCredentials apply(ClientCredentials credentials) {
+        Map<String, Object> parameters = new HashMap<>(credentials.getParameters());
+        if (audience != null) {
+            parameters.put(AbstractClientCredentialsBuilder.KEY_AUDIENCE, audience);
+        }
+        if (scope != null) {
+            parameters.put(AbstractClientCredentialsBuilder.KEY_SCOPE, scope);
+        }
+        return new ClientCredentials() {
+            @Override
+            public URL getIssueURL() {
+                return credentials.getIssueURL();
+            }
+
+            @Override
+            public URL getRefreshURL() {
+                return credentials.getRefreshURL();
+            }
+
+            @Override
+            public URL getRevokeURL() {
+                return credentials.getRevokeURL();
+            }
+
+            @Override
+            public Map<String, Object> getParameters() {
+                return parameters;
+            }
+
+            @Override
+            public Map<String, Object> getHeaders() {
+                return credentials.getHeaders();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TokenRequest)) {
+            return false;
+        }
+        TokenRequest that = (TokenRequest) o;
+        return hashCode == that.hashCode && Objects.equals(audience, that.audience) && Objects.equals(scope, that.scope);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenRequest[audience=" + audience + ", scope=" + scope + "]";
+    }
+}
@@ -78,10 +78,10 @@ public class UrlAccessTokenProvider extends AbstractUrlAccessTokenProvider {
             if (responseCode != 200) {
                 if(LOGGER.isInfoEnabled()) LOGGER.info("Got unexpected response code {} when trying to issue token at {}", responseCode, issueUrl);
                 if (responseCode == 503) { // service unavailable
-                    throw new AccessTokenUnavailableException("Authorization server responded with HTTP code 503 - service unavailable. " + printHeadersIfPresent(connection, "Retry-After"));
+                    throw AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 503 - service unavailable. " + printHeadersIfPresent(connection, "Retry-After"), 503, connection::getHeaderField);
                 } else if (responseCode == 429) { // too many calls
                     // see for example https://auth0.com/docs/policies/rate-limits
-                    throw new AccessTokenUnavailableException("Authorization server responded with HTTP code 429 - too many requests. " + printHeadersIfPresent(connection, "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset"));
+                    throw AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 429 - too many requests. " + printHeadersIfPresent(connection, "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset"), 429, connection::getHeaderField);
                 }
                 throw new AccessTokenException("Authorization server responded with HTTP unexpected response code " + responseCode);
             }
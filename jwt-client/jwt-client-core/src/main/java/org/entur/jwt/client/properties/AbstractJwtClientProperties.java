@@ -15,6 +15,10 @@ public abstract class AbstractJwtClientProperties {
 
     protected boolean retrying = true;
 
+    protected JwtBackoff backoff = new JwtBackoff();
+    protected JwtRateLimit rateLimit = new JwtRateLimit();
+    protected JwtCircuitBreaker circuitBreaker = new JwtCircuitBreaker();
+
     protected boolean health = true;
 
     protected JwtClientCache cache = new JwtClientCache();
@@ -91,6 +95,30 @@ public abstract class AbstractJwtClientProperties {
         return retrying;
     }
 
+    public JwtBackoff getBackoff() {
+        return backoff;
+    }
+
+    public void setBackoff(JwtBackoff backoff) {
+        this.backoff = backoff;
+    }
+
+    public JwtRateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(JwtRateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public JwtCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(JwtCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
@@ -0,0 +1,45 @@
+package org.entur.jwt.client.properties;
+
+public class JwtBackoff {
+
+    /** retry with exponential backoff (and jitter), honouring Retry-After headers, rather than retrying once right away */
+    private boolean enabled = false;
+    /** maximum number of attempts, including the first */
+    private int maxAttempts = 3;
+    /** backoff before the first retry */
+    private long initialBackoff = 100; // in milliseconds
+    /** maximum backoff; if the authorization server asks for a longer delay, fail right away */
+    private long maxBackoff = 2000; // in milliseconds
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(long initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+}
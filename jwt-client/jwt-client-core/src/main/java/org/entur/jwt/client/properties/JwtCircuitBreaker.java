@@ -0,0 +1,35 @@
+package org.entur.jwt.client.properties;
+
+public class JwtCircuitBreaker {
+
+    /** stop requesting access-tokens after repeated 429 (too many requests) or 503 (service unavailable) responses */
+    private boolean enabled = false;
+    /** number of consecutive 429 or 503 responses before the circuit opens */
+    private int failureThreshold = 3;
+    /** minimum time the circuit stays open, or longer if the authorization server says so */
+    private int openDuration = 30; // in seconds
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public int getOpenDuration() {
+        return openDuration;
+    }
+
+    public void setOpenDuration(int openDuration) {
+        this.openDuration = openDuration;
+    }
+}
@@ -12,6 +12,10 @@ public class JwtClientCache {
 
     private JwtPreemptiveRefresh preemptiveRefresh = new JwtPreemptiveRefresh();
 
+    private JwtPersistentCache persistent = new JwtPersistentCache();
+
+    private JwtOutageTolerance outageTolerance = new JwtOutageTolerance();
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -43,4 +47,20 @@ public class JwtClientCache {
     public void setRefreshTimeout(long refreshTimeout) {
         this.refreshTimeout = refreshTimeout;
     }
+
+    public JwtPersistentCache getPersistent() {
+        return persistent;
+    }
+
+    public void setPersistent(JwtPersistentCache persistent) {
+        this.persistent = persistent;
+    }
+
+    public JwtOutageTolerance getOutageTolerance() {
+        return outageTolerance;
+    }
+
+    public void setOutageTolerance(JwtOutageTolerance outageTolerance) {
+        this.outageTolerance = outageTolerance;
+    }
 }
@@ -0,0 +1,45 @@
+package org.entur.jwt.client.properties;
+
+public class JwtOutageTolerance {
+
+    /** keep serving the cached token during authorization server outages, refreshing in the background */
+    private boolean enabled = false;
+    /** Hard floor: minimum number of seconds left before the token served during an outage expires */
+    private long minimumTimeToLive = 5; // in seconds
+    /** delay before the first background refresh */
+    private long initialBackoff = 1; // in seconds
+    /** maximum delay between background refreshes */
+    private long maxBackoff = 30; // in seconds
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMinimumTimeToLive() {
+        return minimumTimeToLive;
+    }
+
+    public void setMinimumTimeToLive(long minimumTimeToLive) {
+        this.minimumTimeToLive = minimumTimeToLive;
+    }
+
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(long initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+}
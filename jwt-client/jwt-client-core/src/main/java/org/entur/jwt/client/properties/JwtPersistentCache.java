@@ -0,0 +1,36 @@
+package org.entur.jwt.client.properties;
+
+public class JwtPersistentCache {
+
+    private boolean enabled = false;
+
+    /** File to persist the access-token to, so that it survives restarts */
+    private String path;
+
+    /** Base64-encoded AES key (128, 192 or 256 bits) for encrypting the file. Optional. */
+    private String encryptionKey;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getEncryptionKey() {
+        return encryptionKey;
+    }
+
+    public void setEncryptionKey(String encryptionKey) {
+        this.encryptionKey = encryptionKey;
+    }
+}
@@ -0,0 +1,35 @@
+package org.entur.jwt.client.properties;
+
+public class JwtRateLimit {
+
+    /** limit the rate of requests to the authorization server (token bucket) */
+    private boolean enabled = false;
+    /** maximum number of requests in a burst */
+    private int capacity = 10;
+    /** time to allow one more request */
+    private long refillPeriod = 1000; // in milliseconds
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getRefillPeriod() {
+        return refillPeriod;
+    }
+
+    public void setRefillPeriod(long refillPeriod) {
+        this.refillPeriod = refillPeriod;
+    }
+}
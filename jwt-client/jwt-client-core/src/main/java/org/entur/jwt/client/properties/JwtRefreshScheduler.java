@@ -0,0 +1,35 @@
+package org.entur.jwt.client.properties;
+
+public class JwtRefreshScheduler {
+
+    /** share a single refresh scheduler between all clients with preemptive cache refresh */
+    private boolean enabled = true;
+    /** maximum number of concurrent cache refreshes */
+    private int maxConcurrentRefreshes = 4;
+    /** refresh up to this number of seconds earlier, so that tokens with the same lifetime are refreshed at different times */
+    private int maxJitter = 5; // in seconds
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxConcurrentRefreshes() {
+        return maxConcurrentRefreshes;
+    }
+
+    public void setMaxConcurrentRefreshes(int maxConcurrentRefreshes) {
+        this.maxConcurrentRefreshes = maxConcurrentRefreshes;
+    }
+
+    public int getMaxJitter() {
+        return maxJitter;
+    }
+
+    public void setMaxJitter(int maxJitter) {
+        this.maxJitter = maxJitter;
+    }
+}
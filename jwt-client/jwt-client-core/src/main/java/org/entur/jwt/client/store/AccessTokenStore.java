@@ -0,0 +1,62 @@
+package org.entur.jwt.client.store;
+
+import org.entur.jwt.client.AccessToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Store for sharing an {@linkplain AccessToken} between multiple replicas (processes) of the same client.<br>
+ * <br>
+ * A replica must hold the (exclusive) lease in order to refresh the access-token, so that only one replica requests
+ * a new access-token from the authorization server at a time. Leases expire, so that a replica which
+ * is stopped (or crashes) while holding the lease does not block the others indefinitely.
+ */
+
+public interface AccessTokenStore extends Closeable {
+
+    /**
+     * Lease for refreshing the stored access-token. Release by calling {@linkplain #close()}.
+     */
+
+    interface Lease extends Closeable {
+
+        /**
+         * Store a (refreshed) access-token.
+         *
+         * @param accessToken access-token
+         * @throws IOException if the access-token could not be stored
+         */
+
+        void put(AccessToken accessToken) throws IOException;
+
+        /**
+         * Release the lease.
+         *
+         * @throws IOException if the lease could not be released
+         */
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Get the stored access-token.
+     *
+     * @return the access-token, or null if none
+     * @throws IOException if the store could not be read
+     */
+
+    AccessToken get() throws IOException;
+
+    /**
+     * Attempt to acquire the (exclusive) lease, without waiting.
+     *
+     * @param duration lease duration in milliseconds, after which the lease is considered abandoned
+     * @return the lease, or null if the lease is held by someone else
+     * @throws IOException if the store could not be accessed
+     */
+
+    Lease tryAcquireLease(long duration) throws IOException;
+
+}
@@ -0,0 +1,105 @@
+package org.entur.jwt.client.store;
+
+import org.entur.jwt.client.AccessToken;
+import org.entur.jwt.client.AccessTokenFile;
+import org.entur.jwt.client.ClientCredentials;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File-based {@linkplain AccessTokenStore}, for sharing access-tokens between processes on the same node
+ * (i.e. pods sharing a volume).<br>
+ * <br>
+ * The access-token is written atomically to a file (see {@linkplain AccessTokenFile}), while the lease is
+ * an exclusive lock on a separate lock file. The operating system releases the lock if the holding
+ * process dies, so the lease duration is not used. The access-token is tied to the client credentials which
+ * obtained it, so that a file shared by mistake does not hand out a token for another client or audience.
+ */
+
+public class FileAccessTokenStore implements AccessTokenStore {
+
+    protected class FileLease implements Lease {
+
+        protected final FileChannel channel;
+        protected final FileLock lock;
+
+        public FileLease(FileChannel channel, FileLock lock) {
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        @Override
+        public void put(AccessToken accessToken) throws IOException {
+            if (!lock.isValid()) {
+                throw new IllegalStateException("Lease is no longer held");
+            }
+            file.write(accessToken);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                lock.release();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    protected final AccessTokenFile file;
+    protected final Path lockPath;
+
+    /**
+     * Construct new instance.
+     *
+     * @param path access-token file path. The lock file is placed next to it.
+     * @param key AES key for encryption, or null for no encryption
+     * @param credentials client credentials which obtain the access-token
+     */
+
+    public FileAccessTokenStore(Path path, SecretKey key, ClientCredentials credentials) {
+        this.file = new AccessTokenFile(path, key, AccessTokenFile.fingerprint(credentials));
+        this.lockPath = path.resolveSibling(path.getFileName().toString() + ".lock");
+    }
+
+    @Override
+    public AccessToken get() throws IOException {
+        return file.read();
+    }
+
+    @Override
+    public Lease tryAcquireLease(long duration) throws IOException {
+        Files.createDirectories(lockPath.toAbsolutePath().getParent());
+
+        FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return new FileLease(channel, lock);
+            }
+        } catch (OverlappingFileLockException e) {
+            // lock held by this JVM
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        channel.close();
+        return null;
+    }
+
+    public AccessTokenFile getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() {
+        // do nothing
+    }
+}
@@ -0,0 +1,64 @@
+package org.entur.jwt.client.store;
+
+import org.entur.jwt.client.AccessToken;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process {@linkplain AccessTokenStore}, i.e. for sharing access-tokens between multiple providers
+ * within the same JVM, or for testing.
+ */
+
+public class InMemoryAccessTokenStore implements AccessTokenStore {
+
+    protected class InMemoryLease implements Lease {
+
+        protected final long expires;
+
+        public InMemoryLease(long expires) {
+            this.expires = expires;
+        }
+
+        @Override
+        public void put(AccessToken accessToken) {
+            if (lease.get() != this) {
+                throw new IllegalStateException("Lease is no longer held");
+            }
+            InMemoryAccessTokenStore.this.accessToken = accessToken;
+        }
+
+        @Override
+        public void close() {
+            lease.compareAndSet(this, null);
+        }
+    }
+
+    protected volatile AccessToken accessToken;
+
+    protected final AtomicReference<InMemoryLease> lease = new AtomicReference<>();
+
+    @Override
+    public AccessToken get() {
+        return accessToken;
+    }
+
+    @Override
+    public Lease tryAcquireLease(long duration) {
+        long time = System.currentTimeMillis();
+
+        InMemoryLease current = lease.get();
+        if (current != null && current.expires > time) {
+            return null;
+        }
+        InMemoryLease next = new InMemoryLease(time + duration);
+        if (lease.compareAndSet(current, next)) {
+            return next;
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        // do nothing
+    }
+}
@@ -2,6 +2,7 @@ package org.entur.jwt.client;
 
 import org.junit.jupiter.api.BeforeEach;
 
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -23,6 +24,7 @@ public abstract class AbstractDelegateProviderTest {
 
         when(fallback.getAccessToken(true)).thenReturn(refreshedAccessToken);
         when(fallback.getAccessToken(false)).thenReturn(accessToken);
+        when(fallback.getAccessTokenAsync(anyBoolean())).thenCallRealMethod();
     }
 
 }
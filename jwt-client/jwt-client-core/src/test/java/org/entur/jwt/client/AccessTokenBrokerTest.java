@@ -0,0 +1,241 @@
+package org.entur.jwt.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AccessTokenBrokerTest {
+
+    private final Map<TokenRequest, AccessTokenProvider> providers = new ConcurrentHashMap<>();
+
+    private AccessTokenBroker broker;
+
+    private DefaultClientCredentials credentials;
+
+    @BeforeEach
+    public void setUp() {
+        credentials = new DefaultClientCredentials();
+        credentials.setHost("localhost");
+        credentials.setIssuePath("/oauth/token");
+        credentials.addParameter(AbstractClientCredentialsBuilder.KEY_AUDIENCE, "defaultAudience");
+        credentials.addParameter(AbstractClientCredentialsBuilder.KEY_SCOPE, "defaultScope");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (broker != null) {
+            broker.close();
+        }
+    }
+
+    private AccessTokenProvider newMock(TokenRequest request) {
+        AccessTokenProvider provider = mock(AccessTokenProvider.class);
+        try {
+            when(provider.getAccessToken(anyBoolean())).thenReturn(new AccessToken(request.toString(), "Bearer", System.currentTimeMillis() + 60_000));
+        } catch (AccessTokenException e) {
+            throw new RuntimeException(e);
+        }
+        providers.put(request, provider);
+        return provider;
+    }
+
+    @Test
+    public void shouldReuseProviderForSameRequest() throws Exception {
+        broker = new AccessTokenBroker(this::newMock, 10, 60_000, null);
+
+        TokenRequest a = new TokenRequest("a", null);
+        TokenRequest b = new TokenRequest("b", "read");
+
+        assertThat(broker.getAccessToken(a).getValue()).isEqualTo(a.toString());
+        assertThat(broker.getAccessToken(new TokenRequest("a", null)).getValue()).isEqualTo(a.toString());
+        assertThat(broker.getAccessToken(b).getValue()).isEqualTo(b.toString());
+
+        assertThat(broker.size()).isEqualTo(2);
+        verify(providers.get(a), times(2)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() throws Exception {
+        broker = new AccessTokenBroker(this::newMock, 2, 60_000, null);
+
+        TokenRequest a = new TokenRequest("a", null);
+        TokenRequest b = new TokenRequest("b", null);
+        TokenRequest c = new TokenRequest("c", null);
+
+        broker.getProvider(1000, a);
+        broker.getProvider(2000, b);
+        broker.getProvider(3000, a);
+        broker.getProvider(4000, c);
+
+        assertThat(broker.size()).isEqualTo(2);
+        verify(providers.get(b)).close();
+        assertThat(broker.getProvider(5000, a)).isSameInstanceAs(providers.get(a));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedWhileAccessedConcurrently() throws Exception {
+        broker = new AccessTokenBroker(this::newMock, 8, 60_000, null);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                int offset = i;
+                futures.add(executorService.submit(() -> {
+                    // access times change while other threads sort them for eviction
+                    for (int k = 0; k < 2_000; k++) {
+                        broker.getProvider(System.nanoTime(), new TokenRequest(Integer.toString((k * 7 + offset) % 32), null));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                // fails if sorting throws
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldCloseEvictedProviderOnlyWhenNoLongerInUse() throws Exception {
+        broker = new AccessTokenBroker(this::newMock, 1, 60_000, null);
+
+        TokenRequest a = new TokenRequest("a", null);
+        TokenRequest b = new TokenRequest("b", null);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        broker.getProvider(1000, a);
+        when(providers.get(a).getAccessToken(false)).then((invocation) -> {
+            started.countDown();
+            latch.await(1, TimeUnit.SECONDS);
+            return new AccessToken("a.b.c", "Bearer", System.currentTimeMillis() + 60_000);
+        });
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Future<AccessToken> future = executorService.submit(() -> broker.getAccessToken(a));
+            assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+            // evicts a while in use
+            broker.getProvider(System.currentTimeMillis() + 1000, b);
+            assertThat(broker.size()).isEqualTo(1);
+            verify(providers.get(a), never()).close();
+
+            latch.countDown();
+            assertThat(future.get(1, TimeUnit.SECONDS).getValue()).isEqualTo("a.b.c");
+            verify(providers.get(a)).close();
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        // a new provider is created for the evicted request
+        AccessTokenProvider evicted = providers.get(a);
+        broker.getAccessToken(a);
+        assertThat(providers.get(a)).isNotSameInstanceAs(evicted);
+    }
+
+    @Test
+    public void shouldEvictIdle() throws Exception {
+        broker = new AccessTokenBroker(this::newMock, 10, 1000, null);
+
+        long now = System.currentTimeMillis();
+
+        TokenRequest a = new TokenRequest("a", null);
+        TokenRequest b = new TokenRequest("b", null);
+
+        broker.getProvider(now, a);
+        broker.getProvider(now + 1500, b);
+        broker.getProvider(now + 2100, b);
+
+        assertThat(broker.size()).isEqualTo(1);
+        verify(providers.get(a)).close();
+    }
+
+    @Test
+    public void shouldCloseProviders() throws Exception {
+        broker = new AccessTokenBroker(this::newMock, 10, 60_000, null);
+
+        TokenRequest a = new TokenRequest("a", null);
+        broker.getAccessToken(a);
+        broker.close();
+        broker = null;
+
+        verify(providers.get(a)).close();
+    }
+
+    @Test
+    public void shouldApplyTokenRequestToCredentials() {
+        ClientCredentials audience = new TokenRequest("myAudience", null).apply(credentials);
+        assertThat(audience.getParameters().get(AbstractClientCredentialsBuilder.KEY_AUDIENCE)).isEqualTo("myAudience");
+        assertThat(audience.getParameters().get(AbstractClientCredentialsBuilder.KEY_SCOPE)).isEqualTo("defaultScope");
+        assertThat(audience.getIssueURL()).isEqualTo(credentials.getIssueURL());
+
+        ClientCredentials scope = new TokenRequest(null, "myScope").apply(credentials);
+        assertThat(scope.getParameters().get(AbstractClientCredentialsBuilder.KEY_AUDIENCE)).isEqualTo("defaultAudience");
+        assertThat(scope.getParameters().get(AbstractClientCredentialsBuilder.KEY_SCOPE)).isEqualTo("myScope");
+
+        // base credentials are unchanged
+        assertThat(credentials.getParameter(AbstractClientCredentialsBuilder.KEY_AUDIENCE)).isEqualTo("defaultAudience");
+    }
+
+    @Test
+    public void shouldRefreshOncePerRequest() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        AccessTokenProvider provider = mock(AccessTokenProvider.class);
+        when(provider.getAccessToken(false)).then((invocation) -> {
+            calls.incrementAndGet();
+            latch.await(1, TimeUnit.SECONDS);
+            return new AccessToken("a.b.c", "Bearer", System.currentTimeMillis() + 60_000);
+        });
+
+        broker = new AccessTokenBrokerBuilder(credentials, (c) -> new AccessTokenProviderBuilder(provider)).build();
+
+        TokenRequest request = new TokenRequest("a", null);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<AccessToken>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executorService.submit(() -> broker.getAccessToken(request)));
+            }
+            Thread.sleep(50);
+            latch.countDown();
+
+            for (Future<AccessToken> future : futures) {
+                assertThat(future.get(1, TimeUnit.SECONDS).getValue()).isEqualTo("a.b.c");
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertThat(calls.get()).isEqualTo(1);
+
+        PreemptiveCachedAccessTokenProvider cached = (PreemptiveCachedAccessTokenProvider) broker.getProvider(System.currentTimeMillis(), request);
+        assertThat(cached.getRefreshScheduler()).isNotNull();
+    }
+}
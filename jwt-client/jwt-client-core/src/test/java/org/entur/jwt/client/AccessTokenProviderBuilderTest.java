@@ -10,6 +10,7 @@ import java.util.concurrent.TimeUnit;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 
 public class AccessTokenProviderBuilderTest {
@@ -124,6 +125,25 @@ public class AccessTokenProviderBuilderTest {
         assertThat(accessTokenProviders.get(2)).isInstanceOf(AccessTokenProvider.class);
     }
 
+    @Test
+    public void shouldCreateSingleFlightCachedProvider() {
+        AccessTokenProvider provider = builder().singleFlight(true).health(false).build();
+
+        List<AccessTokenProvider> accessTokenProviders = accessTokenProviders(provider);
+        assertThat(accessTokenProviders).hasSize(3);
+
+        assertThat(accessTokenProviders.get(0)).isInstanceOf(SingleFlightCachedAccessTokenProvider.class);
+        assertThat(accessTokenProviders.get(1)).isInstanceOf(RetryingAccessTokenProvider.class);
+        assertThat(accessTokenProviders.get(2)).isInstanceOf(AccessTokenProvider.class);
+    }
+
+    @Test
+    public void shouldNotCreateSingleFlightCachedProviderWithPreemptiveCacheRefresh() {
+        assertThrows(AccessTokenProviderBuilderException.class, () -> {
+            builder().singleFlight(true).preemptiveCacheRefresh(true).build();
+        });
+    }
+
     private AccessTokenProviderBuilder builder() {
         return new AccessTokenProviderBuilder(rootProvider);
     }
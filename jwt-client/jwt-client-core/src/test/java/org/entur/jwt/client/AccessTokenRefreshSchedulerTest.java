@@ -0,0 +1,75 @@
+package org.entur.jwt.client;
+
+import com.google.common.collect.Range;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AccessTokenRefreshSchedulerTest {
+
+    @Test
+    public void shouldLimitJitter() {
+        try (AccessTokenRefreshScheduler scheduler = new AccessTokenRefreshScheduler(1, 1000)) {
+            for (int i = 0; i < 1000; i++) {
+                assertThat(scheduler.jitter(500)).isIn(Range.closed(0L, 500L));
+                assertThat(scheduler.jitter(5000)).isIn(Range.closed(0L, 1000L));
+            }
+            assertThat(scheduler.jitter(0)).isEqualTo(0L);
+            assertThat(scheduler.jitter(-1)).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    public void shouldNotJitterWhenDisabled() {
+        try (AccessTokenRefreshScheduler scheduler = new AccessTokenRefreshScheduler(1, 0)) {
+            assertThat(scheduler.jitter(5000)).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    public void shouldLimitConcurrentRefreshes() throws Exception {
+        int refreshes = 16;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(refreshes);
+
+        try (AccessTokenRefreshScheduler scheduler = new AccessTokenRefreshScheduler(2, 0)) {
+            for (int i = 0; i < refreshes; i++) {
+                scheduler.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    latch.countDown();
+                });
+            }
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(maxRunning.get()).isAtMost(2);
+    }
+
+    @Test
+    public void shouldScheduleRefresh() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        try (AccessTokenRefreshScheduler scheduler = new AccessTokenRefreshScheduler(1, 0)) {
+            ScheduledFuture<?> future = scheduler.schedule(latch::countDown, 10, TimeUnit.MILLISECONDS);
+            assertThat(future).isNotNull();
+            assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    @Test
+    public void shouldRejectInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new AccessTokenRefreshScheduler(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AccessTokenRefreshScheduler(1, -1));
+    }
+}
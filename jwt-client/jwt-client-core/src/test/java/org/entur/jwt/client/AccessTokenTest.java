@@ -2,6 +2,8 @@ package org.entur.jwt.client;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+
 import static com.google.common.truth.Truth.assertThat;
 
 public class AccessTokenTest {
@@ -17,4 +19,15 @@ public class AccessTokenTest {
         assertThat(a.getType()).isEqualTo("type");
         assertThat(a.getExpires()).isEqualTo(-1L);
     }
+
+    @Test
+    public void testAuthorizationHeader() {
+        AccessToken a = new AccessToken("a.b.c", "bearer", -1L);
+
+        assertThat(a.getAuthorizationHeader()).isEqualTo("Bearer a.b.c");
+        assertThat(a.getAuthorizationHeader()).isSameInstanceAs(a.getAuthorizationHeader());
+
+        assertThat(a.getAuthorizationHeaderBytes()).isEqualTo("Bearer a.b.c".getBytes(StandardCharsets.US_ASCII));
+        assertThat(a.getAuthorizationHeaderBytes()).isSameInstanceAs(a.getAuthorizationHeaderBytes());
+    }
 }
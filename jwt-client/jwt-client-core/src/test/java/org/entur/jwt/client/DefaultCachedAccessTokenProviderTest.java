@@ -4,10 +4,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.lang.Thread.State;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -130,4 +135,135 @@ public class DefaultCachedAccessTokenProviderTest extends AbstractDelegateProvid
         }
     }
 
+    @Test
+    public void shouldGetCachedValueWithoutLoading() throws Exception {
+        assertThat(provider.getCachedAccessToken()).isNull();
+        verify(fallback, times(0)).getAccessToken(false);
+
+        provider.getAccessToken(false);
+        assertThat(provider.getCachedAccessToken()).isSameInstanceAs(accessToken);
+        verify(fallback, times(1)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldUseCachedValueAsync() throws Exception {
+        when(fallback.getAccessToken(false)).thenReturn(accessToken).thenThrow(new AccessTokenException("TEST!"));
+        assertThat(provider.getAccessTokenAsync(false).toCompletableFuture().get()).isSameInstanceAs(accessToken);
+        assertThat(provider.getAccessTokenAsync(false).toCompletableFuture().get()).isSameInstanceAs(accessToken);
+        verify(fallback, times(1)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldShareInFlightRefreshAsync() throws Exception {
+        CompletableFuture<AccessToken> refresh = new CompletableFuture<>();
+        doReturn(refresh).when(fallback).getAccessTokenAsync(false);
+
+        CompletableFuture<AccessToken> first = provider.getAccessTokenAsync(false).toCompletableFuture();
+        CompletableFuture<AccessToken> second = provider.getAccessTokenAsync(false).toCompletableFuture();
+
+        assertThat(first.isDone()).isFalse();
+        assertThat(second.isDone()).isFalse();
+
+        refresh.complete(accessToken);
+
+        assertThat(first.get()).isSameInstanceAs(accessToken);
+        assertThat(second.get()).isSameInstanceAs(accessToken);
+        verify(fallback, times(1)).getAccessTokenAsync(false);
+        assertThat(provider.getInFlight().get()).isNull();
+    }
+
+    @Test
+    public void shouldClearInFlightRefreshWhenProviderThrowsAsync() throws Exception {
+        doThrow(new IllegalStateException("TEST!")).doReturn(CompletableFuture.completedFuture(accessToken)).when(fallback).getAccessTokenAsync(false);
+
+        CompletableFuture<AccessToken> future = provider.getAccessTokenAsync(false).toCompletableFuture();
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertThat(e.getCause()).isInstanceOf(AccessTokenUnavailableException.class);
+        assertThat(provider.getInFlight().get()).isNull();
+
+        assertThat(provider.getAccessTokenAsync(false).toCompletableFuture().get()).isSameInstanceAs(accessToken);
+    }
+
+    @Test
+    public void shouldTimeoutStartingCallerAsync() throws Exception {
+        provider = new DefaultCachedAccessTokenProvider(fallback, 10, TimeUnit.SECONDS, 100, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<AccessToken> refresh = new CompletableFuture<>();
+        doReturn(refresh).when(fallback).getAccessTokenAsync(false);
+
+        CompletableFuture<AccessToken> future = provider.getAccessTokenAsync(false).toCompletableFuture();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertThat(e.getCause()).isInstanceOf(AccessTokenUnavailableException.class);
+
+        // the refresh itself is still in flight for other callers
+        assertThat(provider.getInFlight().get().isDone()).isFalse();
+        refresh.complete(accessToken);
+        assertThat(provider.getAccessTokenAsync(false).toCompletableFuture().get()).isSameInstanceAs(accessToken);
+    }
+
+    @Test
+    public void shouldShareInFlightRefreshBetweenAsyncAndSync() throws Exception {
+        CompletableFuture<AccessToken> refresh = new CompletableFuture<>();
+        doReturn(refresh).when(fallback).getAccessTokenAsync(false);
+
+        CompletableFuture<AccessToken> first = provider.getAccessTokenAsync(false).toCompletableFuture();
+
+        CompletableFuture<AccessToken> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return provider.getAccessToken(false);
+            } catch (AccessTokenException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertThat(second.isDone()).isFalse();
+
+        refresh.complete(accessToken);
+
+        assertThat(first.get(1, TimeUnit.SECONDS)).isSameInstanceAs(accessToken);
+        assertThat(second.get(1, TimeUnit.SECONDS)).isSameInstanceAs(accessToken);
+        verify(fallback, times(1)).getAccessTokenAsync(false);
+        verify(fallback, times(0)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldShareInFlightRefreshBetweenSyncAndAsync() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        when(fallback.getAccessToken(false)).then((invocation) -> {
+            started.countDown();
+            latch.await(1, TimeUnit.SECONDS);
+            return accessToken;
+        });
+
+        CompletableFuture<AccessToken> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return provider.getAccessToken(false);
+            } catch (AccessTokenException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<AccessToken> second = provider.getAccessTokenAsync(false).toCompletableFuture();
+        assertThat(second.isDone()).isFalse();
+
+        latch.countDown();
+
+        assertThat(first.get(1, TimeUnit.SECONDS)).isSameInstanceAs(accessToken);
+        assertThat(second.get(1, TimeUnit.SECONDS)).isSameInstanceAs(accessToken);
+        verify(fallback, times(1)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldNotReturnExpiredValueWhenExpiredCacheAsync() throws Exception {
+        when(fallback.getAccessToken(false)).thenReturn(accessToken).thenThrow(new AccessTokenException("TEST!", null));
+        provider.getAccessTokenAsync(false).toCompletableFuture().get();
+
+        CompletableFuture<AccessToken> future = provider.getAccessTokenAsync(provider.getExpires(1), false).toCompletableFuture();
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertThat(e.getCause()).isInstanceOf(AccessTokenException.class);
+        assertThat(provider.getInFlight().get()).isNull();
+    }
+
 }
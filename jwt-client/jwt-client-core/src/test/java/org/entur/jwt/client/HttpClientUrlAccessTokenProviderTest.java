@@ -0,0 +1,237 @@
+package org.entur.jwt.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HttpClientUrlAccessTokenProviderTest {
+
+    private static class StubRequest {
+
+        private final String path;
+        private final String body;
+        private final String authorization;
+        private final InetSocketAddress remoteAddress;
+
+        public StubRequest(String path, String body, String authorization, InetSocketAddress remoteAddress) {
+            this.path = path;
+            this.body = body;
+            this.authorization = authorization;
+            this.remoteAddress = remoteAddress;
+        }
+    }
+
+    private HttpServer server;
+    private HttpClient httpClient;
+
+    private final List<StubRequest> requests = new CopyOnWriteArrayList<>();
+    private final Map<String, ConcurrentLinkedDeque<Integer>> responseCodes = new ConcurrentHashMap<>();
+
+    private URL tokenUrl;
+    private URL refreshUrl;
+    private URL revokeUrl;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+
+        String base = "http://localhost:" + server.getAddress().getPort();
+        tokenUrl = new URL(base + "/oauth/token");
+        refreshUrl = new URL(base + "/oauth/refresh");
+        revokeUrl = new URL(base + "/oauth/revoke");
+
+        httpClient = HttpClientUrlAccessTokenProvider.newHttpClient(15000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        httpClient.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        try (InputStream in = exchange.getRequestBody()) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            requests.add(new StubRequest(path, body, exchange.getRequestHeaders().getFirst("Authorization"), exchange.getRemoteAddress()));
+        }
+
+        ConcurrentLinkedDeque<Integer> codes = responseCodes.get(path);
+        Integer code = codes != null ? codes.poll() : null;
+        if (code != null && code != 200) {
+            exchange.sendResponseHeaders(code, -1);
+            exchange.close();
+            return;
+        }
+
+        String resource = path.equals("/oauth/revoke") ? null : "/keycloakClientCredentialsResponse.json";
+        if (resource == null) {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        byte[] response;
+        try (InputStream in = getClass().getResourceAsStream(resource)) {
+            response = in.readAllBytes();
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private void respond(String path, Integer... codes) {
+        responseCodes.computeIfAbsent(path, (p) -> new ConcurrentLinkedDeque<>()).addAll(List.of(codes));
+    }
+
+    private HttpClientUrlAccessTokenProvider newProvider() {
+        Map<String, Object> headers = new HashMap<>();
+        headers.put("Authorization", "abcdef");
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(AbstractClientCredentialsBuilder.KEY_GRANT_TYPE, AbstractClientCredentialsBuilder.KEY_CLIENT_CREDENTIALS);
+
+        return new HttpClientUrlAccessTokenProvider(httpClient, tokenUrl, parameters, headers, 15000);
+    }
+
+    private HttpClientStatefulUrlAccessTokenProvider newStatefulProvider() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(AbstractClientCredentialsBuilder.KEY_GRANT_TYPE, AbstractClientCredentialsBuilder.KEY_CLIENT_CREDENTIALS);
+
+        return new HttpClientStatefulUrlAccessTokenProvider(httpClient, tokenUrl, parameters, new HashMap<>(), 15000, refreshUrl, revokeUrl);
+    }
+
+    @Test
+    public void shouldReturnAccessToken() throws Exception {
+        try (HttpClientUrlAccessTokenProvider provider = newProvider()) {
+            AccessToken accessToken = provider.getAccessToken(false);
+            assertThat(accessToken.getValue()).isNotNull();
+            assertThat(accessToken.getType()).isNotNull();
+
+            StubRequest request = requests.get(0);
+            assertThat(request.path).isEqualTo("/oauth/token");
+            assertThat(request.body).isEqualTo("grant_type=client_credentials");
+            assertThat(request.authorization).isEqualTo("abcdef");
+        }
+    }
+
+    @Test
+    public void shouldReturnAccessTokenAsync() throws Exception {
+        try (HttpClientUrlAccessTokenProvider provider = newProvider()) {
+            AccessToken accessToken = provider.getAccessTokenAsync(false).toCompletableFuture().get();
+            assertThat(accessToken.getValue()).isNotNull();
+        }
+    }
+
+    @Test
+    public void shouldReuseConnection() throws Exception {
+        try (HttpClientUrlAccessTokenProvider provider = newProvider()) {
+            provider.getAccessToken(false);
+            provider.getAccessToken(false);
+        }
+
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(1).remoteAddress).isEqualTo(requests.get(0).remoteAddress);
+    }
+
+    @Test
+    public void shouldThrowAccessTokenUnavailableExceptionOnHttp503() throws Exception {
+        respond("/oauth/token", 503);
+        try (HttpClientUrlAccessTokenProvider provider = newProvider()) {
+            assertThrows(AccessTokenUnavailableException.class, () -> {
+                provider.getAccessToken(false);
+            });
+        }
+    }
+
+    @Test
+    public void shouldThrowAccessTokenUnavailableExceptionOnHttp429Async() throws Exception {
+        respond("/oauth/token", 429);
+        try (HttpClientUrlAccessTokenProvider provider = newProvider()) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> {
+                provider.getAccessTokenAsync(false).toCompletableFuture().get();
+            });
+            assertThat(e.getCause()).isInstanceOf(AccessTokenUnavailableException.class);
+        }
+    }
+
+    @Test
+    public void shouldThrowAccessTokenExceptionOnUnknownStatusCode() throws Exception {
+        respond("/oauth/token", 400);
+        try (HttpClientUrlAccessTokenProvider provider = newProvider()) {
+            AccessTokenException e = assertThrows(AccessTokenException.class, () -> {
+                provider.getAccessToken(false);
+            });
+            assertThat(e).isNotInstanceOf(AccessTokenUnavailableException.class);
+        }
+    }
+
+    @Test
+    public void shouldUseRefreshTokenAndRevokeOnClose() throws Exception {
+        HttpClientStatefulUrlAccessTokenProvider provider = newStatefulProvider();
+
+        provider.getAccessToken(false);
+        assertThat(provider.getRefreshToken()).isNotNull();
+
+        provider.getAccessTokenAsync(false).toCompletableFuture().get();
+
+        provider.close();
+
+        assertThat(requests).hasSize(3);
+        assertThat(requests.get(0).path).isEqualTo("/oauth/token");
+        assertThat(requests.get(1).path).isEqualTo("/oauth/refresh");
+        assertThat(requests.get(1).body).startsWith("grant_type=refresh_token&refresh_token=");
+        assertThat(requests.get(2).path).isEqualTo("/oauth/revoke");
+    }
+
+    @Test
+    public void shouldIssueNewTokenIfRefreshTokenIsRejected() throws Exception {
+        respond("/oauth/refresh", 400);
+
+        try (HttpClientStatefulUrlAccessTokenProvider provider = newStatefulProvider()) {
+            provider.getAccessToken(false);
+            provider.getAccessToken(false);
+
+            assertThat(requests.get(1).path).isEqualTo("/oauth/refresh");
+            assertThat(requests.get(2).path).isEqualTo("/oauth/token");
+        }
+    }
+
+    @Test
+    public void shouldCreateBuilderForHttpClient() throws Exception {
+        DefaultClientCredentials credentials = new DefaultClientCredentials();
+        credentials.protocol = "http";
+        credentials.port = server.getAddress().getPort();
+        credentials.setHost("localhost");
+        credentials.setIssuePath("/oauth/token");
+        credentials.addParameter(AbstractClientCredentialsBuilder.KEY_GRANT_TYPE, AbstractClientCredentialsBuilder.KEY_CLIENT_CREDENTIALS);
+
+        try (AccessTokenProvider provider = AccessTokenProviderBuilder.newBuilder(credentials, httpClient, 15000).build()) {
+            assertThat(provider.getAccessToken(false)).isNotNull();
+        }
+    }
+}
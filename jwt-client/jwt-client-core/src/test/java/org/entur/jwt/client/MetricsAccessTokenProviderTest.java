@@ -0,0 +1,81 @@
+package org.entur.jwt.client;
+
+import org.entur.jwt.client.AccessTokenMetrics.Operation;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+public class MetricsAccessTokenProviderTest extends AbstractDelegateProviderTest {
+
+    private final List<String> events = new CopyOnWriteArrayList<>();
+
+    private final AccessTokenMetrics metrics = new AccessTokenMetrics() {
+        @Override
+        public void onRequest(Operation operation, long duration, boolean success) {
+            events.add(operation + (success ? ":success" : ":failure"));
+        }
+
+        @Override
+        public void onCacheHit() {
+            events.add("hit");
+        }
+
+        @Override
+        public void onCacheMiss() {
+            events.add("miss");
+        }
+
+        @Override
+        public void onCacheTimeout() {
+            events.add("timeout");
+        }
+    };
+
+    @Test
+    public void shouldReportRequests() throws Exception {
+        MetricsAccessTokenProvider provider = new MetricsAccessTokenProvider(fallback, metrics);
+
+        provider.getAccessToken(false);
+        when(fallback.getAccessToken(false)).thenThrow(new AccessTokenUnavailableException("TEST!"));
+        assertThrows(AccessTokenUnavailableException.class, () -> provider.getAccessToken(false));
+
+        assertThat(events).containsExactly(Operation.ISSUE + ":success", Operation.ISSUE + ":failure").inOrder();
+    }
+
+    @Test
+    public void shouldReportCacheHitsAndMisses() throws Exception {
+        try (AccessTokenProvider provider = new AccessTokenProviderBuilder(fallback)
+                .preemptiveCacheRefresh(false)
+                .retrying(false)
+                .health(false)
+                .metrics(metrics)
+                .build()) {
+
+            provider.getAccessToken(false);
+            provider.getAccessToken(false);
+            provider.getAccessTokenAsync(false).toCompletableFuture().get();
+        }
+        assertThat(events).containsExactly("miss", Operation.ISSUE + ":success", "hit", "hit").inOrder();
+    }
+
+    @Test
+    public void shouldReportCacheTimeout() throws Exception {
+        DefaultCachedAccessTokenProvider provider = new DefaultCachedAccessTokenProvider(fallback, 15000, 10);
+        provider.setMetrics(metrics);
+
+        provider.getLock().lock();
+        try {
+            Thread thread = new Thread(() -> assertThrows(AccessTokenUnavailableException.class, () -> provider.getAccessToken(false)));
+            thread.start();
+            thread.join();
+        } finally {
+            provider.getLock().unlock();
+        }
+        assertThat(events).containsExactly("miss", "timeout").inOrder();
+    }
+}
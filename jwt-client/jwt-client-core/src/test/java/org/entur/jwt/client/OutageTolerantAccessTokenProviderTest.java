@@ -0,0 +1,158 @@
+package org.entur.jwt.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OutageTolerantAccessTokenProviderTest extends AbstractDelegateProviderTest {
+
+    private OutageTolerantAccessTokenProvider provider;
+
+    private final List<String> events = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        super.setUp();
+        provider = new OutageTolerantAccessTokenProvider(fallback, TimeUnit.SECONDS.toMillis(5), 10, 20, new AccessTokenRefreshScheduler(1, 0), true);
+        provider.addListener(new AccessTokenOutageListener() {
+            @Override
+            public void onOutageStarted(AccessTokenException e, long remainingTime) {
+                events.add("started");
+            }
+
+            @Override
+            public void onOutageRefreshFailed(AccessTokenException e, long nextRetryDelay) {
+                events.add("failed");
+            }
+
+            @Override
+            public void onOutageEnded(long duration) {
+                events.add("ended");
+            }
+        });
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        provider.close();
+    }
+
+    @Test
+    public void shouldReturnAccessTokenOnSuccess() throws Exception {
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        assertThat(provider.isOutage()).isFalse();
+    }
+
+    @Test
+    public void shouldServeLastKnownAccessTokenDuringOutage() throws Exception {
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+
+        when(fallback.getAccessToken(false)).thenThrow(new AccessTokenUnavailableException("TEST!"));
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        assertThat(provider.isOutage()).isTrue();
+        assertThat(provider.getCachedAccessToken()).isSameInstanceAs(accessToken);
+
+        // served without calling the wrapped provider, which is refreshed in the background
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        assertThat(provider.getAccessTokenAsync(false).toCompletableFuture().get()).isSameInstanceAs(accessToken);
+
+        Thread.sleep(200);
+        assertThat(events).contains("started");
+        assertThat(events).contains("failed");
+        assertThat(provider.getOutageDuration(System.currentTimeMillis())).isAtLeast(100L);
+        assertThat(provider.getCurrentOutageDuration(System.currentTimeMillis())).isAtLeast(100L);
+        assertThat(provider.getOutageStarted()).isNotEqualTo(-1L);
+    }
+
+    @Test
+    public void shouldEndOutageWhenBackgroundRefreshSucceeds() throws Exception {
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+
+        AccessToken next = new AccessToken("d.e.f", "bearer", System.currentTimeMillis() + 10 * 60 * 1000);
+        when(fallback.getAccessToken(false)).thenThrow(new AccessTokenUnavailableException("TEST!")).thenThrow(new AccessTokenUnavailableException("TEST!")).thenReturn(next);
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (provider.isOutage() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(provider.isOutage()).isFalse();
+        assertThat(events).containsExactly("started", "failed", "ended").inOrder();
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(next);
+    }
+
+    @Test
+    public void shouldNotServeAccessTokenBelowHardFloor() throws Exception {
+        AccessToken expiring = new AccessToken("d.e.f", "bearer", System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(4));
+        when(fallback.getAccessToken(false)).thenReturn(expiring).thenThrow(new AccessTokenUnavailableException("TEST!"));
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(expiring);
+        assertThrows(AccessTokenUnavailableException.class, () -> provider.getAccessToken(false));
+        assertThat(provider.isOutage()).isFalse();
+    }
+
+    @Test
+    public void shouldNotServeLastKnownAccessTokenOnForcedRefresh() throws Exception {
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+
+        when(fallback.getAccessToken(true)).thenThrow(new AccessTokenUnavailableException("TEST!"));
+
+        assertThrows(AccessTokenUnavailableException.class, () -> provider.getAccessToken(true));
+        verify(fallback, times(1)).getAccessToken(true);
+    }
+
+    @Test
+    public void shouldNotServeRejectedAccessTokenAfterFailedForcedRefresh() throws Exception {
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+
+        when(fallback.getAccessToken(true)).thenThrow(new AccessTokenUnavailableException("TEST!"));
+        when(fallback.getAccessToken(false)).thenThrow(new AccessTokenUnavailableException("TEST!"));
+
+        assertThrows(AccessTokenUnavailableException.class, () -> provider.getAccessToken(true));
+        assertThrows(AccessTokenUnavailableException.class, () -> provider.getAccessToken(false));
+        assertThat(provider.isOutage()).isFalse();
+        assertThat(provider.getCurrentOutageDuration(System.currentTimeMillis())).isEqualTo(0L);
+    }
+
+    @Test
+    public void shouldNotServeRejectedAccessTokenAfterFailedForcedRefreshAsync() throws Exception {
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+
+        doReturn(CompletableFuture.failedFuture(new AccessTokenUnavailableException("TEST!"))).when(fallback).getAccessTokenAsync(true);
+        when(fallback.getAccessToken(false)).thenThrow(new AccessTokenUnavailableException("TEST!"));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> provider.getAccessTokenAsync(true).toCompletableFuture().get());
+        assertThat(e.getCause()).isInstanceOf(AccessTokenUnavailableException.class);
+        assertThrows(AccessTokenUnavailableException.class, () -> provider.getAccessToken(false));
+    }
+
+    @Test
+    public void shouldNotBuildOutageTolerantWithoutCache() {
+        assertThrows(AccessTokenProviderBuilderException.class, () -> {
+            new AccessTokenProviderBuilder(fallback).cached(false).outageTolerant(5, 1, 30, TimeUnit.SECONDS).build();
+        });
+    }
+
+    @Test
+    public void shouldBuildOutageTolerant() throws Exception {
+        try (AccessTokenProvider built = new AccessTokenProviderBuilder(fallback).outageTolerant(5, 1, 30, TimeUnit.SECONDS).build()) {
+            assertThat(built).isInstanceOf(OutageTolerantAccessTokenProvider.class);
+            assertThat(built.getAccessToken(false)).isSameInstanceAs(accessToken);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.entur.jwt.client;
+
+import org.entur.jwt.client.generic.GenericClientCredentialsBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class PersistentAccessTokenProviderTest extends AbstractDelegateProviderTest {
+
+    @TempDir
+    private Path directory;
+
+    private AccessTokenFile file;
+
+    private PersistentAccessTokenProvider provider;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        super.setUp();
+        file = new AccessTokenFile(directory.resolve("token.bin"), null);
+        provider = new PersistentAccessTokenProvider(fallback, file, TimeUnit.SECONDS.toMillis(15));
+    }
+
+    @Test
+    public void shouldPersistAccessToken() throws Exception {
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+
+        assertThat(file.read()).isEqualTo(accessToken);
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(1); // no temporary files left
+        }
+    }
+
+    @Test
+    public void shouldLoadPersistedAccessTokenOnStartup() throws Exception {
+        file.write(refreshedAccessToken);
+
+        assertThat(provider.getAccessToken(false)).isEqualTo(refreshedAccessToken);
+        verify(fallback, never()).getAccessToken(false);
+
+        // only on startup
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        verify(fallback, times(1)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldLoadPersistedAccessTokenOnStartupAsync() throws Exception {
+        file.write(refreshedAccessToken);
+
+        assertThat(provider.getAccessTokenAsync(false).toCompletableFuture().get()).isEqualTo(refreshedAccessToken);
+        verify(fallback, never()).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldNotLoadPersistedAccessTokenWithoutEnoughTimeToLive() throws Exception {
+        file.write(new AccessToken("x.y.z", "bearer", System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10)));
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        assertThat(file.read()).isEqualTo(accessToken);
+    }
+
+    @Test
+    public void shouldNotLoadPersistedAccessTokenOnForceRefresh() throws Exception {
+        file.write(accessToken);
+
+        assertThat(provider.getAccessToken(true)).isSameInstanceAs(refreshedAccessToken);
+        assertThat(file.read()).isEqualTo(refreshedAccessToken);
+    }
+
+    @Test
+    public void shouldIgnoreCorruptFile() throws Exception {
+        Files.write(file.getPath(), new byte[]{1, 2, 3});
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+    }
+
+    @Test
+    public void shouldEncryptFile() throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        SecretKey key = generator.generateKey();
+
+        AccessTokenFile encrypted = new AccessTokenFile(directory.resolve("encrypted.bin"), key);
+        encrypted.write(accessToken);
+
+        assertThat(new String(Files.readAllBytes(encrypted.getPath()), StandardCharsets.ISO_8859_1)).doesNotContain("a.b.c");
+        assertThat(encrypted.read()).isEqualTo(accessToken);
+
+        // wrong key
+        AccessTokenFile wrongKey = new AccessTokenFile(encrypted.getPath(), generator.generateKey());
+        assertThrows(IOException.class, wrongKey::read);
+
+        // no key
+        AccessTokenFile noKey = new AccessTokenFile(encrypted.getPath(), null);
+        assertThrows(IOException.class, noKey::read);
+    }
+
+    @Test
+    public void shouldNotLoadPersistedAccessTokenForOtherCredentials() throws Exception {
+        byte[] fingerprint = AccessTokenFile.fingerprint(credentials("myClient", "https://my.audience"));
+
+        AccessTokenFile written = new AccessTokenFile(directory.resolve("fingerprint.bin"), null, fingerprint);
+        written.write(refreshedAccessToken);
+
+        assertThat(new AccessTokenFile(written.getPath(), null, fingerprint).read()).isEqualTo(refreshedAccessToken);
+
+        // other audience or client
+        assertThat(new AccessTokenFile(written.getPath(), null, AccessTokenFile.fingerprint(credentials("myClient", "https://other.audience"))).read()).isNull();
+        assertThat(new AccessTokenFile(written.getPath(), null, AccessTokenFile.fingerprint(credentials("otherClient", "https://my.audience"))).read()).isNull();
+        assertThat(new AccessTokenFile(written.getPath(), null, null).read()).isNull();
+
+        // file without fingerprint
+        file.write(refreshedAccessToken);
+        AccessTokenFile fingerprinted = new AccessTokenFile(file.getPath(), null, fingerprint);
+        assertThat(fingerprinted.read()).isNull();
+
+        PersistentAccessTokenProvider other = new PersistentAccessTokenProvider(fallback, fingerprinted, TimeUnit.SECONDS.toMillis(15));
+        assertThat(other.getAccessToken(false)).isSameInstanceAs(accessToken);
+        verify(fallback, times(1)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldFingerprintClientIdInAuthorizationHeader() {
+        ClientCredentials header = GenericClientCredentialsBuilder.newInstance()
+                .withHost("my.oauth2server.com")
+                .withIssuePath("oauth/token")
+                .withClientId("myClient")
+                .withSecret("mySecret")
+                .withAudience("https://my.audience")
+                .withAuthorizationHeader(true)
+                .build();
+        ClientCredentials otherSecret = GenericClientCredentialsBuilder.newInstance()
+                .withHost("my.oauth2server.com")
+                .withIssuePath("oauth/token")
+                .withClientId("myClient")
+                .withSecret("otherSecret")
+                .withAudience("https://my.audience")
+                .withAuthorizationHeader(true)
+                .build();
+
+        assertThat(AccessTokenFile.fingerprint(header)).isEqualTo(AccessTokenFile.fingerprint(otherSecret));
+        assertThat(AccessTokenFile.fingerprint(header)).isEqualTo(AccessTokenFile.fingerprint(credentials("myClient", "https://my.audience")));
+    }
+
+    private static ClientCredentials credentials(String clientId, String audience) {
+        return GenericClientCredentialsBuilder.newInstance()
+                .withHost("my.oauth2server.com")
+                .withIssuePath("oauth/token")
+                .withClientId(clientId)
+                .withSecret("mySecret")
+                .withAudience(audience)
+                .withAuthorizationHeader(false)
+                .build();
+    }
+
+    @Test
+    public void shouldReturnNullIfNoFile() throws Exception {
+        assertThat(file.read()).isNull();
+    }
+
+    @Test
+    public void shouldBuildPersistentCache() throws Exception {
+        file.write(refreshedAccessToken);
+
+        try (AccessTokenProvider cached = new AccessTokenProviderBuilder(fallback).persistent(file).build()) {
+            assertThat(cached.getAccessToken(false)).isEqualTo(refreshedAccessToken);
+        }
+        verify(fallback, never()).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldNotBuildPersistentWithoutCache() {
+        assertThrows(AccessTokenProviderBuilderException.class, () -> {
+            new AccessTokenProviderBuilder(fallback).cached(false).persistent(file).build();
+        });
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -14,6 +15,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.only;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -114,6 +116,29 @@ public class PreemptivceCachedAccessTokenProviderTest extends AbstractDelegatePr
         verify(fallback, times(2)).getAccessToken(false);
     }
 
+    @Test
+    public void shouldNotPreemptivelyRefreshCacheWhenPeekingAtCachedValue() throws Exception {
+        when(fallback.getAccessToken(false)).thenReturn(accessToken).thenReturn(refreshedAccessToken);
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        verify(fallback, only()).getAccessToken(false);
+
+        long justBeforeExpiry = provider.getExpires(-TimeUnit.SECONDS.toMillis(4));
+
+        assertThat(provider.getCachedAccessToken(justBeforeExpiry)).isSameInstanceAs(accessToken);
+        assertThat(provider.getCachedAccessToken(justBeforeExpiry, false)).isSameInstanceAs(accessToken);
+
+        provider.getExecutorService().awaitTermination(1, TimeUnit.SECONDS);
+        verify(fallback, only()).getAccessToken(false);
+
+        assertThat(provider.getCachedAccessToken(justBeforeExpiry, true)).isSameInstanceAs(accessToken); // triggers a preemptive refresh attempt
+
+        provider.getExecutorService().awaitTermination(1, TimeUnit.SECONDS);
+        verify(fallback, times(2)).getAccessToken(false);
+
+        assertThat(provider.getCachedAccessToken()).isSameInstanceAs(refreshedAccessToken);
+    }
+
     @Test
     public void shouldNotPreemptivelyRefreshCacheIfRefreshAlreadyInProgress() throws Exception {
         when(fallback.getAccessToken(false)).thenReturn(accessToken).thenReturn(refreshedAccessToken);
@@ -259,4 +284,59 @@ public class PreemptivceCachedAccessTokenProviderTest extends AbstractDelegatePr
         Truth.assertThat(refreshable).isAtLeast(constraintsInMillis - skew);
     }    
     
+
+    @Test
+    public void shouldPreemptivelyRefreshCacheUsingRefreshScheduler() throws Exception {
+        provider.close();
+
+        try (AccessTokenRefreshScheduler refreshScheduler = new AccessTokenRefreshScheduler(1, 0)) {
+            provider = new PreemptiveCachedAccessTokenProvider(fallback, 10000, 15000, 15000, 0, false, refreshScheduler);
+            assertThat(provider.getExecutorService()).isNull();
+            assertThat(provider.getRefreshScheduler()).isSameInstanceAs(refreshScheduler);
+
+            when(fallback.getAccessToken(false)).thenReturn(accessToken).thenReturn(refreshedAccessToken);
+
+            assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+
+            long justBeforeExpiry = provider.getExpires(-TimeUnit.SECONDS.toMillis(4));
+            assertThat(provider.getAccessToken(justBeforeExpiry, false)).isSameInstanceAs(accessToken); // triggers a preemptive refresh attempt
+
+            verify(fallback, timeout(1000).times(2)).getAccessToken(false);
+
+            provider.close();
+            provider = null;
+
+            // shared scheduler is still running
+            CountDownLatch latch = new CountDownLatch(1);
+            refreshScheduler.execute(latch::countDown);
+            assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    @Test
+    public void shouldSpreadPreemptiveRefreshUsingJitter() throws Exception {
+        provider.close();
+
+        long minimumTimeToLive = 1000;
+        long preemptiveRefresh = 5000;
+        long validFor = 60000;
+        long maxJitter = 10000;
+
+        long now = System.currentTimeMillis();
+        accessToken = new AccessToken("a.b.c", "bearer", now + validFor);
+        when(fallback.getAccessToken(false)).thenReturn(accessToken);
+
+        try (AccessTokenRefreshScheduler refreshScheduler = new AccessTokenRefreshScheduler(1, maxJitter)) {
+            provider = new PreemptiveCachedAccessTokenProvider(fallback, minimumTimeToLive, 150, preemptiveRefresh, 0, false, refreshScheduler);
+
+            assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+
+            long refreshable = provider.getRefreshable(-now);
+            long limit = validFor - preemptiveRefresh;
+
+            Truth.assertThat(refreshable).isAtMost(limit);
+            Truth.assertThat(refreshable).isAtLeast(limit - maxJitter);
+        }
+    }
+
 }
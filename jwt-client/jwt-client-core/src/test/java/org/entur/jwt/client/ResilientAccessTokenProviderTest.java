@@ -0,0 +1,207 @@
+package org.entur.jwt.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ResilientAccessTokenProviderTest extends AbstractDelegateProviderTest {
+
+    private static AccessTokenServerUnavailableException tooManyRequests(long retryAfter) {
+        return new AccessTokenServerUnavailableException("TEST!", 429, retryAfter, -1L, -1L, -1L);
+    }
+
+    private static AccessTokenServerUnavailableException serviceUnavailable() {
+        return new AccessTokenServerUnavailableException("TEST!", 503, -1L, -1L, -1L, -1L);
+    }
+
+    @Test
+    public void shouldRetryWithBackoff() throws Exception {
+        ResilientAccessTokenProvider provider = new ResilientAccessTokenProvider(fallback, 3, 10, 100, null, null);
+
+        when(fallback.getAccessToken(false)).thenThrow(new AccessTokenUnavailableException("TEST!", null)).thenThrow(serviceUnavailable()).thenReturn(accessToken);
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        verify(fallback, times(3)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldNotRetryMoreThanMaxAttempts() throws Exception {
+        ResilientAccessTokenProvider provider = new ResilientAccessTokenProvider(fallback, 3, 1, 1, null, null);
+
+        when(fallback.getAccessToken(false)).thenThrow(serviceUnavailable());
+
+        assertThrows(AccessTokenServerUnavailableException.class, () -> provider.getAccessToken(false));
+        verify(fallback, times(3)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldHonourRetryAfter() throws Exception {
+        ResilientAccessTokenProvider provider = new ResilientAccessTokenProvider(fallback, 2, 1, 1000, null, null);
+
+        long time = System.currentTimeMillis();
+        when(fallback.getAccessToken(false)).thenThrow(tooManyRequests(time + 200)).thenReturn(accessToken);
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        assertThat(System.currentTimeMillis() - time).isAtLeast(150L);
+    }
+
+    @Test
+    public void shouldNotRetryIfRetryAfterExceedsMaxBackoff() throws Exception {
+        ResilientAccessTokenProvider provider = new ResilientAccessTokenProvider(fallback, 3, 1, 1000, null, null);
+
+        when(fallback.getAccessToken(false)).thenThrow(tooManyRequests(System.currentTimeMillis() + 60_000));
+
+        assertThrows(AccessTokenServerUnavailableException.class, () -> provider.getAccessToken(false));
+        verify(fallback, times(1)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldOpenCircuitOnRepeatedFailures() throws Exception {
+        AccessTokenCircuitBreaker circuitBreaker = new AccessTokenCircuitBreaker(2, TimeUnit.MINUTES.toMillis(1));
+        ResilientAccessTokenProvider provider = new ResilientAccessTokenProvider(fallback, 5, 1, 1, null, circuitBreaker);
+
+        when(fallback.getAccessToken(false)).thenThrow(serviceUnavailable());
+
+        assertThrows(AccessTokenServerUnavailableException.class, () -> provider.getAccessToken(false));
+        verify(fallback, times(2)).getAccessToken(false);
+        assertThat(circuitBreaker.getState()).isEqualTo(AccessTokenCircuitBreaker.State.OPEN);
+
+        // fail fast while open
+        AccessTokenUnavailableException e = assertThrows(AccessTokenUnavailableException.class, () -> provider.getAccessToken(false));
+        assertThat(e).isNotInstanceOf(AccessTokenServerUnavailableException.class);
+        verify(fallback, times(2)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldCloseCircuitAfterSuccessfulTrial() throws Exception {
+        AccessTokenCircuitBreaker circuitBreaker = new AccessTokenCircuitBreaker(1, 0);
+
+        long time = System.currentTimeMillis();
+        circuitBreaker.onFailure(time, 1000);
+        assertThat(circuitBreaker.tryAcquire(time + 500)).isFalse();
+
+        // half-open, single trial request
+        assertThat(circuitBreaker.tryAcquire(time + 1000)).isTrue();
+        assertThat(circuitBreaker.tryAcquire(time + 1000)).isFalse();
+        assertThat(circuitBreaker.getState()).isEqualTo(AccessTokenCircuitBreaker.State.HALF_OPEN);
+
+        circuitBreaker.onSuccess();
+        assertThat(circuitBreaker.getState()).isEqualTo(AccessTokenCircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.tryAcquire(time + 1000)).isTrue();
+    }
+
+    @Test
+    public void shouldReleaseTrialOnUnexpectedResponse() throws Exception {
+        AccessTokenCircuitBreaker circuitBreaker = new AccessTokenCircuitBreaker(1, 0);
+        ResilientAccessTokenProvider provider = new ResilientAccessTokenProvider(fallback, 1, 1, 1, null, circuitBreaker);
+
+        when(fallback.getAccessToken(false))
+                .thenThrow(serviceUnavailable())
+                .thenThrow(new AccessTokenException("Authorization server responded with unexpected response code 500"))
+                .thenReturn(accessToken);
+
+        assertThrows(AccessTokenServerUnavailableException.class, () -> provider.getAccessToken(false));
+        assertThat(circuitBreaker.getState()).isEqualTo(AccessTokenCircuitBreaker.State.OPEN);
+
+        // the half-open trial gets a 500
+        AccessTokenException e = assertThrows(AccessTokenException.class, () -> provider.getAccessToken(false));
+        assertThat(e).isNotInstanceOf(AccessTokenUnavailableException.class);
+        assertThat(circuitBreaker.getState()).isEqualTo(AccessTokenCircuitBreaker.State.HALF_OPEN);
+
+        // next call is let through as a new trial
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        assertThat(circuitBreaker.getState()).isEqualTo(AccessTokenCircuitBreaker.State.CLOSED);
+        verify(fallback, times(3)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldReleaseTrialOnUnexpectedResponseAsync() throws Exception {
+        AccessTokenCircuitBreaker circuitBreaker = new AccessTokenCircuitBreaker(1, 0);
+        ResilientAccessTokenProvider provider = new ResilientAccessTokenProvider(fallback, 1, 1, 1, null, circuitBreaker);
+
+        when(fallback.getAccessToken(false))
+                .thenThrow(serviceUnavailable())
+                .thenThrow(new AccessTokenException("Authorization server responded with unexpected response code 500"))
+                .thenReturn(accessToken);
+
+        assertThrows(ExecutionException.class, () -> provider.getAccessTokenAsync(false).toCompletableFuture().get());
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> provider.getAccessTokenAsync(false).toCompletableFuture().get());
+        assertThat(e.getCause()).isNotInstanceOf(AccessTokenUnavailableException.class);
+
+        assertThat(provider.getAccessTokenAsync(false).toCompletableFuture().get()).isSameInstanceAs(accessToken);
+        verify(fallback, times(3)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldEnforceRateLimit() throws Exception {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(2, TimeUnit.MINUTES.toMillis(1), System.currentTimeMillis());
+        ResilientAccessTokenProvider provider = new ResilientAccessTokenProvider(fallback, 1, 1, 1, rateLimiter, null);
+
+        provider.getAccessToken(false);
+        provider.getAccessToken(false);
+        assertThrows(AccessTokenUnavailableException.class, () -> provider.getAccessToken(false));
+        verify(fallback, times(2)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldRefillRateLimit() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(2, 1000, 0);
+
+        assertThat(rateLimiter.tryAcquire(0)).isTrue();
+        assertThat(rateLimiter.tryAcquire(0)).isTrue();
+        assertThat(rateLimiter.tryAcquire(999)).isFalse();
+        assertThat(rateLimiter.tryAcquire(1000)).isTrue();
+        assertThat(rateLimiter.getAvailablePermits(10_000)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRetryWithBackoffAsync() throws Exception {
+        ResilientAccessTokenProvider provider = new ResilientAccessTokenProvider(fallback, 3, 10, 100, null, null);
+
+        when(fallback.getAccessToken(false)).thenThrow(serviceUnavailable()).thenThrow(serviceUnavailable()).thenReturn(accessToken);
+
+        assertThat(provider.getAccessTokenAsync(false).toCompletableFuture().get()).isSameInstanceAs(accessToken);
+        verify(fallback, times(3)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldFailAsyncWhenCircuitOpen() throws Exception {
+        AccessTokenCircuitBreaker circuitBreaker = new AccessTokenCircuitBreaker(1, TimeUnit.MINUTES.toMillis(1));
+        ResilientAccessTokenProvider provider = new ResilientAccessTokenProvider(fallback, 3, 1, 1, null, circuitBreaker);
+
+        when(fallback.getAccessToken(false)).thenThrow(serviceUnavailable());
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> provider.getAccessTokenAsync(false).toCompletableFuture().get());
+        assertThat(e.getCause()).isInstanceOf(AccessTokenServerUnavailableException.class);
+        verify(fallback, times(1)).getAccessToken(false);
+
+        assertThrows(ExecutionException.class, () -> provider.getAccessTokenAsync(false).toCompletableFuture().get());
+        verify(fallback, times(1)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldBuildResilientProvider() throws Exception {
+        try (AccessTokenProvider provider = new AccessTokenProviderBuilder(fallback)
+                .cached(false)
+                .health(false)
+                .backoff(3, 1, 10, TimeUnit.MILLISECONDS)
+                .rateLimit(5, 1, TimeUnit.SECONDS)
+                .circuitBreaker(3, 30, TimeUnit.SECONDS)
+                .build()) {
+            assertThat(provider).isInstanceOf(ResilientAccessTokenProvider.class);
+
+            ResilientAccessTokenProvider resilient = (ResilientAccessTokenProvider) provider;
+            assertThat(resilient.getMaxAttempts()).isEqualTo(3);
+            assertThat(resilient.getRateLimiter().getCapacity()).isEqualTo(5);
+            assertThat(resilient.getCircuitBreaker().getOpenDuration()).isEqualTo(30_000);
+        }
+    }
+}
@@ -3,6 +3,8 @@ package org.entur.jwt.client;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.ExecutionException;
+
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.times;
@@ -46,6 +48,22 @@ public class RetryingAccessTokenProviderTest extends AbstractDelegateProviderTes
         });
     }
 
+    @Test
+    public void shouldRetryWhenUnavailableAsync() throws Exception {
+        when(fallback.getAccessToken(false)).thenThrow(new AccessTokenUnavailableException("TEST!", null)).thenReturn(accessToken);
+        assertThat(provider.getAccessTokenAsync(false).toCompletableFuture().get()).isSameInstanceAs(accessToken);
+        verify(fallback, times(2)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldNotRetryMoreThanOnceAsync() throws Exception {
+        when(fallback.getAccessToken(false)).thenThrow(new AccessTokenUnavailableException("TEST!", null));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> provider.getAccessTokenAsync(false).toCompletableFuture().get());
+        assertThat(e.getCause()).isInstanceOf(AccessTokenUnavailableException.class);
+        verify(fallback, times(2)).getAccessToken(false);
+    }
+
     @Test
     public void shouldGetBaseProvider() throws Exception {
         assertThat(provider.getProvider()).isSameInstanceAs(fallback);
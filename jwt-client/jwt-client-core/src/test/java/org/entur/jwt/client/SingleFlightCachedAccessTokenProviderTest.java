@@ -0,0 +1,151 @@
+package org.entur.jwt.client;
+
+import org.entur.jwt.client.AbstractCachedAccessTokenProvider.AccessTokenCacheItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.only;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SingleFlightCachedAccessTokenProviderTest extends AbstractDelegateProviderTest {
+
+    private SingleFlightCachedAccessTokenProvider provider;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        super.setUp();
+        provider = new SingleFlightCachedAccessTokenProvider(fallback, 10, TimeUnit.SECONDS, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldUseFallbackWhenNotCached() throws Exception {
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+    }
+
+    @Test
+    public void shouldUseCachedValue() throws Exception {
+        when(fallback.getAccessToken(false)).thenReturn(accessToken).thenThrow(new AccessTokenException("TEST!"));
+        provider.getAccessToken(false);
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        verify(fallback, only()).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldUseFallbackWhenExpiredCache() throws Exception {
+        when(fallback.getAccessToken(false)).thenReturn(accessToken).thenReturn(refreshedAccessToken);
+
+        // first
+        AccessToken first = provider.getAccessToken(false);
+        assertThat(first).isSameInstanceAs(accessToken);
+        verify(fallback, only()).getAccessToken(false);
+
+        // second
+        AccessToken second = provider.getAccessToken(provider.getExpires(1), false);
+        assertThat(second).isSameInstanceAs(refreshedAccessToken);
+        verify(fallback, times(2)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldNotReturnExpiredValueWhenExpiredCache() throws Exception {
+        when(fallback.getAccessToken(false)).thenReturn(accessToken).thenThrow(new AccessTokenException("TEST!", null));
+        AccessToken first = provider.getAccessToken(false);
+        assertThat(first).isSameInstanceAs(accessToken);
+
+        assertThrows(AccessTokenException.class, () -> {
+            provider.getAccessToken(provider.getExpires(1), false);
+        });
+        assertThat(provider.getInFlight().get()).isNull();
+    }
+
+    @Test
+    public void shouldThrowExceptionIfAnotherThreadBlocksUpdateForTooLong() throws Exception {
+        provider.getInFlight().set(new CompletableFuture<>());
+
+        assertThrows(AccessTokenUnavailableException.class, () -> {
+            provider.getAccessToken(false);
+        });
+        verify(fallback, times(0)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldAcceptIfAnotherThreadUpdatesCache() throws Exception {
+        CompletableFuture<AccessTokenCacheItem> inFlight = new CompletableFuture<>();
+        provider.getInFlight().set(inFlight);
+
+        AccessTokenCacheItem item = new AccessTokenCacheItem(refreshedAccessToken, refreshedAccessToken.getExpires(), Long.MAX_VALUE);
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(() -> inFlight.complete(item));
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(refreshedAccessToken);
+        verify(fallback, times(0)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldRefreshIfAnotherThreadFailsToUpdateCache() throws Exception {
+        CompletableFuture<AccessTokenCacheItem> inFlight = new CompletableFuture<>();
+        provider.getInFlight().set(inFlight);
+
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(() -> {
+            provider.getInFlight().set(null);
+            inFlight.completeExceptionally(new AccessTokenUnavailableException("TEST!"));
+        });
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        verify(fallback, only()).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldClearInFlightRefreshOnError() throws Exception {
+        when(fallback.getAccessToken(false)).thenThrow(new StackOverflowError()).thenReturn(accessToken);
+
+        assertThrows(StackOverflowError.class, () -> provider.getAccessToken(false));
+        assertThat(provider.getInFlight().get()).isNull();
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+    }
+
+    @Test
+    public void shouldRefreshOnceForConcurrentRequests() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        when(fallback.getAccessToken(false)).thenAnswer((invocation) -> {
+            latch.await();
+            return accessToken;
+        });
+
+        ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<AccessToken>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(executorService.submit(() -> provider.getAccessToken(false)));
+            }
+
+            Thread.sleep(100);
+            latch.countDown();
+
+            for (Future<AccessToken> future : futures) {
+                assertThat(future.get()).isSameInstanceAs(accessToken);
+            }
+            verify(fallback, only()).getAccessToken(false);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldGetBaseProvider() throws Exception {
+        assertThat(provider.getProvider()).isSameInstanceAs(fallback);
+    }
+
+}
@@ -0,0 +1,188 @@
+package org.entur.jwt.client;
+
+import org.entur.jwt.client.store.AccessTokenStore.Lease;
+import org.entur.jwt.client.store.InMemoryAccessTokenStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StoreAccessTokenProviderTest extends AbstractDelegateProviderTest {
+
+    private InMemoryAccessTokenStore store;
+
+    private StoreAccessTokenProvider provider;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        super.setUp();
+        store = new InMemoryAccessTokenStore();
+        provider = new StoreAccessTokenProvider(fallback, store, TimeUnit.SECONDS.toMillis(15), 1000, 1000, 10);
+    }
+
+    @Test
+    public void shouldStoreAccessToken() throws Exception {
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        assertThat(store.get()).isSameInstanceAs(accessToken);
+    }
+
+    @Test
+    public void shouldUseStoredAccessToken() throws Exception {
+        try (Lease lease = store.tryAcquireLease(1000)) {
+            lease.put(refreshedAccessToken);
+        }
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(refreshedAccessToken);
+        verify(fallback, never()).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldNotUseStoredAccessTokenWithoutEnoughTimeToLive() throws Exception {
+        try (Lease lease = store.tryAcquireLease(1000)) {
+            lease.put(new AccessToken("x.y.z", "bearer", System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10)));
+        }
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        assertThat(store.get()).isSameInstanceAs(accessToken);
+    }
+
+    @Test
+    public void shouldReplaceStoredAccessTokenOnForceRefresh() throws Exception {
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        assertThat(provider.getAccessToken(true)).isSameInstanceAs(refreshedAccessToken);
+        assertThat(store.get()).isSameInstanceAs(refreshedAccessToken);
+    }
+
+    @Test
+    public void shouldWaitForReplicaHoldingLease() throws Exception {
+        Lease lease = store.tryAcquireLease(1000);
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Future<AccessToken> future = executorService.submit(() -> provider.getAccessToken(false));
+
+            Thread.sleep(50);
+            assertThat(future.isDone()).isFalse();
+
+            lease.put(refreshedAccessToken);
+            lease.close();
+
+            assertThat(future.get(1, TimeUnit.SECONDS)).isSameInstanceAs(refreshedAccessToken);
+        } finally {
+            executorService.shutdownNow();
+        }
+        verify(fallback, never()).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldWaitForReplicaHoldingLeaseAsync() throws Exception {
+        Lease lease = store.tryAcquireLease(1000);
+
+        long time = System.currentTimeMillis();
+        CompletableFuture<AccessToken> future = provider.getAccessTokenAsync(false).toCompletableFuture();
+
+        // does not block the calling thread while waiting
+        assertThat(System.currentTimeMillis() - time).isLessThan(500L);
+
+        Thread.sleep(50);
+        assertThat(future.isDone()).isFalse();
+
+        lease.put(refreshedAccessToken);
+        lease.close();
+
+        assertThat(future.get(1, TimeUnit.SECONDS)).isSameInstanceAs(refreshedAccessToken);
+        verify(fallback, never()).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldStoreAccessTokenAsync() throws Exception {
+        assertThat(provider.getAccessTokenAsync(false).toCompletableFuture().get()).isSameInstanceAs(accessToken);
+        assertThat(store.get()).isSameInstanceAs(accessToken);
+
+        // lease released
+        try (Lease lease = store.tryAcquireLease(1000)) {
+            assertThat(lease).isNotNull();
+        }
+    }
+
+    @Test
+    public void shouldFallbackAsyncIfReplicaHoldingLeaseDoesNotUpdateStore() throws Exception {
+        provider = new StoreAccessTokenProvider(fallback, store, TimeUnit.SECONDS.toMillis(15), 50, 1000, 10);
+
+        try (Lease lease = store.tryAcquireLease(1000)) {
+            assertThat(provider.getAccessTokenAsync(false).toCompletableFuture().get(1, TimeUnit.SECONDS)).isSameInstanceAs(accessToken);
+        }
+        verify(fallback, times(1)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldFallbackIfReplicaHoldingLeaseDoesNotUpdateStore() throws Exception {
+        provider = new StoreAccessTokenProvider(fallback, store, TimeUnit.SECONDS.toMillis(15), 50, 1000, 10);
+
+        try (Lease lease = store.tryAcquireLease(1000)) {
+            assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        }
+        verify(fallback, times(1)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldTakeOverExpiredLease() throws Exception {
+        Lease abandoned = store.tryAcquireLease(10);
+        assertThat(abandoned).isNotNull();
+        assertThat(store.tryAcquireLease(1000)).isNull();
+
+        Thread.sleep(20);
+
+        assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+        verify(fallback, times(1)).getAccessToken(false);
+    }
+
+    @Test
+    public void shouldRefreshOnceForMultipleReplicas() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        AccessTokenProvider slow = mock(AccessTokenProvider.class);
+        when(slow.getAccessToken(false)).then((invocation) -> {
+            latch.await(1, TimeUnit.SECONDS);
+            return accessToken;
+        });
+
+        int replicas = 4;
+
+        AccessTokenProvider[] providers = new AccessTokenProvider[replicas];
+
+        ExecutorService executorService = Executors.newFixedThreadPool(replicas);
+        try {
+            Future<?>[] futures = new Future<?>[replicas];
+            for (int i = 0; i < replicas; i++) {
+                // each replica has its own cache
+                AccessTokenProvider replica = providers[i] = new AccessTokenProviderBuilder(slow).store(store).retrying(false).health(false).build();
+                futures[i] = executorService.submit(() -> replica.getAccessToken(false));
+            }
+            Thread.sleep(50);
+            latch.countDown();
+
+            for (Future<?> future : futures) {
+                assertThat(future.get(1, TimeUnit.SECONDS)).isSameInstanceAs(accessToken);
+            }
+        } finally {
+            executorService.shutdownNow();
+            for (AccessTokenProvider replica : providers) {
+                replica.close();
+            }
+        }
+        verify(slow, times(1)).getAccessToken(false);
+    }
+}
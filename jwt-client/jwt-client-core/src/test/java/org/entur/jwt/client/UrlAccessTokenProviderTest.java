@@ -82,6 +82,26 @@ public class UrlAccessTokenProviderTest extends AbstractUrlAccessTokenProviderTe
         });
     }
 
+    @Test
+    public void shouldParseRateLimitHeadersOnHttp429() throws Exception {
+        AccessTokenProvider provider = providerForResource("/auth0ClientCredentialsResponse.json");
+        when(urlConnection.getResponseCode()).thenReturn(429);
+        when(urlConnection.getHeaderField("X-RateLimit-Limit")).thenReturn("100");
+        when(urlConnection.getHeaderField("X-RateLimit-Remaining")).thenReturn("0");
+        when(urlConnection.getHeaderField("X-RateLimit-Reset")).thenReturn("10");
+        when(urlConnection.getHeaderField("Retry-After")).thenReturn("5");
+
+        long time = System.currentTimeMillis();
+        AccessTokenServerUnavailableException e = assertThrows(AccessTokenServerUnavailableException.class, () -> {
+            provider.getAccessToken(false);
+        });
+        assertTrue(e.isTooManyRequests());
+        assertThat(e.getRateLimitLimit()).isEqualTo(100);
+        assertThat(e.getRateLimitRemaining()).isEqualTo(0);
+        assertTrue(e.getRateLimitReset() >= time + 10_000);
+        assertTrue(e.getRetryDelay(time) >= 5_000 && e.getRetryDelay(time) <= 6_000);
+    }
+
     @Test
     public void shouldFailWithNegativeConnectTimeout() throws MalformedURLException {
         assertThrows(IllegalArgumentException.class, () -> {
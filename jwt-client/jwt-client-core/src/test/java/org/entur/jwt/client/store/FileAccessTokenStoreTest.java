@@ -0,0 +1,70 @@
+package org.entur.jwt.client.store;
+
+import org.entur.jwt.client.AccessToken;
+import org.entur.jwt.client.DefaultClientCredentials;
+import org.entur.jwt.client.store.AccessTokenStore.Lease;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class FileAccessTokenStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    private DefaultClientCredentials credentials(String audience) {
+        DefaultClientCredentials credentials = new DefaultClientCredentials();
+        credentials.setHost("localhost");
+        credentials.setIssuePath("/oauth/token");
+        credentials.addParameter("audience", audience);
+        return credentials;
+    }
+
+    @Test
+    public void shouldShareAccessToken() throws Exception {
+        FileAccessTokenStore first = new FileAccessTokenStore(directory.resolve("token.bin"), null, credentials("myAudience"));
+        FileAccessTokenStore second = new FileAccessTokenStore(directory.resolve("token.bin"), null, credentials("myAudience"));
+
+        assertThat(second.get()).isNull();
+
+        AccessToken accessToken = new AccessToken("a.b.c", "bearer", System.currentTimeMillis() + 60_000);
+        try (Lease lease = first.tryAcquireLease(1000)) {
+            lease.put(accessToken);
+        }
+
+        assertThat(second.get()).isEqualTo(accessToken);
+    }
+
+    @Test
+    public void shouldNotShareAccessTokenForOtherCredentials() throws Exception {
+        FileAccessTokenStore first = new FileAccessTokenStore(directory.resolve("token.bin"), null, credentials("myAudience"));
+        FileAccessTokenStore second = new FileAccessTokenStore(directory.resolve("token.bin"), null, credentials("otherAudience"));
+
+        AccessToken accessToken = new AccessToken("a.b.c", "bearer", System.currentTimeMillis() + 60_000);
+        try (Lease lease = first.tryAcquireLease(1000)) {
+            lease.put(accessToken);
+        }
+
+        assertThat(first.get()).isEqualTo(accessToken);
+        assertThat(second.get()).isNull();
+    }
+
+    @Test
+    public void shouldHoldExclusiveLease() throws Exception {
+        FileAccessTokenStore first = new FileAccessTokenStore(directory.resolve("token.bin"), null, credentials("myAudience"));
+        FileAccessTokenStore second = new FileAccessTokenStore(directory.resolve("token.bin"), null, credentials("myAudience"));
+
+        Lease lease = first.tryAcquireLease(1000);
+        assertThat(lease).isNotNull();
+        assertThat(second.tryAcquireLease(1000)).isNull();
+
+        lease.close();
+
+        try (Lease next = second.tryAcquireLease(1000)) {
+            assertThat(next).isNotNull();
+        }
+    }
+}
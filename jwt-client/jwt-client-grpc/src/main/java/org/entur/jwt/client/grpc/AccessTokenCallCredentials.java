@@ -4,7 +4,9 @@ import io.grpc.CallCredentials;
 import io.grpc.Metadata;
 import io.grpc.Status;
 import org.entur.jwt.client.AccessToken;
+import org.entur.jwt.client.AccessTokenFutureUtil;
 import org.entur.jwt.client.AccessTokenProvider;
+import org.entur.jwt.client.AuthorizationHeaderUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,30 +18,98 @@ public class AccessTokenCallCredentials extends CallCredentials {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(AccessTokenCallCredentials.class);
 
-	public static final String BEARER_PREFIX = "Bearer ";
+	public static final String BEARER_PREFIX = AuthorizationHeaderUtil.BEARER_PREFIX;
+
+	/**
+	 * Authorization header for a specific access-token. Access-tokens are immutable,
+	 * so the metadata can be reused for as long as the same access-token is returned.
+	 */
+
+	protected static class AccessTokenMetadata {
+
+		private final AccessToken accessToken;
+		private final Metadata metadata;
+
+		public AccessTokenMetadata(AccessToken accessToken) {
+			this.accessToken = accessToken;
+
+			Metadata metadata = new Metadata();
+			metadata.put(KEY_AUTHORIZATION, accessToken.getAuthorizationHeader());
+			this.metadata = metadata;
+		}
+
+		public AccessToken getAccessToken() {
+			return accessToken;
+		}
+
+		public Metadata getMetadata() {
+			return metadata;
+		}
+	}
 
 	private final AccessTokenProvider accessTokenProvider;
 
+	private volatile AccessTokenMetadata accessTokenMetadata;
+
 	public AccessTokenCallCredentials(AccessTokenProvider accessTokenProvider) {
 		this.accessTokenProvider = accessTokenProvider;
 	}
 
 	@Override
 	public void applyRequestMetadata(RequestInfo requestInfo, Executor executor, MetadataApplier metadataApplier) {
+		AccessToken cachedAccessToken;
+		try {
+			cachedAccessToken = accessTokenProvider.getCachedAccessToken(true);
+		} catch (Throwable e) {
+			fail(e, metadataApplier);
+			return;
+		}
+		if(cachedAccessToken != null) {
+			// no need to switch threads
+			apply(cachedAccessToken, metadataApplier);
+			return;
+		}
+
+		// note: providers which do not support asynchronous access-token requests will block the executor thread
 		executor.execute(() -> {
 			try {
-				Metadata headers = new Metadata();
-				AccessToken accessToken = accessTokenProvider.getAccessToken(false);
-				headers.put(KEY_AUTHORIZATION, BEARER_PREFIX + accessToken.getValue());
-				metadataApplier.apply(headers);
+				accessTokenProvider.getAccessTokenAsync(false).whenComplete((accessToken, e) -> {
+					if(e == null) {
+						apply(accessToken, metadataApplier);
+					} else {
+						fail(AccessTokenFutureUtil.unwrap(e), metadataApplier);
+					}
+				});
 			} catch (Throwable e) {
-				LOGGER.error("Failed to apply Authorization header to request: " + e.getMessage(), e);
-
-				metadataApplier.fail(Status.UNAVAILABLE.withCause(e));
+				fail(e, metadataApplier);
 			}
 		});
 	}
 
+	protected void apply(AccessToken accessToken, MetadataApplier metadataApplier) {
+		try {
+			metadataApplier.apply(getMetadata(accessToken));
+		} catch (Throwable e) {
+			fail(e, metadataApplier);
+		}
+	}
+
+	protected Metadata getMetadata(AccessToken accessToken) {
+		AccessTokenMetadata accessTokenMetadata = this.accessTokenMetadata; // defensive copy
+		if(accessTokenMetadata == null || accessTokenMetadata.getAccessToken() != accessToken) {
+			accessTokenMetadata = new AccessTokenMetadata(accessToken);
+
+			this.accessTokenMetadata = accessTokenMetadata;
+		}
+		return accessTokenMetadata.getMetadata();
+	}
+
+	protected void fail(Throwable e, MetadataApplier metadataApplier) {
+		LOGGER.error("Failed to apply Authorization header to request: " + e.getMessage(), e);
+
+		metadataApplier.fail(Status.UNAVAILABLE.withCause(e));
+	}
+
 	@Override
 	public void thisUsesUnstableApi() {
 		// Noop never called, indicating api might change
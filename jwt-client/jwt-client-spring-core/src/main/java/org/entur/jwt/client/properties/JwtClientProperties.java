@@ -17,6 +17,8 @@ public class JwtClientProperties {
     protected int connectTimeout = 15; // seconds
     protected int readTimeout = 15; // seconds
 
+    protected JwtRefreshScheduler refreshScheduler = new JwtRefreshScheduler();
+
     public Map<String, Auth0JwtClientProperties> getAuth0() {
         return auth0;
     }
@@ -56,4 +58,12 @@ public class JwtClientProperties {
     public void setReadTimeout(int readTimeout) {
         this.readTimeout = readTimeout;
     }
+
+    public JwtRefreshScheduler getRefreshScheduler() {
+        return refreshScheduler;
+    }
+
+    public void setRefreshScheduler(JwtRefreshScheduler refreshScheduler) {
+        this.refreshScheduler = refreshScheduler;
+    }
 }
@@ -1,10 +1,12 @@
 package org.entur.jwt.client.spring;
 
 import org.entur.jwt.client.AccessTokenProvider;
+import org.entur.jwt.client.AccessTokenRefreshScheduler;
 import org.entur.jwt.client.properties.AbstractJwtClientProperties;
 import org.entur.jwt.client.properties.JwtClientCache;
 import org.entur.jwt.client.properties.JwtClientProperties;
 import org.entur.jwt.client.properties.JwtPreemptiveRefresh;
+import org.entur.jwt.client.properties.JwtRefreshScheduler;
 import org.entur.jwt.client.spring.actuate.AccessTokenProviderHealthIndicator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +16,8 @@ import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
 import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.health.autoconfigure.contributor.ConditionalOnEnabledHealthIndicator;
 import org.springframework.context.EnvironmentAware;
@@ -31,6 +35,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class JwtClientAutoConfiguration {
@@ -133,6 +138,20 @@ public class JwtClientAutoConfiguration {
         }
     }
 
+    /**
+     * Refresh scheduler shared by all access-token providers with preemptive cache refresh,
+     * so that these do not each need their own thread(s).
+     */
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = {"entur.jwt.clients.refresh-scheduler.enabled"}, havingValue = "true", matchIfMissing = true)
+    public AccessTokenRefreshScheduler jwtAccessTokenRefreshScheduler(JwtClientProperties properties) {
+        JwtRefreshScheduler refreshScheduler = properties.getRefreshScheduler();
+
+        return new AccessTokenRefreshScheduler(refreshScheduler.getMaxConcurrentRefreshes(), TimeUnit.SECONDS.toMillis(refreshScheduler.getMaxJitter()));
+    }
+
     @Bean(destroyMethod = "close")
     @ConditionalOnEnabledHealthIndicator("jwts")
     public AccessTokenProviderHealthIndicator jwtsHealthIndicator(Map<String, AccessTokenProvider> providers) {
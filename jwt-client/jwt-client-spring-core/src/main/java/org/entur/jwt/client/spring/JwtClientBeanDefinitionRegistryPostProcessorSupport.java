@@ -1,7 +1,10 @@
 package org.entur.jwt.client.spring;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.entur.jwt.client.AccessTokenFile;
 import org.entur.jwt.client.AccessTokenProvider;
 import org.entur.jwt.client.AccessTokenProviderBuilder;
+import org.entur.jwt.client.AccessTokenRefreshScheduler;
 import org.entur.jwt.client.ClientCredentials;
 import org.entur.jwt.client.auth0.Auth0ClientCredentialsBuilder;
 import org.entur.jwt.client.generic.GenericClientCredentialsBuilder;
@@ -9,12 +12,22 @@ import org.entur.jwt.client.keycloak.KeycloakClientCredentialsBuilder;
 import org.entur.jwt.client.properties.AbstractJwtClientProperties;
 import org.entur.jwt.client.properties.Auth0JwtClientProperties;
 import org.entur.jwt.client.properties.GenericJwtClientProperties;
+import org.entur.jwt.client.properties.JwtBackoff;
+import org.entur.jwt.client.properties.JwtCircuitBreaker;
 import org.entur.jwt.client.properties.JwtClientCache;
 import org.entur.jwt.client.properties.JwtClientProperties;
+import org.entur.jwt.client.properties.JwtOutageTolerance;
+import org.entur.jwt.client.properties.JwtPersistentCache;
 import org.entur.jwt.client.properties.JwtPreemptiveRefresh;
+import org.entur.jwt.client.properties.JwtRateLimit;
 import org.entur.jwt.client.properties.KeycloakJwtClientProperties;
+import org.entur.jwt.client.spring.actuate.MicrometerAccessTokenMetrics;
 
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 import java.net.URL;
+import java.nio.file.Paths;
+import java.util.Base64;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -22,12 +35,22 @@ public abstract class JwtClientBeanDefinitionRegistryPostProcessorSupport<T> {
 
     protected T client;
     protected JwtClientProperties rootProperties;
+    protected AccessTokenRefreshScheduler refreshScheduler;
+    protected MeterRegistry meterRegistry;
 
     public JwtClientBeanDefinitionRegistryPostProcessorSupport(T client, JwtClientProperties properties) {
         this.client = client;
         this.rootProperties = properties;
     }
 
+    public void setRefreshScheduler(AccessTokenRefreshScheduler refreshScheduler) {
+        this.refreshScheduler = refreshScheduler;
+    }
+
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     public AccessTokenProvider newAuth0Instance(String key) {
         Auth0JwtClientProperties properties = rootProperties.getAuth0().get(key);
 
@@ -40,7 +63,7 @@ public abstract class JwtClientBeanDefinitionRegistryPostProcessorSupport<T> {
                 .withScope(properties.getScope())
                 .withAudience(properties.getAudience())
                 .build();
-        return toAccessTokenProvider(client, properties, credentials, properties.isHealth());
+        return toAccessTokenProvider(key, client, properties, credentials, properties.isHealth());
     }
 
     public AccessTokenProvider newKeycloakInstance(String key) {
@@ -57,7 +80,7 @@ public abstract class JwtClientBeanDefinitionRegistryPostProcessorSupport<T> {
                 .withRealm(properties.getRealm())
                 .build();
 
-        return toAccessTokenProvider(client, properties, credentials, properties.isHealth());
+        return toAccessTokenProvider(key, client, properties, credentials, properties.isHealth());
     }
 
     public AccessTokenProvider newGenericInstance(String key) {
@@ -79,10 +102,10 @@ public abstract class JwtClientBeanDefinitionRegistryPostProcessorSupport<T> {
                 )
                 .build();
 
-        return toAccessTokenProvider(client, properties, credentials, properties.isHealth());
+        return toAccessTokenProvider(key, client, properties, credentials, properties.isHealth());
     }
 
-    private AccessTokenProvider toAccessTokenProvider(T client, AbstractJwtClientProperties properties, ClientCredentials credentials, boolean health) {
+    private AccessTokenProvider toAccessTokenProvider(String name, T client, AbstractJwtClientProperties properties, ClientCredentials credentials, boolean health) {
 
         // get connect timeout from cache refresh, if none is specified
         JwtClientCache cache = properties.getCache();
@@ -103,22 +126,69 @@ public abstract class JwtClientBeanDefinitionRegistryPostProcessorSupport<T> {
 
         builder.retrying(properties.isRetrying());
 
+        JwtBackoff backoff = properties.getBackoff();
+        if (backoff != null && backoff.isEnabled()) {
+            builder.backoff(backoff.getMaxAttempts(), backoff.getInitialBackoff(), backoff.getMaxBackoff(), TimeUnit.MILLISECONDS);
+        }
+        JwtRateLimit rateLimit = properties.getRateLimit();
+        if (rateLimit != null && rateLimit.isEnabled()) {
+            builder.rateLimit(rateLimit.getCapacity(), rateLimit.getRefillPeriod(), TimeUnit.MILLISECONDS);
+        }
+        JwtCircuitBreaker circuitBreaker = properties.getCircuitBreaker();
+        if (circuitBreaker != null && circuitBreaker.isEnabled()) {
+            builder.circuitBreaker(circuitBreaker.getFailureThreshold(), circuitBreaker.getOpenDuration(), TimeUnit.SECONDS);
+        }
+
         if (cache != null && cache.isEnabled()) {
             builder.cached(cache.getMinimumTimeToLive(), TimeUnit.SECONDS, cache.getRefreshTimeout(), TimeUnit.SECONDS);
 
             JwtPreemptiveRefresh preemptiveRefresh = cache.getPreemptiveRefresh();
             if (preemptiveRefresh != null && preemptiveRefresh.isEnabled()) {
                 builder.preemptiveCacheRefresh(preemptiveRefresh.getTimeToExpires(), TimeUnit.SECONDS, preemptiveRefresh.getExpiresConstraint(), preemptiveRefresh.getEager().isEnabled());
+                builder.refreshScheduler(refreshScheduler);
             } else {
                 builder.preemptiveCacheRefresh(false);
             }
+
+            JwtPersistentCache persistent = cache.getPersistent();
+            if (persistent != null && persistent.isEnabled()) {
+                builder.persistent(toAccessTokenFile(persistent, credentials));
+            }
+
+            JwtOutageTolerance outageTolerance = cache.getOutageTolerance();
+            if (outageTolerance != null && outageTolerance.isEnabled()) {
+                builder.outageTolerant(outageTolerance.getMinimumTimeToLive(), outageTolerance.getInitialBackoff(), outageTolerance.getMaxBackoff(), TimeUnit.SECONDS);
+                builder.refreshScheduler(refreshScheduler);
+            }
         } else {
             builder.cached(false);
         }
 
         builder.health(health);
 
-        return builder.build();
+        MicrometerAccessTokenMetrics metrics = null;
+        if (meterRegistry != null) {
+            metrics = new MicrometerAccessTokenMetrics(meterRegistry, name);
+            builder.metrics(metrics);
+        }
+
+        AccessTokenProvider provider = builder.build();
+        if (metrics != null) {
+            metrics.bindTo(provider);
+        }
+        return provider;
+    }
+
+    protected AccessTokenFile toAccessTokenFile(JwtPersistentCache persistent, ClientCredentials credentials) {
+        if (persistent.getPath() == null || persistent.getPath().isBlank()) {
+            throw new IllegalStateException("Expected path for persistent cache");
+        }
+        SecretKey key = null;
+        if (persistent.getEncryptionKey() != null && !persistent.getEncryptionKey().isBlank()) {
+            key = new SecretKeySpec(Base64.getDecoder().decode(persistent.getEncryptionKey()), "AES");
+        }
+        // tie the persisted access-token to the credentials, so that a token for another client or audience is not loaded
+        return new AccessTokenFile(Paths.get(persistent.getPath()), key, AccessTokenFile.fingerprint(credentials));
     }
 
     protected abstract AccessTokenProvider newUrlAccessTokenProvider(T client, URL issueURL, Map<String, Object> parameters, Map<String, Object> headers, ClientCredentials credentials);
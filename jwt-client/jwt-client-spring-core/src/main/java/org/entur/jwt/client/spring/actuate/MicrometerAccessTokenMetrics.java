@@ -0,0 +1,159 @@
+package org.entur.jwt.client.spring.actuate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.entur.jwt.client.AccessToken;
+import org.entur.jwt.client.AccessTokenException;
+import org.entur.jwt.client.AccessTokenMetrics;
+import org.entur.jwt.client.AccessTokenOutageListener;
+import org.entur.jwt.client.AccessTokenProvider;
+import org.entur.jwt.client.OutageTolerantAccessTokenProvider;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer {@linkplain AccessTokenMetrics}, tagged by client name.
+ */
+
+public class MicrometerAccessTokenMetrics implements AccessTokenMetrics, AccessTokenOutageListener {
+
+    public static final String METRIC_REQUESTS = "entur.jwt.client.requests";
+    public static final String METRIC_CACHE = "entur.jwt.client.cache";
+    public static final String METRIC_CACHE_TIMEOUTS = "entur.jwt.client.cache.timeouts";
+    public static final String METRIC_PREEMPTIVE_REFRESHES = "entur.jwt.client.preemptive.refreshes";
+    public static final String METRIC_OUTAGES = "entur.jwt.client.outages";
+    public static final String METRIC_OUTAGE_DURATION = "entur.jwt.client.outage.duration";
+    public static final String METRIC_OUTAGE_CURRENT_DURATION = "entur.jwt.client.outage.current.duration";
+    public static final String METRIC_TIME_TO_LIVE = "entur.jwt.client.token.time.to.live";
+
+    public static final String TAG_CLIENT = "client";
+    public static final String TAG_OPERATION = "operation";
+    public static final String TAG_OUTCOME = "outcome";
+    public static final String TAG_RESULT = "result";
+
+    protected final MeterRegistry registry;
+    protected final String client;
+
+    protected final Map<Operation, Timer> successTimers = new EnumMap<>(Operation.class);
+    protected final Map<Operation, Timer> failureTimers = new EnumMap<>(Operation.class);
+
+    protected final Counter cacheHits;
+    protected final Counter cacheMisses;
+    protected final Counter cacheTimeouts;
+    protected final Counter preemptiveRefreshes;
+    protected final Counter preemptiveRefreshFailures;
+    protected final Counter outages;
+    protected final Timer outageDuration;
+
+    public MicrometerAccessTokenMetrics(MeterRegistry registry, String client) {
+        this.registry = registry;
+        this.client = client;
+
+        for (Operation operation : Operation.values()) {
+            successTimers.put(operation, requestTimer(operation, "success"));
+            failureTimers.put(operation, requestTimer(operation, "failure"));
+        }
+
+        this.cacheHits = Counter.builder(METRIC_CACHE).description("Access-token cache lookups").tag(TAG_CLIENT, client).tag(TAG_RESULT, "hit").register(registry);
+        this.cacheMisses = Counter.builder(METRIC_CACHE).description("Access-token cache lookups").tag(TAG_CLIENT, client).tag(TAG_RESULT, "miss").register(registry);
+        this.cacheTimeouts = Counter.builder(METRIC_CACHE_TIMEOUTS).description("Timeouts while waiting for the access-token cache to be refreshed").tag(TAG_CLIENT, client).register(registry);
+        this.preemptiveRefreshes = Counter.builder(METRIC_PREEMPTIVE_REFRESHES).description("Preemptive access-token cache refreshes").tag(TAG_CLIENT, client).tag(TAG_OUTCOME, "triggered").register(registry);
+        this.preemptiveRefreshFailures = Counter.builder(METRIC_PREEMPTIVE_REFRESHES).description("Preemptive access-token cache refreshes").tag(TAG_CLIENT, client).tag(TAG_OUTCOME, "failure").register(registry);
+        this.outages = Counter.builder(METRIC_OUTAGES).description("Outages where the last known access-token was served").tag(TAG_CLIENT, client).register(registry);
+        this.outageDuration = Timer.builder(METRIC_OUTAGE_DURATION).description("Time spent serving the last known access-token").tag(TAG_CLIENT, client).register(registry);
+    }
+
+    protected Timer requestTimer(Operation operation, String outcome) {
+        return Timer.builder(METRIC_REQUESTS)
+                .description("Authorization server requests")
+                .tag(TAG_CLIENT, client)
+                .tag(TAG_OPERATION, operation.name().toLowerCase(Locale.ROOT))
+                .tag(TAG_OUTCOME, outcome)
+                .register(registry);
+    }
+
+    /**
+     * Register a gauge for the remaining lifetime of the cached access-token, and, if the provider is outage-tolerant,
+     * for the duration of the current outage.
+     *
+     * @param provider the (outermost) access-token provider
+     */
+
+    public void bindTo(AccessTokenProvider provider) {
+        Gauge.builder(METRIC_TIME_TO_LIVE, provider, MicrometerAccessTokenMetrics::getTimeToLive)
+                .description("Remaining lifetime of the cached access-token")
+                .tag(TAG_CLIENT, client)
+                .baseUnit("seconds")
+                .strongReference(false)
+                .register(registry);
+
+        if (provider instanceof OutageTolerantAccessTokenProvider outageTolerantProvider) {
+            // the outage duration timer is only recorded when an outage ends
+            Gauge.builder(METRIC_OUTAGE_CURRENT_DURATION, outageTolerantProvider, (p) -> p.getCurrentOutageDuration(System.currentTimeMillis()) / 1000d)
+                    .description("Time spent in the current outage, serving the last known access-token")
+                    .tag(TAG_CLIENT, client)
+                    .baseUnit("seconds")
+                    .strongReference(false)
+                    .register(registry);
+        }
+    }
+
+    protected static double getTimeToLive(AccessTokenProvider provider) {
+        // read-only lookup; polling the gauge must not trigger a (preemptive) refresh
+        AccessToken accessToken = provider.getCachedAccessToken();
+        if (accessToken == null) {
+            return 0;
+        }
+        return Math.max(0, accessToken.getExpires() - System.currentTimeMillis()) / 1000d;
+    }
+
+    @Override
+    public void onRequest(Operation operation, long duration, boolean success) {
+        Map<Operation, Timer> timers = success ? successTimers : failureTimers;
+        timers.get(operation).record(duration, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onCacheHit() {
+        cacheHits.increment();
+    }
+
+    @Override
+    public void onCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    @Override
+    public void onCacheTimeout() {
+        cacheTimeouts.increment();
+    }
+
+    @Override
+    public void onPreemptiveRefresh() {
+        preemptiveRefreshes.increment();
+    }
+
+    @Override
+    public void onPreemptiveRefreshFailure() {
+        preemptiveRefreshFailures.increment();
+    }
+
+    @Override
+    public void onOutageStarted(AccessTokenException e, long remainingTime) {
+        outages.increment();
+    }
+
+    @Override
+    public void onOutageEnded(long duration) {
+        outageDuration.record(duration, TimeUnit.MILLISECONDS);
+    }
+
+    public String getClient() {
+        return client;
+    }
+}
@@ -1,12 +1,15 @@
 package org.entur.jwt.client.spring.resttemplate;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.hc.client5.http.classic.HttpClient;
 import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.entur.jwt.client.AccessTokenRefreshScheduler;
 import org.entur.jwt.client.properties.JwtClientProperties;
 import org.entur.jwt.client.spring.JwtClientAutoConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.restclient.RestTemplateBuilder;
@@ -68,8 +71,11 @@ public class RestTemplateJwtClientAutoConfiguration extends JwtClientAutoConfigu
     }
 
     @Bean
-    public RestTemplateJwtClientBeanDefinitionRegistryPostProcessorSupport jwtClientBeanDefinitionRegistryPostProcessorSupport(@Qualifier("jwtRestTemplate") RestTemplate restTemplate, JwtClientProperties properties) {
-        return new RestTemplateJwtClientBeanDefinitionRegistryPostProcessorSupport(restTemplate, properties);
+    public RestTemplateJwtClientBeanDefinitionRegistryPostProcessorSupport jwtClientBeanDefinitionRegistryPostProcessorSupport(@Qualifier("jwtRestTemplate") RestTemplate restTemplate, JwtClientProperties properties, ObjectProvider<AccessTokenRefreshScheduler> refreshScheduler, ObjectProvider<MeterRegistry> meterRegistry) {
+        RestTemplateJwtClientBeanDefinitionRegistryPostProcessorSupport support = new RestTemplateJwtClientBeanDefinitionRegistryPostProcessorSupport(restTemplate, properties);
+        support.setRefreshScheduler(refreshScheduler.getIfAvailable());
+        support.setMeterRegistry(meterRegistry.getIfUnique());
+        return support;
     }
 
 
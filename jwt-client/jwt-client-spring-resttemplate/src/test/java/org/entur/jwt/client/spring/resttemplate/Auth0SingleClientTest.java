@@ -28,6 +28,7 @@ import java.net.URI;
 import static com.google.common.truth.Truth.assertThat;
 import static io.restassured.RestAssured.given;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
@@ -83,6 +84,21 @@ public class Auth0SingleClientTest extends AbstractActuatorTest {
         assertThat(accessToken.getExpires()).isLessThan(System.currentTimeMillis() + 86400 * 1000 + 1);
     }
     
+    @Test
+    public void testInterceptor() throws Exception {
+        mockServer.expect(ExpectedCount.once(), requestTo(new URI("https://my.entur.org/oauth/token"))).andExpect(method(HttpMethod.POST)).andRespond(withStatus(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON).body(resource));
+
+        RestTemplate resourceTemplate = new RestTemplate();
+        resourceTemplate.getInterceptors().add(new AccessTokenRestTemplateInterceptor(accessTokenProvider));
+
+        MockRestServiceServer resourceServer = MockRestServiceServer.bindTo(resourceTemplate).build();
+        resourceServer.expect(ExpectedCount.once(), requestTo(new URI("https://resource.entur.org/resource"))).andExpect(header("Authorization", "Bearer a.b.c")).andRespond(withStatus(HttpStatus.OK));
+
+        resourceTemplate.getForEntity("https://resource.entur.org/resource", String.class);
+
+        resourceServer.verify();
+    }
+
     @Test
     public void testActuator() throws Exception {
         // down
@@ -0,0 +1,48 @@
+package org.entur.jwt.client.spring.webflux;
+
+import org.entur.jwt.client.AccessToken;
+import org.entur.jwt.client.AccessTokenFutureUtil;
+import org.entur.jwt.client.AccessTokenProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@linkplain org.springframework.web.reactive.function.client.WebClient} filter which adds an access-token as the Authorization header.
+ * The header value is rendered once per access-token.<br>
+ * <br>
+ * Cached access-tokens are applied directly, otherwise the access-token is requested asynchronously.
+ */
+
+public class AccessTokenExchangeFilterFunction implements ExchangeFilterFunction {
+
+    protected final AccessTokenProvider accessTokenProvider;
+
+    public AccessTokenExchangeFilterFunction(AccessTokenProvider accessTokenProvider) {
+        this.accessTokenProvider = accessTokenProvider;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        AccessToken cachedAccessToken = accessTokenProvider.getCachedAccessToken(true);
+        if (cachedAccessToken != null) {
+            return next.exchange(withAuthorization(request, cachedAccessToken));
+        }
+        return Mono.fromCompletionStage(() -> accessTokenProvider.getAccessTokenAsync(false))
+                .onErrorMap(AccessTokenFutureUtil::toAccessTokenException)
+                .flatMap(accessToken -> next.exchange(withAuthorization(request, accessToken)));
+    }
+
+    protected ClientRequest withAuthorization(ClientRequest request, AccessToken accessToken) {
+        return ClientRequest.from(request)
+                .headers(headers -> headers.set(HttpHeaders.AUTHORIZATION, accessToken.getAuthorizationHeader()))
+                .build();
+    }
+
+    public AccessTokenProvider getAccessTokenProvider() {
+        return accessTokenProvider;
+    }
+}
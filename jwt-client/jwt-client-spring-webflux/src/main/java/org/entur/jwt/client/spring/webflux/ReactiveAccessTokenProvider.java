@@ -0,0 +1,36 @@
+package org.entur.jwt.client.spring.webflux;
+
+import org.entur.jwt.client.AccessToken;
+import org.entur.jwt.client.AccessTokenFutureUtil;
+import org.entur.jwt.client.AccessTokenProvider;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactor adapter for {@linkplain AccessTokenProvider}. Access-tokens are requested (lazily) on subscription,
+ * using {@linkplain AccessTokenProvider#getAccessTokenAsync(boolean)}.
+ */
+
+public class ReactiveAccessTokenProvider {
+
+    protected final AccessTokenProvider accessTokenProvider;
+
+    public ReactiveAccessTokenProvider(AccessTokenProvider accessTokenProvider) {
+        this.accessTokenProvider = accessTokenProvider;
+    }
+
+    /**
+     * Get access-token.
+     *
+     * @param forceRefresh force refresh of the access-token
+     * @return access-token, or an error with an {@linkplain org.entur.jwt.client.AccessTokenException}
+     */
+
+    public Mono<AccessToken> getAccessToken(boolean forceRefresh) {
+        return Mono.fromCompletionStage(() -> accessTokenProvider.getAccessTokenAsync(forceRefresh))
+                .onErrorMap(AccessTokenFutureUtil::toAccessTokenException);
+    }
+
+    public AccessTokenProvider getAccessTokenProvider() {
+        return accessTokenProvider;
+    }
+}
@@ -2,6 +2,7 @@ package org.entur.jwt.client.spring.webflux;
 
 import org.entur.jwt.client.AbstractStatefulUrlAccessTokenProvider;
 import org.entur.jwt.client.AccessTokenException;
+import org.entur.jwt.client.AccessTokenServerUnavailableException;
 import org.entur.jwt.client.AccessTokenUnavailableException;
 import org.entur.jwt.client.ClientCredentialsResponse;
 import org.entur.jwt.client.RefreshToken;
@@ -21,6 +22,7 @@ import java.net.URL;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -59,6 +61,30 @@ public class WebClientStatefulUrlAccessTokenProvider extends AbstractStatefulUrl
         }
     }
 
+    @Override
+    protected CompletionStage<ClientCredentialsResponse> getTokenAsync() {
+        return toFuture(request(issueUrl, issueBody, issueHeaders));
+    }
+
+    @Override
+    protected CompletionStage<ClientCredentialsResponse> getTokenAsync(RefreshToken refreshToken) {
+        return toFuture(request(refreshUrl, createRefreshBody(refreshToken), Collections.emptyMap()));
+    }
+
+    protected CompletionStage<ClientCredentialsResponse> toFuture(Mono<ClientCredentialsResponse> response) {
+        return response
+                .<ClientCredentialsResponse>handle((clientCredentialsResponse, sink) -> {
+                    try {
+                        validate(clientCredentialsResponse);
+                        sink.next(clientCredentialsResponse);
+                    } catch (AccessTokenException e) {
+                        sink.error(e);
+                    }
+                })
+                .onErrorMap(e -> !(e instanceof AccessTokenException), AccessTokenUnavailableException::new)
+                .toFuture();
+    }
+
     protected Mono<ClientCredentialsResponse> request(URL url, byte[] body, Map<String, Object> map) {
         HttpHeaders headers = new HttpHeaders();
 
@@ -76,10 +102,10 @@ public class WebClientStatefulUrlAccessTokenProvider extends AbstractStatefulUrl
                     .bodyValue(body)
                     .retrieve()
                     .onStatus(httpStatus -> httpStatus == HttpStatus.TOO_MANY_REQUESTS,
-                            response -> Mono.error(new AccessTokenUnavailableException("Authorization server responded with HTTP code 429 - too many requests."))
+                            response -> Mono.error(AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 429 - too many requests.", 429, response.headers().asHttpHeaders()::getFirst))
                     )
                     .onStatus(httpStatus -> httpStatus == HttpStatus.SERVICE_UNAVAILABLE,
-                            response -> Mono.error(new AccessTokenUnavailableException("Authorization server responded with HTTP code 503 - service unavailable."))
+                            response -> Mono.error(AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 503 - service unavailable.", 503, response.headers().asHttpHeaders()::getFirst))
                     )
                     .onStatus(httpStatus -> !httpStatus.is2xxSuccessful(),
                             response -> Mono.error(new AccessTokenException("Authorization server responded with HTTP unexpected response code " + response.statusCode()))
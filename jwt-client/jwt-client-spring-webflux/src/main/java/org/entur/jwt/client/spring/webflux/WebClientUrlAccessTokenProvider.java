@@ -2,6 +2,7 @@ package org.entur.jwt.client.spring.webflux;
 
 import org.entur.jwt.client.AbstractUrlAccessTokenProvider;
 import org.entur.jwt.client.AccessTokenException;
+import org.entur.jwt.client.AccessTokenServerUnavailableException;
 import org.entur.jwt.client.AccessTokenUnavailableException;
 import org.entur.jwt.client.ClientCredentialsResponse;
 import org.entur.jwt.client.UrlAccessTokenProvider;
@@ -16,6 +17,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -39,7 +41,39 @@ public class WebClientUrlAccessTokenProvider extends AbstractUrlAccessTokenProvi
     @Override
     protected ClientCredentialsResponse getToken() throws AccessTokenException {
         try {
-            Mono<ClientCredentialsResponse> mono = webClient
+            ClientCredentialsResponse clientCredentialsResponse = request().toFuture().get();
+            validate(clientCredentialsResponse);
+            return clientCredentialsResponse;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccessTokenUnavailableException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof AccessTokenException a) {
+                throw a;
+            }
+            throw new AccessTokenUnavailableException(e);
+        }
+    }
+
+    @Override
+    protected CompletionStage<ClientCredentialsResponse> getTokenAsync() {
+        return request()
+                .<ClientCredentialsResponse>handle((clientCredentialsResponse, sink) -> {
+                    try {
+                        validate(clientCredentialsResponse);
+                        sink.next(clientCredentialsResponse);
+                    } catch (AccessTokenException e) {
+                        sink.error(e);
+                    }
+                })
+                .onErrorMap(e -> !(e instanceof AccessTokenException), AccessTokenUnavailableException::new)
+                .toFuture();
+    }
+
+    protected Mono<ClientCredentialsResponse> request() {
+        try {
+            return webClient
                 .post()
                 .uri(issueUrl.toURI())
                 .accept(MediaType.APPLICATION_JSON)
@@ -52,29 +86,17 @@ public class WebClientUrlAccessTokenProvider extends AbstractUrlAccessTokenProvi
                 .bodyValue(issueBody)
                 .retrieve()
                 .onStatus(httpStatus -> httpStatus == HttpStatus.TOO_MANY_REQUESTS,
-                        response -> Mono.error(new AccessTokenUnavailableException("Authorization server responded with HTTP code 429 - too many requests."))
+                        response -> Mono.error(AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 429 - too many requests.", 429, response.headers().asHttpHeaders()::getFirst))
                 )
                 .onStatus(httpStatus -> httpStatus == HttpStatus.SERVICE_UNAVAILABLE,
-                        response -> Mono.error(new AccessTokenUnavailableException("Authorization server responded with HTTP code 503 - service unavailable."))
+                        response -> Mono.error(AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 503 - service unavailable.", 503, response.headers().asHttpHeaders()::getFirst))
                 )
                 .onStatus(httpStatus -> !httpStatus.is2xxSuccessful(),
                         response -> Mono.error(new AccessTokenException("Authorization server responded with HTTP unexpected response code " + response.statusCode()))
                 )
                 .bodyToMono(ClientCredentialsResponse.class);
-            ClientCredentialsResponse clientCredentialsResponse = mono.toFuture().get();
-            validate(clientCredentialsResponse);
-            return clientCredentialsResponse;
         } catch (URISyntaxException e) {
             throw new IllegalArgumentException(e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new AccessTokenUnavailableException(e);
-        } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            if(cause instanceof AccessTokenException a) {
-                throw a;
-            }
-            throw new AccessTokenUnavailableException(e);
         }
     }
 
@@ -1,11 +1,14 @@
 package org.entur.jwt.client.spring.webflux;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.entur.jwt.client.AccessTokenRefreshScheduler;
 import org.entur.jwt.client.properties.JwtClientProperties;
 import org.entur.jwt.client.spring.JwtClientAutoConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -48,8 +51,11 @@ public class WebfluxJwtClientAutoConfiguration extends JwtClientAutoConfiguratio
     }
 
     @Bean
-    public WebfluxJwtClientBeanDefinitionRegistryPostProcessorSupport jwtClientBeanDefinitionRegistryPostProcessorSupport(@Qualifier("jwtWebClient") WebClient webClient, JwtClientProperties properties) {
-        return new WebfluxJwtClientBeanDefinitionRegistryPostProcessorSupport(webClient, properties);
+    public WebfluxJwtClientBeanDefinitionRegistryPostProcessorSupport jwtClientBeanDefinitionRegistryPostProcessorSupport(@Qualifier("jwtWebClient") WebClient webClient, JwtClientProperties properties, ObjectProvider<AccessTokenRefreshScheduler> refreshScheduler, ObjectProvider<MeterRegistry> meterRegistry) {
+        WebfluxJwtClientBeanDefinitionRegistryPostProcessorSupport support = new WebfluxJwtClientBeanDefinitionRegistryPostProcessorSupport(webClient, properties);
+        support.setRefreshScheduler(refreshScheduler.getIfAvailable());
+        support.setMeterRegistry(meterRegistry.getIfUnique());
+        return support;
     }
 
 }
@@ -2,6 +2,7 @@ package org.entur.jwt.client.spring.webflux;
 
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.entur.jwt.client.AccessToken;
 import org.entur.jwt.client.AccessTokenProvider;
 import org.entur.jwt.client.spring.actuate.AccessTokenProviderHealthIndicator;
@@ -18,8 +19,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
 
 import java.io.IOException;
+import java.time.Duration;
 
 import static com.google.common.truth.Truth.assertThat;
 import static io.restassured.RestAssured.given;
@@ -74,6 +77,33 @@ public class Auth0SingleClientTest extends AbstractActuatorTest {
         assertThat(accessToken.getExpires()).isLessThan(System.currentTimeMillis() + 86400 * 1000 + 1);
     }
 
+    @Test
+    public void testReactiveAccessToken() throws Exception {
+        mockWebServer.enqueue(mockResponse(resource));
+
+        // get token without blocking the calling thread
+        AccessToken accessToken = new ReactiveAccessTokenProvider(accessTokenProvider).getAccessToken(false).block(Duration.ofSeconds(10));
+
+        assertThat(accessToken.getType()).isEqualTo("Bearer");
+        assertThat(accessToken.getValue()).isEqualTo("a.b.c");
+    }
+
+    @Test
+    public void testExchangeFilterFunction() throws Exception {
+        mockWebServer.enqueue(mockResponse(resource));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HttpStatus.OK.value()));
+
+        WebClient resourceClient = WebClient.builder()
+                .filter(new AccessTokenExchangeFilterFunction(accessTokenProvider))
+                .build();
+
+        resourceClient.get().uri(mockWebServer.url("/resource").uri()).retrieve().toBodilessEntity().block(Duration.ofSeconds(10));
+
+        mockWebServer.takeRequest(); // token request
+        RecordedRequest resourceRequest = mockWebServer.takeRequest();
+        assertThat(resourceRequest.getHeader("Authorization")).isEqualTo("Bearer a.b.c");
+    }
+
     @Test
     public void testActuator() throws Exception {
         // down
@@ -0,0 +1,43 @@
+package org.entur.jwt.client.spring.restclient;
+
+import org.entur.jwt.client.AccessToken;
+import org.entur.jwt.client.AccessTokenException;
+import org.entur.jwt.client.AccessTokenProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * {@linkplain org.springframework.web.client.RestClient} interceptor which adds an access-token as the Authorization header.
+ * The header value is rendered once per access-token.
+ */
+
+public class AccessTokenRestClientInterceptor implements ClientHttpRequestInterceptor {
+
+    protected final AccessTokenProvider accessTokenProvider;
+
+    public AccessTokenRestClientInterceptor(AccessTokenProvider accessTokenProvider) {
+        this.accessTokenProvider = accessTokenProvider;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        AccessToken accessToken;
+        try {
+            accessToken = accessTokenProvider.getAccessToken(false);
+        } catch (AccessTokenException e) {
+            throw new IOException("Unable to get access-token", e);
+        }
+        request.getHeaders().set(HttpHeaders.AUTHORIZATION, accessToken.getAuthorizationHeader());
+
+        return execution.execute(request, body);
+    }
+
+    public AccessTokenProvider getAccessTokenProvider() {
+        return accessTokenProvider;
+    }
+}
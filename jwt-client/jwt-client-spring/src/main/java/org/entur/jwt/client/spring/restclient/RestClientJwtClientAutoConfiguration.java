@@ -1,12 +1,15 @@
 package org.entur.jwt.client.spring.restclient;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.hc.client5.http.classic.HttpClient;
 import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.entur.jwt.client.AccessTokenRefreshScheduler;
 import org.entur.jwt.client.properties.JwtClientProperties;
 import org.entur.jwt.client.spring.JwtClientAutoConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -68,8 +71,11 @@ public class RestClientJwtClientAutoConfiguration extends JwtClientAutoConfigura
     }
 
     @Bean
-    public RestClientJwtClientBeanDefinitionRegistryPostProcessorSupport jwtClientBeanDefinitionRegistryPostProcessorSupport(@Qualifier("jwtRestClient") RestClient restClient, JwtClientProperties properties) {
-        return new RestClientJwtClientBeanDefinitionRegistryPostProcessorSupport(restClient, properties);
+    public RestClientJwtClientBeanDefinitionRegistryPostProcessorSupport jwtClientBeanDefinitionRegistryPostProcessorSupport(@Qualifier("jwtRestClient") RestClient restClient, JwtClientProperties properties, ObjectProvider<AccessTokenRefreshScheduler> refreshScheduler, ObjectProvider<MeterRegistry> meterRegistry) {
+        RestClientJwtClientBeanDefinitionRegistryPostProcessorSupport support = new RestClientJwtClientBeanDefinitionRegistryPostProcessorSupport(restClient, properties);
+        support.setRefreshScheduler(refreshScheduler.getIfAvailable());
+        support.setMeterRegistry(meterRegistry.getIfUnique());
+        return support;
     }
 
 }
@@ -2,6 +2,7 @@ package org.entur.jwt.client.spring.restclient;
 
 import org.entur.jwt.client.AbstractStatefulUrlAccessTokenProvider;
 import org.entur.jwt.client.AccessTokenException;
+import org.entur.jwt.client.AccessTokenServerUnavailableException;
 import org.entur.jwt.client.AccessTokenUnavailableException;
 import org.entur.jwt.client.ClientCredentialsResponse;
 import org.entur.jwt.client.RefreshToken;
@@ -20,6 +21,7 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import static org.entur.jwt.client.spring.restclient.RestClientUrlAccessTokenProvider.getFirstHeader;
 import static org.entur.jwt.client.spring.restclient.RestClientUrlAccessTokenProvider.printResponseEntityHeadersIfPresent;
 /**
  * 
@@ -105,10 +107,10 @@ public class RestClientStatefulUrlAccessTokenProvider extends AbstractStatefulUr
             int responseCode = e.getStatusCode().value();
             if(LOGGER.isInfoEnabled()) LOGGER.info("Got unexpected response code {} when trying to refresh token at {}", responseCode, refreshUrl);
             if (responseCode == 503) { // service unavailable
-                throw new AccessTokenUnavailableException("Authorization server responded with HTTP code 503 - service unavailable when refreshing token. " + printResponseEntityHeadersIfPresent(e.getResponseHeaders(), "Retry-After"));
+                throw AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 503 - service unavailable when refreshing token. " + printResponseEntityHeadersIfPresent(e.getResponseHeaders(), "Retry-After"), 503, (name) -> getFirstHeader(e.getResponseHeaders(), name));
             } else if (responseCode == 429) { // too many calls
                 // see for example https://auth0.com/docs/policies/rate-limits
-                throw new AccessTokenUnavailableException("Authorization server responded with HTTP code 429 - too many requests when refreshing token. " + printResponseEntityHeadersIfPresent(e.getResponseHeaders(), "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset"));
+                throw AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 429 - too many requests when refreshing token. " + printResponseEntityHeadersIfPresent(e.getResponseHeaders(), "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset"), 429, (name) -> getFirstHeader(e.getResponseHeaders(), name));
             }
             throw new AccessTokenException("Authorization server responded with HTTP unexpected response code " + responseCode + " when refreshing token");
         } catch(RestClientException e) {
@@ -125,10 +127,10 @@ public class RestClientStatefulUrlAccessTokenProvider extends AbstractStatefulUr
             int responseCode = e.getStatusCode().value();
             if(LOGGER.isInfoEnabled()) LOGGER.info("Got unexpected response code {} when trying to issue token at {}", responseCode, issueUrl);
             if (responseCode == 503) { // service unavailable
-                throw new AccessTokenUnavailableException("Authorization server responded with HTTP code 503 - service unavailable. " + printResponseEntityHeadersIfPresent(e.getResponseHeaders(), "Retry-After"));
+                throw AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 503 - service unavailable. " + printResponseEntityHeadersIfPresent(e.getResponseHeaders(), "Retry-After"), 503, (name) -> getFirstHeader(e.getResponseHeaders(), name));
             } else if (responseCode == 429) { // too many calls
                 // see for example https://auth0.com/docs/policies/rate-limits
-                throw new AccessTokenUnavailableException("Authorization server responded with HTTP code 429 - too many requests. " + printResponseEntityHeadersIfPresent(e.getResponseHeaders(), "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset"));
+                throw AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 429 - too many requests. " + printResponseEntityHeadersIfPresent(e.getResponseHeaders(), "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset"), 429, (name) -> getFirstHeader(e.getResponseHeaders(), name));
             }
             throw new AccessTokenException("Authorization server responded with HTTP unexpected response code " + responseCode);
         } catch(RestClientException e) {
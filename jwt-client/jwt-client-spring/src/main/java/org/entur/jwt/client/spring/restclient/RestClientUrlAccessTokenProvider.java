@@ -2,6 +2,7 @@ package org.entur.jwt.client.spring.restclient;
 
 import org.entur.jwt.client.AbstractUrlAccessTokenProvider;
 import org.entur.jwt.client.AccessTokenException;
+import org.entur.jwt.client.AccessTokenServerUnavailableException;
 import org.entur.jwt.client.AccessTokenUnavailableException;
 import org.entur.jwt.client.ClientCredentialsResponse;
 import org.entur.jwt.client.UrlAccessTokenProvider;
@@ -30,6 +31,13 @@ public class RestClientUrlAccessTokenProvider extends AbstractUrlAccessTokenProv
 
     protected static final Logger LOGGER = LoggerFactory.getLogger(RestClientUrlAccessTokenProvider.class);
 
+    protected static String getFirstHeader(HttpHeaders headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        return headers.getFirst(name);
+    }
+
     protected static StringBuilder printResponseEntityHeadersIfPresent(HttpHeaders headers, String... headerNames) {
         StringBuilder builder = new StringBuilder();
         for (String headerName : headerNames) {
@@ -90,10 +98,10 @@ public class RestClientUrlAccessTokenProvider extends AbstractUrlAccessTokenProv
             int responseCode = e.getStatusCode().value();
             if(LOGGER.isInfoEnabled()) LOGGER.info("Got unexpected response code {} when trying to issue token at {}", responseCode, issueUrl);
             if (responseCode == 503) { // service unavailable
-                throw new AccessTokenUnavailableException("Authorization server responded with HTTP code 503 - service unavailable. " + printResponseEntityHeadersIfPresent(e.getResponseHeaders(), "Retry-After"));
+                throw AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 503 - service unavailable. " + printResponseEntityHeadersIfPresent(e.getResponseHeaders(), "Retry-After"), 503, (name) -> getFirstHeader(e.getResponseHeaders(), name));
             } else if (responseCode == 429) { // too many calls
                 // see for example https://auth0.com/docs/policies/rate-limits
-                throw new AccessTokenUnavailableException("Authorization server responded with HTTP code 429 - too many requests. " + printResponseEntityHeadersIfPresent(e.getResponseHeaders(), "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset"));
+                throw AccessTokenServerUnavailableException.newInstance("Authorization server responded with HTTP code 429 - too many requests. " + printResponseEntityHeadersIfPresent(e.getResponseHeaders(), "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset"), 429, (name) -> getFirstHeader(e.getResponseHeaders(), name));
             }
             throw new AccessTokenException("Authorization server responded with HTTP unexpected response code " + responseCode);
         } catch(RestClientException e) {
@@ -1,10 +1,16 @@
 package org.entur.jwt.client.spring;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.entur.jwt.client.AccessToken;
 import org.entur.jwt.client.AccessTokenProvider;
+import org.entur.jwt.client.AccessTokenRefreshScheduler;
+import org.entur.jwt.client.PreemptiveCachedAccessTokenProvider;
 import org.entur.jwt.client.spring.actuate.AccessTokenProviderHealthIndicator;
+import org.entur.jwt.client.spring.actuate.MicrometerAccessTokenMetrics;
+import org.entur.jwt.client.spring.restclient.AccessTokenRestClientInterceptor;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -48,6 +54,12 @@ public class Auth0SingleClientTest extends AbstractActuatorTest {
     @Autowired
     private AccessTokenProviderHealthIndicator healthIndicator;
 
+    @Autowired
+    private AccessTokenRefreshScheduler refreshScheduler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Value("classpath:auth0ClientCredentialsResponse1.json")
     private Resource resource;
 
@@ -71,6 +83,28 @@ public class Auth0SingleClientTest extends AbstractActuatorTest {
         assertNotNull(healthIndicator);
     }
 
+    @Test
+    public void testSharedRefreshScheduler() {
+        assertThat(accessTokenProvider).isInstanceOf(PreemptiveCachedAccessTokenProvider.class);
+
+        PreemptiveCachedAccessTokenProvider preemptiveCachedAccessTokenProvider = (PreemptiveCachedAccessTokenProvider) accessTokenProvider;
+        assertThat(preemptiveCachedAccessTokenProvider.getRefreshScheduler()).isSameInstanceAs(refreshScheduler);
+        assertThat(preemptiveCachedAccessTokenProvider.getExecutorService()).isNull();
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        mockWebServer.enqueue(mockResponse(resource));
+
+        accessTokenProvider.getAccessToken(false);
+        accessTokenProvider.getAccessToken(false);
+
+        assertThat(meterRegistry.get(MicrometerAccessTokenMetrics.METRIC_REQUESTS).tag("client", "myClient").tag("operation", "issue").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(MicrometerAccessTokenMetrics.METRIC_CACHE).tag("result", "miss").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get(MicrometerAccessTokenMetrics.METRIC_CACHE).tag("result", "hit").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get(MicrometerAccessTokenMetrics.METRIC_TIME_TO_LIVE).tag("client", "myClient").gauge().value()).isGreaterThan(0.0);
+    }
+
     @Test
     public void testAccessToken() throws Exception {
         mockWebServer.enqueue(mockResponse(resource));
@@ -83,6 +117,22 @@ public class Auth0SingleClientTest extends AbstractActuatorTest {
         assertThat(accessToken.getExpires()).isLessThan(System.currentTimeMillis() + 86400 * 1000 + 1);
     }
     
+    @Test
+    public void testInterceptor() throws Exception {
+        mockWebServer.enqueue(mockResponse(resource));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HttpStatus.OK.value()));
+
+        RestClient resourceClient = RestClient.builder()
+                .requestInterceptor(new AccessTokenRestClientInterceptor(accessTokenProvider))
+                .build();
+
+        resourceClient.get().uri(mockWebServer.url("/resource").uri()).retrieve().toBodilessEntity();
+
+        mockWebServer.takeRequest(); // token request
+        RecordedRequest resourceRequest = mockWebServer.takeRequest();
+        assertThat(resourceRequest.getHeader("Authorization")).isEqualTo("Bearer a.b.c");
+    }
+
     @Test
     public void testActuator() throws Exception {
         // down
@@ -0,0 +1,79 @@
+package org.entur.jwt.client.spring.actuate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.entur.jwt.client.AccessToken;
+import org.entur.jwt.client.AccessTokenProvider;
+import org.entur.jwt.client.AccessTokenRefreshScheduler;
+import org.entur.jwt.client.AccessTokenUnavailableException;
+import org.entur.jwt.client.OutageTolerantAccessTokenProvider;
+import org.entur.jwt.client.PreemptiveCachedAccessTokenProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MicrometerAccessTokenMetricsTest {
+
+    @Test
+    public void testTimeToLiveGaugeDoesNotTriggerPreemptiveRefresh() throws Exception {
+        AccessTokenProvider fallback = mock(AccessTokenProvider.class);
+
+        // within the preemptive refresh window right away
+        AccessToken accessToken = new AccessToken("a.b.c", "bearer", System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(12));
+        when(fallback.getAccessToken(false)).thenReturn(accessToken);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerAccessTokenMetrics metrics = new MicrometerAccessTokenMetrics(registry, "myClient");
+
+        try (PreemptiveCachedAccessTokenProvider provider = new PreemptiveCachedAccessTokenProvider(fallback, 10, TimeUnit.SECONDS, 15, TimeUnit.SECONDS, 15, TimeUnit.SECONDS, 0, false)) {
+            provider.setMetrics(metrics);
+            metrics.bindTo(provider);
+
+            assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+            Thread.sleep(10);
+
+            assertThat(registry.get(MicrometerAccessTokenMetrics.METRIC_TIME_TO_LIVE).tag("client", "myClient").gauge().value()).isGreaterThan(0.0);
+
+            provider.getExecutorService().awaitTermination(100, TimeUnit.MILLISECONDS);
+            verify(fallback, times(1)).getAccessToken(false);
+            assertThat(registry.get(MicrometerAccessTokenMetrics.METRIC_PREEMPTIVE_REFRESHES).tag("outcome", "triggered").counter().count()).isEqualTo(0.0);
+
+            // the request path does refresh
+            provider.getCachedAccessToken(true);
+            verify(fallback, timeout(1000).times(2)).getAccessToken(false);
+        }
+    }
+
+    @Test
+    public void testCurrentOutageDurationGauge() throws Exception {
+        AccessTokenProvider fallback = mock(AccessTokenProvider.class);
+
+        AccessToken accessToken = new AccessToken("a.b.c", "bearer", System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(10));
+        when(fallback.getAccessToken(false)).thenReturn(accessToken).thenThrow(new AccessTokenUnavailableException("TEST!"));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerAccessTokenMetrics metrics = new MicrometerAccessTokenMetrics(registry, "myClient");
+
+        try (OutageTolerantAccessTokenProvider provider = new OutageTolerantAccessTokenProvider(fallback, TimeUnit.SECONDS.toMillis(5), 1000, 1000, new AccessTokenRefreshScheduler(1, 0), true)) {
+            provider.addListener(metrics);
+            metrics.bindTo(provider);
+
+            assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+            assertThat(registry.get(MicrometerAccessTokenMetrics.METRIC_OUTAGE_CURRENT_DURATION).tag("client", "myClient").gauge().value()).isEqualTo(0.0);
+
+            // outage starts
+            assertThat(provider.getAccessToken(false)).isSameInstanceAs(accessToken);
+            Thread.sleep(50);
+
+            // visible before the outage ends
+            assertThat(registry.get(MicrometerAccessTokenMetrics.METRIC_OUTAGE_CURRENT_DURATION).tag("client", "myClient").gauge().value()).isGreaterThan(0.0);
+            assertThat(registry.get(MicrometerAccessTokenMetrics.METRIC_OUTAGE_DURATION).tag("client", "myClient").timer().count()).isEqualTo(0L);
+        }
+    }
+}
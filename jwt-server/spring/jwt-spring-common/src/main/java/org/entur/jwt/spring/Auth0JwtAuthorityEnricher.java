@@ -1,24 +1,62 @@
 package org.entur.jwt.spring;
 
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 public class Auth0JwtAuthorityEnricher implements JwtAuthorityEnricher {
 
+	private final GrantedAuthorityInterner interner;
+	private final GrantedAuthoritiesCache<List<?>> cache;
+
+	public Auth0JwtAuthorityEnricher() {
+		this(new GrantedAuthorityInterner(), new GrantedAuthoritiesCache<>());
+	}
+
+	public Auth0JwtAuthorityEnricher(GrantedAuthorityInterner interner, GrantedAuthoritiesCache<List<?>> cache) {
+		this.interner = interner;
+		this.cache = cache;
+	}
 
 	@Override
 	public void enrich(Collection<GrantedAuthority> current, Jwt jwt) {
-
-		List<String> permissions = jwt.getClaimAsStringList("permissions");
-		if (permissions != null && !permissions.isEmpty()) {
-			for (String permission : permissions) {
-				current.add(new SimpleGrantedAuthority(permission));
+		Object claim = jwt.getClaim("permissions");
+		if (claim instanceof List<?> list) {
+			if (list.isEmpty()) {
+				return;
+			}
+			// the same permission set is typically seen over and over
+			List<GrantedAuthority> authorities = cache.get(list);
+			if (authorities == null) {
+				List<GrantedAuthority> converted = new ArrayList<>(list.size());
+				for (Object permission : list) {
+					if (permission != null) {
+						converted.add(interner.intern(permission.toString()));
+					}
+				}
+				authorities = cache.put(list, converted);
+			}
+			current.addAll(authorities);
+		} else if (claim != null) {
+			List<String> permissions = jwt.getClaimAsStringList("permissions");
+			if (permissions != null) {
+				for (String permission : permissions) {
+					current.add(interner.intern(permission));
+				}
 			}
 		}
 	}
 
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+
+	@Override
+	public List<String> getClaimNames() {
+		return List.of("permissions");
+	}
 }
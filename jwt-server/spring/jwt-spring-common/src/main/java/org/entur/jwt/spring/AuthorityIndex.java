@@ -0,0 +1,138 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *
+ * Bounded mapping from authority strings (i.e. permissions) to ordinal indices. Known authorities are registered
+ * up front, so that they get the lowest indices; other authorities are registered lazily as tokens are converted.
+ * Once full, new authorities are not indexed, and the resulting {@linkplain AuthoritySet}s are marked as incomplete.
+ *
+ */
+
+public class AuthorityIndex {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+    private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+    private final int maximumSize;
+
+    public AuthorityIndex() {
+        this(DEFAULT_MAXIMUM_SIZE, Collections.emptyList());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maximumSize maximum number of indexed authorities
+     * @param known authorities to register up front
+     */
+
+    public AuthorityIndex(int maximumSize, Collection<String> known) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Expected positive maximum size");
+        }
+        this.maximumSize = maximumSize;
+        for (String authority : known) {
+            register(authority);
+        }
+    }
+
+    /**
+     * Get the index of an authority, without registering it.
+     *
+     * @param authority authority
+     * @return the index, or -1 if not registered
+     */
+
+    public int indexOf(String authority) {
+        Integer index = indexes.get(authority);
+        if (index == null) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * Get the index of an authority, registering it if necessary.
+     *
+     * @param authority authority
+     * @return the index, or -1 if the index is full
+     */
+
+    public int register(String authority) {
+        Integer index = indexes.get(authority);
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            index = indexes.get(authority);
+            if (index != null) {
+                return index;
+            }
+            int size = indexes.size();
+            if (size >= maximumSize) {
+                return -1;
+            }
+            indexes.put(authority, size);
+            return size;
+        }
+    }
+
+    /**
+     * Convert granted authorities, registering unknown authorities.
+     *
+     * @param authorities granted authorities
+     * @return the authority set, incomplete if some of the authorities could not be indexed
+     */
+
+    public AuthoritySet toAuthoritySet(Collection<? extends GrantedAuthority> authorities) {
+        long[] words = new long[0];
+        boolean complete = true;
+        for (GrantedAuthority grantedAuthority : authorities) {
+            String authority = grantedAuthority.getAuthority();
+            int index = authority != null ? register(authority) : -1;
+            if (index == -1) {
+                complete = false;
+            } else {
+                words = AuthoritySet.set(words, index);
+            }
+        }
+        return new AuthoritySet(words, complete);
+    }
+
+    /**
+     * Convert required authorities, without registering unknown authorities; a token
+     * converted by this index cannot carry an authority which is not registered.
+     *
+     * @param authorities required authorities
+     * @return the authority set, incomplete if some of the authorities are not registered
+     */
+
+    public AuthoritySet toAuthoritySet(String... authorities) {
+        long[] words = new long[0];
+        boolean complete = true;
+        for (String authority : authorities) {
+            int index = indexOf(authority);
+            if (index == -1) {
+                complete = false;
+            } else {
+                words = AuthoritySet.set(words, index);
+            }
+        }
+        return new AuthoritySet(words, complete);
+    }
+
+    public int size() {
+        return indexes.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+}
@@ -0,0 +1,104 @@
+package org.entur.jwt.spring;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ *
+ * Immutable bitset of authorities, as indexed by an {@linkplain AuthorityIndex}. Set operations are word-wise.<br>
+ * <br>
+ * A set is incomplete if some of its authorities could not be indexed. Granted authority sets which are incomplete
+ * must not be used for authorization checks; required authority sets which are incomplete contain authorities
+ * which no complete granted authority set can contain.
+ *
+ */
+
+public class AuthoritySet implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long[] words;
+    private final boolean complete;
+
+    public AuthoritySet(long[] words, boolean complete) {
+        this.words = words;
+        this.complete = complete;
+    }
+
+    static long[] set(long[] words, int index) {
+        int word = index >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, word + 1);
+        }
+        words[word] |= 1L << index;
+        return words;
+    }
+
+    public boolean contains(int index) {
+        if (index < 0) {
+            return false;
+        }
+        int word = index >>> 6;
+        return word < words.length && (words[word] & (1L << index)) != 0;
+    }
+
+    /**
+     * Check whether all the required authorities are contained in this set.
+     *
+     * @param required required authorities
+     * @return true if all are contained
+     */
+
+    public boolean containsAll(AuthoritySet required) {
+        if (!required.complete) {
+            return false;
+        }
+        long[] requiredWords = required.words;
+        for (int i = 0; i < requiredWords.length; i++) {
+            long word = i < words.length ? words[i] : 0L;
+            if ((requiredWords[i] & ~word) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether any of the required authorities are contained in this set.
+     *
+     * @param required required authorities
+     * @return true if at least one is contained
+     */
+
+    public boolean containsAny(AuthoritySet required) {
+        long[] requiredWords = required.words;
+        int length = Math.min(words.length, requiredWords.length);
+        for (int i = 0; i < length; i++) {
+            if ((requiredWords[i] & words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,107 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.util.Assert;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ *
+ * {@linkplain JwtDecoder} which caches verified tokens. Time-dependent validators are
+ * re-run for every cache hit. Failures are not cached.
+ *
+ */
+
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private static final String DECODING_ERROR_MESSAGE_TEMPLATE = "An error occurred while attempting to decode the Jwt: %s";
+
+    /**
+     * Extract the validators whose outcome depends on the current time.
+     *
+     * @param validators all validators
+     * @return validator which must be re-run for cached tokens
+     */
+
+    public static OAuth2TokenValidator<Jwt> getTimeDependentValidator(List<OAuth2TokenValidator<Jwt>> validators) {
+        List<OAuth2TokenValidator<Jwt>> result = new ArrayList<>();
+        for (OAuth2TokenValidator<Jwt> validator : validators) {
+            if (validator instanceof JwtExpiresAtValidator || validator instanceof JwtNotBeforeValidator || validator instanceof JwtTimestampValidator) {
+                result.add(validator);
+            } else if (validator instanceof CompiledJwtValidator compiledJwtValidator) {
+                result.add(compiledJwtValidator.getTimestampValidator());
+            }
+        }
+        return new DelegatingOAuth2TokenValidator<>(result);
+    }
+
+    private final JwtDecoder delegate;
+    private final VerifiedJwtCache cache;
+    private final OAuth2TokenValidator<Jwt> cacheHitValidator;
+
+    private Clock clock = Clock.systemUTC();
+
+    public CachingJwtDecoder(JwtDecoder delegate, VerifiedJwtCache cache, OAuth2TokenValidator<Jwt> cacheHitValidator) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(cache, "cache cannot be null");
+        Assert.notNull(cacheHitValidator, "cacheHitValidator cannot be null");
+        this.delegate = delegate;
+        this.cache = cache;
+        this.cacheHitValidator = cacheHitValidator;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        long time = clock.millis();
+
+        Jwt jwt = cache.get(token, time);
+        if (jwt != null) {
+            OAuth2TokenValidatorResult result = cacheHitValidator.validate(jwt);
+            if (result.hasErrors()) {
+                Collection<OAuth2Error> errors = result.getErrors();
+                throw new JwtValidationException(getJwtValidationExceptionMessage(errors), errors);
+            }
+            return jwt;
+        }
+
+        jwt = delegate.decode(token);
+
+        cache.put(token, jwt, time);
+
+        return jwt;
+    }
+
+    private String getJwtValidationExceptionMessage(Collection<OAuth2Error> errors) {
+        for (OAuth2Error oAuth2Error : errors) {
+            String description = oAuth2Error.getDescription();
+            if (description != null && !description.isEmpty()) {
+                return String.format(DECODING_ERROR_MESSAGE_TEMPLATE, description);
+            }
+        }
+        return "Unable to validate Jwt";
+    }
+
+    public void setClock(Clock clock) {
+        Assert.notNull(clock, "clock cannot be null");
+        this.clock = clock;
+    }
+
+    public JwtDecoder getDelegate() {
+        return delegate;
+    }
+
+    public VerifiedJwtCache getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,275 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.util.Assert;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ *
+ * Validator which checks issuer, audience, expires-at, not-before and claim constraints in a single pass over the claims.
+ * Timestamps are compared as epoch milliseconds, and errors are only allocated when validation fails.<br>
+ * <br>
+ * Equivalent to a {@linkplain org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator} of
+ * {@linkplain org.springframework.security.oauth2.jwt.JwtIssuerValidator}, {@linkplain AudienceOauth2TokenValidator},
+ * {@linkplain JwtExpiresAtValidator}, {@linkplain JwtNotBeforeValidator} and one
+ * {@linkplain org.springframework.security.oauth2.jwt.JwtClaimValidator} per claim constraint, including the error descriptions.
+ *
+ */
+
+public class CompiledJwtValidator implements OAuth2TokenValidator<Jwt> {
+
+    private static final String ERROR_URI = "https://tools.ietf.org/html/rfc6750#section-3.1";
+
+    private static final long MAX_SECONDS = Long.MAX_VALUE / 1000 - 1;
+    private static final long MIN_SECONDS = Long.MIN_VALUE / 1000 + 1;
+
+    public static class ClaimConstraint {
+
+        private final String name;
+        private final Predicate<Object> predicate;
+        private final OAuth2Error error;
+
+        public ClaimConstraint(String name, Predicate<Object> predicate) {
+            Assert.notNull(name, "name cannot be null");
+            Assert.notNull(predicate, "predicate cannot be null");
+            this.name = name;
+            this.predicate = predicate;
+            this.error = createOAuth2Error("The " + name + " claim is not valid");
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Predicate<Object> getPredicate() {
+            return predicate;
+        }
+    }
+
+    private final String issuer;
+    private final OAuth2Error issuerError;
+
+    private final Set<String> audiences;
+    private final OAuth2Error audienceError;
+
+    private final Duration expiresAtLeeway;
+    private final Duration notBeforeLeeway;
+    private final long expiresAtLeewayMillis;
+    private final long notBeforeLeewayMillis;
+
+    private final ClaimConstraint[] constraints;
+
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * Constructor
+     *
+     * @param issuer required issuer, or null
+     * @param audiences accepted audiences, or empty for no audience check
+     * @param expiresAtLeeway clock skew for expires-at
+     * @param notBeforeLeeway clock skew for not-before
+     * @param constraints claim constraints
+     */
+
+    public CompiledJwtValidator(String issuer, Collection<String> audiences, Duration expiresAtLeeway, Duration notBeforeLeeway, List<ClaimConstraint> constraints) {
+        Assert.notNull(audiences, "audiences cannot be null");
+        Assert.notNull(expiresAtLeeway, "expiresAtLeeway cannot be null");
+        Assert.notNull(notBeforeLeeway, "notBeforeLeeway cannot be null");
+        Assert.notNull(constraints, "constraints cannot be null");
+        this.issuer = issuer;
+        this.issuerError = createOAuth2Error("The " + JwtClaimNames.ISS + " claim is not valid");
+        this.audiences = audiences.isEmpty() ? null : Collections.unmodifiableSet(new HashSet<>(audiences));
+        this.audienceError = createOAuth2Error("The audience claim is not valid");
+        this.expiresAtLeeway = expiresAtLeeway;
+        this.notBeforeLeeway = notBeforeLeeway;
+        this.expiresAtLeewayMillis = expiresAtLeeway.toMillis();
+        this.notBeforeLeewayMillis = notBeforeLeeway.toMillis();
+        this.constraints = constraints.toArray(new ClaimConstraint[constraints.size()]);
+    }
+
+    private static OAuth2Error createOAuth2Error(String reason) {
+        return new OAuth2Error("invalid_token", reason, ERROR_URI);
+    }
+
+    @Override
+    public OAuth2TokenValidatorResult validate(Jwt jwt) {
+        Assert.notNull(jwt, "jwt cannot be null");
+
+        Map<String, Object> claims = jwt.getClaims();
+
+        List<OAuth2Error> errors = null;
+
+        if (issuer != null) {
+            Object iss = claims.get(JwtClaimNames.ISS);
+            if (iss == null || !issuer.equals(iss.toString())) {
+                errors = add(errors, issuerError);
+            }
+        }
+
+        if (audiences != null && !hasAudience(jwt, claims.get(JwtClaimNames.AUD))) {
+            errors = add(errors, audienceError);
+        }
+
+        long now = clock.millis();
+
+        Instant expiresAt = jwt.getExpiresAt();
+        if (isExpired(expiresAt, now)) {
+            errors = add(errors, createExpiredError(expiresAt));
+        }
+
+        Object nbf = claims.get(JwtClaimNames.NBF);
+        if (nbf != null) {
+            Instant notBefore = nbf instanceof Instant instant ? instant : jwt.getNotBefore();
+            if (notBefore != null && now + notBeforeLeewayMillis < toEpochMilli(notBefore)) {
+                errors = add(errors, createOAuth2Error(String.format("Jwt used before %s", notBefore)));
+            }
+        }
+
+        for (ClaimConstraint constraint : constraints) {
+            if (!constraint.predicate.test(claims.get(constraint.name))) {
+                errors = add(errors, constraint.error);
+            }
+        }
+
+        if (errors == null) {
+            return OAuth2TokenValidatorResult.success();
+        }
+        return OAuth2TokenValidatorResult.failure(errors);
+    }
+
+    /**
+     * Check the expiry time of a token which is not yet verified, so that expired tokens can be rejected
+     * before any signature work. The leeway and error are the same as for {@linkplain #validate(Jwt)}.
+     *
+     * @param payload unverified payload
+     * @return result
+     */
+
+    public OAuth2TokenValidatorResult validate(JwtPayload payload) {
+        Instant expiresAt = payload.getExpiresAt();
+        if (isExpired(expiresAt, clock.millis())) {
+            return OAuth2TokenValidatorResult.failure(createExpiredError(expiresAt));
+        }
+        return OAuth2TokenValidatorResult.success();
+    }
+
+    private boolean isExpired(Instant expiresAt, long now) {
+        return expiresAt != null && now - expiresAtLeewayMillis > toEpochMilli(expiresAt);
+    }
+
+    private static OAuth2Error createExpiredError(Instant expiresAt) {
+        return createOAuth2Error(String.format("Jwt expired at %s", expiresAt));
+    }
+
+    private boolean hasAudience(Jwt jwt, Object aud) {
+        if (aud instanceof Collection<?> collection) {
+            for (Object tokenAudience : collection) {
+                if (audiences.contains(tokenAudience)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (aud instanceof String tokenAudience) {
+            return audiences.contains(tokenAudience);
+        }
+        if (aud != null) {
+            List<String> tokenAudiences = jwt.getAudience();
+            if (tokenAudiences != null) {
+                for (String tokenAudience : tokenAudiences) {
+                    if (audiences.contains(tokenAudience)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<OAuth2Error> add(List<OAuth2Error> errors, OAuth2Error error) {
+        if (errors == null) {
+            errors = new ArrayList<>(4);
+        }
+        errors.add(error);
+        return errors;
+    }
+
+    private static long toEpochMilli(Instant instant) {
+        long seconds = instant.getEpochSecond();
+        if (seconds > MAX_SECONDS) {
+            return Long.MAX_VALUE;
+        }
+        if (seconds < MIN_SECONDS) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * 1000 + instant.getNano() / 1_000_000;
+    }
+
+    /**
+     * Get a copy of this validator which also checks the issuer.
+     *
+     * @param issuer required issuer
+     * @return new validator
+     */
+
+    public CompiledJwtValidator withIssuer(String issuer) {
+        CompiledJwtValidator validator = new CompiledJwtValidator(issuer, getAudiences(), expiresAtLeeway, notBeforeLeeway, List.of(constraints));
+        validator.setClock(clock);
+        return validator;
+    }
+
+    /**
+     * Get a copy of this validator which only checks expires-at and not-before, i.e. for revalidation of cached tokens.
+     *
+     * @return new validator
+     */
+
+    public CompiledJwtValidator getTimestampValidator() {
+        CompiledJwtValidator validator = new CompiledJwtValidator(null, Collections.emptySet(), expiresAtLeeway, notBeforeLeeway, Collections.emptyList());
+        validator.setClock(clock);
+        return validator;
+    }
+
+    public void setClock(Clock clock) {
+        Assert.notNull(clock, "clock cannot be null");
+        this.clock = clock;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public Set<String> getAudiences() {
+        if (audiences == null) {
+            return Collections.emptySet();
+        }
+        return audiences;
+    }
+
+    public Duration getExpiresAtLeeway() {
+        return expiresAtLeeway;
+    }
+
+    public Duration getNotBeforeLeeway() {
+        return notBeforeLeeway;
+    }
+
+    public List<ClaimConstraint> getConstraints() {
+        return List.of(constraints);
+    }
+}
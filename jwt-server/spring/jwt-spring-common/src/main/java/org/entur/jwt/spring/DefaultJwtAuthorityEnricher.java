@@ -5,10 +5,12 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  *
  * Default implementation. Converts the scope claim into SCOPE_xxx permissions via {@linkplain JwtGrantedAuthoritiesConverter}.
+ * If the authorities claim name of the converter is changed, {@linkplain #getClaimNames()} must be overridden accordingly.
  *
  */
 
@@ -22,6 +24,17 @@ public class DefaultJwtAuthorityEnricher implements JwtAuthorityEnricher {
 		current.addAll(convert);
 	}
 
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+
+	@Override
+	public List<String> getClaimNames() {
+		// the claims checked by JwtGrantedAuthoritiesConverter by default
+		return List.of("scope", "scp");
+	}
+
 	public JwtGrantedAuthoritiesConverter getJwtGrantedAuthoritiesConverter() {
 		return jwtGrantedAuthoritiesConverter;
 	}
@@ -4,21 +4,88 @@ package org.entur.jwt.spring;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+
+/**
+ *
+ * Converts a token to authorities using a list of {@linkplain JwtAuthorityEnricher}s. If all enrichers
+ * are cacheable, the (unmodifiable) result is cached per issuer and values of the claims the enrichers
+ * depend on, so that tokens with the same permissions are converted without allocating. The raw token
+ * value is never retained, and cached results do not depend on token expiry.
+ *
+ */
 
 public class EnrichedJwtGrantedAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
 
     private final List<JwtAuthorityEnricher> enrichers;
+    private final GrantedAuthoritiesCache<List<Object>> cache;
+    private final String[] claimNames;
 
     public EnrichedJwtGrantedAuthoritiesConverter(List<JwtAuthorityEnricher> enrichers) {
+        this(enrichers, isCacheable(enrichers) ? new GrantedAuthoritiesCache<>() : null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param enrichers authority enrichers
+     * @param cache cache of authorities per claim values, or null
+     */
+
+    public EnrichedJwtGrantedAuthoritiesConverter(List<JwtAuthorityEnricher> enrichers, GrantedAuthoritiesCache<List<Object>> cache) {
         this.enrichers = enrichers;
+        this.cache = cache;
+        this.claimNames = getClaimNames(enrichers);
+    }
+
+    private static String[] getClaimNames(List<JwtAuthorityEnricher> enrichers) {
+        Set<String> claimNames = new LinkedHashSet<>();
+        claimNames.add(JwtClaimNames.ISS);
+        for (JwtAuthorityEnricher enricher : enrichers) {
+            claimNames.addAll(enricher.getClaimNames());
+        }
+        return claimNames.toArray(new String[claimNames.size()]);
+    }
+
+    private static boolean isCacheable(List<JwtAuthorityEnricher> enrichers) {
+        for (JwtAuthorityEnricher enricher : enrichers) {
+            if (!enricher.isCacheable()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public Collection<GrantedAuthority> convert(Jwt source) {
+        if (cache != null) {
+            List<Object> key = getKey(source);
+
+            List<GrantedAuthority> cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            return cache.put(key, enrich(source));
+        }
+        return enrich(source);
+    }
+
+    private List<Object> getKey(Jwt source) {
+        // claim values might be null
+        List<Object> key = new ArrayList<>(claimNames.length);
+        for (String claimName : claimNames) {
+            key.add(source.getClaims().get(claimName));
+        }
+        return key;
+    }
+
+    private Collection<GrantedAuthority> enrich(Jwt source) {
         Collection<GrantedAuthority> grantedAuthorities = new ArrayList<>();
 
         for (JwtAuthorityEnricher enricher : enrichers) {
@@ -26,4 +93,8 @@ public class EnrichedJwtGrantedAuthoritiesConverter implements Converter<Jwt, Co
         }
         return grantedAuthorities;
     }
+
+    public List<JwtAuthorityEnricher> getEnrichers() {
+        return enrichers;
+    }
 }
@@ -0,0 +1,77 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *
+ * Bounded cache of converted authority collections, keyed by claim value(s). Cached collections
+ * are unmodifiable. When full, an arbitrary entry is evicted for each new entry, so that the rest of the
+ * cache stays warm.
+ *
+ * @param <K> key type
+ */
+
+public class GrantedAuthoritiesCache<K> {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+    private final Map<K, List<GrantedAuthority>> cache = new ConcurrentHashMap<>();
+    private final int maximumSize;
+
+    public GrantedAuthoritiesCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public GrantedAuthoritiesCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Expected positive maximum size");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Get cached authorities.
+     *
+     * @param key key
+     * @return unmodifiable authorities, or null if not cached
+     */
+
+    public List<GrantedAuthority> get(K key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Cache authorities. The key must not be modified afterwards.
+     *
+     * @param key key
+     * @param authorities authorities
+     * @return unmodifiable copy of the authorities
+     */
+
+    public List<GrantedAuthority> put(K key, Collection<GrantedAuthority> authorities) {
+        List<GrantedAuthority> value = List.copyOf(authorities);
+        if (cache.size() >= maximumSize) {
+            Iterator<K> iterator = cache.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        cache.put(key, value);
+        return value;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,62 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ *
+ * Bounded canonical mapping from a claim value (i.e. a permission or role) to a {@linkplain GrantedAuthority},
+ * so that authorities are not allocated over and over for the same values. Once full, new values are
+ * mapped without being cached.
+ *
+ */
+
+public class GrantedAuthorityInterner {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+    private final Map<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+    private final int maximumSize;
+    private final Function<String, GrantedAuthority> factory;
+
+    public GrantedAuthorityInterner() {
+        this(DEFAULT_MAXIMUM_SIZE, SimpleGrantedAuthority::new);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maximumSize maximum number of cached authorities
+     * @param factory creates the authority for a claim value
+     */
+
+    public GrantedAuthorityInterner(int maximumSize, Function<String, GrantedAuthority> factory) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Expected positive maximum size");
+        }
+        this.maximumSize = maximumSize;
+        this.factory = factory;
+    }
+
+    public GrantedAuthority intern(String value) {
+        GrantedAuthority authority = authorities.get(value);
+        if (authority == null) {
+            authority = factory.apply(value);
+            if (authorities.size() < maximumSize) {
+                GrantedAuthority previous = authorities.putIfAbsent(value, authority);
+                if (previous != null) {
+                    return previous;
+                }
+            }
+        }
+        return authority;
+    }
+
+    public int size() {
+        return authorities.size();
+    }
+}
@@ -0,0 +1,225 @@
+package org.entur.jwt.spring;
+
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *
+ * {@linkplain ResourceRetriever} based on a (pooled) {@linkplain HttpClient}.<br><br>
+ *
+ * If conditional requests are enabled, the last response per URL is kept, and its validators
+ * ({@code ETag} and {@code Last-Modified}) are sent with the next request. A {@code 304 Not Modified}
+ * response returns the previous content as a {@linkplain HttpResource} marked as not modified, so that
+ * callers can skip parsing it again.<br><br>
+ *
+ * If cache control is enabled, the {@code Cache-Control: max-age} directive (capped at the maximum age)
+ * determines how long the response is fresh, see {@linkplain HttpResource#getExpires()}.
+ *
+ */
+
+public class HttpClientResourceRetriever implements ResourceRetriever {
+
+    public static final String HEADER_ETAG = "ETag";
+    public static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    public static final String HEADER_CACHE_CONTROL = "Cache-Control";
+
+    public static class HttpResource extends Resource {
+
+        private final String etag;
+        private final String lastModified;
+        private final long expires;
+        private final boolean notModified;
+
+        public HttpResource(String content, String contentType, String etag, String lastModified, long expires, boolean notModified) {
+            super(content, contentType);
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expires = expires;
+            this.notModified = notModified;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Get the time until which the content is fresh, according to the server.
+         *
+         * @return time in milliseconds, or -1 if unknown
+         */
+
+        public long getExpires() {
+            return expires;
+        }
+
+        /**
+         * Check whether the server responded {@code 304 Not Modified}.
+         *
+         * @return true if the content is the same as in the previous response
+         */
+
+        public boolean isNotModified() {
+            return notModified;
+        }
+
+        public boolean isFresh(long time) {
+            return expires != -1L && time < expires;
+        }
+    }
+
+    /**
+     * Parse the max-age directive of a {@code Cache-Control} header.
+     *
+     * @param cacheControl header value, or null
+     * @return max-age in seconds, or -1 if not present or the response must be revalidated
+     */
+
+    public static long getMaxAge(String cacheControl) {
+        if (cacheControl == null) {
+            return -1L;
+        }
+        long maxAge = -1L;
+        for (String directive : cacheControl.split(",")) {
+            String value = directive.trim().toLowerCase(Locale.ROOT);
+            if (value.equals("no-cache") || value.equals("no-store")) {
+                return -1L;
+            }
+            if (value.startsWith("max-age=")) {
+                try {
+                    maxAge = Long.parseLong(value.substring(8).replace("\"", ""));
+                } catch (NumberFormatException e) {
+                    return -1L;
+                }
+            }
+        }
+        return maxAge;
+    }
+
+    protected final HttpClient httpClient;
+    protected final Duration readTimeout;
+    protected final int sizeLimit;
+
+    protected final boolean conditionalRequests;
+    protected final boolean cacheControl;
+    protected final long maximumAge;
+
+    protected final Map<URL, HttpResource> resources = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param httpClient http client
+     * @param readTimeout read timeout in milliseconds
+     * @param sizeLimit maximum response size in bytes
+     * @param conditionalRequests send conditional requests
+     * @param cacheControl honour {@code Cache-Control: max-age}
+     * @param maximumAge maximum max-age, in milliseconds
+     */
+
+    public HttpClientResourceRetriever(HttpClient httpClient, int readTimeout, int sizeLimit, boolean conditionalRequests, boolean cacheControl, long maximumAge) {
+        this.httpClient = httpClient;
+        this.readTimeout = Duration.ofMillis(readTimeout);
+        this.sizeLimit = sizeLimit;
+        this.conditionalRequests = conditionalRequests;
+        this.cacheControl = cacheControl;
+        this.maximumAge = maximumAge;
+    }
+
+    @Override
+    public HttpResource retrieveResource(URL url) throws IOException {
+        HttpRequest.Builder builder;
+        try {
+            builder = HttpRequest.newBuilder(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid URL " + url, e);
+        }
+        builder.timeout(readTimeout).header("Accept", "application/json, application/jwk-set+json");
+
+        HttpResource previous = conditionalRequests ? resources.get(url) : null;
+        if (previous != null) {
+            if (previous.getEtag() != null) {
+                builder.header("If-None-Match", previous.getEtag());
+            }
+            if (previous.getLastModified() != null) {
+                builder.header("If-Modified-Since", previous.getLastModified());
+            }
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(builder.GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while retrieving " + url, e);
+        }
+
+        HttpResource resource;
+        try (InputStream in = response.body()) {
+            HttpHeaders headers = response.headers();
+            long expires = getExpires(headers.firstValue(HEADER_CACHE_CONTROL).orElse(null));
+
+            int statusCode = response.statusCode();
+            if (statusCode == 304 && previous != null) {
+                // validators might be left out of the 304 response
+                String etag = headers.firstValue(HEADER_ETAG).orElse(previous.getEtag());
+                String lastModified = headers.firstValue(HEADER_LAST_MODIFIED).orElse(previous.getLastModified());
+
+                resource = new HttpResource(previous.getContent(), previous.getContentType(), etag, lastModified, expires, true);
+            } else if (statusCode >= 200 && statusCode <= 299) {
+                String content = read(in);
+                Optional<String> contentType = headers.firstValue("Content-Type");
+
+                resource = new HttpResource(content, contentType.orElse(null), headers.firstValue(HEADER_ETAG).orElse(null), headers.firstValue(HEADER_LAST_MODIFIED).orElse(null), expires, false);
+            } else {
+                throw new IOException("HTTP " + statusCode + " when retrieving " + url);
+            }
+        }
+
+        if (conditionalRequests) {
+            resources.put(url, resource);
+        }
+        return resource;
+    }
+
+    protected long getExpires(String cacheControl) {
+        if (!this.cacheControl) {
+            return -1L;
+        }
+        long maxAge = getMaxAge(cacheControl);
+        if (maxAge <= 0) {
+            return -1L;
+        }
+        return System.currentTimeMillis() + Math.min(maxAge * 1000, maximumAge);
+    }
+
+    protected String read(InputStream in) throws IOException {
+        byte[] bytes = in.readNBytes(sizeLimit + 1);
+        if (bytes.length > sizeLimit) {
+            throw new IOException("Exceeded size limit of " + sizeLimit + " bytes");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int getSizeLimit() {
+        return sizeLimit;
+    }
+}
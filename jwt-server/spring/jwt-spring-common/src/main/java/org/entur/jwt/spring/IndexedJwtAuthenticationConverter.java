@@ -0,0 +1,57 @@
+package org.entur.jwt.spring;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.Collection;
+
+/**
+ *
+ * Converts a token like {@linkplain JwtAuthenticationConverter}, but returns an {@linkplain IndexedJwtAuthenticationToken}.
+ *
+ */
+
+public class IndexedJwtAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
+
+    private final JwtAuthenticationConverter delegate = new JwtAuthenticationConverter();
+    private final AuthorityIndex authorityIndex;
+
+    public IndexedJwtAuthenticationConverter(Converter<Jwt, Collection<GrantedAuthority>> jwtGrantedAuthoritiesConverter, AuthorityIndex authorityIndex) {
+        this.delegate.setJwtGrantedAuthoritiesConverter(jwtGrantedAuthoritiesConverter);
+        this.authorityIndex = authorityIndex;
+    }
+
+    /**
+     * Create a converter for the given authorities converter.
+     *
+     * @param jwtGrantedAuthoritiesConverter authorities converter
+     * @param authorityIndex authority index, or null
+     * @return an indexing converter if an authority index is present, otherwise a plain {@linkplain JwtAuthenticationConverter}
+     */
+
+    public static Converter<Jwt, AbstractAuthenticationToken> create(Converter<Jwt, Collection<GrantedAuthority>> jwtGrantedAuthoritiesConverter, AuthorityIndex authorityIndex) {
+        if (authorityIndex != null) {
+            return new IndexedJwtAuthenticationConverter(jwtGrantedAuthoritiesConverter, authorityIndex);
+        }
+        JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
+        jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(jwtGrantedAuthoritiesConverter);
+        return jwtAuthenticationConverter;
+    }
+
+    @Override
+    public AbstractAuthenticationToken convert(Jwt jwt) {
+        AbstractAuthenticationToken token = delegate.convert(jwt);
+        if (token instanceof JwtAuthenticationToken jwtAuthenticationToken) {
+            return new IndexedJwtAuthenticationToken(jwtAuthenticationToken, authorityIndex);
+        }
+        return token;
+    }
+
+    public AuthorityIndex getAuthorityIndex() {
+        return authorityIndex;
+    }
+}
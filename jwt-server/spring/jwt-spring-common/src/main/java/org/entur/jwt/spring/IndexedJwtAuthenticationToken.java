@@ -0,0 +1,38 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ *
+ * {@linkplain JwtAuthenticationToken} which carries its authorities as an {@linkplain AuthoritySet},
+ * so that authorization checks do not have to compare strings.
+ *
+ */
+
+public class IndexedJwtAuthenticationToken extends JwtAuthenticationToken {
+
+    private static final long serialVersionUID = 1L;
+
+    private final AuthoritySet authoritySet;
+    private final transient AuthorityIndex authorityIndex;
+
+    public IndexedJwtAuthenticationToken(JwtAuthenticationToken token, AuthorityIndex authorityIndex) {
+        super(token.getToken(), token.getPrincipal(), token.getAuthorities());
+        this.authorityIndex = authorityIndex;
+        this.authoritySet = authorityIndex.toAuthoritySet(getAuthorities());
+    }
+
+    public AuthoritySet getAuthoritySet() {
+        return authoritySet;
+    }
+
+    /**
+     * Get the index which the authority set was created with.
+     *
+     * @return the index, or null if this token was deserialized
+     */
+
+    public AuthorityIndex getAuthorityIndex() {
+        return authorityIndex;
+    }
+}
@@ -5,11 +5,13 @@ import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
 import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.ResourceRetriever;
 import org.entur.jwt.spring.actuate.DefaultJwksHealthIndicator;
 import org.entur.jwt.spring.actuate.JwkSetSourceEventListener;
 import org.entur.jwt.spring.actuate.ListEventListener;
 import org.entur.jwt.spring.actuate.ListJwksHealthIndicator;
 import org.entur.jwt.spring.properties.jwk.JwkCacheProperties;
+import org.entur.jwt.spring.properties.jwk.JwkHttpCacheProperties;
 import org.entur.jwt.spring.properties.jwk.JwkLocationProperties;
 import org.entur.jwt.spring.properties.jwk.JwkOutageCacheProperties;
 import org.entur.jwt.spring.properties.jwk.JwkPreemptiveCacheProperties;
@@ -22,6 +24,8 @@ import org.slf4j.LoggerFactory;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -33,6 +37,8 @@ public class JwkSourceMapFactory<C> {
         Map<String, JWKSource> jwkSources = new HashMap<>();
         Map<String, ListEventListener> jwkEventListeners = new HashMap<>();
 
+        HttpClient httpClient = null; // shared by all tenants
+
         for (Map.Entry<String, JwtTenantProperties> entry : tenants.entrySet()) {
             JwtTenantProperties tenantConfiguration = entry.getValue();
             if (!tenantConfiguration.isEnabled()) {
@@ -62,9 +68,32 @@ public class JwkSourceMapFactory<C> {
             int connectTimeout = jwkConfiguration.getConnectTimeout();
             int readTimeout = jwkConfiguration.getReadTimeout();
 
-            DefaultResourceRetriever retriever = new DefaultResourceRetriever(connectTimeout * 1000, readTimeout * 1000, 51200);
+            int sizeLimit = jwkConfiguration.getSizeLimit();
+
+            ResourceRetriever resourceRetriever;
+            if (isHttp(url)) {
+                if (httpClient == null) {
+                    httpClient = HttpClient.newBuilder()
+                            .connectTimeout(Duration.ofSeconds(connectTimeout))
+                            .followRedirects(HttpClient.Redirect.NORMAL)
+                            .build();
+                }
+                JwkHttpCacheProperties httpCache = jwkConfiguration.getHttpCache();
+                if (httpCache != null) {
+                    resourceRetriever = new HttpClientResourceRetriever(httpClient, readTimeout * 1000, sizeLimit, httpCache.isEnabled(), httpCache.isCacheControl(), httpCache.getMaximumAge() * 1000);
+                } else {
+                    resourceRetriever = new HttpClientResourceRetriever(httpClient, readTimeout * 1000, sizeLimit, false, false, 0);
+                }
+            } else {
+                resourceRetriever = new DefaultResourceRetriever(connectTimeout * 1000, readTimeout * 1000, sizeLimit);
+            }
 
-            JWKSourceBuilder<SecurityContext> builder = JWKSourceBuilder.create(url, retriever);
+            TimedResourceRetriever retriever = new TimedResourceRetriever(resourceRetriever, eventListener);
+
+            JwkCacheProperties cache = jwkConfiguration.getCache();
+            boolean cached = cache != null && cache.isEnabled();
+
+            JWKSourceBuilder<SecurityContext> builder = JWKSourceBuilder.create(new ResourceJwkSetSource<>(url, retriever, cached ? cache.getTimeToLive() * 1000L : 0));
 
             JwkRateLimitProperties rateLimiting = jwkConfiguration.getRateLimit();
             if (rateLimiting != null && rateLimiting.isEnabled()) {
@@ -79,8 +108,7 @@ public class JwkSourceMapFactory<C> {
                 builder.rateLimited(false);
             }
 
-            JwkCacheProperties cache = jwkConfiguration.getCache();
-            if (cache != null && cache.isEnabled()) {
+            if (cached) {
                 builder.cache(cache.getTimeToLive() * 1000, cache.getRefreshTimeout() * 1000, eventListener);
 
                 JwkPreemptiveCacheProperties preemptive = cache.getPreemptive();
@@ -129,5 +157,10 @@ public class JwkSourceMapFactory<C> {
         return new JwkSourceMap(jwkSources, jwkEventListeners);
     }
 
+    private static boolean isHttp(URL url) {
+        String protocol = url.getProtocol();
+        return "http".equalsIgnoreCase(protocol) || "https".equalsIgnoreCase(protocol);
+    }
+
 
 }
\ No newline at end of file
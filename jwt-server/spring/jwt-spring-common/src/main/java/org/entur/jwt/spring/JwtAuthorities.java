@@ -0,0 +1,95 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collection;
+
+/**
+ *
+ * Authorization checks on the authorities of the current (or a given) authentication.
+ * Tokens converted by {@linkplain IndexedJwtAuthenticationConverter} are checked using
+ * word-wise bit operations; other authentications fall back to comparing strings. For use
+ * in method security expressions, i.e.
+ *
+ * <pre>
+ * &#64;PreAuthorize("&#64;jwtAuthorities.hasAll('read', 'write')")
+ * </pre>
+ *
+ * For reactive method security, pass the authentication explicitly:
+ *
+ * <pre>
+ * &#64;PreAuthorize("&#64;jwtAuthorities.hasAny(authentication, 'read', 'write')")
+ * </pre>
+ *
+ */
+
+public class JwtAuthorities {
+
+    public boolean hasAny(String... authorities) {
+        return hasAnyAuthority(SecurityContextHolder.getContext().getAuthentication(), authorities);
+    }
+
+    public boolean hasAll(String... authorities) {
+        return hasAllAuthorities(SecurityContextHolder.getContext().getAuthentication(), authorities);
+    }
+
+    public static boolean hasAnyAuthority(Authentication authentication, String... authorities) {
+        if (authentication == null) {
+            return false;
+        }
+        if (authentication instanceof IndexedJwtAuthenticationToken token) {
+            AuthorityIndex authorityIndex = token.getAuthorityIndex();
+            AuthoritySet granted = token.getAuthoritySet();
+            if (authorityIndex != null && granted.isComplete()) {
+                return granted.containsAny(authorityIndex.toAuthoritySet(authorities));
+            }
+        }
+        return containsAny(authentication.getAuthorities(), authorities);
+    }
+
+    public static boolean hasAllAuthorities(Authentication authentication, String... authorities) {
+        if (authentication == null) {
+            return false;
+        }
+        if (authentication instanceof IndexedJwtAuthenticationToken token) {
+            AuthorityIndex authorityIndex = token.getAuthorityIndex();
+            AuthoritySet granted = token.getAuthoritySet();
+            if (authorityIndex != null && granted.isComplete()) {
+                return granted.containsAll(authorityIndex.toAuthoritySet(authorities));
+            }
+        }
+        return containsAll(authentication.getAuthorities(), authorities);
+    }
+
+    public static boolean containsAny(Collection<? extends GrantedAuthority> grantedAuthorities, String... authorities) {
+        for (GrantedAuthority grantedAuthority : grantedAuthorities) {
+            String granted = grantedAuthority.getAuthority();
+            for (String authority : authorities) {
+                if (authority.equals(granted)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public static boolean containsAll(Collection<? extends GrantedAuthority> grantedAuthorities, String... authorities) {
+        for (String authority : authorities) {
+            if (!contains(grantedAuthorities, authority)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(Collection<? extends GrantedAuthority> grantedAuthorities, String authority) {
+        for (GrantedAuthority grantedAuthority : grantedAuthorities) {
+            if (authority.equals(grantedAuthority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -4,9 +4,32 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 public interface JwtAuthorityEnricher {
 
 	void enrich(Collection<GrantedAuthority> current, Jwt jwt);
-	
+
+	/**
+	 * Whether the added authorities depend on the claims named by {@linkplain #getClaimNames()} only, so that
+	 * the result of enriching a token can be reused for other tokens with the same claim values.
+	 *
+	 * @return true if the authorities depend on the named claims only
+	 */
+
+	default boolean isCacheable() {
+		return false;
+	}
+
+	/**
+	 * Names of the claims which the added authorities depend on. Only used if the enricher is cacheable.
+	 *
+	 * @return claim names
+	 */
+
+	default List<String> getClaimNames() {
+		return Collections.emptyList();
+	}
+
 }
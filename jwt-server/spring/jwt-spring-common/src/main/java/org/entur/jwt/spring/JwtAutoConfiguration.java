@@ -1,11 +1,19 @@
 package org.entur.jwt.spring;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.entur.jwt.spring.actuate.JwkSourceMeterBinder;
 import org.entur.jwt.spring.actuate.ListJwksHealthIndicator;
+import org.entur.jwt.spring.actuate.MicrometerJwtDecoderMetrics;
+import org.entur.jwt.spring.actuate.VerifiedJwtCacheMeterBinder;
+import org.entur.jwt.spring.properties.JwtAuthoritiesProperties;
+import org.entur.jwt.spring.properties.JwtCacheProperties;
 import org.entur.jwt.spring.properties.JwtProperties;
 import org.entur.jwt.spring.properties.SecurityProperties;
 import org.entur.jwt.spring.properties.jwk.JwtTenantProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -67,6 +75,57 @@ public class JwtAutoConfiguration {
         return oAuth2TokenValidatorFactory.create(properties.getJwt().getClaims());
     }
 
+    @Bean
+    @ConditionalOnProperty(name = {"entur.jwt.cache.enabled"}, havingValue = "true")
+    @ConditionalOnMissingBean(VerifiedJwtCache.class)
+    public VerifiedJwtCache verifiedJwtCache(SecurityProperties properties) {
+        JwtCacheProperties cache = properties.getJwt().getCache();
+
+        if(LOG.isInfoEnabled()) LOG.info("Cache up to {} verified tokens", cache.getMaximumSize());
+
+        return new VerifiedJwtCache(cache.getMaximumSize(), cache.getExpiresAtLeeway() * 1000);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = {"entur.jwt.cache.enabled"}, havingValue = "true")
+    @ConditionalOnMissingBean(VerifiedJwtCacheMeterBinder.class)
+    public VerifiedJwtCacheMeterBinder verifiedJwtCacheMeterBinder(VerifiedJwtCache verifiedJwtCache) {
+        return new VerifiedJwtCacheMeterBinder(verifiedJwtCache, "jwt", Tags.empty());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(JwkSourceMeterBinder.class)
+    public JwkSourceMeterBinder jwkSourceMeterBinder(JwkSourceMap jwkSourceMap) {
+        return new JwkSourceMeterBinder(jwkSourceMap);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(JwtDecoderMetrics.class)
+    public JwtDecoderMetrics jwtDecoderMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfUnique();
+        if (registry == null) {
+            return JwtDecoderMetrics.NOOP;
+        }
+        return new MicrometerJwtDecoderMetrics(registry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = {"entur.jwt.authorities.enabled"}, havingValue = "true", matchIfMissing = true)
+    @ConditionalOnMissingBean(AuthorityIndex.class)
+    public AuthorityIndex authorityIndex(SecurityProperties properties) {
+        JwtAuthoritiesProperties authorities = properties.getJwt().getAuthorities();
+
+        if(LOG.isInfoEnabled()) LOG.info("Index up to {} authorities, {} known", authorities.getMaximumSize(), authorities.getKnown().size());
+
+        return new AuthorityIndex(authorities.getMaximumSize(), authorities.getKnown());
+    }
+
+    @Bean("jwtAuthorities")
+    @ConditionalOnMissingBean(JwtAuthorities.class)
+    public JwtAuthorities jwtAuthorities() {
+        return new JwtAuthorities();
+    }
+
 
 
 }
@@ -0,0 +1,135 @@
+package org.entur.jwt.spring;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.BadJWSException;
+import com.nimbusds.jwt.proc.BadJWTException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.text.ParseException;
+
+/**
+ * Callbacks for measuring token decoding (parsing, signature verification and claim validation).
+ */
+
+public interface JwtDecoderMetrics {
+
+    JwtDecoderMetrics NOOP = new JwtDecoderMetrics() {
+    };
+
+    enum Failure {
+        /** token could not be parsed */
+        MALFORMED,
+        /** invalid signature */
+        SIGNATURE,
+        /** no key with matching key id (or algorithm) */
+        UNKNOWN_KID,
+        /** issuer is not configured */
+        UNKNOWN_ISSUER,
+        /** token is expired */
+        EXPIRED,
+        /** token is not yet valid */
+        NOT_BEFORE,
+        /** audience is not accepted */
+        AUDIENCE,
+        /** issuer claim does not match the issuer */
+        ISSUER,
+        /** other claim constraint */
+        CLAIMS,
+        /** keys could not be retrieved */
+        JWKS_UNAVAILABLE,
+        OTHER;
+
+        /**
+         * Classify a decoding failure.
+         *
+         * @param e exception thrown by the decoder
+         * @return the failure cause
+         */
+
+        public static Failure of(Throwable e) {
+            if (e instanceof JwtValidationException jwtValidationException) {
+                for (OAuth2Error error : jwtValidationException.getErrors()) {
+                    Failure failure = ofDescription(error.getDescription());
+                    if (failure != null) {
+                        return failure;
+                    }
+                }
+                return CLAIMS;
+            }
+            String message = e.getMessage();
+            if (message != null && message.startsWith("Unknown issuer")) {
+                return UNKNOWN_ISSUER;
+            }
+
+            Throwable cause = e;
+            while (cause != null) {
+                if (cause instanceof BadJWSException) {
+                    return SIGNATURE;
+                }
+                if (cause instanceof BadJWTException) {
+                    Failure failure = ofDescription(cause.getMessage());
+                    if (failure != null) {
+                        return failure;
+                    }
+                    return CLAIMS;
+                }
+                if (cause instanceof BadJOSEException) {
+                    String causeMessage = cause.getMessage();
+                    if (causeMessage != null && causeMessage.contains("no matching key")) {
+                        return UNKNOWN_KID;
+                    }
+                    return OTHER;
+                }
+                if (cause instanceof KeySourceException) {
+                    return JWKS_UNAVAILABLE;
+                }
+                if (cause instanceof ParseException) {
+                    return MALFORMED;
+                }
+                cause = cause.getCause();
+            }
+            return OTHER;
+        }
+
+        private static Failure ofDescription(String description) {
+            if (description == null) {
+                return null;
+            }
+            // spring (and local) validators and the nimbus claims verifier, respectively
+            if (description.startsWith("Jwt expired") || description.startsWith("Expired JWT")) {
+                return EXPIRED;
+            }
+            if (description.startsWith("Jwt used before") || description.startsWith("JWT before use time")) {
+                return NOT_BEFORE;
+            }
+            if (description.contains("audience") || description.contains("aud claim")) {
+                return AUDIENCE;
+            }
+            if (description.contains("iss claim")) {
+                return ISSUER;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A token was decoded.
+     *
+     * @param duration duration in nanoseconds
+     * @param success true if the token was decoded successfully
+     */
+
+    default void onDecode(long duration, boolean success) {
+    }
+
+    /**
+     * A token was rejected.
+     *
+     * @param failure the cause
+     */
+
+    default void onFailure(Failure failure) {
+    }
+}
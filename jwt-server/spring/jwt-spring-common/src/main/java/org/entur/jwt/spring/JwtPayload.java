@@ -0,0 +1,57 @@
+package org.entur.jwt.spring;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * The few fields of a (not yet verified) token needed before verification, as read by {@linkplain JwtPayloadReader}.
+ * Never use these values for authorization; they are only trustworthy once the token has been verified.
+ */
+
+public class JwtPayload {
+
+    private final String keyId;
+    private final String issuer;
+    private final Instant expiresAt;
+    private final Map<String, Object> claims;
+
+    public JwtPayload(String keyId, String issuer, Instant expiresAt, Map<String, Object> claims) {
+        this.keyId = keyId;
+        this.issuer = issuer;
+        this.expiresAt = expiresAt;
+        this.claims = claims;
+    }
+
+    /**
+     * Get the key id (from the header).
+     *
+     * @return key id, or null if not present
+     */
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Get the additional claims the reader was configured for.
+     *
+     * @return claims which were present and had a scalar value
+     */
+
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getClaim(String name) {
+        return (T) claims.get(name);
+    }
+}
@@ -0,0 +1,190 @@
+package org.entur.jwt.spring;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.text.ParseException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ *
+ * Streaming reader for the few fields needed before a token is verified: the key id,
+ * the issuer, the expiry time and a configured set of (top-level) claims.<br><br>
+ *
+ * The header and payload are decoded and read token by token, without building a JSON tree or claims set;
+ * all other fields are skipped. Only scalar claim values (strings, numbers and booleans) are captured.
+ * Encrypted tokens are not supported.
+ *
+ */
+
+public class JwtPayloadReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String KEY_ID = "kid";
+    private static final String ISSUER = "iss";
+    private static final String EXPIRES_AT = "exp";
+
+    private final Set<String> claims;
+
+    public JwtPayloadReader() {
+        this(Collections.emptySet());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param claims names of additional top-level claims to capture
+     */
+
+    public JwtPayloadReader(Collection<String> claims) {
+        this.claims = Set.copyOf(claims);
+    }
+
+    /**
+     * Read a serialized (signed) token.
+     *
+     * @param token the raw token value
+     * @return payload
+     * @throws ParseException if the token is malformed
+     */
+
+    public JwtPayload read(String token) throws ParseException {
+        int headerEnd = token.indexOf('.');
+        if (headerEnd == -1) {
+            throw new ParseException("Invalid serialized JWT, missing part delimiters", 0);
+        }
+        int payloadEnd = token.indexOf('.', headerEnd + 1);
+        if (payloadEnd == -1) {
+            throw new ParseException("Invalid serialized JWT, missing second part delimiter", headerEnd);
+        }
+        if (token.indexOf('.', payloadEnd + 1) != -1) {
+            throw new ParseException("Encrypted JWTs are not supported", payloadEnd);
+        }
+
+        String keyId = readHeader(decode(token, 0, headerEnd));
+
+        return readPayload(keyId, decode(token, headerEnd + 1, payloadEnd), headerEnd + 1);
+    }
+
+    private String readHeader(byte[] header) throws ParseException {
+        String keyId = null;
+        try (JsonParser parser = JSON_FACTORY.createParser(ObjectReadContext.empty(), header)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ParseException("Invalid JWT header, expected JSON object", 0);
+            }
+            String name;
+            while ((name = parser.nextName()) != null) {
+                JsonToken value = parser.nextToken();
+                if (KEY_ID.equals(name) && value == JsonToken.VALUE_STRING) {
+                    keyId = parser.getString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (JacksonException e) {
+            throw toParseException("Invalid JWT header", 0, e);
+        }
+        return keyId;
+    }
+
+    private JwtPayload readPayload(String keyId, byte[] payload, int offset) throws ParseException {
+        String issuer = null;
+        Instant expiresAt = null;
+        Map<String, Object> values = null;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(ObjectReadContext.empty(), payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ParseException("Invalid JWT payload, expected JSON object", offset);
+            }
+            String name;
+            while ((name = parser.nextName()) != null) {
+                JsonToken value = parser.nextToken();
+                if (ISSUER.equals(name)) {
+                    if (value == JsonToken.VALUE_STRING) {
+                        issuer = parser.getString();
+                    } else if (value != JsonToken.VALUE_NULL) {
+                        throw new ParseException("The iss claim is not a String", offset);
+                    }
+                } else if (EXPIRES_AT.equals(name)) {
+                    if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+                        expiresAt = Instant.ofEpochSecond(value == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : (long) parser.getDoubleValue());
+                    } else if (value != JsonToken.VALUE_NULL) {
+                        throw new ParseException("The exp claim is not a number", offset);
+                    }
+                } else if (claims.contains(name)) {
+                    Object scalar = getScalar(parser, value);
+                    if (scalar != null) {
+                        if (values == null) {
+                            values = new HashMap<>(claims.size() * 2);
+                        }
+                        values.put(name, scalar);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (JacksonException | DateTimeException e) {
+            throw toParseException("Invalid JWT payload", offset, e);
+        }
+
+        return new JwtPayload(keyId, issuer, expiresAt, values != null ? values : Collections.emptyMap());
+    }
+
+    private static Object getScalar(JsonParser parser, JsonToken value) {
+        switch (value) {
+            case VALUE_STRING:
+                return parser.getString();
+            case VALUE_NUMBER_INT:
+                if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                    return null;
+                }
+                return parser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                parser.skipChildren();
+                return null;
+        }
+    }
+
+    private static byte[] decode(String token, int start, int end) throws ParseException {
+        byte[] encoded = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            char c = token.charAt(i);
+            if (c > 127) {
+                throw new ParseException("Invalid base64url character", i);
+            }
+            encoded[i - start] = (byte) c;
+        }
+        try {
+            return Base64.getUrlDecoder().decode(encoded);
+        } catch (IllegalArgumentException e) {
+            throw toParseException("Invalid base64url encoding", start, e);
+        }
+    }
+
+    private static ParseException toParseException(String message, int offset, Exception cause) {
+        ParseException e = new ParseException(message + ": " + cause.getMessage(), offset);
+        e.initCause(cause);
+        return e;
+    }
+
+    public Set<String> getClaims() {
+        return claims;
+    }
+}
@@ -0,0 +1,67 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.util.Assert;
+
+import java.text.ParseException;
+import java.util.Collection;
+
+/**
+ *
+ * Reads the payload of a token before verification, for routing by issuer, and rejects
+ * tokens which are malformed or expired before any signature work is done.
+ *
+ */
+
+public class JwtPayloadValidator {
+
+    private static final String DECODING_ERROR_MESSAGE_TEMPLATE = "An error occurred while attempting to decode the Jwt: %s";
+
+    private final JwtPayloadReader jwtPayloadReader;
+
+    private final CompiledJwtValidator jwtValidator;
+
+    /**
+     * Constructor
+     *
+     * @param jwtPayloadReader payload reader
+     * @param jwtValidator validator for the expiry time, or null to skip the expiry check
+     */
+
+    public JwtPayloadValidator(JwtPayloadReader jwtPayloadReader, CompiledJwtValidator jwtValidator) {
+        Assert.notNull(jwtPayloadReader, "jwtPayloadReader cannot be null");
+        this.jwtPayloadReader = jwtPayloadReader;
+        this.jwtValidator = jwtValidator;
+    }
+
+    /**
+     * Read and check a token.
+     *
+     * @param token the raw token value
+     * @return unverified payload
+     * @throws ParseException if the token is malformed
+     * @throws JwtValidationException if the token is expired
+     */
+
+    public JwtPayload validate(String token) throws ParseException, JwtValidationException {
+        JwtPayload payload = jwtPayloadReader.read(token);
+        if (jwtValidator != null) {
+            OAuth2TokenValidatorResult result = jwtValidator.validate(payload);
+            if (result.hasErrors()) {
+                Collection<OAuth2Error> errors = result.getErrors();
+                throw new JwtValidationException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, errors.iterator().next().getDescription()), errors);
+            }
+        }
+        return payload;
+    }
+
+    public JwtPayloadReader getJwtPayloadReader() {
+        return jwtPayloadReader;
+    }
+
+    public CompiledJwtValidator getJwtValidator() {
+        return jwtValidator;
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -14,6 +15,19 @@ public class KeycloakJwtAuthorityEnricher implements JwtAuthorityEnricher {
 
     private static Logger logger = LoggerFactory.getLogger(KeycloakJwtAuthorityEnricher.class);
 
+    private final GrantedAuthorityInterner interner;
+    private final GrantedAuthoritiesCache<Map<?, ?>> cache;
+
+    public KeycloakJwtAuthorityEnricher() {
+        this(GrantedAuthorityInterner.DEFAULT_MAXIMUM_SIZE, new GrantedAuthoritiesCache<>());
+    }
+
+    public KeycloakJwtAuthorityEnricher(int maximumInternedRoles, GrantedAuthoritiesCache<Map<?, ?>> cache) {
+        // interned by role, so that the role prefix is not concatenated for every token
+        this.interner = new GrantedAuthorityInterner(maximumInternedRoles, (role) -> new SimpleGrantedAuthority(asRole(role)));
+        this.cache = cache;
+    }
+
     @Override
     public void enrich(Collection<GrantedAuthority> current, Jwt jwt) {
         // keycloak
@@ -37,39 +51,61 @@ public class KeycloakJwtAuthorityEnricher implements JwtAuthorityEnricher {
         Object resourceAccess = jwt.getClaim("resource_access");
         if (resourceAccess != null) {
             Map<String, Object> map = (Map<String, Object>) resourceAccess;
-            for (Map.Entry<String, Object> entry : map.entrySet()) {
 
-                // skip account permissions
-                // see
-                // https://github.com/keycloak/keycloak/blob/master/adapters/oidc/adapter-core/src/main/java/org/keycloak/adapters/AdapterUtils.java#L39
-                if (entry.getKey().equals("account")) {
-                    continue;
-                }
-                Object value = entry.getValue();
+            // the same roles are typically seen over and over
+            List<GrantedAuthority> authorities = cache.get(map);
+            if (authorities == null) {
+                List<GrantedAuthority> converted = new ArrayList<>();
+                addRoles(converted, map);
+                authorities = cache.put(map, converted);
+            }
+            current.addAll(authorities);
+        }
+    }
 
-                if (value instanceof Map) {
-                    Object rolesObject = ((Map) value).get("roles");
+    protected void addRoles(Collection<GrantedAuthority> current, Map<String, Object> map) {
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
 
-                    if (rolesObject instanceof List) {
-                        List<String> roles = (List<String>) rolesObject;
+            // skip account permissions
+            // see
+            // https://github.com/keycloak/keycloak/blob/master/adapters/oidc/adapter-core/src/main/java/org/keycloak/adapters/AdapterUtils.java#L39
+            if (entry.getKey().equals("account")) {
+                continue;
+            }
+            Object value = entry.getValue();
 
-                        for (String role : roles) {
-                            current.add(new SimpleGrantedAuthority(asRole(role)));
-                        }
-                    } else if (rolesObject instanceof String[]) {
-                        String[] roles = (String[]) rolesObject;
+            if (value instanceof Map) {
+                Object rolesObject = ((Map) value).get("roles");
 
-                        for (String role : roles) {
-                            current.add(new SimpleGrantedAuthority(asRole(role)));
-                        }
-                    } else {
-                        logger.warn("Unable to map roles {} of type {} to an authority; expected List or array", rolesObject, rolesObject.getClass().getName());
+                if (rolesObject instanceof List) {
+                    List<String> roles = (List<String>) rolesObject;
+
+                    for (String role : roles) {
+                        current.add(interner.intern(role));
+                    }
+                } else if (rolesObject instanceof String[]) {
+                    String[] roles = (String[]) rolesObject;
+
+                    for (String role : roles) {
+                        current.add(interner.intern(role));
                     }
+                } else {
+                    logger.warn("Unable to map roles {} of type {} to an authority; expected List or array", rolesObject, rolesObject.getClass().getName());
                 }
             }
         }
     }
 
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public List<String> getClaimNames() {
+        return List.of("resource_access");
+    }
+
     protected String asRole(String role) {
         if (role.startsWith("ROLE_")) {
             return role;
@@ -0,0 +1,40 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+
+import java.io.Serial;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ *
+ * {@linkplain Jwt} which exposes its claims as a {@linkplain LazyJwtClaims} view, rather than copying
+ * all claims into new maps. Only the registered claims are converted up front, as they are needed for
+ * the issued-at / expires-at fields and for validation. Serializes as a plain {@linkplain Jwt}.
+ *
+ */
+
+public class LazyJwt extends Jwt {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final transient LazyJwtClaims claims;
+
+    public LazyJwt(String tokenValue, Map<String, Object> headers, Map<String, Object> registeredClaims, Map<String, Object> parsedClaims) {
+        // the superclass only holds a copy of the (few) registered claims
+        super(tokenValue, (Instant) registeredClaims.get(JwtClaimNames.IAT), (Instant) registeredClaims.get(JwtClaimNames.EXP), headers, registeredClaims.isEmpty() ? parsedClaims : registeredClaims);
+        this.claims = new LazyJwtClaims(registeredClaims, parsedClaims);
+    }
+
+    @Override
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    @Serial
+    protected Object writeReplace() {
+        return new Jwt(getTokenValue(), getIssuedAt(), getExpiresAt(), getHeaders(), getClaims());
+    }
+}
@@ -0,0 +1,135 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ *
+ * Unmodifiable claims map which overlays the converted registered claims (iss, sub, aud, exp, nbf, iat and jti)
+ * on top of the parsed claims. Other claims are returned as parsed, i.e. nested objects and arrays
+ * are the parsed JSON values, and the parsed claims are never copied.
+ *
+ */
+
+public class LazyJwtClaims extends AbstractMap<String, Object> {
+
+    public static final Set<String> REGISTERED_CLAIM_NAMES = Set.of(JwtClaimNames.ISS, JwtClaimNames.SUB, JwtClaimNames.AUD, JwtClaimNames.EXP, JwtClaimNames.NBF, JwtClaimNames.IAT, JwtClaimNames.JTI);
+
+    private final Map<String, Object> registeredClaims;
+    private final Map<String, Object> parsedClaims;
+
+    private Set<Entry<String, Object>> entrySet;
+    private int size = -1;
+
+    /**
+     * Constructor
+     *
+     * @param registeredClaims converted registered claims
+     * @param parsedClaims parsed claims (including the unconverted registered claims)
+     */
+
+    public LazyJwtClaims(Map<String, Object> registeredClaims, Map<String, Object> parsedClaims) {
+        this.registeredClaims = registeredClaims;
+        this.parsedClaims = parsedClaims;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (REGISTERED_CLAIM_NAMES.contains(key)) {
+            return registeredClaims.get(key);
+        }
+        return parsedClaims.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (REGISTERED_CLAIM_NAMES.contains(key)) {
+            return registeredClaims.containsKey(key);
+        }
+        return parsedClaims.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        int size = this.size;
+        if (size == -1) {
+            size = registeredClaims.size();
+            for (String key : parsedClaims.keySet()) {
+                if (!REGISTERED_CLAIM_NAMES.contains(key)) {
+                    size++;
+                }
+            }
+            this.size = size;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        Set<Entry<String, Object>> entrySet = this.entrySet;
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return LazyJwtClaims.this.size();
+                }
+            };
+            this.entrySet = entrySet;
+        }
+        return entrySet;
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private final Iterator<Entry<String, Object>> registered = registeredClaims.entrySet().iterator();
+        private final Iterator<Entry<String, Object>> parsed = parsedClaims.entrySet().iterator();
+
+        private Entry<String, Object> next;
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (registered.hasNext()) {
+                Entry<String, Object> entry = registered.next();
+                next = new SimpleImmutableEntry<>(entry);
+                return true;
+            }
+            while (parsed.hasNext()) {
+                Entry<String, Object> entry = parsed.next();
+                if (!REGISTERED_CLAIM_NAMES.contains(entry.getKey())) {
+                    next = new SimpleImmutableEntry<>(entry);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, Object> entry = next;
+            next = null;
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.util.Assert;
+
+/**
+ *
+ * {@linkplain JwtDecoder} which reports decode latency and failures to {@linkplain JwtDecoderMetrics}.
+ *
+ */
+
+public class MetricsJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final JwtDecoderMetrics metrics;
+
+    public MetricsJwtDecoder(JwtDecoder delegate, JwtDecoderMetrics metrics) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(metrics, "metrics cannot be null");
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        long start = System.nanoTime();
+        try {
+            Jwt jwt = delegate.decode(token);
+            metrics.onDecode(System.nanoTime() - start, true);
+            return jwt;
+        } catch (RuntimeException e) {
+            metrics.onDecode(System.nanoTime() - start, false);
+            metrics.onFailure(JwtDecoderMetrics.Failure.of(e));
+            throw e;
+        }
+    }
+
+    public JwtDecoder getDelegate() {
+        return delegate;
+    }
+
+    public JwtDecoderMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -4,9 +4,11 @@ import org.entur.jwt.spring.properties.jwk.JwtClaimConstraintProperties;
 import org.entur.jwt.spring.properties.jwk.JwtClaimsProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
 
 import java.time.Duration;
 import java.util.ArrayList;
@@ -17,8 +19,43 @@ public class OAuth2TokenValidatorFactory {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JwtAutoConfiguration.class);
 
+    /**
+     * Create claim validators. The returned list contains a single {@linkplain CompiledJwtValidator};
+     * use {@linkplain #forIssuer(String, List)} to add the issuer check to it.
+     *
+     * @param claims claim properties
+     * @return list of validators
+     */
+
     public List<OAuth2TokenValidator<Jwt>> create(JwtClaimsProperties claims) {
         List<OAuth2TokenValidator<Jwt>> claimValidators = new ArrayList<>();
+        claimValidators.add(compile(claims));
+        return claimValidators;
+    }
+
+    public CompiledJwtValidator compile(JwtClaimsProperties claims) {
+        List<CompiledJwtValidator.ClaimConstraint> constraints = new ArrayList<>();
+
+        for (JwtClaimConstraintProperties valueConstraint : getValueConstraints(claims)) {
+            constraints.add(new CompiledJwtValidator.ClaimConstraint(valueConstraint.getName(), toDataValuePredicate(valueConstraint)));
+        }
+
+        for (JwtClaimConstraintProperties dataTypeConstraint : getDataTypeConstraints(claims)) {
+            constraints.add(new CompiledJwtValidator.ClaimConstraint(dataTypeConstraint.getName(), toDataTypePredicate(dataTypeConstraint)));
+        }
+
+        return new CompiledJwtValidator(null, claims.getAudiences(), Duration.ofSeconds(claims.getExpiresAtLeeway()), Duration.ofSeconds(claims.getIssuedAtLeeway()), constraints);
+    }
+
+    /**
+     * Create claim validators, one per check.
+     *
+     * @param claims claim properties
+     * @return list of validators
+     */
+
+    public List<OAuth2TokenValidator<Jwt>> createValidators(JwtClaimsProperties claims) {
+        List<OAuth2TokenValidator<Jwt>> claimValidators = new ArrayList<>();
 
         List<String> audiences = claims.getAudiences();
         if (!audiences.isEmpty()) {
@@ -41,11 +78,61 @@ public class OAuth2TokenValidatorFactory {
         return claimValidators;
     }
 
+    /**
+     * Combine an issuer check with a list of validators. If the list contains a {@linkplain CompiledJwtValidator},
+     * the issuer check is compiled into it.
+     *
+     * @param issuer required issuer
+     * @param validators validators
+     * @return validator
+     */
+
+    public static OAuth2TokenValidator<Jwt> forIssuer(String issuer, List<OAuth2TokenValidator<Jwt>> validators) {
+        CompiledJwtValidator compiled = null;
+        List<OAuth2TokenValidator<Jwt>> remaining = new ArrayList<>();
+        for (OAuth2TokenValidator<Jwt> validator : validators) {
+            if (compiled == null && validator instanceof CompiledJwtValidator compiledJwtValidator && compiledJwtValidator.getIssuer() == null) {
+                compiled = compiledJwtValidator.withIssuer(issuer);
+            } else {
+                remaining.add(validator);
+            }
+        }
+        if (compiled == null) {
+            remaining.add(0, new JwtIssuerValidator(issuer));
+            return new DelegatingOAuth2TokenValidator<>(remaining);
+        }
+        if (remaining.isEmpty()) {
+            return compiled;
+        }
+        remaining.add(0, compiled);
+        return new DelegatingOAuth2TokenValidator<>(remaining);
+    }
+
+    /**
+     * Get the compiled validator from a list of validators.
+     *
+     * @param validators validators
+     * @return the first {@linkplain CompiledJwtValidator}, or null if none
+     */
+
+    public static CompiledJwtValidator getCompiledJwtValidator(List<OAuth2TokenValidator<Jwt>> validators) {
+        for (OAuth2TokenValidator<Jwt> validator : validators) {
+            if (validator instanceof CompiledJwtValidator compiledJwtValidator) {
+                return compiledJwtValidator;
+            }
+        }
+        return null;
+    }
+
     private <T> JwtClaimValidator<T> toTypeConstraint(JwtClaimConstraintProperties dataTypeConstraint) {
+        Predicate<T> predicate = toDataTypePredicate(dataTypeConstraint);
+        return new JwtClaimValidator<>(dataTypeConstraint.getName(), predicate);
+    }
+
+    private <T> Predicate<T> toDataTypePredicate(JwtClaimConstraintProperties dataTypeConstraint) {
         Class<?> typeClass = getTypeClass(dataTypeConstraint.getType());
 
-        Predicate<T> predicate = (Predicate<T>) new DataTypePredicate<>(typeClass);
-        return new JwtClaimValidator<>(dataTypeConstraint.getName(), predicate);
+        return (Predicate<T>) new DataTypePredicate<>(typeClass);
     }
 
     private Class<?> getTypeClass(String type) {
@@ -0,0 +1,181 @@
+package org.entur.jwt.spring;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.PlainJWT;
+import com.nimbusds.jwt.proc.JWTProcessor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+import org.springframework.util.Assert;
+
+import java.text.ParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *
+ * {@linkplain JwtDecoder} which can also decode an already parsed {@linkplain JWT}, so that
+ * callers which must look inside the token before decoding (i.e. to route by issuer)
+ * do not have to parse the token a second time.<br><br>
+ *
+ * Verification, claim conversion, validation and error handling is equivalent to
+ * {@linkplain org.springframework.security.oauth2.jwt.NimbusJwtDecoder}. Unless a custom claim set converter is
+ * supplied, decoded tokens are {@linkplain LazyJwt}s: only the registered claims are converted,
+ * other claims are exposed as parsed without copying.
+ */
+
+public class ParsedJwtDecoder implements JwtDecoder {
+
+    private static final String DECODING_ERROR_MESSAGE_TEMPLATE = "An error occurred while attempting to decode the Jwt: %s";
+
+    private final JWTProcessor<SecurityContext> jwtProcessor;
+
+    private final OAuth2TokenValidator<Jwt> jwtValidator;
+
+    private final Converter<Map<String, Object>, Map<String, Object>> claimSetConverter;
+
+    /** if true, only the registered claims are passed through the claim set converter */
+    private final boolean lazyClaims;
+
+    public ParsedJwtDecoder(JWTProcessor<SecurityContext> jwtProcessor, OAuth2TokenValidator<Jwt> jwtValidator) {
+        this(jwtProcessor, jwtValidator, MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap()), true);
+    }
+
+    public ParsedJwtDecoder(JWTProcessor<SecurityContext> jwtProcessor, OAuth2TokenValidator<Jwt> jwtValidator, Converter<Map<String, Object>, Map<String, Object>> claimSetConverter) {
+        this(jwtProcessor, jwtValidator, claimSetConverter, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param jwtProcessor token processor (signature verification)
+     * @param jwtValidator token validator
+     * @param claimSetConverter claim set converter
+     * @param lazyClaims if true, the claim set converter only sees the registered claims, and other claims are exposed as parsed
+     */
+
+    public ParsedJwtDecoder(JWTProcessor<SecurityContext> jwtProcessor, OAuth2TokenValidator<Jwt> jwtValidator, Converter<Map<String, Object>, Map<String, Object>> claimSetConverter, boolean lazyClaims) {
+        Assert.notNull(jwtProcessor, "jwtProcessor cannot be null");
+        Assert.notNull(jwtValidator, "jwtValidator cannot be null");
+        Assert.notNull(claimSetConverter, "claimSetConverter cannot be null");
+        this.jwtProcessor = jwtProcessor;
+        this.jwtValidator = jwtValidator;
+        this.claimSetConverter = claimSetConverter;
+        this.lazyClaims = lazyClaims;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        JWT jwt;
+        try {
+            jwt = JWTParser.parse(token);
+        } catch (Exception ex) {
+            throw new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+        }
+        return decode(token, jwt);
+    }
+
+    /**
+     * Decode a token which has already been parsed.
+     *
+     * @param token the raw token value
+     * @param jwt the parsed token
+     * @return verified and validated token
+     * @throws JwtException if the token could not be verified or validated
+     */
+
+    public Jwt decode(String token, JWT jwt) throws JwtException {
+        if (jwt instanceof PlainJWT) {
+            throw new BadJwtException("Unsupported algorithm of " + jwt.getHeader().getAlgorithm());
+        }
+        Jwt createdJwt = createJwt(token, jwt);
+        return validateJwt(createdJwt);
+    }
+
+    private Jwt createJwt(String token, JWT parsedJwt) {
+        try {
+            // verify the signature
+            JWTClaimsSet jwtClaimsSet = jwtProcessor.process(parsedJwt, null);
+            if (lazyClaims) {
+                return createLazyJwt(token, parsedJwt, jwtClaimsSet);
+            }
+            Map<String, Object> headers = new LinkedHashMap<>(parsedJwt.getHeader().toJSONObject());
+            Map<String, Object> claims = claimSetConverter.convert(jwtClaimsSet.getClaims());
+            return Jwt.withTokenValue(token)
+                    .headers((h) -> h.putAll(headers))
+                    .claims((c) -> c.putAll(claims))
+                    .build();
+        } catch (RemoteKeySourceException ex) {
+            if (ex.getCause() instanceof ParseException) {
+                throw new JwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, "Malformed Jwk set"), ex);
+            }
+            throw new JwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+        } catch (JOSEException ex) {
+            throw new JwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+        } catch (Exception ex) {
+            if (ex.getCause() instanceof ParseException) {
+                throw new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, "Malformed payload"), ex);
+            }
+            throw new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+        }
+    }
+
+    private Jwt createLazyJwt(String token, JWT parsedJwt, JWTClaimsSet jwtClaimsSet) {
+        Map<String, Object> parsedClaims = jwtClaimsSet.getClaims();
+
+        Map<String, Object> registeredClaims = new HashMap<>(16);
+        for (String name : LazyJwtClaims.REGISTERED_CLAIM_NAMES) {
+            Object value = parsedClaims.get(name);
+            if (value != null) {
+                registeredClaims.put(name, value);
+            }
+        }
+        return new LazyJwt(token, parsedJwt.getHeader().toJSONObject(), claimSetConverter.convert(registeredClaims), parsedClaims);
+    }
+
+    private Jwt validateJwt(Jwt jwt) {
+        OAuth2TokenValidatorResult result = jwtValidator.validate(jwt);
+        if (result.hasErrors()) {
+            Collection<OAuth2Error> errors = result.getErrors();
+            throw new JwtValidationException(getJwtValidationExceptionMessage(errors), errors);
+        }
+        return jwt;
+    }
+
+    private String getJwtValidationExceptionMessage(Collection<OAuth2Error> errors) {
+        for (OAuth2Error oAuth2Error : errors) {
+            String description = oAuth2Error.getDescription();
+            if (description != null && !description.isEmpty()) {
+                return String.format(DECODING_ERROR_MESSAGE_TEMPLATE, description);
+            }
+        }
+        return "Unable to validate Jwt";
+    }
+
+    public JWTProcessor<SecurityContext> getJwtProcessor() {
+        return jwtProcessor;
+    }
+
+    public OAuth2TokenValidator<Jwt> getJwtValidator() {
+        return jwtValidator;
+    }
+
+    public boolean isLazyClaims() {
+        return lazyClaims;
+    }
+}
@@ -0,0 +1,118 @@
+package org.entur.jwt.spring;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSetCacheRefreshEvaluator;
+import com.nimbusds.jose.jwk.source.JWKSetParseException;
+import com.nimbusds.jose.jwk.source.JWKSetRetrievalException;
+import com.nimbusds.jose.jwk.source.JWKSetSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+
+import java.io.IOException;
+import java.net.URL;
+import java.text.ParseException;
+
+/**
+ *
+ * URL-based {@linkplain JWKSetSource} which, when used with a {@linkplain HttpClientResourceRetriever},
+ * does not parse the JWK set again when the server responds {@code 304 Not Modified}, and does not
+ * contact the server at all while the last response is still fresh (per {@code Cache-Control: max-age}),
+ * unless a refresh is forced, i.e. because of an unknown key id after key rotation.<br><br>
+ *
+ * The Nimbus caching sources use the same refresh evaluator when the cache expires as when a refresh is forced,
+ * so the two are told apart by the age of the cached JWK set: only a refresh of a JWK set which has been
+ * cached for at least the cache time to live is treated as an expiry. A fresh response then extends the cache
+ * time to live up to the max-age of the server. Refreshes ahead of expiry always contact the server.
+ *
+ * @param <C> security context
+ */
+
+public class ResourceJwkSetSource<C extends SecurityContext> implements JWKSetSource<C> {
+
+    private final URL url;
+    private final ResourceRetriever resourceRetriever;
+    private final long cacheTimeToLive; // milliseconds
+
+    private volatile JWKSet jwkSet;
+    private volatile HttpClientResourceRetriever.HttpResource httpResource;
+    private volatile long loaded; // time the JWK set was last returned
+
+    public ResourceJwkSetSource(URL url, ResourceRetriever resourceRetriever) {
+        this(url, resourceRetriever, 0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param url JWK set location
+     * @param resourceRetriever resource retriever
+     * @param cacheTimeToLive time to live (in milliseconds) of the caching source wrapping this source, or 0 if not cached
+     */
+
+    public ResourceJwkSetSource(URL url, ResourceRetriever resourceRetriever, long cacheTimeToLive) {
+        this.url = url;
+        this.resourceRetriever = resourceRetriever;
+        this.cacheTimeToLive = cacheTimeToLive;
+    }
+
+    @Override
+    public JWKSet getJWKSet(JWKSetCacheRefreshEvaluator refreshEvaluator, long currentTime, C context) throws KeySourceException {
+        JWKSet jwkSet = this.jwkSet;
+        HttpClientResourceRetriever.HttpResource httpResource = this.httpResource;
+        if (jwkSet != null && httpResource != null && httpResource.isFresh(currentTime) && !isForcedRefresh(refreshEvaluator, jwkSet, currentTime)) {
+            this.loaded = currentTime;
+            return jwkSet;
+        }
+
+        Resource resource;
+        try {
+            resource = resourceRetriever.retrieveResource(url);
+        } catch (IOException e) {
+            throw new JWKSetRetrievalException("Couldn't retrieve JWK set from URL: " + e.getMessage(), e);
+        }
+
+        httpResource = resource instanceof HttpClientResourceRetriever.HttpResource r ? r : null;
+        if (httpResource != null && httpResource.isNotModified() && jwkSet != null) {
+            // skip parsing, return the same instance
+            this.httpResource = httpResource;
+            this.loaded = currentTime;
+            return jwkSet;
+        }
+
+        try {
+            jwkSet = JWKSet.parse(resource.getContent());
+        } catch (ParseException e) {
+            throw new JWKSetParseException("Unable to parse JWK set", e);
+        }
+        this.jwkSet = jwkSet;
+        this.httpResource = httpResource;
+        this.loaded = currentTime;
+        return jwkSet;
+    }
+
+    protected boolean isForcedRefresh(JWKSetCacheRefreshEvaluator refreshEvaluator, JWKSet jwkSet, long currentTime) {
+        if (!refreshEvaluator.requiresRefresh(jwkSet)) {
+            return false;
+        }
+        // a refresh of an expired cache entry is not forced
+        return cacheTimeToLive <= 0 || currentTime - loaded < cacheTimeToLive;
+    }
+
+    public URL getUrl() {
+        return url;
+    }
+
+    public ResourceRetriever getResourceRetriever() {
+        return resourceRetriever;
+    }
+
+    public long getCacheTimeToLive() {
+        return cacheTimeToLive;
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+}
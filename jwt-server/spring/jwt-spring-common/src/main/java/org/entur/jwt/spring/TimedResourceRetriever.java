@@ -0,0 +1,98 @@
+package org.entur.jwt.spring;
+
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jose.util.events.Event;
+import com.nimbusds.jose.util.events.EventListener;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ *
+ * {@linkplain ResourceRetriever} which notifies an {@linkplain EventListener} of the duration of each retrieval,
+ * so that JWK fetch latency is reported alongside the JWK source events.
+ *
+ */
+
+public class TimedResourceRetriever implements ResourceRetriever {
+
+    public static class FetchEvent implements Event<TimedResourceRetriever, SecurityContext> {
+
+        private final TimedResourceRetriever source;
+        private final URL url;
+        private final long duration;
+        private final Exception exception;
+
+        public FetchEvent(TimedResourceRetriever source, URL url, long duration, Exception exception) {
+            this.source = source;
+            this.url = url;
+            this.duration = duration;
+            this.exception = exception;
+        }
+
+        @Override
+        public TimedResourceRetriever getSource() {
+            return source;
+        }
+
+        @Override
+        public SecurityContext getContext() {
+            return null;
+        }
+
+        public URL getUrl() {
+            return url;
+        }
+
+        /**
+         * Get the fetch duration.
+         *
+         * @return duration in nanoseconds
+         */
+
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * Get the fetch failure.
+         *
+         * @return the exception, or null if the fetch was successful
+         */
+
+        public Exception getException() {
+            return exception;
+        }
+
+        public boolean isSuccess() {
+            return exception == null;
+        }
+    }
+
+    private final ResourceRetriever delegate;
+    private final EventListener eventListener;
+
+    public TimedResourceRetriever(ResourceRetriever delegate, EventListener eventListener) {
+        this.delegate = delegate;
+        this.eventListener = eventListener;
+    }
+
+    @Override
+    public Resource retrieveResource(URL url) throws IOException {
+        long start = System.nanoTime();
+        try {
+            Resource resource = delegate.retrieveResource(url);
+            eventListener.notify(new FetchEvent(this, url, System.nanoTime() - start, null));
+            return resource;
+        } catch (IOException | RuntimeException e) {
+            eventListener.notify(new FetchEvent(this, url, System.nanoTime() - start, e));
+            throw e;
+        }
+    }
+
+    public ResourceRetriever getDelegate() {
+        return delegate;
+    }
+}
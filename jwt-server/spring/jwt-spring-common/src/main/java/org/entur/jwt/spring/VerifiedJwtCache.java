@@ -0,0 +1,196 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ *
+ * Bounded cache of verified tokens, keyed by the raw token value. Entries expire no later than
+ * the token expiry minus a leeway. Tokens without an expiry are not cached.<br><br>
+ *
+ * When full, expired entries are removed first, then (arbitrary) entries until the cache is at
+ * three quarters of its capacity. Concurrent inserts during eviction might temporarily overshoot
+ * the maximum size slightly.
+ *
+ */
+
+public class VerifiedJwtCache {
+
+    protected static class Entry {
+
+        private final Jwt jwt;
+        private final long expires;
+
+        public Entry(Jwt jwt, long expires) {
+            this.jwt = jwt;
+            this.expires = expires;
+        }
+
+        public Jwt getJwt() {
+            return jwt;
+        }
+
+        public long getExpires() {
+            return expires;
+        }
+    }
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    private final int maximumSize;
+    private final int evictionTargetSize;
+    private final long leeway;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Constructor
+     *
+     * @param maximumSize maximum number of entries
+     * @param leeway time in milliseconds entries are removed before the token expires
+     */
+
+    public VerifiedJwtCache(int maximumSize, long leeway) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Expected positive maximum size");
+        }
+        if (leeway < 0) {
+            throw new IllegalArgumentException("Expected non-negative leeway");
+        }
+        this.maximumSize = maximumSize;
+        this.evictionTargetSize = (maximumSize * 3) / 4;
+        this.leeway = leeway;
+    }
+
+    /**
+     * Get a cached token.
+     *
+     * @param token raw token value
+     * @param time current time in milliseconds
+     * @return the verified token, or null if not present or expired
+     */
+
+    public Jwt get(String token, long time) {
+        Entry entry = cache.get(token);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.getExpires() <= time) {
+            if (cache.remove(token, entry)) {
+                expirations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.getJwt();
+    }
+
+    /**
+     * Add a verified token.
+     *
+     * @param token raw token value
+     * @param jwt the verified token
+     * @param time current time in milliseconds
+     */
+
+    public void put(String token, Jwt jwt, long time) {
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) {
+            return;
+        }
+        long expires = expiresAt.toEpochMilli() - leeway;
+        if (expires <= time) {
+            return;
+        }
+        if (cache.size() >= maximumSize) {
+            evict(time);
+        }
+        cache.put(token, new Entry(jwt, expires));
+        puts.increment();
+    }
+
+    protected void evict(long time) {
+        // let a single thread do the cleanup, others proceed
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            Iterator<Entry> iterator = cache.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getExpires() <= time) {
+                    iterator.remove();
+                    expirations.increment();
+                }
+            }
+
+            if (cache.size() > evictionTargetSize) {
+                iterator = cache.values().iterator();
+                while (iterator.hasNext() && cache.size() > evictionTargetSize) {
+                    iterator.next();
+                    iterator.remove();
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getPutCount() {
+        return puts.sum();
+    }
+
+    /**
+     * Number of entries removed to make room for new entries.
+     *
+     * @return eviction count
+     */
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Number of entries removed because the token (almost) expired.
+     *
+     * @return expiration count
+     */
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+}
@@ -0,0 +1,30 @@
+package org.entur.jwt.spring.actuate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.entur.jwt.spring.JwkSourceMap;
+
+import java.util.Map;
+
+/**
+ *
+ * Exposes JWK source events (refreshes, rate limiting, retries, outage cache use and fetch latency),
+ * tagged by issuer.
+ *
+ */
+
+public class JwkSourceMeterBinder implements MeterBinder {
+
+    private final JwkSourceMap<?> jwkSourceMap;
+
+    public JwkSourceMeterBinder(JwkSourceMap<?> jwkSourceMap) {
+        this.jwkSourceMap = jwkSourceMap;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Map.Entry<String, ListEventListener> entry : jwkSourceMap.getJwkEventListeners().entrySet()) {
+            entry.getValue().addEventListener(new MicrometerJwkSetSourceEventListener(registry, entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.entur.jwt.spring.actuate;
+
+import com.nimbusds.jose.jwk.source.CachingJWKSetSource;
+import com.nimbusds.jose.jwk.source.OutageTolerantJWKSetSource;
+import com.nimbusds.jose.jwk.source.RateLimitedJWKSetSource;
+import com.nimbusds.jose.jwk.source.RefreshAheadCachingJWKSetSource;
+import com.nimbusds.jose.jwk.source.RetryingJWKSetSource;
+import com.nimbusds.jose.util.events.Event;
+import com.nimbusds.jose.util.events.EventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.entur.jwt.spring.TimedResourceRetriever;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts JWK source events for a single issuer.
+ */
+
+public class MicrometerJwkSetSourceEventListener implements EventListener {
+
+    public static final String METRIC_REFRESHES = "entur.jwt.jwks.refreshes";
+    public static final String METRIC_RATE_LIMITED = "entur.jwt.jwks.rate.limited";
+    public static final String METRIC_RETRIES = "entur.jwt.jwks.retries";
+    public static final String METRIC_OUTAGES = "entur.jwt.jwks.outages";
+    public static final String METRIC_FETCH = "entur.jwt.jwks.fetch";
+
+    public static final String TAG_ISSUER = "issuer";
+    public static final String TAG_OUTCOME = "outcome";
+
+    protected final Counter refreshes;
+    protected final Counter refreshFailures;
+    protected final Counter refreshTimeouts;
+    protected final Counter rateLimited;
+    protected final Counter retries;
+    protected final Counter outages;
+    protected final Timer fetchSuccess;
+    protected final Timer fetchFailure;
+
+    public MicrometerJwkSetSourceEventListener(MeterRegistry registry, String issuer) {
+        this.refreshes = refreshCounter(registry, issuer, "success");
+        this.refreshFailures = refreshCounter(registry, issuer, "failure");
+        this.refreshTimeouts = refreshCounter(registry, issuer, "timeout");
+        this.rateLimited = Counter.builder(METRIC_RATE_LIMITED).description("JWK fetches denied by the rate limit").tag(TAG_ISSUER, issuer).register(registry);
+        this.retries = Counter.builder(METRIC_RETRIES).description("JWK fetch retries").tag(TAG_ISSUER, issuer).register(registry);
+        this.outages = Counter.builder(METRIC_OUTAGES).description("JWKs served from the outage cache").tag(TAG_ISSUER, issuer).register(registry);
+        this.fetchSuccess = fetchTimer(registry, issuer, "success");
+        this.fetchFailure = fetchTimer(registry, issuer, "failure");
+    }
+
+    protected static Counter refreshCounter(MeterRegistry registry, String issuer, String outcome) {
+        return Counter.builder(METRIC_REFRESHES).description("JWK cache refreshes").tag(TAG_ISSUER, issuer).tag(TAG_OUTCOME, outcome).register(registry);
+    }
+
+    protected static Timer fetchTimer(MeterRegistry registry, String issuer, String outcome) {
+        return Timer.builder(METRIC_FETCH).description("JWK fetch latency").tag(TAG_ISSUER, issuer).tag(TAG_OUTCOME, outcome).register(registry);
+    }
+
+    @Override
+    public void notify(Event event) {
+        if (event instanceof TimedResourceRetriever.FetchEvent fetchEvent) {
+            Timer timer = fetchEvent.isSuccess() ? fetchSuccess : fetchFailure;
+            timer.record(fetchEvent.getDuration(), TimeUnit.NANOSECONDS);
+        } else if (event instanceof CachingJWKSetSource.RefreshCompletedEvent || event instanceof RefreshAheadCachingJWKSetSource.ScheduledRefreshCompletedEvent) {
+            refreshes.increment();
+        } else if (event instanceof CachingJWKSetSource.UnableToRefreshEvent || event instanceof RefreshAheadCachingJWKSetSource.UnableToRefreshAheadOfExpirationEvent) {
+            refreshFailures.increment();
+        } else if (event instanceof CachingJWKSetSource.RefreshTimedOutEvent) {
+            refreshTimeouts.increment();
+        } else if (event instanceof RateLimitedJWKSetSource.RateLimitedEvent) {
+            rateLimited.increment();
+        } else if (event instanceof RetryingJWKSetSource.RetrialEvent) {
+            retries.increment();
+        } else if (event instanceof OutageTolerantJWKSetSource.OutageEvent) {
+            outages.increment();
+        }
+    }
+}
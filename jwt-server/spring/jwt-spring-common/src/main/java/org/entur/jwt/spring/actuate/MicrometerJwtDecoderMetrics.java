@@ -0,0 +1,49 @@
+package org.entur.jwt.spring.actuate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.entur.jwt.spring.JwtDecoderMetrics;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer {@linkplain JwtDecoderMetrics}.
+ */
+
+public class MicrometerJwtDecoderMetrics implements JwtDecoderMetrics {
+
+    public static final String METRIC_DECODE = "entur.jwt.decode";
+    public static final String METRIC_VALIDATION_FAILURES = "entur.jwt.validation.failures";
+
+    public static final String TAG_OUTCOME = "outcome";
+    public static final String TAG_CAUSE = "cause";
+
+    protected final Timer success;
+    protected final Timer failure;
+
+    protected final Map<Failure, Counter> failures = new EnumMap<>(Failure.class);
+
+    public MicrometerJwtDecoderMetrics(MeterRegistry registry) {
+        this.success = Timer.builder(METRIC_DECODE).description("Token decoding, including signature verification and claim validation").tag(TAG_OUTCOME, "success").register(registry);
+        this.failure = Timer.builder(METRIC_DECODE).description("Token decoding, including signature verification and claim validation").tag(TAG_OUTCOME, "failure").register(registry);
+
+        for (Failure cause : Failure.values()) {
+            failures.put(cause, Counter.builder(METRIC_VALIDATION_FAILURES).description("Rejected tokens").tag(TAG_CAUSE, cause.name().toLowerCase(Locale.ROOT)).register(registry));
+        }
+    }
+
+    @Override
+    public void onDecode(long duration, boolean success) {
+        Timer timer = success ? this.success : this.failure;
+        timer.record(duration, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onFailure(Failure failure) {
+        failures.get(failure).increment();
+    }
+}
@@ -0,0 +1,55 @@
+package org.entur.jwt.spring.actuate;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.entur.jwt.spring.VerifiedJwtCache;
+
+/**
+ *
+ * Exposes the verified token cache using the standard Micrometer cache metrics
+ * ({@code cache.gets}, {@code cache.puts}, {@code cache.evictions}, {@code cache.size}),
+ * plus {@code cache.expirations}.
+ *
+ */
+
+public class VerifiedJwtCacheMeterBinder extends CacheMeterBinder<VerifiedJwtCache> {
+
+    public VerifiedJwtCacheMeterBinder(VerifiedJwtCache cache, String cacheName, Iterable<Tag> tags) {
+        super(cache, cacheName, tags);
+    }
+
+    @Override
+    protected Long size() {
+        return (long) getCache().size();
+    }
+
+    @Override
+    protected long hitCount() {
+        return getCache().getHitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        return getCache().getMissCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return getCache().getEvictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        return getCache().getPutCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("cache.expirations", getCache(), VerifiedJwtCache::getExpirationCount)
+                .tags(getTagsWithCacheName())
+                .description("The number of entries removed because the token expired")
+                .register(registry);
+    }
+}
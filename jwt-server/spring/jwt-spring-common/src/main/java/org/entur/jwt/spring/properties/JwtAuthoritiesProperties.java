@@ -0,0 +1,44 @@
+package org.entur.jwt.spring.properties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * Index of authorities, so that authenticated tokens carry their authorities as a bitset.
+ * Known authorities get the lowest indices; others are indexed as they are seen.
+ *
+ */
+
+public class JwtAuthoritiesProperties {
+
+    private boolean enabled = true;
+
+    private int maximumSize = 4096;
+
+    private List<String> known = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public List<String> getKnown() {
+        return known;
+    }
+
+    public void setKnown(List<String> known) {
+        this.known = known;
+    }
+}
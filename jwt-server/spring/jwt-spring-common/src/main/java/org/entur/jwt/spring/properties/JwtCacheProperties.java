@@ -0,0 +1,42 @@
+package org.entur.jwt.spring.properties;
+
+/**
+ *
+ * Cache of verified tokens; repeated requests with the same token skip signature verification.
+ * Disabled by default.
+ *
+ */
+
+public class JwtCacheProperties {
+
+    private boolean enabled = false;
+
+    private int maximumSize = 10000;
+
+    /** Entries are dropped this many seconds before the token expires */
+    private long expiresAtLeeway = 0; // seconds
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public long getExpiresAtLeeway() {
+        return expiresAtLeeway;
+    }
+
+    public void setExpiresAtLeeway(long expiresAtLeeway) {
+        this.expiresAtLeeway = expiresAtLeeway;
+    }
+}
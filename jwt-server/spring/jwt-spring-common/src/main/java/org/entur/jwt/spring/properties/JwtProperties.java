@@ -19,6 +19,10 @@ public class JwtProperties {
 
     private JwtClaimsProperties claims = new JwtClaimsProperties();
 
+    private JwtCacheProperties cache = new JwtCacheProperties();
+
+    private JwtAuthoritiesProperties authorities = new JwtAuthoritiesProperties();
+
     public Map<String, JwtTenantProperties> getTenants() {
         return tenants;
     }
@@ -62,6 +66,22 @@ public class JwtProperties {
         this.claims = claims;
     }
 
+    public JwtCacheProperties getCache() {
+        return cache;
+    }
+
+    public void setCache(JwtCacheProperties cache) {
+        this.cache = cache;
+    }
+
+    public JwtAuthoritiesProperties getAuthorities() {
+        return authorities;
+    }
+
+    public void setAuthorities(JwtAuthoritiesProperties authorities) {
+        this.authorities = authorities;
+    }
+
     public Flavours getFlavours() {
         return flavours;
     }
@@ -0,0 +1,49 @@
+package org.entur.jwt.spring.properties.jwk;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP caching of the JWK set: conditional requests (ETag / If-Modified-Since) and Cache-Control.
+ */
+
+public class JwkHttpCacheProperties {
+
+    /**
+     * Send conditional requests, so that an unchanged JWK set is not downloaded and parsed again.
+     */
+    protected boolean enabled = true;
+
+    /**
+     * Honour the Cache-Control max-age directive, i.e. do not contact the server while the JWK set is fresh.
+     */
+    protected boolean cacheControl = true;
+
+    /**
+     * Upper limit for max-age, in seconds
+     */
+    protected long maximumAge = TimeUnit.DAYS.toSeconds(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isCacheControl() {
+        return cacheControl;
+    }
+
+    public void setCacheControl(boolean cacheControl) {
+        this.cacheControl = cacheControl;
+    }
+
+    public long getMaximumAge() {
+        return maximumAge;
+    }
+
+    public void setMaximumAge(long maximumAge) {
+        this.maximumAge = maximumAge;
+    }
+}
@@ -18,6 +18,8 @@ public class JwkProperties {
 
     protected JwkRateLimitProperties rateLimit = new JwkRateLimitProperties();
 
+    protected JwkHttpCacheProperties httpCache = new JwkHttpCacheProperties();
+
     /**
      * HTTP connect timeout, in seconds
      */
@@ -28,6 +30,11 @@ public class JwkProperties {
      */
     protected int readTimeout = 15; // seconds
 
+    /**
+     * Maximum size of the JWK set, in bytes
+     */
+    protected int sizeLimit = 51200;
+
     public int getConnectTimeout() {
         return connectTimeout;
     }
@@ -44,6 +51,14 @@ public class JwkProperties {
         this.readTimeout = readTimeout;
     }
 
+    public int getSizeLimit() {
+        return sizeLimit;
+    }
+
+    public void setSizeLimit(int sizeLimit) {
+        this.sizeLimit = sizeLimit;
+    }
+
     public JwkCacheProperties getCache() {
         return cache;
     }
@@ -76,4 +91,12 @@ public class JwkProperties {
         this.retry = retrying;
     }
 
+    public JwkHttpCacheProperties getHttpCache() {
+        return httpCache;
+    }
+
+    public void setHttpCache(JwkHttpCacheProperties httpCache) {
+        this.httpCache = httpCache;
+    }
+
 }
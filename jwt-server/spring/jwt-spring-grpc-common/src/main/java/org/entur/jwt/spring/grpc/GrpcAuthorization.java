@@ -1,9 +1,9 @@
 package org.entur.jwt.spring.grpc;
 
+import org.entur.jwt.spring.JwtAuthorities;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 
 import java.util.Arrays;
@@ -13,7 +13,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Helper class for manual authorization checking.
@@ -94,23 +93,16 @@ public interface GrpcAuthorization {
         if (object instanceof JwtAuthenticationToken) {
             JwtAuthenticationToken authentication = (JwtAuthenticationToken) object;
 
-            if (!hasAnyAuthority(authentication, authorities)) {
-                throw new AccessDeniedException("");
+            if (hasAnyAuthority(authentication, authorities)) {
+                return;
             }
+            throw new AccessDeniedException("");
         }
         throw new AuthenticationCredentialsNotFoundException("");
     }
 
     default boolean hasAnyAuthority(JwtAuthenticationToken authentication, String... authorities) {
-        Collection<GrantedAuthority> grantedAuthorities = authentication.getAuthorities();
-        for (GrantedAuthority grantedAuthority : grantedAuthorities) {
-            for (String string : authorities) {
-                if (grantedAuthority.getAuthority().equals(string)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return JwtAuthorities.hasAnyAuthority(authentication, authorities);
     }
 
     default void requireAllAuthorities(Collection<String> authorities) {
@@ -136,8 +128,7 @@ public interface GrpcAuthorization {
     }
 
     default boolean hasAllAuthorities(JwtAuthenticationToken authentication, Set<String> authorities) {
-        Set<String> grantedAuthorities = authentication.getAuthorities().stream().map(a -> a.getAuthority()).collect(Collectors.toSet());
-        return grantedAuthorities.containsAll(authorities);
+        return JwtAuthorities.hasAllAuthorities(authentication, authorities.toArray(new String[authorities.size()]));
     }
 
 }
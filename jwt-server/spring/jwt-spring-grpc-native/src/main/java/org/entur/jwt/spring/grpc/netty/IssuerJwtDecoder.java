@@ -4,29 +4,33 @@ import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jose.proc.SecurityContext;
-import com.nimbusds.jwt.JWT;
-import com.nimbusds.jwt.JWTParser;
 import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.entur.jwt.spring.CachingJwtDecoder;
 import org.entur.jwt.spring.JwkSourceMap;
-import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.entur.jwt.spring.JwtDecoderMetrics;
+import org.entur.jwt.spring.JwtPayload;
+import org.entur.jwt.spring.JwtPayloadReader;
+import org.entur.jwt.spring.JwtPayloadValidator;
+import org.entur.jwt.spring.MetricsJwtDecoder;
+import org.entur.jwt.spring.OAuth2TokenValidatorFactory;
+import org.entur.jwt.spring.ParsedJwtDecoder;
+import org.entur.jwt.spring.VerifiedJwtCache;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
-import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
 
 import java.text.ParseException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  *
- * Multi-issuer JWT decoder.
+ * Multi-issuer JWT decoder. Tokens are routed by issuer using a streaming {@linkplain JwtPayloadReader},
+ * so that malformed, expired and unknown-issuer tokens are rejected before they are fully parsed and before any signature work.
  *
  */
 
@@ -42,6 +46,9 @@ public class IssuerJwtDecoder implements JwtDecoder {
 
         private List<OAuth2TokenValidator<Jwt>> jwtValidators;
         private JwkSourceMap jwkSourceMap;
+        private VerifiedJwtCache verifiedJwtCache;
+        private JwtDecoderMetrics jwtDecoderMetrics = JwtDecoderMetrics.NOOP;
+        private JwtPayloadReader jwtPayloadReader = new JwtPayloadReader();
 
         public Builder withJwkSourceMap(JwkSourceMap jwkSourceMap) {
             this.jwkSourceMap = jwkSourceMap;
@@ -53,7 +60,40 @@ public class IssuerJwtDecoder implements JwtDecoder {
             return this;
         }
 
+        /**
+         * Cache verified tokens. Cache hits skip both parsing and signature verification.
+         *
+         * @param verifiedJwtCache cache, or null for no caching
+         * @return this builder
+         */
+
+        public Builder withVerifiedJwtCache(VerifiedJwtCache verifiedJwtCache) {
+            this.verifiedJwtCache = verifiedJwtCache;
+            return this;
+        }
+
+        public Builder withJwtDecoderMetrics(JwtDecoderMetrics jwtDecoderMetrics) {
+            this.jwtDecoderMetrics = jwtDecoderMetrics;
+            return this;
+        }
+
+        public Builder withJwtPayloadReader(JwtPayloadReader jwtPayloadReader) {
+            this.jwtPayloadReader = jwtPayloadReader;
+            return this;
+        }
+
         public JwtDecoder build() {
+            JwtDecoder decoder = buildDecoder();
+            if(verifiedJwtCache != null) {
+                decoder = new CachingJwtDecoder(decoder, verifiedJwtCache, CachingJwtDecoder.getTimeDependentValidator(jwtValidators));
+            }
+            if(jwtDecoderMetrics != JwtDecoderMetrics.NOOP) {
+                decoder = new MetricsJwtDecoder(decoder, jwtDecoderMetrics);
+            }
+            return decoder;
+        }
+
+        private JwtDecoder buildDecoder() {
             Map<String, JWKSource> jwkSources = jwkSourceMap.getJwkSources();
 
             Map<String, JwtDecoder> map = new HashMap<>(jwkSources.size() * 4);
@@ -65,48 +105,49 @@ public class IssuerJwtDecoder implements JwtDecoder {
                 JWSVerificationKeySelector keySelector = new JWSVerificationKeySelector(JWSAlgorithm.Family.SIGNATURE, jwkSource);
                 jwtProcessor.setJWSKeySelector(keySelector);
 
-                NimbusJwtDecoder nimbusJwtDecoder = new NimbusJwtDecoder(jwtProcessor);
-                nimbusJwtDecoder.setJwtValidator(getJwtValidators(entry.getKey()));
-
-                map.put(entry.getKey(), nimbusJwtDecoder);
+                map.put(entry.getKey(), new ParsedJwtDecoder(jwtProcessor, getJwtValidators(entry.getKey())));
             }
 
             if(map.size() == 1) {
                 return map.values().iterator().next();
             }
 
-            return new IssuerJwtDecoder(map);
+            return new IssuerJwtDecoder(map, new JwtPayloadValidator(jwtPayloadReader, OAuth2TokenValidatorFactory.getCompiledJwtValidator(jwtValidators)));
         }
 
-        private DelegatingOAuth2TokenValidator<Jwt> getJwtValidators(String issuer) {
-            List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
-            validators.add(new JwtIssuerValidator(issuer));
-            validators.addAll(jwtValidators);
-            DelegatingOAuth2TokenValidator<Jwt> validator = new DelegatingOAuth2TokenValidator<>(validators);
-            return validator;
+        private OAuth2TokenValidator<Jwt> getJwtValidators(String issuer) {
+            return OAuth2TokenValidatorFactory.forIssuer(issuer, jwtValidators);
         }
     }
 
     protected final Map<String, JwtDecoder> decoders;
+    protected final JwtPayloadValidator jwtPayloadValidator;
 
     public IssuerJwtDecoder(Map<String, JwtDecoder> decoders) {
+        this(decoders, new JwtPayloadValidator(new JwtPayloadReader(), null));
+    }
+
+    public IssuerJwtDecoder(Map<String, JwtDecoder> decoders, JwtPayloadValidator jwtPayloadValidator) {
         this.decoders = decoders;
+        this.jwtPayloadValidator = jwtPayloadValidator;
     }
 
     @Override
     public Jwt decode(String token) throws JwtException {
-        // note to self: there is two jwt classes, Jwt and JWT
+        JwtPayload payload;
         try {
-            JWT parse = JWTParser.parse(token);
-
-            JwtDecoder decoder = decoders.get(parse.getJWTClaimsSet().getIssuer());
-            if (decoder != null) {
-                return decoder.decode(token);
-            }
-
-            throw new BadJwtException("Unknown issuer " + parse.getJWTClaimsSet().getIssuer());
+            payload = jwtPayloadValidator.validate(token);
         } catch (ParseException ex) {
             throw new InvalidBearerTokenException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
         }
+
+        String issuer = payload.getIssuer();
+
+        JwtDecoder decoder = decoders.get(issuer);
+        if (decoder != null) {
+            return decoder.decode(token);
+        }
+
+        throw new BadJwtException("Unknown issuer " + issuer);
     }
 }
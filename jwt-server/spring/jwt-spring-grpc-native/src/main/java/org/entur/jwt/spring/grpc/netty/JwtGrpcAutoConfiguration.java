@@ -1,13 +1,17 @@
 package org.entur.jwt.spring.grpc.netty;
 
 import org.entur.jwt.spring.Auth0JwtAuthorityEnricher;
+import org.entur.jwt.spring.AuthorityIndex;
 import org.entur.jwt.spring.DefaultJwtAuthorityEnricher;
 import org.entur.jwt.spring.EnrichedJwtGrantedAuthoritiesConverter;
+import org.entur.jwt.spring.IndexedJwtAuthenticationConverter;
 import org.entur.jwt.spring.JwkSourceMap;
 import org.entur.jwt.spring.JwtAuthorityEnricher;
 import org.entur.jwt.spring.JwtAutoConfiguration;
+import org.entur.jwt.spring.JwtDecoderMetrics;
 import org.entur.jwt.spring.KeycloakJwtAuthorityEnricher;
 import org.entur.jwt.spring.NoUserDetailsService;
+import org.entur.jwt.spring.VerifiedJwtCache;
 import org.entur.jwt.spring.grpc.properties.GrpcPermitAll;
 import org.entur.jwt.spring.grpc.properties.GrpcServicesConfiguration;
 import org.entur.jwt.spring.grpc.properties.ServiceMatcherConfiguration;
@@ -18,6 +22,7 @@ import org.entur.jwt.spring.properties.KeycloakFlavour;
 import org.entur.jwt.spring.properties.SecurityProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -28,16 +33,17 @@ import org.springframework.boot.grpc.server.GrpcServletRegistration;
 import org.springframework.boot.grpc.server.autoconfigure.security.GrpcServerOAuth2ResourceServerAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
 import org.springframework.grpc.server.GlobalServerInterceptor;
 import org.springframework.grpc.server.security.AuthenticationProcessInterceptor;
 import org.springframework.grpc.server.security.GrpcSecurity;
 import org.springframework.grpc.server.security.OAuth2ResourceServerConfigurer;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -98,7 +104,7 @@ public class JwtGrpcAutoConfiguration {
 
     @Bean
     @GlobalServerInterceptor
-    public AuthenticationProcessInterceptor jwtSecurityFilterChain(GrpcSecurity grpcSecurity, List<JwtAuthorityEnricher> jwtAuthorityEnrichers) throws Exception {
+    public AuthenticationProcessInterceptor jwtSecurityFilterChain(GrpcSecurity grpcSecurity, List<JwtAuthorityEnricher> jwtAuthorityEnrichers, @Autowired(required = false) VerifiedJwtCache verifiedJwtCache, JwtDecoderMetrics jwtDecoderMetrics, @Autowired(required = false) AuthorityIndex authorityIndex) throws Exception {
         try {
             grpcSecurity.authorizeRequests((requests) -> {
 
@@ -121,13 +127,14 @@ public class JwtGrpcAutoConfiguration {
             JwtDecoder decoder = IssuerJwtDecoder.newBuilder()
                     .withJwkSourceMap(jwkSourceMap)
                     .withJwtValidators(jwtValidators)
+                    .withVerifiedJwtCache(verifiedJwtCache)
+                    .withJwtDecoderMetrics(jwtDecoderMetrics)
                     .build();
 
             Customizer<OAuth2ResourceServerConfigurer.JwtConfigurer> configurer = new Customizer<OAuth2ResourceServerConfigurer.JwtConfigurer>() {
                 @Override
                 public void customize(OAuth2ResourceServerConfigurer.JwtConfigurer jwtConfigurer) {
-                    JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
-                    jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(new EnrichedJwtGrantedAuthoritiesConverter(getJwtAuthorityEnrichers(jwtAuthorityEnrichers)));
+                    Converter<Jwt, AbstractAuthenticationToken> jwtAuthenticationConverter = IndexedJwtAuthenticationConverter.create(new EnrichedJwtGrantedAuthoritiesConverter(getJwtAuthorityEnrichers(jwtAuthorityEnrichers)), authorityIndex);
 
                     jwtConfigurer.decoder(decoder);
                     jwtConfigurer.jwtAuthenticationConverter(jwtAuthenticationConverter);
@@ -14,6 +14,7 @@ import org.entur.jwt.spring.properties.MdcProperties;
 import org.entur.jwt.spring.properties.SecurityProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -117,7 +118,10 @@ public class JwtWebSecurityChainAutoConfiguration {
                 HttpSecurity http,
                 JwkSourceMap jwkSourceMap,
                 List<JwtAuthorityEnricher> jwtAuthorityEnrichers,
-                List<OAuth2TokenValidator<Jwt>> jwtValidators
+                List<OAuth2TokenValidator<Jwt>> jwtValidators,
+                @Autowired(required = false) VerifiedJwtCache verifiedJwtCache,
+                JwtDecoderMetrics jwtDecoderMetrics,
+                @Autowired(required = false) AuthorityIndex authorityIndex
         ) throws Exception {
 
             AuthorizationProperties authorization = securityProperties.getAuthorization();
@@ -145,7 +149,7 @@ public class JwtWebSecurityChainAutoConfiguration {
                     jwtAuthorityEnrichers = enrichers;
                 }
 
-                http.oauth2ResourceServer(new EnturOauth2ResourceServerCustomizer(jwkSourceMap.getJwkSources(), jwtAuthorityEnrichers, jwtValidators));
+                http.oauth2ResourceServer(new EnturOauth2ResourceServerCustomizer(jwkSourceMap.getJwkSources(), jwtAuthorityEnrichers, jwtValidators, verifiedJwtCache, jwtDecoderMetrics, authorityIndex));
             }
 
             MdcProperties mdc = jwt.getMdc();
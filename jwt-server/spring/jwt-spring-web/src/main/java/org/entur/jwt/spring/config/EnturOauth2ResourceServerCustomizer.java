@@ -5,25 +5,32 @@ import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.entur.jwt.spring.AuthorityIndex;
+import org.entur.jwt.spring.CachingJwtDecoder;
 import org.entur.jwt.spring.EnrichedJwtGrantedAuthoritiesConverter;
+import org.entur.jwt.spring.IndexedJwtAuthenticationConverter;
 import org.entur.jwt.spring.JwtAuthorityEnricher;
+import org.entur.jwt.spring.JwtDecoderMetrics;
+import org.entur.jwt.spring.JwtPayloadReader;
+import org.entur.jwt.spring.JwtPayloadValidator;
+import org.entur.jwt.spring.MetricsJwtDecoder;
+import org.entur.jwt.spring.OAuth2TokenValidatorFactory;
+import org.entur.jwt.spring.ParsedJwtDecoder;
+import org.entur.jwt.spring.VerifiedJwtCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationManagerResolver;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.oauth2.server.resource.OAuth2ResourceServerConfigurer;
-import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
-import org.springframework.security.oauth2.server.resource.authentication.JwtIssuerAuthenticationManagerResolver;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,11 +42,59 @@ public class EnturOauth2ResourceServerCustomizer implements Customizer<OAuth2Res
     private final Map<String, JWKSource> jwkSources;
     private final List<JwtAuthorityEnricher> jwtAuthorityEnrichers;
     private final List<OAuth2TokenValidator<Jwt>> jwtValidators;
+    private final VerifiedJwtCache verifiedJwtCache;
+    private final JwtDecoderMetrics jwtDecoderMetrics;
+    private final AuthorityIndex authorityIndex;
 
     public EnturOauth2ResourceServerCustomizer(Map<String, JWKSource> jwkSources, List<JwtAuthorityEnricher> jwtAuthorityEnrichers, List<OAuth2TokenValidator<Jwt>> jwtValidators) {
+        this(jwkSources, jwtAuthorityEnrichers, jwtValidators, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param jwkSources JWK sources per issuer
+     * @param jwtAuthorityEnrichers authority enrichers
+     * @param jwtValidators validators common for all issuers
+     * @param verifiedJwtCache cache of verified tokens shared by all issuers, or null
+     */
+
+    public EnturOauth2ResourceServerCustomizer(Map<String, JWKSource> jwkSources, List<JwtAuthorityEnricher> jwtAuthorityEnrichers, List<OAuth2TokenValidator<Jwt>> jwtValidators, VerifiedJwtCache verifiedJwtCache) {
+        this(jwkSources, jwtAuthorityEnrichers, jwtValidators, verifiedJwtCache, JwtDecoderMetrics.NOOP);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param jwkSources JWK sources per issuer
+     * @param jwtAuthorityEnrichers authority enrichers
+     * @param jwtValidators validators common for all issuers
+     * @param verifiedJwtCache cache of verified tokens shared by all issuers, or null
+     * @param jwtDecoderMetrics decode metrics
+     */
+
+    public EnturOauth2ResourceServerCustomizer(Map<String, JWKSource> jwkSources, List<JwtAuthorityEnricher> jwtAuthorityEnrichers, List<OAuth2TokenValidator<Jwt>> jwtValidators, VerifiedJwtCache verifiedJwtCache, JwtDecoderMetrics jwtDecoderMetrics) {
+        this(jwkSources, jwtAuthorityEnrichers, jwtValidators, verifiedJwtCache, jwtDecoderMetrics, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param jwkSources JWK sources per issuer
+     * @param jwtAuthorityEnrichers authority enrichers
+     * @param jwtValidators validators common for all issuers
+     * @param verifiedJwtCache cache of verified tokens shared by all issuers, or null
+     * @param jwtDecoderMetrics decode metrics
+     * @param authorityIndex index for carrying authorities as a bitset, or null
+     */
+
+    public EnturOauth2ResourceServerCustomizer(Map<String, JWKSource> jwkSources, List<JwtAuthorityEnricher> jwtAuthorityEnrichers, List<OAuth2TokenValidator<Jwt>> jwtValidators, VerifiedJwtCache verifiedJwtCache, JwtDecoderMetrics jwtDecoderMetrics, AuthorityIndex authorityIndex) {
         this.jwkSources = jwkSources;
         this.jwtAuthorityEnrichers = jwtAuthorityEnrichers;
         this.jwtValidators = jwtValidators;
+        this.verifiedJwtCache = verifiedJwtCache;
+        this.jwtDecoderMetrics = jwtDecoderMetrics;
+        this.authorityIndex = authorityIndex;
     }
 
     @Override
@@ -56,13 +111,20 @@ public class EnturOauth2ResourceServerCustomizer implements Customizer<OAuth2Res
             JWSVerificationKeySelector keySelector = new JWSVerificationKeySelector(JWSAlgorithm.Family.SIGNATURE, jwkSource);
             jwtProcessor.setJWSKeySelector(keySelector);
 
-            NimbusJwtDecoder nimbusJwtDecoder = new NimbusJwtDecoder(jwtProcessor);
-            nimbusJwtDecoder.setJwtValidator(getJwtValidators(entry.getKey()));
+            // claims other than the registered claims are exposed as parsed, without conversion
+            ParsedJwtDecoder parsedJwtDecoder = new ParsedJwtDecoder(jwtProcessor, getJwtValidators(entry.getKey()));
 
-            JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
-            jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(new EnrichedJwtGrantedAuthoritiesConverter(jwtAuthorityEnrichers));
+            JwtDecoder jwtDecoder = parsedJwtDecoder;
+            if(verifiedJwtCache != null) {
+                jwtDecoder = new CachingJwtDecoder(parsedJwtDecoder, verifiedJwtCache, CachingJwtDecoder.getTimeDependentValidator(jwtValidators));
+            }
+            if(jwtDecoderMetrics != JwtDecoderMetrics.NOOP) {
+                jwtDecoder = new MetricsJwtDecoder(jwtDecoder, jwtDecoderMetrics);
+            }
 
-            JwtAuthenticationProvider authenticationProvider = new JwtAuthenticationProvider(nimbusJwtDecoder);
+            Converter<Jwt, AbstractAuthenticationToken> jwtAuthenticationConverter = IndexedJwtAuthenticationConverter.create(new EnrichedJwtGrantedAuthoritiesConverter(jwtAuthorityEnrichers), authorityIndex);
+
+            JwtAuthenticationProvider authenticationProvider = new JwtAuthenticationProvider(jwtDecoder);
             authenticationProvider.setJwtAuthenticationConverter(jwtAuthenticationConverter);
 
             map.put(entry.getKey(), authenticationProvider::authenticate);
@@ -72,19 +134,18 @@ public class EnturOauth2ResourceServerCustomizer implements Customizer<OAuth2Res
             AuthenticationManager next = map.values().iterator().next();
             configurer.authenticationManagerResolver(request -> next);
         } else {
-            AuthenticationManagerResolver<String> issuer = new IssuerAuthenticationManagerResolver(map);
+            AuthenticationManagerResolver<String> issuer = new IssuerAuthenticationManagerResolver(map, jwtDecoderMetrics);
+
+            // route by issuer without fully parsing the token; reject expired tokens before signature verification
+            JwtPayloadValidator jwtPayloadValidator = new JwtPayloadValidator(new JwtPayloadReader(), OAuth2TokenValidatorFactory.getCompiledJwtValidator(jwtValidators));
 
-            JwtIssuerAuthenticationManagerResolver jwtIssuerAuthenticationManagerResolver = new JwtIssuerAuthenticationManagerResolver(issuer);
+            AuthenticationManager issuerAuthenticationManager = new IssuerAuthenticationManager(issuer, jwtPayloadValidator, jwtDecoderMetrics);
 
-            configurer.authenticationManagerResolver(jwtIssuerAuthenticationManagerResolver);
+            configurer.authenticationManagerResolver(request -> issuerAuthenticationManager);
         }
     }
 
-    private DelegatingOAuth2TokenValidator<Jwt> getJwtValidators(String issuer) {
-        List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
-        validators.add(new JwtIssuerValidator(issuer));
-        validators.addAll(jwtValidators);
-        DelegatingOAuth2TokenValidator<Jwt> validator = new DelegatingOAuth2TokenValidator<>(validators);
-        return validator;
+    private OAuth2TokenValidator<Jwt> getJwtValidators(String issuer) {
+        return OAuth2TokenValidatorFactory.forIssuer(issuer, jwtValidators);
     }
 }
@@ -0,0 +1,64 @@
+package org.entur.jwt.spring.config;
+
+import org.entur.jwt.spring.JwtDecoderMetrics;
+import org.entur.jwt.spring.JwtPayload;
+import org.entur.jwt.spring.JwtPayloadReader;
+import org.entur.jwt.spring.JwtPayloadValidator;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.util.Assert;
+
+import java.text.ParseException;
+
+/**
+ *
+ * Routes bearer tokens to the {@linkplain AuthenticationManager} of their issuer. The issuer is read using
+ * a streaming {@linkplain JwtPayloadReader}, and malformed or expired tokens are rejected before any signature work.
+ *
+ */
+
+public class IssuerAuthenticationManager implements AuthenticationManager {
+
+    private final AuthenticationManagerResolver<String> issuerAuthenticationManagerResolver;
+    private final JwtPayloadValidator jwtPayloadValidator;
+    private final JwtDecoderMetrics jwtDecoderMetrics;
+
+    public IssuerAuthenticationManager(AuthenticationManagerResolver<String> issuerAuthenticationManagerResolver, JwtPayloadValidator jwtPayloadValidator, JwtDecoderMetrics jwtDecoderMetrics) {
+        this.issuerAuthenticationManagerResolver = issuerAuthenticationManagerResolver;
+        this.jwtPayloadValidator = jwtPayloadValidator;
+        this.jwtDecoderMetrics = jwtDecoderMetrics;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Assert.isTrue(authentication instanceof BearerTokenAuthenticationToken, "Authentication must be of type BearerTokenAuthenticationToken");
+
+        BearerTokenAuthenticationToken token = (BearerTokenAuthenticationToken) authentication;
+
+        JwtPayload payload;
+        try {
+            payload = jwtPayloadValidator.validate(token.getToken());
+        } catch (ParseException e) {
+            jwtDecoderMetrics.onFailure(JwtDecoderMetrics.Failure.MALFORMED);
+            throw new InvalidBearerTokenException(e.getMessage(), e);
+        } catch (JwtValidationException e) {
+            jwtDecoderMetrics.onFailure(JwtDecoderMetrics.Failure.of(e));
+            throw new InvalidBearerTokenException(e.getMessage(), e);
+        }
+
+        String issuer = payload.getIssuer();
+        if (issuer == null) {
+            throw new InvalidBearerTokenException("Missing issuer");
+        }
+        AuthenticationManager authenticationManager = issuerAuthenticationManagerResolver.resolve(issuer);
+        if (authenticationManager == null) {
+            throw new InvalidBearerTokenException("Invalid issuer");
+        }
+        return authenticationManager.authenticate(authentication);
+    }
+}
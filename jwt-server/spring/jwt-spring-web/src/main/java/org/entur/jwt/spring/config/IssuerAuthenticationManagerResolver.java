@@ -1,5 +1,6 @@
 package org.entur.jwt.spring.config;
 
+import org.entur.jwt.spring.JwtDecoderMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -12,13 +13,23 @@ public class IssuerAuthenticationManagerResolver implements AuthenticationManage
     private static Logger LOGGER = LoggerFactory.getLogger(IssuerAuthenticationManagerResolver.class);
 
     private final Map<String, AuthenticationManager> map;
+    private final JwtDecoderMetrics jwtDecoderMetrics;
 
     public IssuerAuthenticationManagerResolver(Map<String, AuthenticationManager> map) {
+        this(map, JwtDecoderMetrics.NOOP);
+    }
+
+    public IssuerAuthenticationManagerResolver(Map<String, AuthenticationManager> map, JwtDecoderMetrics jwtDecoderMetrics) {
         this.map = map;
+        this.jwtDecoderMetrics = jwtDecoderMetrics;
     }
 
     @Override
     public AuthenticationManager resolve(String issuer) {
-        return map.get(issuer);
+        AuthenticationManager authenticationManager = map.get(issuer);
+        if (authenticationManager == null) {
+            jwtDecoderMetrics.onFailure(JwtDecoderMetrics.Failure.UNKNOWN_ISSUER);
+        }
+        return authenticationManager;
     }
 }
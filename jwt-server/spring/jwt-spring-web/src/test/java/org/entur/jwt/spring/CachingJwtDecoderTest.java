@@ -0,0 +1,110 @@
+package org.entur.jwt.spring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingJwtDecoderTest {
+
+    private final Instant now = Instant.parse("2026-01-01T12:00:00Z");
+
+    private JwtDecoder delegate;
+    private VerifiedJwtCache cache;
+    private JwtExpiresAtValidator expiresAtValidator;
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    public void init() {
+        delegate = mock(JwtDecoder.class);
+        cache = new VerifiedJwtCache(4, 1000);
+
+        expiresAtValidator = new JwtExpiresAtValidator(Duration.ZERO);
+        expiresAtValidator.setClock(Clock.fixed(now, ZoneOffset.UTC));
+
+        decoder = new CachingJwtDecoder(delegate, cache, CachingJwtDecoder.getTimeDependentValidator(Arrays.asList(expiresAtValidator, new AudienceOauth2TokenValidator(Arrays.asList("audience")))));
+        decoder.setClock(Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token).header("alg", "RS256").expiresAt(expiresAt).build();
+    }
+
+    @Test
+    public void testCacheHit() {
+        Jwt jwt = jwt("a", now.plusSeconds(60));
+        when(delegate.decode("a")).thenReturn(jwt);
+
+        assertThat(decoder.decode("a")).isSameInstanceAs(jwt);
+        assertThat(decoder.decode("a")).isSameInstanceAs(jwt);
+
+        verify(delegate, times(1)).decode("a");
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNotCachedWithinLeeway() {
+        Jwt jwt = jwt("a", now.plusMillis(500));
+        when(delegate.decode("a")).thenReturn(jwt);
+
+        decoder.decode("a");
+        decoder.decode("a");
+
+        verify(delegate, times(2)).decode("a");
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testExpiredEntry() {
+        Jwt jwt = jwt("a", now.plusSeconds(60));
+        when(delegate.decode("a")).thenReturn(jwt);
+
+        decoder.decode("a");
+
+        Clock later = Clock.fixed(now.plusSeconds(59), ZoneOffset.UTC);
+        decoder.setClock(later);
+        decoder.decode("a");
+
+        verify(delegate, times(2)).decode("a");
+        assertThat(cache.getExpirationCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testTimeDependentValidatorsRerunOnHit() {
+        Jwt jwt = jwt("a", now.plusSeconds(60));
+        when(delegate.decode("a")).thenReturn(jwt);
+
+        decoder.decode("a");
+
+        // token expired according to validator, but not according to the cache
+        expiresAtValidator.setClock(Clock.fixed(now.plusSeconds(61), ZoneOffset.UTC));
+
+        assertThrows(JwtValidationException.class, () -> decoder.decode("a"));
+    }
+
+    @Test
+    public void testEviction() {
+        for (int i = 0; i < 10; i++) {
+            String token = Integer.toString(i);
+            when(delegate.decode(token)).thenReturn(jwt(token, now.plusSeconds(60)));
+            decoder.decode(token);
+        }
+        assertThat(cache.size()).isAtMost(cache.getMaximumSize());
+        assertThat(cache.getEvictionCount()).isGreaterThan(0);
+    }
+}
@@ -0,0 +1,124 @@
+package org.entur.jwt.spring;
+
+import org.entur.jwt.spring.properties.jwk.JwtClaimConstraintProperties;
+import org.entur.jwt.spring.properties.jwk.JwtClaimsProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class CompiledJwtValidatorTest {
+
+    private static final String ISSUER = "https://my.issuer";
+
+    private final OAuth2TokenValidatorFactory factory = new OAuth2TokenValidatorFactory();
+
+    private JwtClaimsProperties properties() {
+        JwtClaimsProperties properties = new JwtClaimsProperties();
+        properties.setAudiences(List.of("https://my.audience", "https://other.audience"));
+        properties.setExpiresAtLeeway(10);
+        properties.setIssuedAtLeeway(10);
+
+        properties.getRequire().add(constraint("azp", "string", "my-client"));
+        properties.getRequire().add(constraint("organisationID", "integer", null));
+        return properties;
+    }
+
+    private static JwtClaimConstraintProperties constraint(String name, String type, String value) {
+        JwtClaimConstraintProperties constraint = new JwtClaimConstraintProperties();
+        constraint.setName(name);
+        constraint.setType(type);
+        constraint.setValue(value);
+        return constraint;
+    }
+
+    private Jwt jwt(Consumer<Jwt.Builder> customizer) {
+        Instant now = Instant.now();
+        Jwt.Builder builder = Jwt.withTokenValue("a")
+                .header("alg", "RS256")
+                .issuer(ISSUER)
+                .audience(List.of("https://my.audience"))
+                .issuedAt(now.minusSeconds(120))
+                .notBefore(now)
+                .expiresAt(now.plusSeconds(60))
+                .claim("azp", "my-client")
+                .claim("organisationID", 1L);
+        customizer.accept(builder);
+        return builder.build();
+    }
+
+    private OAuth2TokenValidator<Jwt> chain() {
+        List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
+        validators.add(new JwtIssuerValidator(ISSUER));
+        validators.addAll(factory.createValidators(properties()));
+        return new DelegatingOAuth2TokenValidator<>(validators);
+    }
+
+    private void assertEquivalent(Jwt jwt, boolean valid) {
+        OAuth2TokenValidator<Jwt> compiled = OAuth2TokenValidatorFactory.forIssuer(ISSUER, factory.create(properties()));
+        assertThat(compiled).isInstanceOf(CompiledJwtValidator.class);
+
+        OAuth2TokenValidatorResult expected = chain().validate(jwt);
+        OAuth2TokenValidatorResult result = compiled.validate(jwt);
+
+        assertThat(result.hasErrors()).isEqualTo(!valid);
+        assertThat(descriptions(result)).containsExactlyElementsIn(descriptions(expected)).inOrder();
+    }
+
+    private static List<String> descriptions(OAuth2TokenValidatorResult result) {
+        return result.getErrors().stream().map(OAuth2Error::getDescription).toList();
+    }
+
+    @Test
+    public void testValid() {
+        assertEquivalent(jwt(b -> {}), true);
+        assertEquivalent(jwt(b -> b.audience(List.of("https://unknown.audience", "https://other.audience"))), true);
+        assertEquivalent(jwt(b -> b.expiresAt(Instant.now().minusSeconds(5))), true);
+        assertEquivalent(jwt(b -> b.notBefore(Instant.now().plusSeconds(5))), true);
+        assertEquivalent(jwt(b -> b.claims(c -> c.remove("nbf"))), true);
+    }
+
+    @Test
+    public void testInvalid() {
+        assertEquivalent(jwt(b -> b.issuer("https://unknown.issuer")), false);
+        assertEquivalent(jwt(b -> b.audience(List.of("https://unknown.audience"))), false);
+        assertEquivalent(jwt(b -> b.claims(c -> c.remove("aud"))), false);
+        assertEquivalent(jwt(b -> b.expiresAt(Instant.now().minusSeconds(60))), false);
+        assertEquivalent(jwt(b -> b.notBefore(Instant.now().plusSeconds(60))), false);
+        assertEquivalent(jwt(b -> b.claim("azp", "other-client")), false);
+        assertEquivalent(jwt(b -> b.claim("organisationID", "1")), false);
+    }
+
+    @Test
+    public void testAllErrorsAreReported() {
+        assertEquivalent(jwt(b -> b.issuer("https://unknown.issuer").audience(List.of("x")).expiresAt(Instant.now().minusSeconds(60)).claims(c -> c.remove("azp"))), false);
+    }
+
+    @Test
+    public void testTimestampValidatorForCachedTokens() {
+        OAuth2TokenValidator<Jwt> timestamps = CachingJwtDecoder.getTimeDependentValidator(factory.create(properties()));
+
+        assertThat(timestamps.validate(jwt(b -> b.issuer("https://unknown.issuer").claims(c -> c.remove("azp")))).hasErrors()).isFalse();
+        assertThat(timestamps.validate(jwt(b -> b.expiresAt(Instant.now().minusSeconds(60)))).hasErrors()).isTrue();
+    }
+
+    @Test
+    public void testOtherValidatorsAreKept() {
+        List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>(factory.create(properties()));
+        validators.add((jwt) -> OAuth2TokenValidatorResult.failure(new OAuth2Error("custom")));
+
+        OAuth2TokenValidator<Jwt> validator = OAuth2TokenValidatorFactory.forIssuer(ISSUER, validators);
+        assertThat(validator).isInstanceOf(DelegatingOAuth2TokenValidator.class);
+        assertThat(validator.validate(jwt(b -> {})).hasErrors()).isTrue();
+    }
+}
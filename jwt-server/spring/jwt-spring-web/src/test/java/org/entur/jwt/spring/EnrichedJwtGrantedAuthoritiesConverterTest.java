@@ -0,0 +1,96 @@
+package org.entur.jwt.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class EnrichedJwtGrantedAuthoritiesConverterTest {
+
+    private Jwt jwt(String token, Object permissions) {
+        return Jwt.withTokenValue(token).header("alg", "RS256").claim("permissions", permissions).build();
+    }
+
+    @Test
+    public void testRepeatedTokenIsNotConvertedAgain() {
+        EnrichedJwtGrantedAuthoritiesConverter converter = new EnrichedJwtGrantedAuthoritiesConverter(Arrays.asList(new Auth0JwtAuthorityEnricher()));
+
+        Jwt jwt = jwt("a", Arrays.asList("read", "write"));
+
+        Collection<GrantedAuthority> first = converter.convert(jwt);
+        assertThat(first).hasSize(2);
+        assertThat(converter.convert(jwt)).isSameInstanceAs(first);
+    }
+
+    @Test
+    public void testCachedPerClaimValues() {
+        GrantedAuthoritiesCache<List<Object>> cache = new GrantedAuthoritiesCache<>();
+        EnrichedJwtGrantedAuthoritiesConverter converter = new EnrichedJwtGrantedAuthoritiesConverter(Arrays.asList(new Auth0JwtAuthorityEnricher()), cache);
+
+        Collection<GrantedAuthority> first = converter.convert(jwt("a", Arrays.asList("read", "write")));
+        assertThat(converter.convert(jwt("b", Arrays.asList("read", "write")))).isSameInstanceAs(first);
+        assertThat(cache.size()).isEqualTo(1);
+
+        // the raw token value is not part of the key
+        assertThat(cache.get(Arrays.asList(null, Arrays.asList("read", "write")))).isSameInstanceAs(first);
+
+        Jwt other = Jwt.withTokenValue("c").header("alg", "RS256").issuer("https://other").claim("permissions", Arrays.asList("read", "write")).build();
+        assertThat(converter.convert(other)).isNotSameInstanceAs(first);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCacheEvictsSingleEntryWhenFull() {
+        GrantedAuthoritiesCache<String> cache = new GrantedAuthoritiesCache<>(2);
+        cache.put("a", Arrays.asList());
+        cache.put("b", Arrays.asList());
+        cache.put("c", Arrays.asList());
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("c")).isNotNull();
+    }
+
+    @Test
+    public void testRepeatedPermissionsAreInterned() {
+        EnrichedJwtGrantedAuthoritiesConverter converter = new EnrichedJwtGrantedAuthoritiesConverter(Arrays.asList(new Auth0JwtAuthorityEnricher()));
+
+        List<GrantedAuthority> first = (List<GrantedAuthority>) converter.convert(jwt("a", Arrays.asList("read", "write")));
+        List<GrantedAuthority> second = (List<GrantedAuthority>) converter.convert(jwt("b", Arrays.asList("read", "write")));
+        List<GrantedAuthority> third = (List<GrantedAuthority>) converter.convert(jwt("c", Arrays.asList("write", "delete")));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(second.get(0)).isSameInstanceAs(first.get(0));
+        assertThat(third.get(0)).isSameInstanceAs(first.get(1));
+    }
+
+    @Test
+    public void testNotCachedForCustomEnricher() {
+        JwtAuthorityEnricher custom = (current, jwt) -> current.add(() -> "custom");
+
+        EnrichedJwtGrantedAuthoritiesConverter converter = new EnrichedJwtGrantedAuthoritiesConverter(Arrays.asList(new Auth0JwtAuthorityEnricher(), custom));
+
+        Jwt jwt = jwt("a", Arrays.asList("read"));
+        assertThat(converter.convert(jwt)).isNotSameInstanceAs(converter.convert(jwt));
+    }
+
+    @Test
+    public void testKeycloakRoles() {
+        KeycloakJwtAuthorityEnricher enricher = new KeycloakJwtAuthorityEnricher();
+        EnrichedJwtGrantedAuthoritiesConverter converter = new EnrichedJwtGrantedAuthoritiesConverter(Arrays.asList(enricher));
+
+        Map<String, Object> resourceAccess = Map.of(
+                "my-client", Map.of("roles", Arrays.asList("admin", "ROLE_user")),
+                "account", Map.of("roles", Arrays.asList("view-profile")));
+
+        Jwt jwt = Jwt.withTokenValue("a").header("alg", "RS256").claim("resource_access", resourceAccess).build();
+
+        Collection<GrantedAuthority> authorities = converter.convert(jwt);
+        assertThat(authorities.stream().map(GrantedAuthority::getAuthority).toList()).containsExactly("ROLE_admin", "ROLE_user");
+    }
+}
@@ -0,0 +1,189 @@
+package org.entur.jwt.spring;
+
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.JWKSetCacheRefreshEvaluator;
+import com.nimbusds.jose.jwk.source.JWKSetRetrievalException;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HttpClientResourceRetrieverTest {
+
+    private HttpServer server;
+    private URL url;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    private volatile String cacheControl = "no-cache";
+    private volatile String jwks;
+
+    @BeforeEach
+    public void init() throws Exception {
+        jwks = new JWKSet(new RSAKeyGenerator(2048).keyID("a").generate()).toPublicJWKSet().toString();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/jwks.json", (exchange) -> {
+            requests.incrementAndGet();
+
+            String etag = "\"" + Integer.toHexString(jwks.hashCode()) + "\"";
+            exchange.getResponseHeaders().add("ETag", etag);
+            exchange.getResponseHeaders().add("Cache-Control", cacheControl);
+
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] body = jwks.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+
+        url = new URL("http://localhost:" + server.getAddress().getPort() + "/jwks.json");
+    }
+
+    @AfterEach
+    public void destroy() {
+        server.stop(0);
+    }
+
+    private ResourceJwkSetSource<SecurityContext> source(int sizeLimit) {
+        HttpClientResourceRetriever retriever = new HttpClientResourceRetriever(HttpClient.newHttpClient(), 5000, sizeLimit, true, true, TimeUnit.HOURS.toMillis(1));
+        return new ResourceJwkSetSource<>(url, retriever);
+    }
+
+    private JWKSource<SecurityContext> cachedSource(long timeToLive) {
+        HttpClientResourceRetriever retriever = new HttpClientResourceRetriever(HttpClient.newHttpClient(), 5000, 51200, true, true, TimeUnit.HOURS.toMillis(1));
+        return JWKSourceBuilder.create(new ResourceJwkSetSource<SecurityContext>(url, retriever, timeToLive))
+                .cache(timeToLive, 5000)
+                .refreshAheadCache(false)
+                .rateLimited(false)
+                .build();
+    }
+
+    private static JWKSelector selector(String keyId) {
+        return new JWKSelector(new JWKMatcher.Builder().keyID(keyId).build());
+    }
+
+    @Test
+    public void testNotModified() throws Exception {
+        ResourceJwkSetSource<SecurityContext> source = source(51200);
+
+        JWKSet first = source.getJWKSet(JWKSetCacheRefreshEvaluator.noRefresh(), System.currentTimeMillis(), null);
+        JWKSet second = source.getJWKSet(JWKSetCacheRefreshEvaluator.referenceComparison(first), System.currentTimeMillis(), null);
+
+        // not parsed again
+        assertThat(second).isSameInstanceAs(first);
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(notModified.get()).isEqualTo(1);
+
+        jwks = new JWKSet(new RSAKeyGenerator(2048).keyID("b").generate()).toPublicJWKSet().toString();
+
+        JWKSet third = source.getJWKSet(JWKSetCacheRefreshEvaluator.referenceComparison(second), System.currentTimeMillis(), null);
+        assertThat(third.getKeyByKeyId("b")).isNotNull();
+        assertThat(notModified.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testMaxAge() throws Exception {
+        cacheControl = "public, max-age=60";
+
+        JWKSource<SecurityContext> jwkSource = cachedSource(200);
+
+        assertThat(jwkSource.get(selector("a"), null)).hasSize(1);
+        assertThat(requests.get()).isEqualTo(1);
+
+        // cache expired, but the last response is still fresh
+        Thread.sleep(300);
+        assertThat(jwkSource.get(selector("a"), null)).hasSize(1);
+        assertThat(requests.get()).isEqualTo(1);
+
+        jwks = new JWKSet(new RSAKeyGenerator(2048).keyID("b").generate()).toPublicJWKSet().toString();
+
+        // unknown key id: forced refresh even though the last response is still fresh
+        assertThat(jwkSource.get(selector("b"), null)).hasSize(1);
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(notModified.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void testMaxAgeExpired() throws Exception {
+        cacheControl = "public, max-age=1";
+
+        JWKSource<SecurityContext> jwkSource = cachedSource(200);
+
+        assertThat(jwkSource.get(selector("a"), null)).hasSize(1);
+        assertThat(requests.get()).isEqualTo(1);
+
+        // no longer fresh, revalidate
+        Thread.sleep(1200);
+        assertThat(jwkSource.get(selector("a"), null)).hasSize(1);
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(notModified.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testKeyRotationWhileFresh() throws Exception {
+        cacheControl = "public, max-age=60";
+
+        ResourceJwkSetSource<SecurityContext> source = source(51200);
+
+        long time = System.currentTimeMillis();
+        JWKSet first = source.getJWKSet(JWKSetCacheRefreshEvaluator.noRefresh(), time, null);
+        assertThat(first.getKeyByKeyId("a")).isNotNull();
+
+        // forced refresh without rotation: conditional request
+        JWKSet second = source.getJWKSet(JWKSetCacheRefreshEvaluator.referenceComparison(first), time + 1000, null);
+        assertThat(second).isSameInstanceAs(first);
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(notModified.get()).isEqualTo(1);
+
+        jwks = new JWKSet(new RSAKeyGenerator(2048).keyID("b").generate()).toPublicJWKSet().toString();
+
+        // unknown key id: forced refresh even though the last response is still fresh
+        JWKSet third = source.getJWKSet(JWKSetCacheRefreshEvaluator.referenceComparison(second), time + 2000, null);
+        assertThat(third.getKeyByKeyId("b")).isNotNull();
+        assertThat(requests.get()).isEqualTo(3);
+        assertThat(notModified.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSizeLimit() {
+        ResourceJwkSetSource<SecurityContext> source = source(128);
+
+        assertThrows(JWKSetRetrievalException.class, () -> source.getJWKSet(JWKSetCacheRefreshEvaluator.noRefresh(), System.currentTimeMillis(), null));
+    }
+
+    @Test
+    public void testMaxAgeParsing() {
+        assertThat(HttpClientResourceRetriever.getMaxAge("public, max-age=300")).isEqualTo(300);
+        assertThat(HttpClientResourceRetriever.getMaxAge("max-age=300, no-cache")).isEqualTo(-1);
+        assertThat(HttpClientResourceRetriever.getMaxAge(null)).isEqualTo(-1);
+        assertThat(HttpClientResourceRetriever.getMaxAge("max-age=abc")).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,99 @@
+package org.entur.jwt.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class IndexedJwtAuthenticationConverterTest {
+
+    private final JwtAuthorities jwtAuthorities = new JwtAuthorities();
+
+    private Jwt jwt(String token, Object permissions) {
+        return Jwt.withTokenValue(token).header("alg", "RS256").claim("sub", "subject").claim("permissions", permissions).build();
+    }
+
+    private AbstractAuthenticationToken convert(AuthorityIndex authorityIndex, Jwt jwt) {
+        EnrichedJwtGrantedAuthoritiesConverter authoritiesConverter = new EnrichedJwtGrantedAuthoritiesConverter(Arrays.asList(new Auth0JwtAuthorityEnricher()));
+        return IndexedJwtAuthenticationConverter.create(authoritiesConverter, authorityIndex).convert(jwt);
+    }
+
+    @Test
+    public void testKnownAuthoritiesAreIndexedFirst() {
+        AuthorityIndex authorityIndex = new AuthorityIndex(AuthorityIndex.DEFAULT_MAXIMUM_SIZE, List.of("read", "write"));
+
+        IndexedJwtAuthenticationToken token = (IndexedJwtAuthenticationToken) convert(authorityIndex, jwt("a", Arrays.asList("delete", "read")));
+
+        assertThat(token.getName()).isEqualTo("subject");
+        assertThat(authorityIndex.indexOf("read")).isEqualTo(0);
+        assertThat(authorityIndex.indexOf("write")).isEqualTo(1);
+        assertThat(authorityIndex.indexOf("delete")).isAtLeast(2);
+
+        AuthoritySet authoritySet = token.getAuthoritySet();
+        assertThat(authoritySet.isComplete()).isTrue();
+        assertThat(authoritySet.contains(authorityIndex.indexOf("read"))).isTrue();
+        assertThat(authoritySet.contains(authorityIndex.indexOf("write"))).isFalse();
+        assertThat(authoritySet.contains(authorityIndex.indexOf("delete"))).isTrue();
+    }
+
+    @Test
+    public void testAuthorizationChecks() {
+        AuthorityIndex authorityIndex = new AuthorityIndex();
+        AbstractAuthenticationToken token = convert(authorityIndex, jwt("a", Arrays.asList("read", "modify")));
+
+        assertThat(JwtAuthorities.hasAllAuthorities(token, "read", "modify")).isTrue();
+        assertThat(JwtAuthorities.hasAllAuthorities(token, "read", "delete")).isFalse();
+        assertThat(JwtAuthorities.hasAllAuthorities(token, "read", "unknown")).isFalse();
+        assertThat(JwtAuthorities.hasAnyAuthority(token, "delete", "modify")).isTrue();
+        assertThat(JwtAuthorities.hasAnyAuthority(token, "delete", "unknown")).isFalse();
+        assertThat(JwtAuthorities.hasAnyAuthority(token)).isFalse();
+        assertThat(JwtAuthorities.hasAllAuthorities(token)).isTrue();
+    }
+
+    @Test
+    public void testAuthorizationChecksBeyondFirstWord() {
+        AuthorityIndex authorityIndex = new AuthorityIndex();
+        for (int i = 0; i < 200; i++) {
+            authorityIndex.register("permission" + i);
+        }
+        AbstractAuthenticationToken token = convert(authorityIndex, jwt("a", Arrays.asList("permission1", "permission150", "read")));
+
+        assertThat(JwtAuthorities.hasAllAuthorities(token, "permission1", "permission150", "read")).isTrue();
+        assertThat(JwtAuthorities.hasAllAuthorities(token, "permission1", "permission151")).isFalse();
+        assertThat(JwtAuthorities.hasAnyAuthority(token, "permission70", "permission150")).isTrue();
+        assertThat(JwtAuthorities.hasAnyAuthority(token, "permission70", "permission199")).isFalse();
+    }
+
+    @Test
+    public void testFallbackWhenIndexIsFull() {
+        AuthorityIndex authorityIndex = new AuthorityIndex(1, List.of("read"));
+
+        IndexedJwtAuthenticationToken token = (IndexedJwtAuthenticationToken) convert(authorityIndex, jwt("a", Arrays.asList("read", "write")));
+        assertThat(token.getAuthoritySet().isComplete()).isFalse();
+        assertThat(authorityIndex.size()).isEqualTo(1);
+
+        assertThat(JwtAuthorities.hasAllAuthorities(token, "read", "write")).isTrue();
+        assertThat(JwtAuthorities.hasAnyAuthority(token, "write")).isTrue();
+        assertThat(JwtAuthorities.hasAnyAuthority(token, "delete")).isFalse();
+    }
+
+    @Test
+    public void testNotIndexedWithoutIndex() {
+        AbstractAuthenticationToken token = convert(null, jwt("a", Arrays.asList("read")));
+
+        assertThat(token).isNotInstanceOf(IndexedJwtAuthenticationToken.class);
+        assertThat(JwtAuthorities.hasAllAuthorities(token, "read")).isTrue();
+        assertThat(JwtAuthorities.hasAnyAuthority(token, "write")).isFalse();
+    }
+
+    @Test
+    public void testNoAuthentication() {
+        assertThat(jwtAuthorities.hasAny("read")).isFalse();
+        assertThat(JwtAuthorities.hasAllAuthorities(new TestingAuthenticationToken("user", "password", "read"), "read")).isTrue();
+    }
+}
@@ -0,0 +1,83 @@
+package org.entur.jwt.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JwtPayloadReaderTest {
+
+    private static String token(String header, String payload) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "." + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".c2lnbmF0dXJl";
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        JwtPayloadReader reader = new JwtPayloadReader(List.of("azp", "https://entur.io/organisationID", "admin", "scope"));
+
+        String token = token("{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"my-key\"}",
+                "{\"sub\":\"user\",\"aud\":[\"a\",\"b\"],\"nested\":{\"iss\":\"nested\",\"exp\":1},\"iss\":\"https://my.issuer\",\"exp\":1700000000,"
+                + "\"azp\":\"my-client\",\"https://entur.io/organisationID\":1,\"admin\":true,\"scope\":[\"x\"]}");
+
+        JwtPayload payload = reader.read(token);
+
+        assertThat(payload.getKeyId()).isEqualTo("my-key");
+        assertThat(payload.getIssuer()).isEqualTo("https://my.issuer");
+        assertThat(payload.getExpiresAt()).isEqualTo(Instant.ofEpochSecond(1700000000));
+        assertThat(payload.<String>getClaim("azp")).isEqualTo("my-client");
+        assertThat(payload.<Long>getClaim("https://entur.io/organisationID")).isEqualTo(1L);
+        assertThat(payload.<Boolean>getClaim("admin")).isTrue();
+        // only scalar values are captured
+        assertThat(payload.getClaims()).doesNotContainKey("scope");
+        assertThat(payload.getClaims()).doesNotContainKey("sub");
+    }
+
+    @Test
+    public void testReadWithoutOptionalFields() throws Exception {
+        JwtPayload payload = new JwtPayloadReader().read(token("{\"alg\":\"RS256\"}", "{\"iss\":null}"));
+
+        assertThat(payload.getKeyId()).isNull();
+        assertThat(payload.getIssuer()).isNull();
+        assertThat(payload.getExpiresAt()).isNull();
+        assertThat(payload.getClaims()).isEmpty();
+    }
+
+    @Test
+    public void testMalformed() {
+        JwtPayloadReader reader = new JwtPayloadReader();
+
+        assertThrows(ParseException.class, () -> reader.read("abc"));
+        assertThrows(ParseException.class, () -> reader.read("abc.def"));
+        assertThrows(ParseException.class, () -> reader.read("a.b.c.d.e"));
+        assertThrows(ParseException.class, () -> reader.read("!!!.def.ghi"));
+        assertThrows(ParseException.class, () -> reader.read(token("{\"alg\":\"RS256\"}", "[]")));
+        assertThrows(ParseException.class, () -> reader.read(token("{\"alg\":\"RS256\"}", "{\"iss\":")));
+        assertThrows(ParseException.class, () -> reader.read(token("{\"alg\":\"RS256\"}", "{\"iss\":1}")));
+        assertThrows(ParseException.class, () -> reader.read(token("{\"alg\":\"RS256\"}", "{\"exp\":\"tomorrow\"}")));
+        assertThrows(ParseException.class, () -> reader.read(token("not json", "{}")));
+    }
+
+    @Test
+    public void testRejectExpired() throws Exception {
+        CompiledJwtValidator validator = new CompiledJwtValidator(null, Collections.emptySet(), Duration.ofSeconds(10), Duration.ofSeconds(10), Collections.emptyList());
+        JwtPayloadValidator payloadValidator = new JwtPayloadValidator(new JwtPayloadReader(), validator);
+
+        long now = Instant.now().getEpochSecond();
+
+        assertThat(payloadValidator.validate(token("{\"alg\":\"RS256\"}", "{\"exp\":" + (now + 60) + "}")).getExpiresAt()).isNotNull();
+        assertThat(payloadValidator.validate(token("{\"alg\":\"RS256\"}", "{\"exp\":" + (now - 5) + "}")).getExpiresAt()).isNotNull();
+
+        JwtValidationException e = assertThrows(JwtValidationException.class, () -> payloadValidator.validate(token("{\"alg\":\"RS256\"}", "{\"exp\":" + (now - 60) + "}")));
+        assertThat(JwtDecoderMetrics.Failure.of(e)).isEqualTo(JwtDecoderMetrics.Failure.EXPIRED);
+    }
+}
@@ -0,0 +1,141 @@
+package org.entur.jwt.spring;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class LazyJwtTest {
+
+    private RSAKey rsaKey;
+    private ParsedJwtDecoder parsedJwtDecoder;
+    private NimbusJwtDecoder nimbusJwtDecoder;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        rsaKey = new RSAKeyGenerator(2048).keyID("kid").generate();
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, new ImmutableJWKSet<>(new JWKSet(rsaKey))));
+
+        parsedJwtDecoder = new ParsedJwtDecoder(jwtProcessor, (jwt) -> OAuth2TokenValidatorResult.success());
+        nimbusJwtDecoder = NimbusJwtDecoder.withPublicKey(rsaKey.toRSAPublicKey()).build();
+        nimbusJwtDecoder.setJwtValidator((jwt) -> OAuth2TokenValidatorResult.success());
+    }
+
+    private String sign(JWTClaimsSet claimsSet) throws Exception {
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("kid").build(), claimsSet);
+        signedJWT.sign(new RSASSASigner(rsaKey));
+        return signedJWT.serialize();
+    }
+
+    private JWTClaimsSet claimsSet() {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        return new JWTClaimsSet.Builder()
+                .issuer("https://my.issuer")
+                .subject("subject")
+                .audience(Arrays.asList("a", "b"))
+                .expirationTime(new Date(now + 60_000))
+                .notBeforeTime(new Date(now))
+                .claim("permissions", Arrays.asList("read", "write"))
+                .claim("resource_access", Map.of("my-client", Map.of("roles", Arrays.asList("admin"))))
+                .claim("https://my.namespace/organisationID", 1)
+                .build();
+    }
+
+    @Test
+    public void testEquivalentToNimbusJwtDecoder() throws Exception {
+        String token = sign(claimsSet());
+
+        Jwt lazy = parsedJwtDecoder.decode(token);
+        Jwt eager = nimbusJwtDecoder.decode(token);
+
+        assertThat(lazy).isInstanceOf(LazyJwt.class);
+        assertThat(lazy.getClaims()).isEqualTo(eager.getClaims());
+        assertThat(new HashMap<>(lazy.getClaims())).isEqualTo(eager.getClaims());
+        assertThat(lazy.getClaims()).hasSize(eager.getClaims().size());
+        assertThat(lazy.getHeaders()).isEqualTo(eager.getHeaders());
+
+        assertThat(lazy.getIssuer()).isEqualTo(eager.getIssuer());
+        assertThat(lazy.getSubject()).isEqualTo("subject");
+        assertThat(lazy.getAudience()).containsExactly("a", "b");
+        assertThat(lazy.getExpiresAt()).isEqualTo(eager.getExpiresAt());
+        assertThat(lazy.getIssuedAt()).isEqualTo(eager.getIssuedAt());
+        assertThat(lazy.getNotBefore()).isEqualTo(eager.getNotBefore());
+        assertThat(lazy.getClaimAsStringList("permissions")).containsExactly("read", "write");
+    }
+
+    @Test
+    public void testCustomClaimsAreNotCopied() throws Exception {
+        String token = sign(claimsSet());
+
+        Jwt first = parsedJwtDecoder.decode(token);
+
+        Object permissions = first.getClaims().get("permissions");
+        assertThat(permissions).isInstanceOf(List.class);
+        assertThat(first.getClaims().get("permissions")).isSameInstanceAs(permissions);
+        assertThat(first.getClaims().get("resource_access")).isInstanceOf(Map.class);
+        assertThat(first.hasClaim("unknown")).isFalse();
+    }
+
+    @Test
+    public void testIssuedAtFromExpiresAt() throws Exception {
+        String token = sign(claimsSet());
+
+        Jwt jwt = parsedJwtDecoder.decode(token);
+
+        // equivalent to MappedJwtClaimSetConverter
+        assertThat(jwt.getIssuedAt()).isEqualTo(jwt.getExpiresAt().minusSeconds(1));
+        assertThat(jwt.getClaims().containsKey("iat")).isTrue();
+    }
+
+    @Test
+    public void testSerializesAsJwt() throws Exception {
+        Jwt jwt = parsedJwtDecoder.decode(sign(claimsSet()));
+
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bout)) {
+            out.writeObject(jwt);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()))) {
+            Jwt read = (Jwt) in.readObject();
+
+            assertThat(read).isNotInstanceOf(LazyJwt.class);
+            assertThat(read.getClaims()).isEqualTo(jwt.getClaims());
+        }
+    }
+
+    @Test
+    public void testEagerWithCustomClaimSetConverter() throws Exception {
+        ParsedJwtDecoder eager = new ParsedJwtDecoder(parsedJwtDecoder.getJwtProcessor(), parsedJwtDecoder.getJwtValidator(), MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap()));
+
+        assertThat(eager.decode(sign(claimsSet()))).isNotInstanceOf(LazyJwt.class);
+    }
+}
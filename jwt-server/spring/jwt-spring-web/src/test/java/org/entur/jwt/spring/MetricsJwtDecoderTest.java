@@ -0,0 +1,93 @@
+package org.entur.jwt.spring;
+
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.BadJWSException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.entur.jwt.spring.actuate.MicrometerJwkSetSourceEventListener;
+import org.entur.jwt.spring.actuate.MicrometerJwtDecoderMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.io.IOException;
+import java.net.URL;
+import java.text.ParseException;
+import java.util.Collections;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MetricsJwtDecoderTest {
+
+    private JwtDecoder delegate;
+    private SimpleMeterRegistry registry;
+    private MetricsJwtDecoder decoder;
+
+    @BeforeEach
+    public void init() {
+        delegate = mock(JwtDecoder.class);
+        registry = new SimpleMeterRegistry();
+        decoder = new MetricsJwtDecoder(delegate, new MicrometerJwtDecoderMetrics(registry));
+    }
+
+    private double failures(JwtDecoderMetrics.Failure failure) {
+        return registry.get(MicrometerJwtDecoderMetrics.METRIC_VALIDATION_FAILURES).tag(MicrometerJwtDecoderMetrics.TAG_CAUSE, failure.name().toLowerCase()).counter().count();
+    }
+
+    @Test
+    public void testDecodeTimer() {
+        Jwt jwt = Jwt.withTokenValue("a").header("alg", "RS256").claim("sub", "x").build();
+        when(delegate.decode("a")).thenReturn(jwt);
+        when(delegate.decode("b")).thenThrow(new BadJwtException("Failed", new BadJWSException("Signed JWT rejected: Invalid signature")));
+
+        assertThat(decoder.decode("a")).isSameInstanceAs(jwt);
+        assertThrows(BadJwtException.class, () -> decoder.decode("b"));
+
+        assertThat(registry.get(MicrometerJwtDecoderMetrics.METRIC_DECODE).tag(MicrometerJwtDecoderMetrics.TAG_OUTCOME, "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get(MicrometerJwtDecoderMetrics.METRIC_DECODE).tag(MicrometerJwtDecoderMetrics.TAG_OUTCOME, "failure").timer().count()).isEqualTo(1);
+        assertThat(failures(JwtDecoderMetrics.Failure.SIGNATURE)).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testFailureCauses() {
+        assertThat(JwtDecoderMetrics.Failure.of(new BadJwtException("Failed", new BadJOSEException("Signed JWT rejected: Another algorithm expected, or no matching key(s) found")))).isEqualTo(JwtDecoderMetrics.Failure.UNKNOWN_KID);
+        assertThat(JwtDecoderMetrics.Failure.of(new JwtException("Failed", new RemoteKeySourceException("Unable to fetch", new IOException())))).isEqualTo(JwtDecoderMetrics.Failure.JWKS_UNAVAILABLE);
+        assertThat(JwtDecoderMetrics.Failure.of(new BadJwtException("Malformed", new ParseException("Invalid", 0)))).isEqualTo(JwtDecoderMetrics.Failure.MALFORMED);
+        assertThat(JwtDecoderMetrics.Failure.of(new BadJwtException("Unknown issuer https://unknown"))).isEqualTo(JwtDecoderMetrics.Failure.UNKNOWN_ISSUER);
+
+        assertThat(JwtDecoderMetrics.Failure.of(validation("Jwt expired at 2026-01-01T12:00:00Z"))).isEqualTo(JwtDecoderMetrics.Failure.EXPIRED);
+        assertThat(JwtDecoderMetrics.Failure.of(validation("Jwt used before 2026-01-01T12:00:00Z"))).isEqualTo(JwtDecoderMetrics.Failure.NOT_BEFORE);
+        assertThat(JwtDecoderMetrics.Failure.of(validation("The audience claim is not valid"))).isEqualTo(JwtDecoderMetrics.Failure.AUDIENCE);
+        assertThat(JwtDecoderMetrics.Failure.of(validation("The iss claim is not valid"))).isEqualTo(JwtDecoderMetrics.Failure.ISSUER);
+        assertThat(JwtDecoderMetrics.Failure.of(validation("The permissions claim is required"))).isEqualTo(JwtDecoderMetrics.Failure.CLAIMS);
+    }
+
+    private JwtValidationException validation(String description) {
+        OAuth2Error error = new OAuth2Error("invalid_token", description, null);
+        return new JwtValidationException(description, Collections.singletonList(error));
+    }
+
+    @Test
+    public void testJwkFetchTimer() throws Exception {
+        MicrometerJwkSetSourceEventListener listener = new MicrometerJwkSetSourceEventListener(registry, "https://issuer");
+
+        TimedResourceRetriever retriever = new TimedResourceRetriever((url) -> {
+            throw new IOException("Unavailable");
+        }, listener);
+
+        assertThrows(IOException.class, () -> retriever.retrieveResource(new URL("https://issuer/jwks.json")));
+
+        assertThat(registry.get(MicrometerJwkSetSourceEventListener.METRIC_FETCH)
+                .tag(MicrometerJwkSetSourceEventListener.TAG_ISSUER, "https://issuer")
+                .tag(MicrometerJwkSetSourceEventListener.TAG_OUTCOME, "failure")
+                .timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,62 @@
+package org.entur.jwt.spring.rest;
+
+import org.entur.jwt.junit5.AccessToken;
+import org.entur.jwt.junit5.AuthorizationServer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.resttestclient.TestRestTemplate;
+import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureTestRestTemplate;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test routing tokens by issuer when multiple tenants are configured.
+ */
+
+@AuthorizationServer("partner")
+@AuthorizationServer("internal")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestRestTemplate
+public class MultiIssuerTest {
+
+    @LocalServerPort
+    private int randomServerPort;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private ResponseEntity<String> get(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Authorization", token);
+        HttpEntity<String> entity = new HttpEntity<String>(headers);
+
+        String url = "http://localhost:" + randomServerPort + "/protected";
+
+        return restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+    }
+
+    @Test
+    public void testProtectedResource(@AccessToken(by = "partner", audience = "mock.my.audience") String partner, @AccessToken(by = "internal", audience = "mock.my.audience") String internal) {
+        assertTrue(get(partner).getStatusCode().is2xxSuccessful());
+        assertTrue(get(internal).getStatusCode().is2xxSuccessful());
+    }
+
+    @Test
+    public void testExpiredToken(@AccessToken(by = "partner", audience = "mock.my.audience", issuedAt = -1200, expiresAt = -600) String token) {
+        assertThat(get(token).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void testMalformedToken() {
+        assertThat(get("Bearer abc.def").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+}
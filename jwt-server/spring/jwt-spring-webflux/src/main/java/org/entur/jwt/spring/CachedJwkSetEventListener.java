@@ -0,0 +1,67 @@
+package org.entur.jwt.spring;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.CachingJWKSetSource;
+import com.nimbusds.jose.jwk.source.JWKSetSource;
+import com.nimbusds.jose.jwk.source.RefreshAheadCachingJWKSetSource;
+import com.nimbusds.jose.util.events.Event;
+import com.nimbusds.jose.util.events.EventListener;
+
+/**
+ *
+ * Event listener which keeps track of the JWK set cached by a {@linkplain CachingJWKSetSource}, so that
+ * callers can determine (without blocking) whether a key lookup will be served from the cache.<br><br>
+ *
+ * The cached JWK set is considered valid until its time to live (minus the cache refresh timeout, to account for
+ * the time spent loading it) has passed.
+ */
+
+public class CachedJwkSetEventListener implements EventListener {
+
+    private static class CachedJwkSet {
+
+        private final JWKSet jwkSet;
+        private final long expires;
+
+        public CachedJwkSet(JWKSet jwkSet, long expires) {
+            this.jwkSet = jwkSet;
+            this.expires = expires;
+        }
+    }
+
+    private volatile CachedJwkSet cachedJwkSet;
+
+    @Override
+    public void notify(Event event) {
+        if(event instanceof CachingJWKSetSource.RefreshCompletedEvent refreshCompletedEvent) {
+            update(refreshCompletedEvent.getJWKSet(), refreshCompletedEvent.getSource());
+        } else if(event instanceof RefreshAheadCachingJWKSetSource.ScheduledRefreshCompletedEvent scheduledRefreshCompletedEvent) {
+            update(scheduledRefreshCompletedEvent.getJWKSet(), scheduledRefreshCompletedEvent.getSource());
+        }
+    }
+
+    protected void update(JWKSet jwkSet, JWKSetSource source) {
+        if(jwkSet == null || !(source instanceof CachingJWKSetSource cachingJWKSetSource)) {
+            return;
+        }
+        long expires = System.currentTimeMillis() + cachingJWKSetSource.getTimeToLive() - cachingJWKSetSource.getCacheRefreshTimeout();
+
+        this.cachedJwkSet = new CachedJwkSet(jwkSet, expires);
+    }
+
+    /**
+     * Get the cached JWK set.
+     *
+     * @param time current time in milliseconds
+     * @return the cached JWK set, or null if none or expired
+     */
+
+    public JWKSet getJWKSet(long time) {
+        CachedJwkSet cachedJwkSet = this.cachedJwkSet;
+        if(cachedJwkSet != null && time < cachedJwkSet.expires) {
+            return cachedJwkSet.jwkSet;
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *
+ * {@linkplain ReactiveJwtDecoder} which caches verified tokens. Concurrent requests for the same
+ * (not yet cached) token share a single in-flight verification. Time-dependent validators are
+ * re-run for every cache hit. Failures are not cached.
+ *
+ */
+
+public class CachingReactiveJwtDecoder implements ReactiveJwtDecoder {
+
+    private static final String DECODING_ERROR_MESSAGE_TEMPLATE = "An error occurred while attempting to decode the Jwt: %s";
+
+    private final ReactiveJwtDecoder delegate;
+    private final VerifiedJwtCache cache;
+    private final OAuth2TokenValidator<Jwt> cacheHitValidator;
+
+    private final Map<String, Mono<Jwt>> inFlight = new ConcurrentHashMap<>();
+
+    private Clock clock = Clock.systemUTC();
+
+    public CachingReactiveJwtDecoder(ReactiveJwtDecoder delegate, VerifiedJwtCache cache, OAuth2TokenValidator<Jwt> cacheHitValidator) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(cache, "cache cannot be null");
+        Assert.notNull(cacheHitValidator, "cacheHitValidator cannot be null");
+        this.delegate = delegate;
+        this.cache = cache;
+        this.cacheHitValidator = cacheHitValidator;
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) throws JwtException {
+        return Mono.defer(() -> {
+            Jwt jwt = cache.get(token, clock.millis());
+            if (jwt != null) {
+                return validateCached(jwt);
+            }
+            return inFlight.computeIfAbsent(token, this::verify);
+        });
+    }
+
+    private Mono<Jwt> verify(String token) {
+        return delegate.decode(token)
+                .doOnNext((jwt) -> cache.put(token, jwt, clock.millis()))
+                .doFinally((signal) -> inFlight.remove(token))
+                .cache();
+    }
+
+    private Mono<Jwt> validateCached(Jwt jwt) {
+        OAuth2TokenValidatorResult result = cacheHitValidator.validate(jwt);
+        if (result.hasErrors()) {
+            Collection<OAuth2Error> errors = result.getErrors();
+            return Mono.error(new JwtValidationException(getJwtValidationExceptionMessage(errors), errors));
+        }
+        return Mono.just(jwt);
+    }
+
+    private String getJwtValidationExceptionMessage(Collection<OAuth2Error> errors) {
+        for (OAuth2Error oAuth2Error : errors) {
+            String description = oAuth2Error.getDescription();
+            if (description != null && !description.isEmpty()) {
+                return String.format(DECODING_ERROR_MESSAGE_TEMPLATE, description);
+            }
+        }
+        return "Unable to validate Jwt";
+    }
+
+    public void setClock(Clock clock) {
+        Assert.notNull(clock, "clock cannot be null");
+        this.clock = clock;
+    }
+
+    public VerifiedJwtCache getCache() {
+        return cache;
+    }
+}
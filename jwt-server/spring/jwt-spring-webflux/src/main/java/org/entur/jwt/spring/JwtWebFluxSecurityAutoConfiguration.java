@@ -11,6 +11,7 @@ import org.entur.jwt.spring.properties.MdcProperties;
 import org.entur.jwt.spring.properties.SecurityProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
@@ -31,6 +32,7 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.header.XXssProtectionServerHttpHeadersWriter;
 import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -110,7 +112,10 @@ public class JwtWebFluxSecurityAutoConfiguration {
                 ServerHttpSecurity http,
                 JwkSourceMap jwkSourceMap,
                 List<JwtAuthorityEnricher> jwtAuthorityEnrichers,
-                List<OAuth2TokenValidator<Jwt>> jwtValidators
+                List<OAuth2TokenValidator<Jwt>> jwtValidators,
+                @Autowired(required = false) VerifiedJwtCache verifiedJwtCache,
+                JwtDecoderMetrics jwtDecoderMetrics,
+                @Autowired(required = false) AuthorityIndex authorityIndex
         ) throws Exception {
 
             log.info("Configure with JWT");
@@ -140,7 +145,7 @@ public class JwtWebFluxSecurityAutoConfiguration {
                     jwtAuthorityEnrichers = enrichers;
                 }
 
-                http.oauth2ResourceServer(new EnturOauth2ResourceServerCustomizer(jwkSourceMap.getJwkSources(), jwtAuthorityEnrichers, jwtValidators));
+                http.oauth2ResourceServer(new EnturOauth2ResourceServerCustomizer(jwkSourceMap.getJwkSources(), jwkSourceMap.getJwkEventListeners(), jwtAuthorityEnrichers, jwtValidators, verifiedJwtCache, Schedulers.boundedElastic(), jwtDecoderMetrics, authorityIndex));
             }
 
             MdcProperties mdc = jwt.getMdc();
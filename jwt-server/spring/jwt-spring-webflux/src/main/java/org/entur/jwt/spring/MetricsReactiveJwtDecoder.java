@@ -0,0 +1,47 @@
+package org.entur.jwt.spring;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+
+/**
+ *
+ * {@linkplain ReactiveJwtDecoder} which reports decode latency and failures to {@linkplain JwtDecoderMetrics}.
+ *
+ */
+
+public class MetricsReactiveJwtDecoder implements ReactiveJwtDecoder {
+
+    private final ReactiveJwtDecoder delegate;
+    private final JwtDecoderMetrics metrics;
+
+    public MetricsReactiveJwtDecoder(ReactiveJwtDecoder delegate, JwtDecoderMetrics metrics) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(metrics, "metrics cannot be null");
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) throws JwtException {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return delegate.decode(token)
+                    .doOnSuccess((jwt) -> metrics.onDecode(System.nanoTime() - start, true))
+                    .doOnError((e) -> {
+                        metrics.onDecode(System.nanoTime() - start, false);
+                        metrics.onFailure(JwtDecoderMetrics.Failure.of(e));
+                    });
+        });
+    }
+
+    public ReactiveJwtDecoder getDelegate() {
+        return delegate;
+    }
+
+    public JwtDecoderMetrics getMetrics() {
+        return metrics;
+    }
+}
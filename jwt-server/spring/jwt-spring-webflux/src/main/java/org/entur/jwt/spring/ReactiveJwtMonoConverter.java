@@ -5,6 +5,7 @@ import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jose.jwk.JWKMatcher;
 import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.proc.BadJOSEException;
 import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jose.proc.SecurityContext;
@@ -15,28 +16,67 @@ import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.JwtException;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ *
+ * Converter which verifies tokens without blocking the subscribing thread.<br><br>
+ *
+ * Tokens signed by a key present in the (known) cached JWK set are verified inline, all other tokens
+ * are verified on the given {@linkplain Scheduler}, as the JWK source might then block while fetching the JWK set.
+ */
 
 public class ReactiveJwtMonoConverter implements Converter<JWT, Mono<JWTClaimsSet>> {
 
     private final DefaultJWTProcessor<SecurityContext> jwtProcessor;
     private final JWSVerificationKeySelector selector;
+    private final CachedJwkSetEventListener cachedJwkSet;
+    private final Scheduler scheduler;
 
     public ReactiveJwtMonoConverter(DefaultJWTProcessor<SecurityContext> jwtProcessor, JWSVerificationKeySelector selector) {
+        this(jwtProcessor, selector, null, Schedulers.boundedElastic());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param jwtProcessor token processor
+     * @param selector key selector
+     * @param cachedJwkSet cached JWK set of the JWK source, or null if unknown
+     * @param scheduler scheduler for verification of tokens whose key is not cached
+     */
+
+    public ReactiveJwtMonoConverter(DefaultJWTProcessor<SecurityContext> jwtProcessor, JWSVerificationKeySelector selector, CachedJwkSetEventListener cachedJwkSet, Scheduler scheduler) {
         this.jwtProcessor = jwtProcessor;
         this.selector = selector;
+        this.cachedJwkSet = cachedJwkSet;
+        this.scheduler = scheduler;
     }
 
     @Override
     public Mono<JWTClaimsSet> convert(JWT source) {
-        Header header = source.getHeader();
-        JWSHeader jwsHeader = (JWSHeader) header;
-        if (!selector.isAllowed(jwsHeader.getAlgorithm())) {
-            throw new BadJwtException("Unsupported algorithm of " + header.getAlgorithm());
-        }
+        JWKSelector jwkSelector = createSelector(selector, source.getHeader());
 
-        return Mono.fromCallable(() -> {
+        Mono<JWTClaimsSet> mono = Mono.fromCallable(() -> {
             return createClaimsSet(source, null);
         });
+
+        if(isCached(jwkSelector)) {
+            return mono;
+        }
+        return mono.subscribeOn(scheduler);
+    }
+
+    private boolean isCached(JWKSelector jwkSelector) {
+        if(cachedJwkSet == null) {
+            return false;
+        }
+        JWKSet jwkSet = cachedJwkSet.getJWKSet(System.currentTimeMillis());
+        if(jwkSet == null) {
+            return false;
+        }
+        return !jwkSelector.select(jwkSet).isEmpty();
     }
 
     private <C extends SecurityContext> JWTClaimsSet createClaimsSet(JWT parsedToken, C context) {
@@ -57,5 +97,4 @@ public class ReactiveJwtMonoConverter implements Converter<JWT, Mono<JWTClaimsSe
         return new JWKSelector(JWKMatcher.forJWSHeader(jwsHeader));
     }
 
-
 }
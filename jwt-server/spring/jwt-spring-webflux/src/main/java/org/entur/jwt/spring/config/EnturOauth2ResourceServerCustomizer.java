@@ -10,28 +10,41 @@ import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 import com.nimbusds.jwt.proc.JWTProcessor;
+import org.entur.jwt.spring.AuthorityIndex;
+import org.entur.jwt.spring.CachedJwkSetEventListener;
+import org.entur.jwt.spring.CachingJwtDecoder;
+import org.entur.jwt.spring.CachingReactiveJwtDecoder;
 import org.entur.jwt.spring.EnrichedJwtGrantedAuthoritiesConverter;
+import org.entur.jwt.spring.IndexedJwtAuthenticationConverter;
 import org.entur.jwt.spring.JwtAuthorityEnricher;
+import org.entur.jwt.spring.JwtDecoderMetrics;
+import org.entur.jwt.spring.JwtPayloadReader;
+import org.entur.jwt.spring.JwtPayloadValidator;
+import org.entur.jwt.spring.MetricsReactiveJwtDecoder;
+import org.entur.jwt.spring.OAuth2TokenValidatorFactory;
 import org.entur.jwt.spring.ReactiveJwtMonoConverter;
+import org.entur.jwt.spring.VerifiedJwtCache;
+import org.entur.jwt.spring.actuate.ListEventListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
-import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtException;
-import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
 import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
-import org.springframework.security.oauth2.server.resource.authentication.JwtIssuerReactiveAuthenticationManagerResolver;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtReactiveAuthenticationManager;
 import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,13 +54,75 @@ public class EnturOauth2ResourceServerCustomizer implements Customizer<ServerHtt
     private static Logger LOGGER = LoggerFactory.getLogger(EnturOauth2ResourceServerCustomizer.class);
 
     private final Map<String, JWKSource> jwkSources;
+    private final Map<String, ListEventListener> jwkEventListeners;
     private final List<JwtAuthorityEnricher> jwtAuthorityEnrichers;
     private final List<OAuth2TokenValidator<Jwt>> jwtValidators;
+    private final VerifiedJwtCache verifiedJwtCache;
+    private final Scheduler scheduler;
+    private final JwtDecoderMetrics jwtDecoderMetrics;
+    private final AuthorityIndex authorityIndex;
 
     public EnturOauth2ResourceServerCustomizer(Map<String, JWKSource> jwkSources, List<JwtAuthorityEnricher> jwtAuthorityEnrichers, List<OAuth2TokenValidator<Jwt>> jwtValidators) {
+        this(jwkSources, jwtAuthorityEnrichers, jwtValidators, null);
+    }
+
+    public EnturOauth2ResourceServerCustomizer(Map<String, JWKSource> jwkSources, List<JwtAuthorityEnricher> jwtAuthorityEnrichers, List<OAuth2TokenValidator<Jwt>> jwtValidators, VerifiedJwtCache verifiedJwtCache) {
+        this(jwkSources, Collections.emptyMap(), jwtAuthorityEnrichers, jwtValidators, verifiedJwtCache, Schedulers.boundedElastic());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param jwkSources JWK sources per issuer
+     * @param jwkEventListeners JWK source event listeners per issuer, used to verify tokens with cached keys inline
+     * @param jwtAuthorityEnrichers authority enrichers
+     * @param jwtValidators validators common for all issuers
+     * @param verifiedJwtCache cache of verified tokens shared by all issuers, or null
+     * @param scheduler scheduler for verification of tokens whose key is not cached
+     */
+
+    public EnturOauth2ResourceServerCustomizer(Map<String, JWKSource> jwkSources, Map<String, ListEventListener> jwkEventListeners, List<JwtAuthorityEnricher> jwtAuthorityEnrichers, List<OAuth2TokenValidator<Jwt>> jwtValidators, VerifiedJwtCache verifiedJwtCache, Scheduler scheduler) {
+        this(jwkSources, jwkEventListeners, jwtAuthorityEnrichers, jwtValidators, verifiedJwtCache, scheduler, JwtDecoderMetrics.NOOP);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param jwkSources JWK sources per issuer
+     * @param jwkEventListeners JWK source event listeners per issuer, used to verify tokens with cached keys inline
+     * @param jwtAuthorityEnrichers authority enrichers
+     * @param jwtValidators validators common for all issuers
+     * @param verifiedJwtCache cache of verified tokens shared by all issuers, or null
+     * @param scheduler scheduler for verification of tokens whose key is not cached
+     * @param jwtDecoderMetrics decode metrics
+     */
+
+    public EnturOauth2ResourceServerCustomizer(Map<String, JWKSource> jwkSources, Map<String, ListEventListener> jwkEventListeners, List<JwtAuthorityEnricher> jwtAuthorityEnrichers, List<OAuth2TokenValidator<Jwt>> jwtValidators, VerifiedJwtCache verifiedJwtCache, Scheduler scheduler, JwtDecoderMetrics jwtDecoderMetrics) {
+        this(jwkSources, jwkEventListeners, jwtAuthorityEnrichers, jwtValidators, verifiedJwtCache, scheduler, jwtDecoderMetrics, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param jwkSources JWK sources per issuer
+     * @param jwkEventListeners JWK source event listeners per issuer, used to verify tokens with cached keys inline
+     * @param jwtAuthorityEnrichers authority enrichers
+     * @param jwtValidators validators common for all issuers
+     * @param verifiedJwtCache cache of verified tokens shared by all issuers, or null
+     * @param scheduler scheduler for verification of tokens whose key is not cached
+     * @param jwtDecoderMetrics decode metrics
+     * @param authorityIndex index for carrying authorities as a bitset, or null
+     */
+
+    public EnturOauth2ResourceServerCustomizer(Map<String, JWKSource> jwkSources, Map<String, ListEventListener> jwkEventListeners, List<JwtAuthorityEnricher> jwtAuthorityEnrichers, List<OAuth2TokenValidator<Jwt>> jwtValidators, VerifiedJwtCache verifiedJwtCache, Scheduler scheduler, JwtDecoderMetrics jwtDecoderMetrics, AuthorityIndex authorityIndex) {
         this.jwkSources = jwkSources;
+        this.jwkEventListeners = jwkEventListeners;
         this.jwtAuthorityEnrichers = jwtAuthorityEnrichers;
         this.jwtValidators = jwtValidators;
+        this.verifiedJwtCache = verifiedJwtCache;
+        this.scheduler = scheduler;
+        this.jwtDecoderMetrics = jwtDecoderMetrics;
+        this.authorityIndex = authorityIndex;
     }
 
     @Override
@@ -67,16 +142,30 @@ public class EnturOauth2ResourceServerCustomizer implements Customizer<ServerHtt
             jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
             });
 
-            ReactiveJwtMonoConverter reactiveConverter = new ReactiveJwtMonoConverter(jwtProcessor, verificationKeySelector);
+            CachedJwkSetEventListener cachedJwkSet = null;
+            ListEventListener jwkEventListener = jwkEventListeners.get(entry.getKey());
+            if(jwkEventListener != null) {
+                cachedJwkSet = new CachedJwkSetEventListener();
+                jwkEventListener.addEventListener(cachedJwkSet);
+            }
+
+            ReactiveJwtMonoConverter reactiveConverter = new ReactiveJwtMonoConverter(jwtProcessor, verificationKeySelector, cachedJwkSet, scheduler);
 
             NimbusReactiveJwtDecoder decoder = new NimbusReactiveJwtDecoder(reactiveConverter);
 
             decoder.setJwtValidator(getJwtValidators(entry));
 
-            JwtReactiveAuthenticationManager jwtReactiveAuthenticationManager = new JwtReactiveAuthenticationManager(decoder);
+            ReactiveJwtDecoder reactiveJwtDecoder = decoder;
+            if(verifiedJwtCache != null) {
+                reactiveJwtDecoder = new CachingReactiveJwtDecoder(decoder, verifiedJwtCache, CachingJwtDecoder.getTimeDependentValidator(jwtValidators));
+            }
+            if(jwtDecoderMetrics != JwtDecoderMetrics.NOOP) {
+                reactiveJwtDecoder = new MetricsReactiveJwtDecoder(reactiveJwtDecoder, jwtDecoderMetrics);
+            }
 
-            JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
-            jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(new EnrichedJwtGrantedAuthoritiesConverter(jwtAuthorityEnrichers));
+            JwtReactiveAuthenticationManager jwtReactiveAuthenticationManager = new JwtReactiveAuthenticationManager(reactiveJwtDecoder);
+
+            Converter<Jwt, AbstractAuthenticationToken> jwtAuthenticationConverter = IndexedJwtAuthenticationConverter.create(new EnrichedJwtGrantedAuthoritiesConverter(jwtAuthorityEnrichers), authorityIndex);
 
             jwtReactiveAuthenticationManager.setJwtAuthenticationConverter(new ReactiveJwtAuthenticationConverterAdapter(jwtAuthenticationConverter));
 
@@ -88,11 +177,14 @@ public class EnturOauth2ResourceServerCustomizer implements Customizer<ServerHtt
             Mono<ReactiveAuthenticationManager> authenticationManager = Mono.just(next);
             configurer.authenticationManagerResolver(request -> authenticationManager);
         } else {
-            IssuerAuthenticationManagerResolver issuer = new IssuerAuthenticationManagerResolver(map);
+            IssuerAuthenticationManagerResolver issuer = new IssuerAuthenticationManagerResolver(map, jwtDecoderMetrics);
+
+            // route by issuer without fully parsing the token; reject expired tokens before signature verification
+            JwtPayloadValidator jwtPayloadValidator = new JwtPayloadValidator(new JwtPayloadReader(), OAuth2TokenValidatorFactory.getCompiledJwtValidator(jwtValidators));
 
-            JwtIssuerReactiveAuthenticationManagerResolver jwtIssuerAuthenticationManagerResolver = new JwtIssuerReactiveAuthenticationManagerResolver(issuer);
+            Mono<ReactiveAuthenticationManager> issuerAuthenticationManager = Mono.just(new IssuerReactiveAuthenticationManager(issuer, jwtPayloadValidator, jwtDecoderMetrics));
 
-            configurer.authenticationManagerResolver(jwtIssuerAuthenticationManagerResolver);
+            configurer.authenticationManagerResolver(request -> issuerAuthenticationManager);
         }
     }
 
@@ -108,11 +200,7 @@ public class EnturOauth2ResourceServerCustomizer implements Customizer<ServerHtt
     }
 
 
-    private DelegatingOAuth2TokenValidator<Jwt> getJwtValidators(Map.Entry<String, JWKSource> entry) {
-        List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
-        validators.add(new JwtIssuerValidator(entry.getKey()));
-        validators.addAll(jwtValidators);
-        DelegatingOAuth2TokenValidator<Jwt> validator = new DelegatingOAuth2TokenValidator<>(validators);
-        return validator;
+    private OAuth2TokenValidator<Jwt> getJwtValidators(Map.Entry<String, JWKSource> entry) {
+        return OAuth2TokenValidatorFactory.forIssuer(entry.getKey(), jwtValidators);
     }
 }
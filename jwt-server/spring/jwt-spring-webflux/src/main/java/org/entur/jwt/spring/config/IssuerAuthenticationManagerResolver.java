@@ -1,5 +1,6 @@
 package org.entur.jwt.spring.config;
 
+import org.entur.jwt.spring.JwtDecoderMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
@@ -13,15 +14,24 @@ public class IssuerAuthenticationManagerResolver implements ReactiveAuthenticati
     private static Logger LOGGER = LoggerFactory.getLogger(IssuerAuthenticationManagerResolver.class);
 
     private final Map<String, ReactiveAuthenticationManager> map;
+    private final JwtDecoderMetrics jwtDecoderMetrics;
 
     public IssuerAuthenticationManagerResolver(Map<String, ReactiveAuthenticationManager> map) {
+        this(map, JwtDecoderMetrics.NOOP);
+    }
+
+    public IssuerAuthenticationManagerResolver(Map<String, ReactiveAuthenticationManager> map, JwtDecoderMetrics jwtDecoderMetrics) {
         this.map = map;
+        this.jwtDecoderMetrics = jwtDecoderMetrics;
     }
 
     @Override
     public Mono<ReactiveAuthenticationManager> resolve(String issuer) {
         ReactiveAuthenticationManager reactiveAuthenticationManager = map.get(issuer);
-        
+        if (reactiveAuthenticationManager == null) {
+            jwtDecoderMetrics.onFailure(JwtDecoderMetrics.Failure.UNKNOWN_ISSUER);
+        }
+
         return Mono.justOrEmpty(reactiveAuthenticationManager);
     }
 }
@@ -0,0 +1,61 @@
+package org.entur.jwt.spring.config;
+
+import org.entur.jwt.spring.JwtDecoderMetrics;
+import org.entur.jwt.spring.JwtPayload;
+import org.entur.jwt.spring.JwtPayloadReader;
+import org.entur.jwt.spring.JwtPayloadValidator;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManagerResolver;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import reactor.core.publisher.Mono;
+
+import java.text.ParseException;
+
+/**
+ *
+ * Routes bearer tokens to the {@linkplain ReactiveAuthenticationManager} of their issuer. The issuer is read using
+ * a streaming {@linkplain JwtPayloadReader}, and malformed or expired tokens are rejected before any signature work.
+ *
+ */
+
+public class IssuerReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private final ReactiveAuthenticationManagerResolver<String> issuerAuthenticationManagerResolver;
+    private final JwtPayloadValidator jwtPayloadValidator;
+    private final JwtDecoderMetrics jwtDecoderMetrics;
+
+    public IssuerReactiveAuthenticationManager(ReactiveAuthenticationManagerResolver<String> issuerAuthenticationManagerResolver, JwtPayloadValidator jwtPayloadValidator, JwtDecoderMetrics jwtDecoderMetrics) {
+        this.issuerAuthenticationManagerResolver = issuerAuthenticationManagerResolver;
+        this.jwtPayloadValidator = jwtPayloadValidator;
+        this.jwtDecoderMetrics = jwtDecoderMetrics;
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        if (!(authentication instanceof BearerTokenAuthenticationToken token)) {
+            return Mono.empty();
+        }
+
+        JwtPayload payload;
+        try {
+            payload = jwtPayloadValidator.validate(token.getToken());
+        } catch (ParseException e) {
+            jwtDecoderMetrics.onFailure(JwtDecoderMetrics.Failure.MALFORMED);
+            return Mono.error(new InvalidBearerTokenException(e.getMessage(), e));
+        } catch (JwtValidationException e) {
+            jwtDecoderMetrics.onFailure(JwtDecoderMetrics.Failure.of(e));
+            return Mono.error(new InvalidBearerTokenException(e.getMessage(), e));
+        }
+
+        String issuer = payload.getIssuer();
+        if (issuer == null) {
+            return Mono.error(new InvalidBearerTokenException("Missing issuer"));
+        }
+        return issuerAuthenticationManagerResolver.resolve(issuer)
+                .switchIfEmpty(Mono.error(() -> new InvalidBearerTokenException("Invalid issuer")))
+                .flatMap((manager) -> manager.authenticate(authentication));
+    }
+}
@@ -0,0 +1,104 @@
+package org.entur.jwt.spring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingReactiveJwtDecoderTest {
+
+    private final Instant now = Instant.parse("2026-01-01T12:00:00Z");
+
+    private ReactiveJwtDecoder delegate;
+    private VerifiedJwtCache cache;
+    private CachingReactiveJwtDecoder decoder;
+
+    @BeforeEach
+    public void init() {
+        delegate = mock(ReactiveJwtDecoder.class);
+        cache = new VerifiedJwtCache(16, 0);
+
+        JwtExpiresAtValidator expiresAtValidator = new JwtExpiresAtValidator(Duration.ZERO);
+        expiresAtValidator.setClock(Clock.fixed(now, ZoneOffset.UTC));
+
+        decoder = new CachingReactiveJwtDecoder(delegate, cache, CachingJwtDecoder.getTimeDependentValidator(Arrays.asList(expiresAtValidator)));
+        decoder.setClock(Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token).header("alg", "RS256").expiresAt(expiresAt).build();
+    }
+
+    @Test
+    public void testConcurrentRequestsShareVerification() throws Exception {
+        Jwt jwt = jwt("a", now.plusSeconds(60));
+
+        AtomicInteger subscriptions = new AtomicInteger();
+        Sinks.One<Jwt> sink = Sinks.one();
+        when(delegate.decode("a")).thenReturn(sink.asMono().doOnSubscribe((s) -> subscriptions.incrementAndGet()));
+
+        CompletableFuture<Jwt> first = decoder.decode("a").toFuture();
+        CompletableFuture<Jwt> second = decoder.decode("a").toFuture();
+
+        assertThat(first.isDone()).isFalse();
+        assertThat(second.isDone()).isFalse();
+
+        sink.tryEmitValue(jwt);
+
+        assertThat(first.get()).isSameInstanceAs(jwt);
+        assertThat(second.get()).isSameInstanceAs(jwt);
+
+        verify(delegate, times(1)).decode("a");
+        assertThat(subscriptions.get()).isEqualTo(1);
+
+        // now from cache
+        assertThat(decoder.decode("a").block()).isSameInstanceAs(jwt);
+        verify(delegate, times(1)).decode("a");
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFailuresAreNotCached() {
+        Jwt jwt = jwt("a", now.plusSeconds(60));
+
+        when(delegate.decode("a")).thenReturn(Mono.error(new BadJwtException("test")), Mono.just(jwt));
+
+        CompletableFuture<Jwt> failed = decoder.decode("a").toFuture();
+        ExecutionException exception = assertThrows(ExecutionException.class, failed::get);
+        assertThat(exception.getCause()).isInstanceOf(BadJwtException.class);
+
+        assertThat(decoder.decode("a").block()).isSameInstanceAs(jwt);
+        verify(delegate, times(2)).decode("a");
+    }
+
+    @Test
+    public void testExpiredEntry() {
+        when(delegate.decode("a")).thenReturn(Mono.just(jwt("a", now.plusSeconds(60))));
+
+        decoder.decode("a").block();
+
+        decoder.setClock(Clock.fixed(now.plusSeconds(60), ZoneOffset.UTC));
+        decoder.decode("a").block();
+
+        verify(delegate, times(2)).decode("a");
+    }
+}
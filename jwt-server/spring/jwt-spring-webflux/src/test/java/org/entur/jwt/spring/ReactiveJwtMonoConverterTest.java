@@ -0,0 +1,146 @@
+package org.entur.jwt.spring;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.CachingJWKSetSource;
+import com.nimbusds.jose.jwk.source.JWKSetBasedJWKSource;
+import com.nimbusds.jose.jwk.source.JWKSetCacheRefreshEvaluator;
+import com.nimbusds.jose.jwk.source.JWKSetSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Verify that JWK fetches are never performed on non-blocking (i.e. event loop) threads.
+ */
+
+public class ReactiveJwtMonoConverterTest {
+
+    private static class RecordingJWKSetSource implements JWKSetSource<SecurityContext> {
+
+        private final JWKSet jwkSet;
+
+        private final List<Boolean> nonBlockingContexts = new CopyOnWriteArrayList<>();
+
+        public RecordingJWKSetSource(JWKSet jwkSet) {
+            this.jwkSet = jwkSet;
+        }
+
+        @Override
+        public JWKSet getJWKSet(JWKSetCacheRefreshEvaluator refreshEvaluator, long currentTime, SecurityContext context) {
+            nonBlockingContexts.add(Schedulers.isInNonBlockingThread());
+            return jwkSet;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private RSAKey key;
+    private RecordingJWKSetSource jwkSetSource;
+    private Scheduler eventLoop;
+    private ReactiveJwtMonoConverter converter;
+
+    @BeforeEach
+    public void init() throws Exception {
+        key = new RSAKeyGenerator(2048).keyID("a").generate();
+
+        jwkSetSource = new RecordingJWKSetSource(new JWKSet(key.toPublicJWK()));
+
+        CachedJwkSetEventListener cachedJwkSet = new CachedJwkSetEventListener();
+
+        CachingJWKSetSource<SecurityContext> cachingJwkSetSource = new CachingJWKSetSource<>(jwkSetSource, 60_000, 1_000, cachedJwkSet);
+
+        JWSVerificationKeySelector<SecurityContext> verificationKeySelector = new JWSVerificationKeySelector<>(JWSAlgorithm.Family.SIGNATURE, new JWKSetBasedJWKSource<>(cachingJwkSetSource));
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(verificationKeySelector);
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        eventLoop = Schedulers.newParallel("event-loop", 1);
+
+        converter = new ReactiveJwtMonoConverter(jwtProcessor, verificationKeySelector, cachedJwkSet, Schedulers.boundedElastic());
+    }
+
+    @AfterEach
+    public void destroy() {
+        eventLoop.dispose();
+    }
+
+    @Test
+    public void testFetchesJwkSetOffEventLoop() throws Exception {
+        JWTClaimsSet claims = convertOnEventLoop(createToken(key));
+
+        assertThat(claims.getSubject()).isEqualTo("subject");
+        assertThat(jwkSetSource.nonBlockingContexts).containsExactly(false);
+    }
+
+    @Test
+    public void testVerifiesInlineWhenKeyIsCached() throws Exception {
+        convertOnEventLoop(createToken(key));
+
+        String threadName = Mono.defer(() -> {
+                    try {
+                        return converter.convert(SignedJWT.parse(createToken(key)));
+                    } catch (Exception e) {
+                        return Mono.error(e);
+                    }
+                })
+                .map(c -> Thread.currentThread().getName())
+                .subscribeOn(eventLoop)
+                .block(Duration.ofSeconds(10));
+
+        assertThat(threadName).startsWith("event-loop");
+        assertThat(jwkSetSource.nonBlockingContexts).containsExactly(false);
+    }
+
+    @Test
+    public void testFetchesJwkSetOffEventLoopForUnknownKey() throws Exception {
+        convertOnEventLoop(createToken(key));
+
+        RSAKey unknownKey = new RSAKeyGenerator(2048).keyID("b").generate();
+        try {
+            convertOnEventLoop(createToken(unknownKey));
+        } catch (Exception e) {
+            // ignore, key is not in JWK set
+        }
+
+        assertThat(jwkSetSource.nonBlockingContexts).doesNotContain(true);
+        assertThat(jwkSetSource.nonBlockingContexts.size()).isGreaterThan(1);
+    }
+
+    private JWTClaimsSet convertOnEventLoop(String token) throws Exception {
+        SignedJWT jwt = SignedJWT.parse(token);
+        return Mono.defer(() -> converter.convert(jwt))
+                .subscribeOn(eventLoop)
+                .block(Duration.ofSeconds(10));
+    }
+
+    private String createToken(RSAKey signingKey) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder().subject("subject").build();
+
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(signingKey));
+        return jwt.serialize();
+    }
+}